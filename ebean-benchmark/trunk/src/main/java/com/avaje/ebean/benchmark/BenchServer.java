@@ -0,0 +1,90 @@
+package com.avaje.ebean.benchmark;
+
+import java.util.Date;
+
+import com.avaje.ebean.EbeanServer;
+import com.avaje.ebean.EbeanServerFactory;
+import com.avaje.ebean.Transaction;
+import com.avaje.ebean.benchmark.model.BenchCustomer;
+import com.avaje.ebean.benchmark.model.BenchOrder;
+import com.avaje.ebean.config.DataSourceConfig;
+import com.avaje.ebean.config.ServerConfig;
+
+/**
+ * Creates EbeanServers against an in memory H2 database for the benchmarks.
+ */
+public class BenchServer {
+
+	/**
+	 * Return the DataSourceConfig for a new in memory H2 database.
+	 */
+	public static DataSourceConfig createDataSourceConfig(String name) {
+
+		DataSourceConfig ds = new DataSourceConfig();
+		ds.setDriver("org.h2.Driver");
+		ds.setUrl("jdbc:h2:mem:" + name + ";DB_CLOSE_DELAY=-1");
+		ds.setUsername("sa");
+		ds.setPassword("");
+		ds.setMinConnections(1);
+		ds.setMaxConnections(20);
+		return ds;
+	}
+
+	/**
+	 * Create an EbeanServer with the benchmark tables created.
+	 */
+	public static EbeanServer create(String name) {
+
+		ServerConfig config = new ServerConfig();
+		config.setName(name);
+		config.setRegister(false);
+		config.setDefaultServer(false);
+		config.setDataSourceConfig(createDataSourceConfig(name));
+		config.setDdlGenerate(true);
+		config.setDdlRun(true);
+		config.addClass(BenchCustomer.class);
+		config.addClass(BenchOrder.class);
+
+		return EbeanServerFactory.create(config);
+	}
+
+	/**
+	 * Insert the customers and the orders spread evenly over the customers.
+	 */
+	public static void insertData(EbeanServer server, int customerCount, int orderCount) {
+
+		Transaction txn = server.beginTransaction();
+		try {
+			txn.setBatchSize(100);
+
+			BenchCustomer[] customers = new BenchCustomer[customerCount];
+			for (int i = 0; i < customerCount; i++) {
+				customers[i] = newCustomer(i);
+				server.save(customers[i], txn);
+			}
+			for (int i = 0; i < orderCount; i++) {
+				BenchOrder order = new BenchOrder();
+				order.setCustomer(customers[i % customerCount]);
+				order.setStatus("NEW");
+				order.setOrderDate(new Date());
+				order.setAmount(Double.valueOf(i));
+				server.save(order, txn);
+			}
+			txn.commit();
+		} finally {
+			txn.end();
+		}
+	}
+
+	/**
+	 * Return a new customer with all the properties set.
+	 */
+	public static BenchCustomer newCustomer(int i) {
+		BenchCustomer customer = new BenchCustomer();
+		customer.setName("customer " + i);
+		customer.setStatus("ACTIVE");
+		customer.setNotes("notes for customer " + i);
+		customer.setRegistered(new Date());
+		return customer;
+	}
+}
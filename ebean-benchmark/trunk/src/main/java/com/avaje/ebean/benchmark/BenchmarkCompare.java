@@ -0,0 +1,169 @@
+package com.avaje.ebean.benchmark;
+
+import java.io.BufferedReader;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Compares JMH CSV results (<code>-rf csv</code>) against the baseline results
+ * and reports the change for each benchmark.
+ * <p>
+ * Usage: <code>BenchmarkCompare baseline.csv current.csv [thresholdPercent]</code>
+ * </p>
+ * <p>
+ * A benchmark is a regression when its score is worse than the baseline by
+ * more than the threshold (default 10%). For throughput higher is better and
+ * for the other modes (average time, sample time etc) lower is better. The
+ * exit code is 1 if there is any regression so that it can fail a build.
+ * </p>
+ */
+public class BenchmarkCompare {
+
+	private static final double DEFAULT_THRESHOLD = 10d;
+
+	public static void main(String[] args) throws IOException {
+
+		if (args.length < 2) {
+			System.err.println("Usage: BenchmarkCompare baseline.csv current.csv [thresholdPercent]");
+			System.exit(2);
+		}
+		double threshold = args.length > 2 ? Double.parseDouble(args[2]) : DEFAULT_THRESHOLD;
+
+		Map<String, Result> baseline = read(args[0]);
+		Map<String, Result> current = read(args[1]);
+
+		int regressions = report(baseline, current, threshold);
+		if (regressions > 0) {
+			System.out.println(regressions + " regression(s) greater than " + threshold + "%");
+			System.exit(1);
+		}
+	}
+
+	/**
+	 * Print the comparison returning the number of regressions.
+	 */
+	static int report(Map<String, Result> baseline, Map<String, Result> current, double threshold) {
+
+		int regressions = 0;
+		System.out.println(String.format("%-70s %6s %14s %14s %9s", "Benchmark", "Mode", "Baseline", "Current", "Change"));
+
+		for (Result result : current.values()) {
+			Result base = baseline.get(result.key);
+			if (base == null) {
+				System.out.println(String.format("%-70s %6s %14s %14.3f %9s", result.key, result.mode, "-", result.score, "new"));
+				continue;
+			}
+			double change = base.score == 0 ? 0 : (result.score - base.score) * 100d / base.score;
+			// positive when the result is worse than the baseline
+			double worse = result.isHigherBetter() ? -change : change;
+			String flag = "";
+			if (worse > threshold) {
+				flag = " REGRESSION";
+				regressions++;
+			}
+			System.out.println(String.format("%-70s %6s %14.3f %14.3f %+8.1f%%%s", result.key, result.mode,
+					base.score, result.score, change, flag));
+		}
+		for (Result base : baseline.values()) {
+			if (!current.containsKey(base.key)) {
+				System.out.println(String.format("%-70s %6s %14.3f %14s %9s", base.key, base.mode, base.score, "-", "missing"));
+			}
+		}
+		return regressions;
+	}
+
+	/**
+	 * Read the results of a JMH CSV file keyed by benchmark name and params.
+	 */
+	static Map<String, Result> read(String fileName) throws IOException {
+
+		Map<String, Result> results = new LinkedHashMap<String, Result>();
+
+		BufferedReader reader = new BufferedReader(new InputStreamReader(new FileInputStream(fileName), "UTF-8"));
+		try {
+			String line = reader.readLine();
+			if (line == null) {
+				return results;
+			}
+			List<String> header = parseLine(line);
+			int benchmarkCol = header.indexOf("Benchmark");
+			int modeCol = header.indexOf("Mode");
+			int scoreCol = header.indexOf("Score");
+			if (benchmarkCol < 0 || modeCol < 0 || scoreCol < 0) {
+				throw new IOException("Not a JMH CSV result file " + fileName);
+			}
+
+			while ((line = reader.readLine()) != null) {
+				if (line.trim().length() == 0) {
+					continue;
+				}
+				List<String> cols = parseLine(line);
+				StringBuilder key = new StringBuilder(cols.get(benchmarkCol));
+				for (int i = 0; i < header.size() && i < cols.size(); i++) {
+					String name = header.get(i);
+					if (name.startsWith("Param: ") && cols.get(i).length() > 0) {
+						key.append(" ").append(name.substring(7)).append("=").append(cols.get(i));
+					}
+				}
+				Result result = new Result(key.toString(), cols.get(modeCol), Double.parseDouble(cols.get(scoreCol)));
+				results.put(result.key, result);
+			}
+			return results;
+
+		} finally {
+			reader.close();
+		}
+	}
+
+	/**
+	 * Parse a CSV line where values may be quoted.
+	 */
+	static List<String> parseLine(String line) {
+
+		List<String> cols = new ArrayList<String>();
+		StringBuilder sb = new StringBuilder();
+		boolean quoted = false;
+		for (int i = 0; i < line.length(); i++) {
+			char ch = line.charAt(i);
+			if (ch == '"') {
+				if (quoted && i + 1 < line.length() && line.charAt(i + 1) == '"') {
+					sb.append('"');
+					i++;
+				} else {
+					quoted = !quoted;
+				}
+			} else if (ch == ',' && !quoted) {
+				cols.add(sb.toString());
+				sb.setLength(0);
+			} else {
+				sb.append(ch);
+			}
+		}
+		cols.add(sb.toString());
+		return cols;
+	}
+
+	static class Result {
+
+		final String key;
+
+		final String mode;
+
+		final double score;
+
+		Result(String key, String mode, double score) {
+			this.key = key;
+			this.mode = mode;
+			this.score = score;
+		}
+
+		boolean isHigherBetter() {
+			return "thrpt".equals(mode);
+		}
+	}
+}
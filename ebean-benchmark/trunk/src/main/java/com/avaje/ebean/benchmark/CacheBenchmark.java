@@ -0,0 +1,73 @@
+package com.avaje.ebean.benchmark;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.avaje.ebean.cache.ServerCacheOptions;
+import com.avaje.ebeaninternal.server.cache.DefaultServerCache;
+
+/**
+ * Measures DefaultServerCache get and put under concurrent access.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 10, time = 1)
+@Threads(4)
+@Fork(1)
+public class CacheBenchmark {
+
+	private static final int KEYS = 10000;
+
+	private final Integer[] keys = new Integer[KEYS];
+
+	private DefaultServerCache cache;
+
+	@Setup
+	public void setup() {
+		ServerCacheOptions options = new ServerCacheOptions();
+		options.setMaxSize(KEYS * 2);
+		cache = new DefaultServerCache("bench", options);
+		for (int i = 0; i < KEYS; i++) {
+			keys[i] = Integer.valueOf(i);
+			cache.put(keys[i], "value " + i);
+		}
+	}
+
+	/**
+	 * Per thread position in the keys.
+	 */
+	@State(Scope.Thread)
+	public static class Position {
+
+		int next;
+
+		Integer nextKey(Integer[] keys) {
+			next = (next + 7) % keys.length;
+			return keys[next];
+		}
+	}
+
+	@Benchmark
+	public Object get(Position position) {
+		return cache.get(position.nextKey(keys));
+	}
+
+	@Benchmark
+	public Object put(Position position) {
+		Integer key = position.nextKey(keys);
+		return cache.put(key, key);
+	}
+}
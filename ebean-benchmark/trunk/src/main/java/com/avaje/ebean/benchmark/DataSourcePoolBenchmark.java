@@ -0,0 +1,74 @@
+package com.avaje.ebean.benchmark;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.avaje.ebean.config.DataSourceConfig;
+import com.avaje.ebeaninternal.server.lib.sql.DataSourceNotify;
+import com.avaje.ebeaninternal.server.lib.sql.DataSourcePool;
+
+/**
+ * Measures DataSourcePool borrowing and returning connections under
+ * contention for both connection queue implementations.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 10, time = 1)
+@Threads(8)
+@Fork(1)
+public class DataSourcePoolBenchmark {
+
+	@Param({ "false", "true" })
+	public boolean lockFreeQueue;
+
+	private DataSourcePool pool;
+
+	@Setup
+	public void setup() {
+		DataSourceConfig config = BenchServer.createDataSourceConfig("pool");
+		config.setMinConnections(4);
+		config.setMaxConnections(4);
+		config.setLockFreeQueue(lockFreeQueue);
+		pool = new DataSourcePool(new NoopNotify(), "pool", config);
+	}
+
+	@TearDown
+	public void tearDown() {
+		pool.shutdown();
+	}
+
+	@Benchmark
+	public void borrowReturn() throws SQLException {
+		Connection c = pool.getConnection();
+		c.close();
+	}
+
+	private static class NoopNotify implements DataSourceNotify {
+
+		public void notifyDataSourceUp(String dataSourceName) {
+		}
+
+		public void notifyDataSourceDown(String dataSourceName) {
+		}
+
+		public void notifyWarning(String subject, String msg) {
+		}
+	}
+}
@@ -0,0 +1,95 @@
+package com.avaje.ebean.benchmark;
+
+import java.util.Date;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import com.avaje.ebean.EbeanServer;
+import com.avaje.ebean.bean.EntityBean;
+import com.avaje.ebean.bean.EntityBeanIntercept;
+import com.avaje.ebean.benchmark.model.BenchCustomer;
+
+/**
+ * Measures the EntityBeanIntercept interception of getters and setters on
+ * enhanced beans.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 10, time = 1)
+@Fork(1)
+public class InterceptBenchmark {
+
+	private final Date date = new Date();
+
+	private BenchCustomer loaded;
+
+	private BenchCustomer newBean;
+
+	@Setup
+	public void setup() {
+		EbeanServer server = BenchServer.create("intercept");
+		BenchServer.insertData(server, 1, 0);
+		loaded = server.find(BenchCustomer.class).findList().get(0);
+		newBean = BenchServer.newCustomer(0);
+	}
+
+	/**
+	 * Get the properties of a loaded bean.
+	 */
+	@Benchmark
+	public void getLoaded(Blackhole bh) {
+		bh.consume(loaded.getId());
+		bh.consume(loaded.getName());
+		bh.consume(loaded.getStatus());
+		bh.consume(loaded.getNotes());
+		bh.consume(loaded.getRegistered());
+	}
+
+	/**
+	 * Set the properties of a new bean (no old values are held).
+	 */
+	@Benchmark
+	public BenchCustomer setNew() {
+		newBean.setName("name");
+		newBean.setStatus("ACTIVE");
+		newBean.setNotes("notes");
+		newBean.setRegistered(date);
+		return newBean;
+	}
+
+	/**
+	 * Set the properties of a loaded bean which creates the old values for
+	 * the dirty check and optimistic concurrency.
+	 */
+	@Benchmark
+	public BenchCustomer setLoaded() {
+		EntityBeanIntercept ebi = ((EntityBean) loaded)._ebean_getIntercept();
+		ebi.setLoaded();
+		loaded.setName("name");
+		loaded.setStatus("ACTIVE");
+		loaded.setNotes("notes");
+		loaded.setRegistered(date);
+		return loaded;
+	}
+
+	/**
+	 * Construct a new enhanced bean.
+	 */
+	@Benchmark
+	public BenchCustomer construct() {
+		return new BenchCustomer();
+	}
+}
@@ -0,0 +1,96 @@
+package com.avaje.ebean.benchmark;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.avaje.ebean.EbeanServer;
+import com.avaje.ebean.Transaction;
+import com.avaje.ebean.benchmark.model.BenchCustomer;
+
+/**
+ * Measures DefaultPersister insert and update including the binding of the
+ * bean properties.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 10, time = 1)
+@Fork(1)
+public class PersistBenchmark {
+
+	private static final int BATCH = 100;
+
+	private EbeanServer server;
+
+	private BenchCustomer updateBean;
+
+	private int counter;
+
+	@Setup
+	public void setup() {
+		server = BenchServer.create("persist");
+		BenchServer.insertData(server, 1, 0);
+		updateBean = server.find(BenchCustomer.class).findList().get(0);
+	}
+
+	/**
+	 * Remove the inserted rows so the table does not grow across iterations.
+	 */
+	@Setup(Level.Iteration)
+	public void deleteInserted() {
+		if (updateBean != null) {
+			server.createSqlUpdate("delete from bench_customer where id <> :id")
+				.setParameter("id", updateBean.getId())
+				.execute();
+		}
+	}
+
+	/**
+	 * Insert a single bean in its own transaction.
+	 */
+	@Benchmark
+	public BenchCustomer insert() {
+		BenchCustomer customer = BenchServer.newCustomer(counter++);
+		server.save(customer);
+		return customer;
+	}
+
+	/**
+	 * Insert beans using JDBC batch.
+	 */
+	@Benchmark
+	public void insertBatch() {
+		Transaction txn = server.beginTransaction();
+		try {
+			txn.setBatchSize(BATCH);
+			for (int i = 0; i < BATCH; i++) {
+				server.save(BenchServer.newCustomer(counter++), txn);
+			}
+			txn.commit();
+		} finally {
+			txn.end();
+		}
+	}
+
+	/**
+	 * Update a bean (with optimistic concurrency checking on the version).
+	 */
+	@Benchmark
+	public BenchCustomer update() {
+		updateBean.setName("customer " + (counter++));
+		server.save(updateBean);
+		return updateBean;
+	}
+}
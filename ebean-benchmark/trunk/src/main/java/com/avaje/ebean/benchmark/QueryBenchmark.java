@@ -0,0 +1,67 @@
+package com.avaje.ebean.benchmark;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.avaje.ebean.EbeanServer;
+import com.avaje.ebean.benchmark.model.BenchCustomer;
+import com.avaje.ebean.benchmark.model.BenchOrder;
+
+/**
+ * Measures reading rows with CQuery and loading beans via SqlTreeNodeBean.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 10, time = 1)
+@Fork(1)
+public class QueryBenchmark {
+
+	private static final int CUSTOMERS = 100;
+
+	private static final int ORDERS = 1000;
+
+	private EbeanServer server;
+
+	@Setup
+	public void setup() {
+		server = BenchServer.create("query");
+		BenchServer.insertData(server, CUSTOMERS, ORDERS);
+	}
+
+	/**
+	 * Read all the orders (a single table).
+	 */
+	@Benchmark
+	public List<BenchOrder> findList() {
+		return server.find(BenchOrder.class).findList();
+	}
+
+	/**
+	 * Read all the orders loading the joined customer.
+	 */
+	@Benchmark
+	public List<BenchOrder> findListFetchJoin() {
+		return server.find(BenchOrder.class).fetch("customer").findList();
+	}
+
+	/**
+	 * Read a single customer by id.
+	 */
+	@Benchmark
+	public BenchCustomer findById() {
+		return server.find(BenchCustomer.class, Integer.valueOf(CUSTOMERS / 2));
+	}
+}
@@ -0,0 +1,79 @@
+package com.avaje.ebean.benchmark.model;
+
+import java.sql.Timestamp;
+import java.util.Date;
+
+import javax.persistence.Entity;
+import javax.persistence.Id;
+import javax.persistence.Table;
+import javax.persistence.Version;
+
+/**
+ * Customer entity used by the benchmarks.
+ */
+@Entity
+@Table(name = "bench_customer")
+public class BenchCustomer {
+
+	@Id
+	Integer id;
+
+	String name;
+
+	String status;
+
+	String notes;
+
+	Date registered;
+
+	@Version
+	Timestamp updtime;
+
+	public Integer getId() {
+		return id;
+	}
+
+	public void setId(Integer id) {
+		this.id = id;
+	}
+
+	public String getName() {
+		return name;
+	}
+
+	public void setName(String name) {
+		this.name = name;
+	}
+
+	public String getStatus() {
+		return status;
+	}
+
+	public void setStatus(String status) {
+		this.status = status;
+	}
+
+	public String getNotes() {
+		return notes;
+	}
+
+	public void setNotes(String notes) {
+		this.notes = notes;
+	}
+
+	public Date getRegistered() {
+		return registered;
+	}
+
+	public void setRegistered(Date registered) {
+		this.registered = registered;
+	}
+
+	public Timestamp getUpdtime() {
+		return updtime;
+	}
+
+	public void setUpdtime(Timestamp updtime) {
+		this.updtime = updtime;
+	}
+}
@@ -0,0 +1,81 @@
+package com.avaje.ebean.benchmark.model;
+
+import java.sql.Timestamp;
+import java.util.Date;
+
+import javax.persistence.Entity;
+import javax.persistence.Id;
+import javax.persistence.ManyToOne;
+import javax.persistence.Table;
+import javax.persistence.Version;
+
+/**
+ * Order entity used by the benchmarks.
+ */
+@Entity
+@Table(name = "bench_order")
+public class BenchOrder {
+
+	@Id
+	Integer id;
+
+	@ManyToOne
+	BenchCustomer customer;
+
+	String status;
+
+	Date orderDate;
+
+	Double amount;
+
+	@Version
+	Timestamp updtime;
+
+	public Integer getId() {
+		return id;
+	}
+
+	public void setId(Integer id) {
+		this.id = id;
+	}
+
+	public BenchCustomer getCustomer() {
+		return customer;
+	}
+
+	public void setCustomer(BenchCustomer customer) {
+		this.customer = customer;
+	}
+
+	public String getStatus() {
+		return status;
+	}
+
+	public void setStatus(String status) {
+		this.status = status;
+	}
+
+	public Date getOrderDate() {
+		return orderDate;
+	}
+
+	public void setOrderDate(Date orderDate) {
+		this.orderDate = orderDate;
+	}
+
+	public Double getAmount() {
+		return amount;
+	}
+
+	public void setAmount(Double amount) {
+		this.amount = amount;
+	}
+
+	public Timestamp getUpdtime() {
+		return updtime;
+	}
+
+	public void setUpdtime(Timestamp updtime) {
+		this.updtime = updtime;
+	}
+}
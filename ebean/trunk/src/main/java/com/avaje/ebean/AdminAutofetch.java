@@ -130,4 +130,21 @@ public interface AdminAutofetch {
 	 */
 	public int getTotalProfileSize();
 
-}
\ No newline at end of file
+	/**
+	 * Return true if the lazy loading batch size is adapted per path using the
+	 * profiling information.
+	 */
+	public boolean isLazyLoadBatchAdaptive();
+
+	/**
+	 * Set to true to adapt the lazy loading batch size per path using the
+	 * profiling information.
+	 */
+	public void setLazyLoadBatchAdaptive(boolean lazyLoadBatchAdaptive);
+
+	/**
+	 * Return a summary of the adapted lazy loading batch sizes per path.
+	 */
+	public String getLazyLoadBatchSizes();
+
+}
\ No newline at end of file
@@ -21,6 +21,7 @@ package com.avaje.ebean;
 
 import java.io.InputStream;
 import java.io.ObjectInputStream;
+import java.io.Writer;
 import java.util.Collection;
 import java.util.Iterator;
 import java.util.List;
@@ -34,6 +35,7 @@ import com.avaje.ebean.cache.ServerCacheManager;
 import com.avaje.ebean.config.ServerConfig;
 import com.avaje.ebean.text.csv.CsvReader;
 import com.avaje.ebean.text.json.JsonContext;
+import com.avaje.ebean.text.json.JsonWriteOptions;
 
 /**
  * Provides the API for fetching and saving beans to a particular DataSource.
@@ -497,6 +499,38 @@ public interface EbeanServer {
 	 */
 	public <T> void findVisit(Query<T> query, QueryResultVisitor<T> visitor, Transaction t);
 
+	/**
+	 * Execute the query visiting the results in parallel partitions based on
+	 * ranges of the id.
+	 * 
+	 * @see Query#findVisitParallel(int, QueryResultVisitor)
+	 */
+	public <T> void findVisitParallel(Query<T> query, int partitions, QueryResultVisitor<T> visitor);
+
+	/**
+	 * Execute the query visiting the results in parallel using the partition
+	 * expressions.
+	 * 
+	 * @see Query#findVisitParallel(List, QueryResultVisitor)
+	 */
+	public <T> void findVisitParallel(Query<T> query, List<Expression> partitions, QueryResultVisitor<T> visitor);
+
+	/**
+	 * Execute the query writing the results as JSON to the writer.
+	 * <p>
+	 * The rows are written as they are read from the resultSet without
+	 * building beans or using a persistence context so memory use stays flat
+	 * for large queries. The PathProperties of the options (if any) are
+	 * applied to the query to define the properties selected and written.
+	 * </p>
+	 * <p>
+	 * Only the main query is used. Properties loaded by query joins or lazy
+	 * loading are not included and a fetch join to a many property must be on
+	 * the root bean type.
+	 * </p>
+	 */
+	public <T> void findJson(Query<T> query, Writer writer, JsonWriteOptions options, Transaction t);
+
 	/**
 	 * Execute a query returning a list of beans.
 	 * <p>
@@ -585,6 +619,13 @@ public interface EbeanServer {
 	 */
 	public <T> PagingList<T> findPagingList(Query<T> query, Transaction t, int pageSize);
 
+	/**
+	 * Find using a keyset PagingList with explicit transaction and pageSize.
+	 * 
+	 * @see Query#findKeysetPagingList(int)
+	 */
+	public <T> PagingList<T> findKeysetPagingList(Query<T> query, Transaction t, int pageSize);
+
 	/**
 	 * Execute the query returning a set of entity beans.
 	 * <p>
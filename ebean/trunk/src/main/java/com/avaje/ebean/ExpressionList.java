@@ -20,6 +20,7 @@
 package com.avaje.ebean;
 
 import java.io.Serializable;
+import java.io.Writer;
 import java.util.Collection;
 import java.util.List;
 import java.util.Map;
@@ -120,6 +121,27 @@ public interface ExpressionList<T> extends Serializable {
      */
     public void findVisit(QueryResultVisitor<T> visitor);
 
+    /**
+     * Execute the query visiting the results in parallel id range partitions.
+     *
+     * @see Query#findVisitParallel(int, QueryResultVisitor)
+     */
+    public void findVisitParallel(int partitions, QueryResultVisitor<T> visitor);
+
+    /**
+     * Execute the query visiting the results in parallel partitions.
+     *
+     * @see Query#findVisitParallel(List, QueryResultVisitor)
+     */
+    public void findVisitParallel(List<Expression> partitions, QueryResultVisitor<T> visitor);
+
+    /**
+     * Execute the query writing the results as JSON.
+     *
+     * @see Query#findJson(Writer)
+     */
+    public void findJson(Writer writer);
+
     /**
      * Execute the query returning a list.
      * 
@@ -223,6 +245,13 @@ public interface ExpressionList<T> extends Serializable {
      */
     public PagingList<T> findPagingList(int pageSize);
 
+    /**
+     * Return a PagingList for this query that uses keyset (seek) pagination.
+     * 
+     * @see Query#findKeysetPagingList(int)
+     */
+    public PagingList<T> findKeysetPagingList(int pageSize);
+
     public ExpressionList<T> filterMany(String prop);
 
     /**
@@ -20,8 +20,10 @@
 package com.avaje.ebean;
 
 import com.avaje.ebean.config.ServerConfig;
+import com.avaje.ebean.text.json.JsonWriteOptions;
 
 import java.io.Serializable;
+import java.io.Writer;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
@@ -512,6 +514,80 @@ public interface Query<T> extends Serializable {
      */
     public void findVisit(QueryResultVisitor<T> visitor);
 
+    /**
+     * Execute the query in parallel partitions using callbacks to a visitor
+     * to process the resulting beans.
+     * <p>
+     * The range of the (integral) id is split into the number of partitions
+     * and each partition is executed as a separate query in a background
+     * thread with its own transaction and connection. This is intended for
+     * batch processing of large tables.
+     * </p>
+     * <p>
+     * The visitor is called concurrently and must be thread safe. There is no
+     * ordering across the partitions. If the visitor returns false all the
+     * partitions stop processing. If the bean does not have a single integral
+     * id the query is visited without partitioning.
+     * </p>
+     * 
+     * @param partitions
+     *            the number of partitions (queries) to execute in parallel
+     * @param visitor
+     *            the thread safe visitor used to process the queried beans.
+     */
+    public void findVisitParallel(int partitions, QueryResultVisitor<T> visitor);
+
+    /**
+     * Execute the query in parallel using the given partition expressions.
+     * <p>
+     * Each partition expression is added to the where clause of a copy of
+     * this query and executed in a background thread. The expressions should
+     * not overlap (otherwise beans are visited more than once).
+     * </p>
+     * 
+     * @param partitions
+     *            the expressions that partition the query
+     * @param visitor
+     *            the thread safe visitor used to process the queried beans.
+     * @see #findVisitParallel(int, QueryResultVisitor)
+     */
+    public void findVisitParallel(List<Expression> partitions, QueryResultVisitor<T> visitor);
+
+    /**
+     * Execute the query writing the results as a JSON array to the writer.
+     * <p>
+     * Similar to findVisit() the results are not all held in memory. The rows
+     * are written as JSON as they are read without building any beans and as
+     * such this is useful for exporting large queries.
+     * </p>
+     * 
+     * <pre class="code">
+     * 
+     * Writer writer = ...
+     * 
+     * server.find(Order.class)
+     *  .fetch(&quot;customer&quot;, &quot;name&quot;)
+     *  .fetch(&quot;details&quot;)
+     *  .where().gt(&quot;id&quot;, 0)
+     *  .findJson(writer);
+     * </pre>
+     * 
+     * @see EbeanServer#findJson(Query, Writer, JsonWriteOptions, Transaction)
+     */
+    public void findJson(Writer writer);
+
+    /**
+     * Execute the query writing the results as a JSON array to the writer
+     * using the options.
+     * <p>
+     * The PathProperties of the options are applied to the query so that only
+     * those properties are selected.
+     * </p>
+     * 
+     * @see EbeanServer#findJson(Query, Writer, JsonWriteOptions, Transaction)
+     */
+    public void findJson(Writer writer, JsonWriteOptions options);
+
     /**
      * Execute the query returning the list of objects.
      * <p>
@@ -664,6 +740,28 @@ public interface Query<T> extends Serializable {
      */
     public PagingList<T> findPagingList(int pageSize);
 
+    /**
+     * Return a PagingList for this query that uses keyset (seek) pagination.
+     * <p>
+     * Rather than an offset the pages after the first use the order by values
+     * of the last bean of the previous page as a predicate. The id property
+     * is added to the order by to make the order unique. The cost of a page
+     * then does not grow with the page index which suits iterating through
+     * a large number of pages.
+     * </p>
+     * <p>
+     * Each page requires the previous page so pages are fetched sequentially
+     * (fetch ahead still runs the query for the next page in the background).
+     * Offset is used when an order by property is nullable (as rows with a
+     * null value would otherwise be skipped) or when the id is an embedded id.
+     * </p>
+     * 
+     * @param pageSize
+     *            the number of beans fetched per Page
+     * 
+     */
+    public PagingList<T> findKeysetPagingList(int pageSize);
+
     /**
      * Set a named bind parameter. Named parameters have a colon to prefix the
      * name.
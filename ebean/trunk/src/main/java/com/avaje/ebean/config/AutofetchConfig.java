@@ -27,6 +27,12 @@ public class AutofetchConfig {
 	
 	private int garbageCollectionWait = 100;
 	
+	private boolean lazyLoadBatchAdaptive = false;
+	
+	private int lazyLoadBatchMax = 100;
+	
+	private boolean useTunedQueryStore = false;
+	
 	public AutofetchConfig() {
 	}
 	
@@ -227,6 +233,64 @@ public class AutofetchConfig {
 		this.garbageCollectionWait = garbageCollectionWait;
 	}
 
+	/**
+	 * Return true if the lazy loading batch size is adapted per path using the
+	 * autofetch profiling information.
+	 * <p>
+	 * The profiling information shows the ratio of beans at a given path that
+	 * were actually used. A lazy load then batches that ratio of the beans still
+	 * waiting to be loaded at that path (rather than the fixed lazy load batch
+	 * size). Profiling needs to be on to collect this information.
+	 * </p>
+	 * <p>
+	 * This is not applied to paths that explicitly set a lazy load batch size
+	 * via fetch(path, new FetchConfig().lazy(batchSize)).
+	 * </p>
+	 */
+	public boolean isLazyLoadBatchAdaptive() {
+		return lazyLoadBatchAdaptive;
+	}
+
+	/**
+	 * Set to true to adapt the lazy loading batch size per path using the
+	 * autofetch profiling information.
+	 */
+	public void setLazyLoadBatchAdaptive(boolean lazyLoadBatchAdaptive) {
+		this.lazyLoadBatchAdaptive = lazyLoadBatchAdaptive;
+	}
+
+	/**
+	 * Return the maximum batch size used by adaptive lazy loading.
+	 */
+	public int getLazyLoadBatchMax() {
+		return lazyLoadBatchMax;
+	}
+
+	/**
+	 * Set the maximum batch size used by adaptive lazy loading.
+	 */
+	public void setLazyLoadBatchMax(int lazyLoadBatchMax) {
+		this.lazyLoadBatchMax = lazyLoadBatchMax;
+	}
+
+	/**
+	 * Return true if the tuned queries are appended to a file as they change.
+	 * <p>
+	 * This means the tuned queries survive a restart (without requiring a
+	 * clean shutdown) and are used from the first query after a restart.
+	 * </p>
+	 */
+	public boolean isUseTunedQueryStore() {
+		return useTunedQueryStore;
+	}
+
+	/**
+	 * Set to true to append the tuned queries to a file as they change.
+	 */
+	public void setUseTunedQueryStore(boolean useTunedQueryStore) {
+		this.useTunedQueryStore = useTunedQueryStore;
+	}
+
 	/**
 	 * Load the settings from the properties file.
 	 */
@@ -248,5 +312,9 @@ public class AutofetchConfig {
 		useFileLogging = p.getBoolean("autofetch.useFileLogging", profiling);
 		profileUpdateFrequency = p.getInt("autofetch.profiling.updatefrequency", 60);
 		
+		lazyLoadBatchAdaptive = p.getBoolean("autofetch.lazyLoadBatchAdaptive", false);
+		lazyLoadBatchMax = p.getInt("autofetch.lazyLoadBatchMax", 100);
+		useTunedQueryStore = p.getBoolean("autofetch.useTunedQueryStore", false);
+		
 	}
 }
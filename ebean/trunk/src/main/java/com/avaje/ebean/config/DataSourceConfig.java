@@ -48,6 +48,8 @@ public class DataSourceConfig {
 	
 	private String poolListener;
 
+	private boolean lockFreeQueue;
+
 	private boolean offline;
 	
 	Map<String,String> customProperties;
@@ -312,7 +314,26 @@ public class DataSourceConfig {
 		this.poolListener = poolListener;
 	}
 
-	
+	/**
+	 * Return true if the pool uses the lock free connection queue.
+	 */
+	public boolean isLockFreeQueue() {
+		return lockFreeQueue;
+	}
+
+	/**
+	 * Set to true to use the lock free connection queue.
+	 * <p>
+	 * Threads first try to reuse the connection they last returned and then
+	 * take connections from a lock free free list. Only when the pool is at
+	 * its maximum size do threads wait in a fair queue. This reduces contention
+	 * when many threads share a single pool.
+	 * </p>
+	 */
+	public void setLockFreeQueue(boolean lockFreeQueue) {
+		this.lockFreeQueue = lockFreeQueue;
+	}
+
 	/**
 	 * Return true if the DataSource should be left offline.
 	 * <p>
@@ -387,6 +408,7 @@ public class DataSourceConfig {
 		
 		this.heartbeatSql = GlobalProperties.get(prefix+"heartbeatSql", null);
 		this.poolListener = GlobalProperties.get(prefix+"poolListener", null);
+		this.lockFreeQueue = GlobalProperties.getBoolean(prefix+"lockFreeQueue", false);
 		this.offline = GlobalProperties.getBoolean(prefix+"offline", false);
 
 		String isoLevel = GlobalProperties.get(prefix+"isolationlevel", "READ_COMMITTED");
@@ -154,16 +154,37 @@ public class ServerConfig {
    */
   private int databaseSequenceBatchSize = 20;
 
+  /**
+   * When true use the lock free prefetching sequence IdGenerator.
+   */
+  private boolean databaseSequencePrefetch;
+
+  /**
+   * The max number of sequence values fetched at a time by the prefetching
+   * sequence IdGenerator.
+   */
+  private int databaseSequenceMaxBatchSize = 1000;
+
+  /**
+   * When true the default UUID IdGenerator generates time ordered UUID's.
+   */
+  private boolean uuidTimeOrdered;
+
   private boolean persistBatching;
 
   private int persistBatchSize = 20;
 
+  private boolean persistBatchMultiRowInsert;
+
   /** The default batch size for lazy loading */
   private int lazyLoadBatchSize = 1;
 
   /** The query batch size. */
   private int queryBatchSize = -1;
 
+  /** Execute independent secondary queries in parallel. */
+  private boolean parallelSecondaryQueries;
+
   private boolean ddlGenerate;
 
   private boolean ddlRun;
@@ -383,6 +404,28 @@ public class ServerConfig {
     this.persistBatchSize = persistBatchSize;
   }
 
+  /**
+   * Return true if batched inserts should use multi row insert statements
+   * where the database platform supports them.
+   */
+  public boolean isPersistBatchMultiRowInsert() {
+    return persistBatchMultiRowInsert;
+  }
+
+  /**
+   * Set to true to execute batched inserts as multi row insert statements
+   * (insert into ... values (...),(...)) rather than JDBC batch.
+   * <p>
+   * This is only used when the DatabasePlatform supports multi row insert. The
+   * number of rows per statement is limited by the maximum number of bind
+   * parameters for the platform. Inserts that require generated keys only use
+   * this when the platform returns the keys for all the rows.
+   * </p>
+   */
+  public void setPersistBatchMultiRowInsert(boolean persistBatchMultiRowInsert) {
+    this.persistBatchMultiRowInsert = persistBatchMultiRowInsert;
+  }
+
   /**
    * Return the default batch size for lazy loading of beans and collections.
    */
@@ -409,6 +452,32 @@ public class ServerConfig {
     this.queryBatchSize = queryBatchSize;
   }
 
+  /**
+   * Return true if independent secondary (+query) queries are executed in
+   * parallel.
+   */
+  public boolean isParallelSecondaryQueries() {
+    return parallelSecondaryQueries;
+  }
+
+  /**
+   * Set to true to execute independent secondary (+query) queries in parallel.
+   * <p>
+   * Secondary queries that do not depend on each other (for example +query
+   * joins on sibling associations) are executed at the same time by the
+   * background executor each using its own connection. Secondary queries on
+   * a nested path are executed after the query for their parent path.
+   * </p>
+   * <p>
+   * This is only used when the originating query uses its own (implicit)
+   * transaction as other connections do not see uncommitted changes of an
+   * explicit transaction. The default is false.
+   * </p>
+   */
+  public void setParallelSecondaryQueries(boolean parallelSecondaryQueries) {
+    this.parallelSecondaryQueries = parallelSecondaryQueries;
+  }
+
   /**
    * Set the default batch size for lazy loading.
    * <p>
@@ -752,6 +821,63 @@ public class ServerConfig {
     this.databaseSequenceBatchSize = databaseSequenceBatchSize;
   }
 
+  /**
+   * Return true if the prefetching sequence IdGenerator is used.
+   */
+  public boolean isDatabaseSequencePrefetch() {
+    return databaseSequencePrefetch;
+  }
+
+  /**
+   * Set to true to use a sequence IdGenerator that hands out Id's without
+   * locking.
+   * <p>
+   * Sequence values are fetched in blocks that start at the
+   * databaseSequenceBatchSize and grow (up to the
+   * databaseSequenceMaxBatchSize) when Id's are used quickly. The next block
+   * is fetched in a background thread before the current block is used up.
+   * </p>
+   */
+  public void setDatabaseSequencePrefetch(boolean databaseSequencePrefetch) {
+    this.databaseSequencePrefetch = databaseSequencePrefetch;
+  }
+
+  /**
+   * Return the max number of sequence values fetched at a time by the
+   * prefetching sequence IdGenerator.
+   */
+  public int getDatabaseSequenceMaxBatchSize() {
+    return databaseSequenceMaxBatchSize;
+  }
+
+  /**
+   * Set the max number of sequence values fetched at a time by the
+   * prefetching sequence IdGenerator.
+   */
+  public void setDatabaseSequenceMaxBatchSize(int databaseSequenceMaxBatchSize) {
+    this.databaseSequenceMaxBatchSize = databaseSequenceMaxBatchSize;
+  }
+
+  /**
+   * Return true if the default UUID IdGenerator generates time ordered UUID's.
+   */
+  public boolean isUuidTimeOrdered() {
+    return uuidTimeOrdered;
+  }
+
+  /**
+   * Set to true for the default UUID IdGenerator to generate time ordered
+   * UUID's rather than random UUID's.
+   * <p>
+   * Time ordered UUID's are inserted at the end of the primary key index
+   * rather than being spread across it. Individual beans can use the time
+   * ordered generator with <code>@GeneratedValue(generator="time.uuid")</code>.
+   * </p>
+   */
+  public void setUuidTimeOrdered(boolean uuidTimeOrdered) {
+    this.uuidTimeOrdered = uuidTimeOrdered;
+  }
+
   /**
    * Return the database platform name (can be null).
    * <p>
@@ -1479,15 +1605,20 @@ public class ServerConfig {
 
     int batchSize = p.getInt("batch.size", 20);
     persistBatchSize = p.getInt("persistBatchSize", batchSize);
+    persistBatchMultiRowInsert = p.getBoolean("persistBatchMultiRowInsert", false);
 
     dataSourceJndiName = p.get("dataSourceJndiName", null);
     databaseSequenceBatchSize = p.getInt("databaseSequenceBatchSize", 20);
+    databaseSequencePrefetch = p.getBoolean("databaseSequencePrefetch", false);
+    databaseSequenceMaxBatchSize = p.getInt("databaseSequenceMaxBatchSize", 1000);
+    uuidTimeOrdered = p.getBoolean("uuidTimeOrdered", false);
     databaseBooleanTrue = p.get("databaseBooleanTrue", null);
     databaseBooleanFalse = p.get("databaseBooleanFalse", null);
     databasePlatformName = p.get("databasePlatformName", null);
 
     lazyLoadBatchSize = p.getInt("lazyLoadBatchSize", 1);
     queryBatchSize = p.getInt("queryBatchSize", DEFAULT_QUERY_BATCH_SIZE);
+    parallelSecondaryQueries = p.getBoolean("parallelSecondaryQueries", false);
 
     ddlGenerate = p.getBoolean("ddl.generate", false);
     ddlRun = p.getBoolean("ddl.run", false);
@@ -76,6 +76,18 @@ public class DatabasePlatform {
 	protected boolean idInExpandedForm;
 
 	protected boolean selectCountWithAlias;
+
+	/**
+	 * The maximum number of bind parameters in a multi row insert statement. 0
+	 * when multi row insert is not supported.
+	 */
+	protected int multiRowInsertMaxParameters;
+
+	/**
+	 * True if getGeneratedKeys returns the keys for all rows of a multi row
+	 * insert.
+	 */
+	protected boolean multiRowInsertGeneratedKeys;
 	
 	/**
 	 * Instantiates a new database platform.
@@ -266,6 +278,39 @@ public class DatabasePlatform {
 		return dbName;
 	}
 
+  /**
+   * Return the maximum number of bind parameters for a multi row insert
+   * statement (insert into ... values (...),(...)). Returns 0 if multi row
+   * insert is not supported.
+   */
+  public int getMultiRowInsertMaxParameters() {
+    return multiRowInsertMaxParameters;
+  }
+
+  /**
+   * Set the maximum number of bind parameters for a multi row insert. Set to 0
+   * to disable multi row insert.
+   */
+  public void setMultiRowInsertMaxParameters(int multiRowInsertMaxParameters) {
+    this.multiRowInsertMaxParameters = multiRowInsertMaxParameters;
+  }
+
+  /**
+   * Return true if getGeneratedKeys returns the keys for all the rows of a
+   * multi row insert (in row order).
+   */
+  public boolean isMultiRowInsertGeneratedKeys() {
+    return multiRowInsertGeneratedKeys;
+  }
+
+  /**
+   * Set to true if the keys for all the rows of a multi row insert are
+   * returned by getGeneratedKeys.
+   */
+  public void setMultiRowInsertGeneratedKeys(boolean multiRowInsertGeneratedKeys) {
+    this.multiRowInsertGeneratedKeys = multiRowInsertGeneratedKeys;
+  }
+
   /**
    * Set to true if select count against anonymous view requires an alias.
    */
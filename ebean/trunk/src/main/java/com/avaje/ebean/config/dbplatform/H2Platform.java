@@ -45,6 +45,9 @@ public class H2Platform extends DatabasePlatform {
     this.dbIdentity.setSupportsSequence(true);
     this.dbIdentity.setSupportsIdentity(true);
 
+    // getGeneratedKeys only returns the last key of a multi row insert
+    this.multiRowInsertMaxParameters = 32767;
+
     this.openQuote = "\"";
     this.closeQuote = "\"";
 
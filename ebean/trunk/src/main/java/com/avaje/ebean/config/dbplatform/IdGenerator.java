@@ -37,6 +37,15 @@ public interface IdGenerator {
      * The name of the default UUID generator.
      */
     public static final String AUTO_UUID = "auto.uuid";
+
+    /**
+     * The name of the time ordered UUID generator.
+     * <p>
+     * Use with <code>@GeneratedValue(generator="time.uuid")</code> on a UUID
+     * Id property.
+     * </p>
+     */
+    public static final String TIME_UUID = "time.uuid";
     
     /**
      * Return the name of the IdGenerator. For sequences this is the sequence name.
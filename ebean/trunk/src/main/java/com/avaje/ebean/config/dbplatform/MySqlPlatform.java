@@ -50,6 +50,9 @@ public class MySqlPlatform extends DatabasePlatform {
         this.dbIdentity.setSupportsIdentity(true);
         this.dbIdentity.setSupportsSequence(false);
 
+        this.multiRowInsertMaxParameters = 65535;
+        this.multiRowInsertGeneratedKeys = true;
+
         this.openQuote = "`";
         this.closeQuote = "`";
         
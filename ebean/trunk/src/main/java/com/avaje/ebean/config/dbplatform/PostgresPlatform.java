@@ -52,6 +52,8 @@ public class PostgresPlatform extends DatabasePlatform {
       GlobalProperties.put("ebean.columnAliasPrefix", "as c");
     }
 
+    this.multiRowInsertMaxParameters = 32767;
+
     this.openQuote = "\"";
     this.closeQuote = "\"";
 
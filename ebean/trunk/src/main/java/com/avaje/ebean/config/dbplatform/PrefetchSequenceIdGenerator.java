@@ -0,0 +1,285 @@
+package com.avaje.ebean.config.dbplatform;
+
+import java.util.ArrayList;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import javax.persistence.PersistenceException;
+
+import com.avaje.ebean.BackgroundExecutor;
+import com.avaje.ebean.Transaction;
+
+/**
+ * Database sequence based IdGenerator that hands out Id's without locking.
+ * <p>
+ * This wraps a platform specific SequenceIdGenerator and uses it to fetch
+ * blocks of sequence values. Id's are taken from the current block by
+ * incrementing an atomic index so concurrent inserts do not contend on a
+ * monitor. When the current block is half used the next block is fetched in
+ * a background thread so that normally a block is ready before it is needed.
+ * </p>
+ * <p>
+ * The size of the blocks adapts to the rate Id's are used. When a block is
+ * used up quickly the next block is bigger (up to the max block size) and when
+ * a block takes a long time to use up the next block is smaller (down to the
+ * min block size).
+ * </p>
+ */
+public class PrefetchSequenceIdGenerator implements IdGenerator {
+
+	private static final Logger logger = Logger.getLogger(PrefetchSequenceIdGenerator.class.getName());
+
+	/**
+	 * A block used up faster than this increases the block size.
+	 */
+	private static final long FAST_BLOCK_MILLIS = 1000;
+
+	/**
+	 * A block taking longer than this to use up decreases the block size.
+	 */
+	private static final long SLOW_BLOCK_MILLIS = 30000;
+
+	private static final IdBlock EMPTY = new IdBlock(new int[0]);
+
+	private final SequenceIdGenerator sequence;
+
+	private final BackgroundExecutor backgroundExecutor;
+
+	private final int minBlockSize;
+
+	private final int maxBlockSize;
+
+	private final AtomicReference<IdBlock> current = new AtomicReference<IdBlock>(EMPTY);
+
+	private final ConcurrentLinkedQueue<IdBlock> prefetched = new ConcurrentLinkedQueue<IdBlock>();
+
+	private final AtomicBoolean prefetching = new AtomicBoolean();
+
+	/**
+	 * Used to load a block in the calling thread when none is ready.
+	 */
+	private final Object loadMonitor = new Object();
+
+	private final AtomicLong usedCount = new AtomicLong();
+
+	private final AtomicLong loadCount = new AtomicLong();
+
+	private final AtomicLong prefetchCount = new AtomicLong();
+
+	private final AtomicLong waitCount = new AtomicLong();
+
+	private volatile int blockSize;
+
+	/**
+	 * Create wrapping the sequence with the min and max block sizes.
+	 */
+	public PrefetchSequenceIdGenerator(SequenceIdGenerator sequence, BackgroundExecutor backgroundExecutor, int minBlockSize, int maxBlockSize) {
+		this.sequence = sequence;
+		this.backgroundExecutor = backgroundExecutor;
+		this.minBlockSize = Math.max(1, minBlockSize);
+		this.maxBlockSize = Math.max(this.minBlockSize, maxBlockSize);
+		this.blockSize = this.minBlockSize;
+	}
+
+	/**
+	 * Returns the sequence name.
+	 */
+	public String getName() {
+		return sequence.getName();
+	}
+
+	/**
+	 * Returns true.
+	 */
+	public boolean isDbSequence() {
+		return true;
+	}
+
+	/**
+	 * Increase the block size to allocateSize (up to the max block size) and
+	 * fetch the next block in the background.
+	 */
+	public void preAllocateIds(int allocateSize) {
+		if (allocateSize > blockSize) {
+			blockSize = Math.min(maxBlockSize, allocateSize);
+			prefetch();
+		}
+	}
+
+	/**
+	 * Return the next Id.
+	 * <p>
+	 * If a block needs to be loaded in this thread and a Transaction has been
+	 * passed in use the Connection from it.
+	 * </p>
+	 */
+	public Object nextId(Transaction t) {
+		while (true) {
+			IdBlock block = current.get();
+			int index = block.next.getAndIncrement();
+			if (index < block.ids.length) {
+				if (index == block.prefetchIndex) {
+					prefetch();
+				}
+				return Integer.valueOf(block.ids[index]);
+			}
+			nextBlock(block, t);
+		}
+	}
+
+	/**
+	 * Replace the used up block with a prefetched block or load one in this
+	 * thread if none is ready.
+	 */
+	private void nextBlock(IdBlock usedBlock, Transaction t) {
+
+		IdBlock block = prefetched.poll();
+		if (block == null) {
+			synchronized (loadMonitor) {
+				if (current.get() != usedBlock) {
+					// another thread has already replaced it
+					return;
+				}
+				block = prefetched.poll();
+				if (block == null) {
+					waitCount.incrementAndGet();
+					block = loadBlock(blockSize, t);
+				}
+			}
+		}
+
+		block.startNanos = System.nanoTime();
+		if (current.compareAndSet(usedBlock, block)) {
+			if (usedBlock != EMPTY) {
+				usedCount.addAndGet(usedBlock.ids.length);
+				adaptBlockSize(usedBlock);
+			}
+		} else {
+			// another thread replaced it first so use this block later
+			prefetched.offer(block);
+		}
+	}
+
+	/**
+	 * Adjust the block size based on how long the block took to use up.
+	 */
+	private void adaptBlockSize(IdBlock usedBlock) {
+
+		long millis = (System.nanoTime() - usedBlock.startNanos) / 1000000;
+		int size = blockSize;
+		if (millis < FAST_BLOCK_MILLIS && size < maxBlockSize) {
+			blockSize = Math.min(maxBlockSize, size * 2);
+
+		} else if (millis > SLOW_BLOCK_MILLIS && size > minBlockSize) {
+			blockSize = Math.max(minBlockSize, size / 2);
+		}
+	}
+
+	/**
+	 * Fetch the next block in a background thread unless one is already ready
+	 * or being fetched.
+	 */
+	private void prefetch() {
+
+		if (!prefetched.isEmpty() || !prefetching.compareAndSet(false, true)) {
+			return;
+		}
+		final int size = blockSize;
+		backgroundExecutor.execute(new Runnable() {
+			public void run() {
+				try {
+					prefetched.offer(loadBlock(size, null));
+					prefetchCount.incrementAndGet();
+				} catch (RuntimeException e) {
+					logger.log(Level.SEVERE, "Error prefetching sequence values for " + getName(), e);
+				} finally {
+					prefetching.set(false);
+				}
+			}
+		});
+	}
+
+	private IdBlock loadBlock(int size, Transaction t) {
+
+		ArrayList<Integer> newIds = sequence.getMoreIds(size, t);
+		if (newIds.isEmpty()) {
+			throw new PersistenceException("No values loaded for sequence " + getName());
+		}
+		int[] ids = new int[newIds.size()];
+		for (int i = 0; i < ids.length; i++) {
+			ids[i] = newIds.get(i).intValue();
+		}
+		loadCount.incrementAndGet();
+		if (logger.isLoggable(Level.FINE)) {
+			logger.log(Level.FINE, "... seq:" + getName() + " loaded block of " + ids.length);
+		}
+		return new IdBlock(ids);
+	}
+
+	/**
+	 * Return the number of Id's handed out.
+	 */
+	public long getAllocatedCount() {
+		IdBlock block = current.get();
+		return usedCount.get() + Math.min(block.next.get(), block.ids.length);
+	}
+
+	/**
+	 * Return the number of blocks loaded.
+	 */
+	public long getLoadCount() {
+		return loadCount.get();
+	}
+
+	/**
+	 * Return the number of blocks loaded in a background thread.
+	 */
+	public long getPrefetchCount() {
+		return prefetchCount.get();
+	}
+
+	/**
+	 * Return the number of times a thread had to wait for a block to load
+	 * because none was ready.
+	 */
+	public long getWaitCount() {
+		return waitCount.get();
+	}
+
+	/**
+	 * Return the size of the next block to load.
+	 */
+	public int getBlockSize() {
+		return blockSize;
+	}
+
+	public String toString() {
+		return "PrefetchSequenceIdGenerator[" + getName() + " allocated:" + getAllocatedCount() + " blocks:"
+			+ getLoadCount() + " prefetched:" + getPrefetchCount() + " waits:" + getWaitCount() + " blockSize:"
+			+ getBlockSize() + "]";
+	}
+
+	/**
+	 * A block of sequence values.
+	 */
+	private static class IdBlock {
+
+		private final int[] ids;
+
+		private final int prefetchIndex;
+
+		private final AtomicInteger next = new AtomicInteger();
+
+		private long startNanos;
+
+		private IdBlock(int[] ids) {
+			this.ids = ids;
+			this.prefetchIndex = ids.length / 2;
+		}
+	}
+}
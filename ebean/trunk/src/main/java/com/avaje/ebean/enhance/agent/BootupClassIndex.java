@@ -0,0 +1,267 @@
+package com.avaje.ebean.enhance.agent;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import com.avaje.ebean.enhance.asm.AnnotationVisitor;
+import com.avaje.ebean.enhance.asm.ClassReader;
+import com.avaje.ebean.enhance.asm.EmptyVisitor;
+
+/**
+ * Finds the classes that Ebean is interested in at bootup by reading the class
+ * bytes rather than loading the classes.
+ * <p>
+ * A class is a candidate when it has an entity type annotation or when it
+ * could implement or extend one of the interesting types such as
+ * ScalarTypeConverter or BeanPersistController. Candidates are then loaded
+ * and checked as before so a candidate that is not interesting is ignored.
+ * </p>
+ * <p>
+ * The enhancer writes the candidates to the {@link #RESOURCE} index so that
+ * the classes in a jar do not need to be read at bootup. The index is ignored
+ * in a classes directory as it is easily out of date there.
+ * </p>
+ */
+public class BootupClassIndex {
+
+	/**
+	 * The index of candidate class names in a jar or classes directory.
+	 */
+	public static final String RESOURCE = "META-INF/ebean-bootup.idx";
+
+	private static final String[] ANNOTATIONS = {
+		"Ljavax/persistence/Entity;",
+		"Ljavax/persistence/Embeddable;",
+		"Ljavax/persistence/Table;",
+		"Ljavax/xml/bind/annotation/XmlRootElement;",
+		"Ljavax/xml/bind/annotation/XmlType;",
+		"Lcom/avaje/ebean/annotation/LdapDomain;" };
+
+	private static final String[] TYPES = {
+		"com/avaje/ebean/event/BeanPersistController",
+		"com/avaje/ebean/event/TransactionEventListener",
+		"com/avaje/ebeaninternal/server/type/ScalarType",
+		"com/avaje/ebean/config/ScalarTypeConverter",
+		"com/avaje/ebean/config/CompoundType",
+		"com/avaje/ebean/event/BeanFinder",
+		"com/avaje/ebean/event/BeanPersistListener",
+		"com/avaje/ebean/event/BeanQueryAdapter",
+		"com/avaje/ebean/event/ServerConfigStartup" };
+
+	private static final Set<String> annotationSet = toSet(ANNOTATIONS);
+
+	private static final Set<String> typeSet = toSet(TYPES);
+
+	private final Map<String, ClassInfo> classes = new LinkedHashMap<String, ClassInfo>();
+
+	/**
+	 * Read the class bytes adding the class.
+	 */
+	public void add(InputStream classBytes) throws IOException {
+		add(new ClassReader(classBytes));
+	}
+
+	/**
+	 * Read the class bytes adding the class.
+	 */
+	public void add(byte[] classBytes) {
+		add(new ClassReader(classBytes));
+	}
+
+	private void add(ClassReader reader) {
+		ClassInfoVisitor visitor = new ClassInfoVisitor();
+		reader.accept(visitor, ClassReader.SKIP_CODE + ClassReader.SKIP_DEBUG + ClassReader.SKIP_FRAMES);
+		ClassInfo info = visitor.info;
+		if (info != null) {
+			classes.put(info.name, info);
+		}
+	}
+
+	/**
+	 * Add a class whose bytes could not be read as a candidate.
+	 * <p>
+	 * For example, a class compiled for a newer JVM with constant pool entries
+	 * that this ClassReader does not support. As it can not be ruled out it is
+	 * loaded and checked at bootup.
+	 * </p>
+	 */
+	public void addUnreadable(String className) {
+		String name = className.replace('.', '/');
+		ClassInfo info = new ClassInfo(name, null, null);
+		info.unreadable = true;
+		classes.put(name, info);
+	}
+
+	/**
+	 * Add all the classes read by another index.
+	 */
+	public void addAll(BootupClassIndex other) {
+		classes.putAll(other.classes);
+	}
+
+	/**
+	 * Return the names of all the classes read.
+	 */
+	public List<String> getClassNames() {
+		List<String> names = new ArrayList<String>(classes.size());
+		for (String name : classes.keySet()) {
+			names.add(name.replace('/', '.'));
+		}
+		return names;
+	}
+
+	/**
+	 * Return the names of the candidate classes.
+	 * <p>
+	 * Super types that were not read (and are not JDK types) are treated as
+	 * possibly interesting.
+	 * </p>
+	 */
+	public List<String> getCandidates() {
+
+		Map<String, Boolean> resolved = new HashMap<String, Boolean>();
+		List<String> candidates = new ArrayList<String>();
+		for (ClassInfo info : classes.values()) {
+			if (info.annotated || isCandidate(info, resolved)) {
+				candidates.add(info.name.replace('/', '.'));
+			}
+		}
+		return candidates;
+	}
+
+	private boolean isCandidate(ClassInfo info, Map<String, Boolean> resolved) {
+
+		if (info.unreadable) {
+			return true;
+		}
+		Boolean known = resolved.get(info.name);
+		if (known != null) {
+			return known.booleanValue();
+		}
+		// guard against a (invalid) cycle
+		resolved.put(info.name, Boolean.FALSE);
+
+		boolean candidate = isCandidateType(info.superName, resolved);
+		for (int i = 0; !candidate && i < info.interfaces.length; i++) {
+			candidate = isCandidateType(info.interfaces[i], resolved);
+		}
+		resolved.put(info.name, Boolean.valueOf(candidate));
+		return candidate;
+	}
+
+	private boolean isCandidateType(String typeName, Map<String, Boolean> resolved) {
+		if (typeName == null) {
+			return false;
+		}
+		if (typeSet.contains(typeName)) {
+			return true;
+		}
+		ClassInfo superInfo = classes.get(typeName);
+		if (superInfo != null) {
+			return isCandidate(superInfo, resolved);
+		}
+		// not read so only JDK types are known to be uninteresting
+		return !typeName.startsWith("java/") && !typeName.startsWith("javax/");
+	}
+
+	/**
+	 * Write the candidates to the index in the given classes directory.
+	 */
+	public void write(File classesDir) throws IOException {
+
+		File file = new File(classesDir, RESOURCE);
+		File dir = file.getParentFile();
+		if (!dir.exists() && !dir.mkdirs()) {
+			throw new IOException("Unable to create directory " + dir.getAbsolutePath());
+		}
+		Writer writer = new OutputStreamWriter(new FileOutputStream(file), "UTF-8");
+		try {
+			List<String> candidates = getCandidates();
+			for (int i = 0; i < candidates.size(); i++) {
+				writer.write(candidates.get(i));
+				writer.write("\n");
+			}
+		} finally {
+			writer.close();
+		}
+	}
+
+	/**
+	 * Read the candidate class names from an index.
+	 */
+	public static List<String> read(InputStream index) throws IOException {
+
+		List<String> names = new ArrayList<String>();
+		BufferedReader reader = new BufferedReader(new InputStreamReader(index, "UTF-8"));
+		try {
+			String line;
+			while ((line = reader.readLine()) != null) {
+				line = line.trim();
+				if (line.length() > 0) {
+					names.add(line);
+				}
+			}
+		} finally {
+			reader.close();
+		}
+		return names;
+	}
+
+	private static Set<String> toSet(String[] values) {
+		Set<String> set = new HashSet<String>();
+		for (int i = 0; i < values.length; i++) {
+			set.add(values[i]);
+		}
+		return set;
+	}
+
+	private static class ClassInfo {
+
+		private final String name;
+
+		private final String superName;
+
+		private final String[] interfaces;
+
+		private boolean annotated;
+
+		private boolean unreadable;
+
+		private ClassInfo(String name, String superName, String[] interfaces) {
+			this.name = name;
+			this.superName = superName;
+			this.interfaces = interfaces == null ? new String[0] : interfaces;
+		}
+	}
+
+	private static class ClassInfoVisitor extends EmptyVisitor {
+
+		private ClassInfo info;
+
+		@Override
+		public void visit(int version, int access, String name, String signature, String superName, String[] interfaces) {
+			info = new ClassInfo(name, superName, interfaces);
+		}
+
+		@Override
+		public AnnotationVisitor visitAnnotation(String desc, boolean visible) {
+			if (info != null && annotationSet.contains(desc)) {
+				info.annotated = true;
+			}
+			return super.visitAnnotation(desc, visible);
+		}
+	}
+}
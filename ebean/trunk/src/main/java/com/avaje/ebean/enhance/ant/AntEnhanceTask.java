@@ -25,6 +25,10 @@ import java.io.File;
  * subpackages are also searched. </li>
  * <li> <b>transformArgs</b> Arguments passed to the transformer. Typically a
  * debug level in the form of debug=1 etc. </li>
+ * <li> <b>bootupIndex</b> Set to true to write an index of the entities and
+ * other classes Ebean searches for at bootup. When packaged in a jar this is
+ * used rather than searching the classes of the jar at bootup so the packages
+ * should include all of these classes. </li>
  * </ul>
  * </p>
  * 
@@ -53,6 +57,8 @@ public class AntEnhanceTask extends Task {
 
 	String packages;
 
+	boolean bootupIndex;
+
 	@Override
 	public void execute() throws BuildException {
 
@@ -73,6 +79,7 @@ public class AntEnhanceTask extends Task {
 	
 		ClassLoader cl = AntEnhanceTask.class.getClassLoader();
 		OfflineFileTransform ft = new OfflineFileTransform(t, cl, classSource, classDestination);
+		ft.setBootupIndex(bootupIndex);
 
 		ft.process(packages);
 	}
@@ -126,4 +133,11 @@ public class AntEnhanceTask extends Task {
 		this.packages = packages;
 	}
 
+	/**
+	 * Set to true to write the index of classes searched for at bootup.
+	 */
+	public void setBootupIndex(boolean bootupIndex) {
+		this.bootupIndex = bootupIndex;
+	}
+
 }
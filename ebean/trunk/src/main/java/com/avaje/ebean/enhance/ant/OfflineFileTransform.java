@@ -1,9 +1,12 @@
 package com.avaje.ebean.enhance.ant;
 
 import java.io.File;
+import java.io.FileInputStream;
 import java.io.IOException;
+import java.io.InputStream;
 import java.lang.instrument.IllegalClassFormatException;
 
+import com.avaje.ebean.enhance.agent.BootupClassIndex;
 import com.avaje.ebean.enhance.agent.InputStreamTransform;
 import com.avaje.ebean.enhance.agent.Transformer;
 
@@ -22,6 +25,8 @@ public class OfflineFileTransform {
 	final String outDir;
 	private TransformationListener listener;
 
+	private BootupClassIndex bootupIndex;
+
 	/**
 	 * Note that the inDir and outDir can be the same and typically are. That
 	 * is, we enhance the class file and replace the file with the the enhanced
@@ -49,6 +54,20 @@ public class OfflineFileTransform {
 		this.listener = v;
 	}
 
+	/**
+	 * Set to true to write the index of the classes Ebean searches for at
+	 * bootup (entities, ScalarTypeConverters, BeanPersistControllers etc).
+	 * <p>
+	 * The index is written to the outDir after processing and is used at bootup
+	 * rather than searching the classes of the jar it is packaged in (it is
+	 * ignored in a classes directory). It should only be used when the
+	 * packages processed include all these classes.
+	 * </p>
+	 */
+	public void setBootupIndex(boolean bootupIndex) {
+		this.bootupIndex = bootupIndex ? new BootupClassIndex() : null;
+	}
+
 	private String trimSlash(String dir) {
 		if (dir.endsWith("/")){
 			return dir.substring(0, dir.length()-1);
@@ -66,6 +85,20 @@ public class OfflineFileTransform {
 	 */
 	public void process(String packageNames) {
 
+		processPackages(packageNames);
+
+		if (bootupIndex != null) {
+			try {
+				bootupIndex.write(new File(outDir));
+				inputStreamTransform.log(1, "transform> wrote bootup index " + BootupClassIndex.RESOURCE);
+			} catch (IOException e) {
+				throw new RuntimeException("Error writing bootup index " + BootupClassIndex.RESOURCE, e);
+			}
+		}
+	}
+
+	private void processPackages(String packageNames) {
+
 		if (packageNames == null) {
 			processPackage("", true);
 			return;
@@ -138,6 +171,18 @@ public class OfflineFileTransform {
 
 		String className = getClassName(file);
 
+		if (bootupIndex != null) {
+			InputStream is = new FileInputStream(file);
+			try {
+				bootupIndex.add(is);
+			} catch (RuntimeException e) {
+				// can not read the bytes so always load and check it
+				bootupIndex.addUnreadable(className);
+			} finally {
+				is.close();
+			}
+		}
+
 		byte[] result = inputStreamTransform.transform(className, file);
 
 		if (result != null) {
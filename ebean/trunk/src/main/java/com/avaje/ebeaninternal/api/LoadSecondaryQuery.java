@@ -19,7 +19,7 @@
  */
 package com.avaje.ebeaninternal.api;
 
-import com.avaje.ebeaninternal.server.core.OrmQueryRequest;
+import com.avaje.ebean.Transaction;
 
 /**
  * Defines the method for executing secondary queries.
@@ -33,8 +33,9 @@ public interface LoadSecondaryQuery {
 	/**
 	 * Execute the secondary query with a given batch size.
 	 * 
-	 * @param parentRequest
-	 *            the originating query request
+	 * @param transaction
+	 *            the transaction of the originating query or null to use
+	 *            another transaction (when run in parallel)
 	 */
-	public void loadSecondaryQuery(OrmQueryRequest<?> parentRequest, int requestedBatchSize, boolean all);
+	public void loadSecondaryQuery(Transaction transaction, int requestedBatchSize, boolean all);
 }
@@ -200,6 +200,11 @@ public interface SpiEbeanServer extends EbeanServer, BeanLoader, BeanCollectionL
 	 * Return the default batch size for lazy loading.
 	 */
 	public int getLazyLoadBatchSize();
+
+	/**
+	 * Return true if independent secondary queries are executed in parallel.
+	 */
+	public boolean isParallelSecondaryQueries();
 	
     /**
      * Return true if the type is known as an Entity or Xml type
@@ -146,6 +146,15 @@ public interface SpiTransaction extends Transaction {
 	 */
 	public TransactionEvent getEvent();
 
+	/**
+	 * Return true if any of the tables have been modified in this transaction.
+	 * <p>
+	 * Used to not put query results that include uncommitted changes into the
+	 * query cache.
+	 * </p>
+	 */
+	public boolean isModifiedTable(String[] tableNames);
+
 	/**
 	 * Whether persistCascade is on for save and delete.
 	 */
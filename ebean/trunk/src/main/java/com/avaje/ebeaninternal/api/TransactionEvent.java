@@ -26,6 +26,7 @@ import java.util.List;
 import java.util.Set;
 import java.util.logging.Logger;
 
+import com.avaje.ebeaninternal.api.TransactionEventTable.TableIUD;
 import com.avaje.ebeaninternal.server.core.PersistRequestBean;
 import com.avaje.ebeaninternal.server.deploy.BeanDescriptor;
 import com.avaje.ebeaninternal.server.transaction.BeanDelta;
@@ -65,6 +66,11 @@ public class TransactionEvent implements Serializable {
 	private transient Set<IndexInvalidate> indexInvalidations;
 	
 	private transient Set<String> pauseIndexInvalidate;
+
+	/**
+	 * The (lower case) names of the tables modified in this transaction.
+	 */
+	private transient Set<String> modifiedTables;
 	
 	/**
 	 * Create the TransactionEvent, one per Transaction.
@@ -121,7 +127,32 @@ public class TransactionEvent implements Serializable {
 	    indexInvalidations.add(indexEvent);
 	}
 	
+	/**
+	 * Return true if any of the (lower case) tables have been modified.
+	 */
+	public boolean isModifiedTable(String[] tableNames) {
+	    if (modifiedTables == null) {
+	        return false;
+	    }
+	    for (int i = 0; i < tableNames.length; i++) {
+	        if (modifiedTables.contains(tableNames[i])) {
+	            return true;
+	        }
+	    }
+	    return false;
+	}
+
+	private void addModifiedTable(String tableName) {
+	    if (tableName != null) {
+	        if (modifiedTables == null) {
+	            modifiedTables = new HashSet<String>();
+	        }
+	        modifiedTables.add(tableName.toLowerCase());
+	    }
+	}
+
 	public void addDeleteById(BeanDescriptor<?> desc, Object id){
+	    addModifiedTable(desc.getBaseTable());
 	    if (deleteByIdMap == null){
 	        deleteByIdMap = new DeleteByIdMap();
 	    }
@@ -129,6 +160,7 @@ public class TransactionEvent implements Serializable {
 	}
 	
     public void addDeleteByIdList(BeanDescriptor<?> desc, List<Object> idList) {
+        addModifiedTable(desc.getBaseTable());
         if (deleteByIdMap == null) {
             deleteByIdMap = new DeleteByIdMap();
         }
@@ -174,6 +206,7 @@ public class TransactionEvent implements Serializable {
     }
 
     public void add(String tableName, boolean inserts, boolean updates, boolean deletes){
+		addModifiedTable(tableName);
 		if (eventTables == null){
 			eventTables = new TransactionEventTable();
 		}
@@ -181,6 +214,9 @@ public class TransactionEvent implements Serializable {
 	}
 	
 	public void add(TransactionEventTable table){
+		for (TableIUD tableIUD : table.values()) {
+			addModifiedTable(tableIUD.getTableName());
+		}
 		if (eventTables == null){
 			eventTables = new TransactionEventTable();
 		}
@@ -192,6 +228,7 @@ public class TransactionEvent implements Serializable {
 	 */
 	public void add(PersistRequestBean<?> request) {
 
+		addModifiedTable(request.getBeanDescriptor().getBaseTable());
 		if (request.isNotify(this)){
 			// either a BeanListener or Cache is interested
 			if (eventBeans == null) {
@@ -245,6 +245,55 @@ public interface AutoFetchManager extends NodeUsageListener {
 	 */
 	public void collectQueryInfo(ObjectGraphNode node, int beans, int micros);
 
+	/**
+	 * Merge the buffered query and usage profiling information into the
+	 * statistics.
+	 * <p>
+	 * The profiling information is buffered and merged periodically as well as
+	 * prior to the statistics being read.
+	 * </p>
+	 */
+	public void mergeStatistics();
+
+	/**
+	 * Return true if the lazy loading batch size is adapted using the
+	 * profiling information.
+	 */
+	public boolean isLazyLoadBatchAdaptive();
+
+	/**
+	 * Set to true to adapt the lazy loading batch size using the profiling
+	 * information.
+	 */
+	public void setLazyLoadBatchAdaptive(boolean lazyLoadBatchAdaptive);
+
+	/**
+	 * Return the batch size to use for a lazy load at the given node.
+	 * <p>
+	 * When adaptive this is the ratio of the profiled beans at this node that
+	 * were used (or that used the manyProperty when lazy loading a collection)
+	 * applied to the number of candidates waiting to be lazy loaded. Otherwise
+	 * or when there is not enough profiling information the batchSize is
+	 * returned.
+	 * </p>
+	 * 
+	 * @param node
+	 *            the node in the object graph being lazy loaded
+	 * @param manyProperty
+	 *            the name of the many property when lazy loading collections
+	 *            (and then the node is the node of the owning beans)
+	 * @param batchSize
+	 *            the default lazy loading batch size
+	 * @param candidates
+	 *            the number of beans or collections waiting to be lazy loaded
+	 */
+	public int getLazyLoadBatchSize(ObjectGraphNode node, String manyProperty, int batchSize, int candidates);
+
+	/**
+	 * Return a summary of the adapted lazy loading batch sizes per path.
+	 */
+	public String getLazyLoadBatchSizes();
+
 	
 	/**
 	 * Return the number of queries tuned by AutoFetch.
@@ -2,11 +2,14 @@ package com.avaje.ebeaninternal.server.autofetch;
 
 import java.io.File;
 import java.io.FileOutputStream;
+import java.io.IOException;
 import java.io.ObjectOutputStream;
 import java.io.Serializable;
 import java.util.Iterator;
+import java.util.List;
 import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantLock;
 import java.util.logging.Level;
 
 import javax.persistence.PersistenceException;
@@ -46,6 +49,12 @@ public class DefaultAutoFetchManager implements AutoFetchManager, Serializable {
 	 */
 	private Map<String, TunedQueryInfo> tunedQueryInfoMap = new ConcurrentHashMap<String, TunedQueryInfo>();
 
+	/**
+	 * The number of beans profiled at a node before the lazy loading batch size
+	 * for that node is adapted.
+	 */
+	private static final int LAZY_LOAD_BATCH_MIN_PROFILE = 10;
+
 	private transient long defaultGarbageCollectionWait = 100;
 
 	/**
@@ -72,6 +81,27 @@ public class DefaultAutoFetchManager implements AutoFetchManager, Serializable {
 	private transient AutofetchMode mode;
 
 	private transient boolean useFileLogging;
+
+	private transient boolean lazyLoadBatchAdaptive;
+
+	private transient int lazyLoadBatchMax;
+
+	/**
+	 * The last adapted lazy loading batch size per query point and path.
+	 */
+	private transient Map<String, Integer> lazyLoadBatchSizes;
+
+	/**
+	 * Buffers the collected profiling information until it is merged.
+	 */
+	private transient StatisticsBuffer statisticsBuffer;
+
+	private transient ReentrantLock mergeLock;
+
+	/**
+	 * Optional append only store of the tuned queries.
+	 */
+	private transient TunedQueryStore tunedQueryStore;
 	
 	/**
 	 * Server that owns this Profile Listener.
@@ -102,6 +132,29 @@ public class DefaultAutoFetchManager implements AutoFetchManager, Serializable {
 		profiling = autofetchConfig.isProfiling();
 		profilingMin = autofetchConfig.getProfilingMin();
 		profilingBase = autofetchConfig.getProfilingBase();
+		lazyLoadBatchAdaptive = autofetchConfig.isLazyLoadBatchAdaptive();
+		lazyLoadBatchMax = autofetchConfig.getLazyLoadBatchMax();
+		lazyLoadBatchSizes = new ConcurrentHashMap<String, Integer>();
+		statisticsBuffer = new StatisticsBuffer();
+		mergeLock = new ReentrantLock();
+
+		if (autofetchConfig.isUseTunedQueryStore()) {
+			File storeFile = new File(fileName + ".tuned");
+			try {
+				tunedQueryStore = new TunedQueryStore(storeFile);
+
+				// the store has the latest tuning (the deserialized file is
+				// from the last clean shutdown) so load these from the store
+				for (String originKey : tunedQueryStore.keys()) {
+					tunedQueryInfoMap.remove(originKey);
+				}
+				logging.logToJavaLogger("AutoFetch tuned query store [" + storeFile.getAbsolutePath()
+						+ "] with " + tunedQueryStore.size() + " tuned queries");
+			} catch (IOException e) {
+				String msg = "Error opening autofetch tuned query store " + storeFile.getAbsolutePath();
+				logging.logError(Level.SEVERE, msg, e);
+			}
+		}
 
 		setProfilingRate(autofetchConfig.getProfilingRate());
 				
@@ -145,6 +198,7 @@ public class DefaultAutoFetchManager implements AutoFetchManager, Serializable {
 	 * Return the size of the profile map.
 	 */
 	public int getTotalProfileSize(){
+		mergeStatistics();
 		return statisticsMap.size();
 	}
 	
@@ -156,10 +210,14 @@ public class DefaultAutoFetchManager implements AutoFetchManager, Serializable {
 		// clear the map...
 		int size = tunedQueryInfoMap.size();
 		tunedQueryInfoMap.clear();
+		if (tunedQueryStore != null) {
+			tunedQueryStore.clear();
+		}
 		return size;
 	}
 
 	public int clearProfilingInfo() {
+		mergeStatistics();
 		int size = statisticsMap.size();
 		statisticsMap.clear();
 		return size;
@@ -168,6 +226,8 @@ public class DefaultAutoFetchManager implements AutoFetchManager, Serializable {
 	
 	public void serialize() {
 
+		mergeStatistics();
+
 		File autoFetchFile = new File(fileName);
 
 		try {
@@ -188,13 +248,22 @@ public class DefaultAutoFetchManager implements AutoFetchManager, Serializable {
 	 * Return the current Tuned query info for a given origin key.
 	 */
 	public TunedQueryInfo getTunedQueryInfo(String originKey) {
-		return tunedQueryInfoMap.get(originKey);
+		TunedQueryInfo tunedQueryInfo = tunedQueryInfoMap.get(originKey);
+		if (tunedQueryInfo == null && tunedQueryStore != null) {
+			// lazily load from the store
+			tunedQueryInfo = tunedQueryStore.load(originKey);
+			if (tunedQueryInfo != null) {
+				tunedQueryInfoMap.put(originKey, tunedQueryInfo);
+			}
+		}
+		return tunedQueryInfo;
 	}
 
 	/**
 	 * Return the current Statistics for a given originKey key.
 	 */
 	public Statistics getStatistics(String originKey) {
+		mergeStatistics();
 		return statisticsMap.get(originKey);
 	}
 
@@ -203,6 +272,7 @@ public class DefaultAutoFetchManager implements AutoFetchManager, Serializable {
 	}
 
 	public Iterator<Statistics> iterateStatistics() {
+		mergeStatistics();
 		return statisticsMap.values().iterator();
 	}
 
@@ -264,6 +334,75 @@ public class DefaultAutoFetchManager implements AutoFetchManager, Serializable {
 		this.profilingMin = profilingMin;
 	}
 
+	public boolean isLazyLoadBatchAdaptive() {
+		return lazyLoadBatchAdaptive;
+	}
+
+	public void setLazyLoadBatchAdaptive(boolean lazyLoadBatchAdaptive) {
+		this.lazyLoadBatchAdaptive = lazyLoadBatchAdaptive;
+	}
+
+	public int getLazyLoadBatchSize(ObjectGraphNode node, String manyProperty, int batchSize, int candidates) {
+
+		if (!lazyLoadBatchAdaptive || node == null || node.getOriginQueryPoint() == null) {
+			return batchSize;
+		}
+		Statistics stats = statisticsMap.get(node.getOriginQueryPoint().getKey());
+		if (stats == null) {
+			return batchSize;
+		}
+		StatisticsNodeUsage nodeUsage = stats.getNodeUsage(node.getPath());
+		if (nodeUsage == null) {
+			return batchSize;
+		}
+		double usedRatio = nodeUsage.getUsedRatio(manyProperty, LAZY_LOAD_BATCH_MIN_PROFILE);
+		if (usedRatio < 0) {
+			// not enough profiling yet
+			return batchSize;
+		}
+		int adaptive = bucketBatchSize((int) Math.ceil(usedRatio * candidates));
+
+		if (nodeUsage.setLazyLoadBatchSize(manyProperty, adaptive)) {
+			// only build the key for reporting when the size changes
+			String path = node.getPath();
+			if (manyProperty != null) {
+				path = (path == null) ? manyProperty : path + "." + manyProperty;
+			}
+			lazyLoadBatchSizes.put(node.getOriginQueryPoint().getKey() + " path[" + path + "]", Integer.valueOf(adaptive));
+		}
+		return adaptive;
+	}
+
+	/**
+	 * Round the batch size up to the sizes DefaultBeanLoader uses (5, 10, 20,
+	 * 50 and the max) so that only a few distinct IN clauses are generated.
+	 */
+	private int bucketBatchSize(int batchSize) {
+		int size;
+		if (batchSize <= 1) {
+			size = 1;
+		} else if (batchSize <= 5) {
+			size = 5;
+		} else if (batchSize <= 10) {
+			size = 10;
+		} else if (batchSize <= 20) {
+			size = 20;
+		} else if (batchSize <= 50) {
+			size = 50;
+		} else {
+			size = lazyLoadBatchMax;
+		}
+		return Math.min(lazyLoadBatchMax, size);
+	}
+
+	public String getLazyLoadBatchSizes() {
+		StringBuilder sb = new StringBuilder();
+		for (Map.Entry<String, Integer> entry : lazyLoadBatchSizes.entrySet()) {
+			sb.append(entry.getKey()).append(" batch[").append(entry.getValue()).append("]\n");
+		}
+		return sb.toString();
+	}
+
 	/**
 	 * Shutdown the listener.
 	 * <p>
@@ -277,6 +416,9 @@ public class DefaultAutoFetchManager implements AutoFetchManager, Serializable {
 		    collectUsageViaGC(-1);
 		    serialize();
 		}
+		if (tunedQueryStore != null) {
+			tunedQueryStore.close();
+		}
 	}
 
 	/**
@@ -315,6 +457,8 @@ public class DefaultAutoFetchManager implements AutoFetchManager, Serializable {
 	 */
 	public String updateTunedQueryInfo() {
 
+		mergeStatistics();
+
 		if (!profiling) {
 			// we are not collecting any profiling information at
 			// the moment so don't try updating the tuned query plans.
@@ -391,7 +535,9 @@ public class DefaultAutoFetchManager implements AutoFetchManager, Serializable {
                 OrmQueryDetail newFetchDetail = statistics.buildTunedFetch(beanDescriptor);
                 
                 // get the current tuned fetch info...
-                TunedQueryInfo currentFetch = tunedQueryInfoMap.get(queryPoint.getKey());
+                TunedQueryInfo currentFetch = getTunedQueryInfo(queryPoint.getKey());
+                int previousProfileCount = currentFetch == null ? 0 : currentFetch.getProfileCount();
+                boolean changed = true;
 
                 if (currentFetch == null) {
                     // its a new fetch plan, add it.
@@ -411,9 +557,17 @@ public class DefaultAutoFetchManager implements AutoFetchManager, Serializable {
                 } else {
                     // the fetch plan has not changed...
                     counters.incrementUnchanged();
+                    changed = false;
                 }
 
                 currentFetch.setProfileCount(statistics.getCounter());
+
+                if (tunedQueryStore != null) {
+                    if (changed || (previousProfileCount < profilingMin && currentFetch.getProfileCount() >= profilingMin)) {
+                        // record the change or that it is now used to tune queries
+                        tunedQueryStore.append(currentFetch);
+                    }
+                }
             }
 
         } catch (ClassNotFoundException e) {
@@ -486,7 +640,7 @@ public class DefaultAutoFetchManager implements AutoFetchManager, Serializable {
 		ObjectGraphNode origin = query.setOrigin(stack);
 
 		// get current "tuned fetch" for this query point
-		TunedQueryInfo tunedFetch = tunedQueryInfoMap.get(origin.getOriginQueryPoint().getKey());
+		TunedQueryInfo tunedFetch = getTunedQueryInfo(origin.getOriginQueryPoint().getKey());
 
 		// get the number of times we have collected profiling information
 		int profileCount = tunedFetch == null ? 0 : tunedFetch.getProfileCount();
@@ -525,14 +679,15 @@ public class DefaultAutoFetchManager implements AutoFetchManager, Serializable {
 	 * Gather query execution statistics. This could either be the originating
 	 * query in which case the parentNode will be null, or a lazy loading query
 	 * resulting from traversal of the object graph.
+	 * <p>
+	 * This is buffered and merged into the statistics periodically.
+	 * </p>
 	 */
 	public void collectQueryInfo(ObjectGraphNode node, int beans, int micros) {
 
-		if (node != null){
-			ObjectGraphOrigin origin = node.getOriginQueryPoint();
-			if (origin != null){
-				Statistics stats = getQueryPointStats(origin);
-				stats.collectQueryInfo(node, beans, micros);				
+		if (node != null && node.getOriginQueryPoint() != null){
+			if (statisticsBuffer.addQueryInfo(node, beans, micros)){
+				tryMergeStatistics();
 			}
 		}
 	}
@@ -541,24 +696,66 @@ public class DefaultAutoFetchManager implements AutoFetchManager, Serializable {
 	 * Collect usage statistics from a node in the object graph.
 	 * <p>
 	 * This is sent to use from a EntityBeanIntercept when the finalise method
-	 * is called on the bean.
+	 * is called on the bean. This is buffered and merged into the statistics
+	 * periodically.
 	 * </p>
 	 */
 	public void collectNodeUsage(NodeUsageCollector usageCollector) {
 
-		ObjectGraphOrigin origin = usageCollector.getNode().getOriginQueryPoint();
+		if (statisticsBuffer.addNodeUsage(usageCollector)){
+			tryMergeStatistics();
+		}
+	}
+
+	/**
+	 * Merge the buffered profiling information unless another thread is
+	 * already merging it.
+	 */
+	private void tryMergeStatistics() {
+		if (mergeLock.tryLock()) {
+			try {
+				mergeBuffered();
+			} finally {
+				mergeLock.unlock();
+			}
+		}
+	}
+
+	public void mergeStatistics() {
+		mergeLock.lock();
+		try {
+			mergeBuffered();
+		} finally {
+			mergeLock.unlock();
+		}
+	}
+
+	private void mergeBuffered() {
 
-		Statistics stats = getQueryPointStats(origin);
+		List<Object> entries = statisticsBuffer.drain();
+		for (int i = 0; i < entries.size(); i++) {
+			Object entry = entries.get(i);
+			if (entry instanceof StatisticsBuffer.QueryInfo) {
+				StatisticsBuffer.QueryInfo queryInfo = (StatisticsBuffer.QueryInfo) entry;
+				ObjectGraphNode node = queryInfo.getNode();
+				Statistics stats = getQueryPointStats(node.getOriginQueryPoint());
+				stats.collectQueryInfo(node, queryInfo.getBeans(), queryInfo.getMicros());
 
-		if (logging.isTraceUsageCollection()){
-			System.out.println("... NodeUsageCollector "+usageCollector);
+			} else {
+				NodeUsageCollector usageCollector = (NodeUsageCollector) entry;
+				Statistics stats = getQueryPointStats(usageCollector.getNode().getOriginQueryPoint());
+
+				if (logging.isTraceUsageCollection()){
+					System.out.println("... NodeUsageCollector "+usageCollector);
+				}
+
+				stats.collectUsageInfo(usageCollector);
+
+				if (logging.isTraceUsageCollection()){
+					System.out.println("stats\n"+stats);
+				}
+			}
 		}
-		
-		stats.collectUsageInfo(usageCollector);
-		
-		if (logging.isTraceUsageCollection()){
-            System.out.println("stats\n"+stats);
-        }
 	}
 
 	private Statistics getQueryPointStats(ObjectGraphOrigin originQueryPoint) {
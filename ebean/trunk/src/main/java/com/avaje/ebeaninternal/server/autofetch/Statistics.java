@@ -155,7 +155,12 @@ public class Statistics implements Serializable {
 	public void collectUsageInfo(NodeUsageCollector profile) {
 
 	    if (profile.isEmpty()){
-	        // no usage was collected
+	        // no usage was collected but count it against an existing node
+	        // so that the ratio of used beans is known for adaptive lazy loading
+	        StatisticsNodeUsage nodeStats = getNodeUsage(profile.getNode().getPath());
+	        if (nodeStats != null){
+	            nodeStats.publish(profile);
+	        }
 	    } else {
     		ObjectGraphNode node = profile.getNode();
     
@@ -164,6 +169,16 @@ public class Statistics implements Serializable {
 	    }
 	}
 
+	/**
+	 * Return the usage statistics for the node at the given path or null if
+	 * no usage has been collected for that path.
+	 */
+	public StatisticsNodeUsage getNodeUsage(String path) {
+		synchronized (monitor) {
+			return nodeUsageMap.get(path);
+		}
+	}
+
 	private StatisticsNodeUsage getNodeStats(String path) {
 		
 		synchronized (monitor) {
@@ -0,0 +1,119 @@
+package com.avaje.ebeaninternal.server.autofetch;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import com.avaje.ebean.bean.NodeUsageCollector;
+import com.avaje.ebean.bean.ObjectGraphNode;
+
+/**
+ * Striped buffers of the profiling information collected by the query and
+ * finalizer threads.
+ * <p>
+ * Each thread adds to the stripe for its thread id so threads rarely contend
+ * with each other. The buffered information is drained and merged into the
+ * Statistics periodically by the DefaultAutoFetchManager (rather than every
+ * profiled query and bean synchronising on the statistics).
+ * </p>
+ */
+public class StatisticsBuffer {
+
+	/**
+	 * The number of entries in a stripe at which the buffers should be merged.
+	 */
+	private static final int MERGE_SIZE = 512;
+
+	private final Stripe[] stripes;
+
+	private final int mask;
+
+	public StatisticsBuffer() {
+		int count = 1;
+		int target = Math.min(64, 2 * Runtime.getRuntime().availableProcessors());
+		while (count < target) {
+			count *= 2;
+		}
+		this.stripes = new Stripe[count];
+		this.mask = count - 1;
+		for (int i = 0; i < stripes.length; i++) {
+			stripes[i] = new Stripe();
+		}
+	}
+
+	/**
+	 * Add query execution statistics returning true if the buffers should be
+	 * merged.
+	 */
+	public boolean addQueryInfo(ObjectGraphNode node, int beans, int micros) {
+		return add(new QueryInfo(node, beans, micros));
+	}
+
+	/**
+	 * Add node usage returning true if the buffers should be merged.
+	 */
+	public boolean addNodeUsage(NodeUsageCollector usageCollector) {
+		return add(usageCollector);
+	}
+
+	private boolean add(Object entry) {
+		Stripe stripe = stripes[(int) Thread.currentThread().getId() & mask];
+		synchronized (stripe) {
+			stripe.entries.add(entry);
+			return stripe.entries.size() >= MERGE_SIZE;
+		}
+	}
+
+	/**
+	 * Remove and return all the buffered entries. These are either
+	 * {@link QueryInfo} or {@link NodeUsageCollector}.
+	 */
+	public List<Object> drain() {
+
+		List<Object> drained = new ArrayList<Object>();
+		for (int i = 0; i < stripes.length; i++) {
+			Stripe stripe = stripes[i];
+			synchronized (stripe) {
+				if (!stripe.entries.isEmpty()) {
+					drained.addAll(stripe.entries);
+					stripe.entries = new ArrayList<Object>();
+				}
+			}
+		}
+		return drained;
+	}
+
+	private static class Stripe {
+
+		private ArrayList<Object> entries = new ArrayList<Object>();
+	}
+
+	/**
+	 * Buffered query execution statistics.
+	 */
+	public static class QueryInfo {
+
+		private final ObjectGraphNode node;
+
+		private final int beans;
+
+		private final int micros;
+
+		private QueryInfo(ObjectGraphNode node, int beans, int micros) {
+			this.node = node;
+			this.beans = beans;
+			this.micros = micros;
+		}
+
+		public ObjectGraphNode getNode() {
+			return node;
+		}
+
+		public int getBeans() {
+			return beans;
+		}
+
+		public int getMicros() {
+			return micros;
+		}
+	}
+}
@@ -1,8 +1,10 @@
 package com.avaje.ebeaninternal.server.autofetch;
 
 import java.io.Serializable;
+import java.util.HashMap;
 import java.util.HashSet;
 import java.util.LinkedHashSet;
+import java.util.Map;
 import java.util.Set;
 import java.util.logging.Logger;
 
@@ -38,6 +40,17 @@ public class StatisticsNodeUsage implements Serializable {
 	
 	private Set<String> aggregateUsed = new LinkedHashSet<String>();
 
+	/**
+	 * The number of profiled beans that used each property.
+	 */
+	private Map<String, Integer> propertyUsedCount = new HashMap<String, Integer>();
+
+	/**
+	 * The last adaptive lazy load batch size per many property (the empty
+	 * string for the beans of this node).
+	 */
+	private transient Map<String, Integer> lazyLoadBatchSizes;
+
 	public StatisticsNodeUsage(String path, boolean queryTuningAddVersion) {
 		this.path = path;
 		this.queryTuningAddVersion = queryTuningAddVersion;
@@ -50,6 +63,43 @@ public class StatisticsNodeUsage implements Serializable {
 		}
 	}
 	
+	/**
+	 * Return the ratio of the profiled beans that were used or -1 if fewer than
+	 * minCount beans have been profiled.
+	 * <p>
+	 * When property is not null this is the ratio of the profiled beans that
+	 * used that property.
+	 * </p>
+	 */
+	public double getUsedRatio(String property, int minCount) {
+		synchronized(monitor){
+			if (profileCount < minCount || profileCount == 0){
+				return -1;
+			}
+			int used = profileUsedCount;
+			if (property != null){
+				Integer count = (propertyUsedCount == null) ? null : propertyUsedCount.get(property);
+				used = (count == null) ? 0 : count.intValue();
+			}
+			return (double)used / profileCount;
+		}
+	}
+	
+	/**
+	 * Set the adaptive lazy load batch size returning true if it is different
+	 * to the last one set (for reporting).
+	 */
+	public boolean setLazyLoadBatchSize(String property, int batchSize) {
+		synchronized(monitor){
+			if (lazyLoadBatchSizes == null){
+				lazyLoadBatchSizes = new HashMap<String, Integer>();
+			}
+			String key = (property == null) ? "" : property;
+			Integer previous = lazyLoadBatchSizes.put(key, Integer.valueOf(batchSize));
+			return previous == null || previous.intValue() != batchSize;
+		}
+	}
+
 	public void buildTunedFetch(PathProperties pathProps, BeanDescriptor<?> rootDesc) {
 		
 		synchronized(monitor){
@@ -110,6 +160,14 @@ public class StatisticsNodeUsage implements Serializable {
 			if (!used.isEmpty()){
 				profileUsedCount++;
 				aggregateUsed.addAll(used);
+				if (propertyUsedCount == null){
+					// deserialized from an older version
+					propertyUsedCount = new HashMap<String, Integer>();
+				}
+				for (String propName : used) {
+					Integer count = propertyUsedCount.get(propName);
+					propertyUsedCount.put(propName, (count == null) ? 1 : count.intValue() + 1);
+				}
 			}
 			if (profile.isModified()){
 				modified = true;
@@ -120,4 +178,4 @@ public class StatisticsNodeUsage implements Serializable {
 	public String toString() {
 		return "path["+path+"] profileCount["+profileCount+"] used["+profileUsedCount+"] props"+aggregateUsed;
 	}
-}
\ No newline at end of file
+}
\ No newline at end of file
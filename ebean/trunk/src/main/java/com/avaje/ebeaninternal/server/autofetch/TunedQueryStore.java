@@ -0,0 +1,314 @@
+package com.avaje.ebeaninternal.server.autofetch;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.RandomAccessFile;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * An append only file of the TunedQueryInfo as they are created and changed.
+ * <p>
+ * Each new or changed TunedQueryInfo is appended and flushed to the file as it
+ * happens so the tuning survives a restart without requiring a clean shutdown.
+ * On startup the file is indexed by the origin key. A TunedQueryInfo is only
+ * read from the file and deserialized when a query for its origin is first
+ * tuned.
+ * </p>
+ * <p>
+ * Each record is the origin key followed by the serialized TunedQueryInfo. A
+ * later record for the same key supersedes the earlier ones. The file is
+ * compacted on startup and as records are appended when more than half the
+ * records have been superseded, and on startup when the last record was only
+ * partially written.
+ * </p>
+ * <p>
+ * Records are read using a RandomAccessFile opened for the read (rather than
+ * a memory mapping) so that the file can be compacted or cleared at any time.
+ * </p>
+ */
+public class TunedQueryStore {
+
+	private static final Logger logger = Logger.getLogger(TunedQueryStore.class.getName());
+
+	/**
+	 * The file is not compacted while it has fewer records than this.
+	 */
+	private static final int COMPACT_MIN_RECORDS = 1000;
+
+	private final File file;
+
+	/**
+	 * The position and length of the latest record per origin key.
+	 */
+	private final Map<String, Entry> index = new HashMap<String, Entry>();
+
+	/**
+	 * The keys that have been loaded or appended and so are held by the
+	 * DefaultAutoFetchManager.
+	 */
+	private final Set<String> loaded = new HashSet<String>();
+
+	private DataOutputStream out;
+
+	/**
+	 * The number of records in the file including superseded ones.
+	 */
+	private int records;
+
+	private long length;
+
+	private int appendCount;
+
+	public TunedQueryStore(File file) throws IOException {
+		this.file = file;
+		if (file.exists()) {
+			int count = readIndex();
+			if (count > 2 * index.size() || count < 0) {
+				compact();
+				count = readIndex();
+			}
+			records = count;
+		}
+		this.length = file.length();
+		this.out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(file, true)));
+	}
+
+	/**
+	 * Return the number of tuned queries that have not been loaded yet.
+	 */
+	public synchronized int size() {
+		return index.size() - loaded.size();
+	}
+
+	/**
+	 * Return the origin keys of all the tuned queries in the store.
+	 */
+	public synchronized Set<String> keys() {
+		return new HashSet<String>(index.keySet());
+	}
+
+	/**
+	 * Return the number of records appended since startup.
+	 */
+	public synchronized int getAppendCount() {
+		return appendCount;
+	}
+
+	/**
+	 * Load the TunedQueryInfo for the origin key returning null if there is none.
+	 * <p>
+	 * A TunedQueryInfo is only loaded once as from then on it is held by the
+	 * DefaultAutoFetchManager.
+	 * </p>
+	 */
+	public synchronized TunedQueryInfo load(String originKey) {
+
+		Entry entry = index.get(originKey);
+		if (entry == null || !loaded.add(originKey)) {
+			return null;
+		}
+		try {
+			byte[] data = new byte[entry.length];
+			RandomAccessFile raf = new RandomAccessFile(file, "r");
+			try {
+				raf.seek(entry.position);
+				raf.readFully(data);
+			} finally {
+				raf.close();
+			}
+
+			ObjectInputStream ois = new ObjectInputStream(new ByteArrayInputStream(data));
+			return (TunedQueryInfo) ois.readObject();
+
+		} catch (Exception e) {
+			String msg = "Error loading tuned query " + originKey + " from " + file.getAbsolutePath();
+			logger.log(Level.WARNING, msg, e);
+			return null;
+		}
+	}
+
+	/**
+	 * Append the new or changed TunedQueryInfo to the file.
+	 */
+	public synchronized void append(TunedQueryInfo tunedQueryInfo) {
+
+		try {
+			ByteArrayOutputStream bytes = new ByteArrayOutputStream(512);
+			ObjectOutputStream oos = new ObjectOutputStream(bytes);
+			oos.writeObject(tunedQueryInfo);
+			oos.close();
+
+			String key = tunedQueryInfo.getOrigin().getKey();
+			out.writeUTF(key);
+			out.writeInt(bytes.size());
+			bytes.writeTo(out);
+			out.flush();
+
+			long position = length + 2 + utfLength(key) + 4;
+			index.put(key, new Entry(position, bytes.size()));
+			loaded.add(key);
+			length = position + bytes.size();
+			records++;
+			appendCount++;
+
+			if (records > COMPACT_MIN_RECORDS && records > 2 * index.size()) {
+				// mostly superseded records so compact
+				out.close();
+				compact();
+				records = readIndex();
+				length = file.length();
+				out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(file, true)));
+			}
+
+		} catch (IOException e) {
+			String msg = "Error appending tuned query to " + file.getAbsolutePath();
+			logger.log(Level.SEVERE, msg, e);
+		}
+	}
+
+	/**
+	 * Remove all the tuned queries.
+	 */
+	public synchronized void clear() {
+		index.clear();
+		loaded.clear();
+		records = 0;
+		length = 0;
+		try {
+			out.close();
+			out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(file, false)));
+		} catch (IOException e) {
+			String msg = "Error clearing " + file.getAbsolutePath();
+			logger.log(Level.SEVERE, msg, e);
+		}
+	}
+
+	public synchronized void close() {
+		try {
+			out.close();
+		} catch (IOException e) {
+			String msg = "Error closing " + file.getAbsolutePath();
+			logger.log(Level.SEVERE, msg, e);
+		}
+	}
+
+	/**
+	 * Index the latest record for each key returning the number of records or
+	 * -1 if the last record was only partially written.
+	 */
+	private int readIndex() throws IOException {
+
+		index.clear();
+		int count = 0;
+		long fileLength = file.length();
+
+		DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(file)));
+		try {
+			long position = 0;
+			while (position < fileLength) {
+				String key = in.readUTF();
+				int dataLength = in.readInt();
+				position += 2 + utfLength(key) + 4;
+				if (dataLength < 0 || position + dataLength > fileLength) {
+					return -1;
+				}
+				skipFully(in, dataLength);
+				index.put(key, new Entry(position, dataLength));
+				position += dataLength;
+				count++;
+			}
+			return count;
+
+		} catch (EOFException e) {
+			return -1;
+
+		} finally {
+			in.close();
+		}
+	}
+
+	/**
+	 * Rewrite the file with just the latest complete record for each key.
+	 */
+	private void compact() throws IOException {
+
+		File tempFile = new File(file.getAbsolutePath() + ".tmp");
+		RandomAccessFile in = new RandomAccessFile(file, "r");
+		DataOutputStream tempOut = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(tempFile)));
+		try {
+			for (Map.Entry<String, Entry> e : index.entrySet()) {
+				byte[] data = new byte[e.getValue().length];
+				in.seek(e.getValue().position);
+				in.readFully(data);
+				tempOut.writeUTF(e.getKey());
+				tempOut.writeInt(data.length);
+				tempOut.write(data);
+			}
+		} finally {
+			in.close();
+			tempOut.close();
+		}
+
+		if (!file.delete() || !tempFile.renameTo(file)) {
+			throw new IOException("Unable to replace " + file.getAbsolutePath() + " with compacted " + tempFile.getAbsolutePath());
+		}
+		logger.info("Compacted tuned queries file " + file.getAbsolutePath() + " to " + index.size() + " queries");
+	}
+
+	private static void skipFully(DataInputStream in, int count) throws IOException {
+		int remaining = count;
+		while (remaining > 0) {
+			int skipped = in.skipBytes(remaining);
+			if (skipped <= 0) {
+				throw new EOFException();
+			}
+			remaining -= skipped;
+		}
+	}
+
+	/**
+	 * Return the length of the string in modified UTF-8 as per writeUTF.
+	 */
+	private static int utfLength(String s) {
+		int length = 0;
+		for (int i = 0; i < s.length(); i++) {
+			char c = s.charAt(i);
+			if (c >= 0x0001 && c <= 0x007F) {
+				length++;
+			} else if (c > 0x07FF) {
+				length += 3;
+			} else {
+				length += 2;
+			}
+		}
+		return length;
+	}
+
+	private static class Entry {
+
+		private final long position;
+
+		private final int length;
+
+		private Entry(long position, int length) {
+			this.position = position;
+			this.length = length;
+		}
+	}
+}
@@ -24,6 +24,13 @@ public class CachedBeanData {
     	return naturalKeyUpdate > -1;
     }
     
+    /**
+     * Return the index of the natural key property or -1.
+     */
+    public int getNaturalKeyIndex() {
+        return naturalKeyUpdate;
+    }
+
     public Object getNaturalKey() {
     	return data[naturalKeyUpdate];
     }
@@ -0,0 +1,166 @@
+/**
+ * Copyright (C) 2009 Authors
+ * 
+ * This file is part of Ebean.
+ * 
+ * Ebean is free software; you can redistribute it and/or modify it 
+ * under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation; either version 2.1 of the License, or
+ * (at your option) any later version.
+ *  
+ * Ebean is distributed in the hope that it will be useful, but 
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with Ebean; if not, write to the Free Software Foundation, Inc.,
+ * 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA  
+ */
+package com.avaje.ebeaninternal.server.cache;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.HashSet;
+import java.util.Set;
+
+import com.avaje.ebeaninternal.server.deploy.BeanDescriptor;
+import com.avaje.ebeaninternal.server.deploy.BeanProperty;
+import com.avaje.ebeaninternal.server.deploy.BeanPropertyAssocOne;
+
+/**
+ * Encodes CachedBeanData into a compact binary form and back.
+ * <p>
+ * The property order is taken from {@link BeanDescriptor#propertiesNonMany()}
+ * so property names are not written. The format is a flag indicating if all
+ * properties are loaded (otherwise a bitmap of loaded properties), the natural
+ * key index and then the loaded property values written by their ScalarType.
+ * ManyToOne properties are written using the Id property of the target.
+ * </p>
+ * <p>
+ * Properties that can not be written (embedded beans, ManyToOne to a compound
+ * Id, transient properties without a ScalarType) must have a null value
+ * otherwise the data is not encoded.
+ * </p>
+ */
+public class CachedBeanDataCodec {
+
+    private final BeanProperty[] props;
+
+    /**
+     * The property used to write the value (the target Id for ManyToOne).
+     */
+    private final BeanProperty[] writeProps;
+
+    public CachedBeanDataCodec(BeanDescriptor<?> desc) {
+        this.props = desc.propertiesNonMany();
+        this.writeProps = new BeanProperty[props.length];
+
+        for (int i = 0; i < props.length; i++) {
+            BeanProperty prop = props[i];
+            if (prop instanceof BeanPropertyAssocOne<?>) {
+                BeanPropertyAssocOne<?> one = (BeanPropertyAssocOne<?>) prop;
+                writeProps[i] = one.isEmbedded() ? null : one.getTargetDescriptor().getSingleIdProperty();
+            } else {
+                writeProps[i] = prop.getScalarType() == null ? null : prop;
+            }
+        }
+    }
+
+    /**
+     * Encode the data returning null if it can not be encoded.
+     */
+    public byte[] encode(CachedBeanData data) {
+
+        if (data.getSharableBean() != null) {
+            return null;
+        }
+        try {
+            ByteArrayOutputStream bos = new ByteArrayOutputStream(64);
+            DataOutputStream out = new DataOutputStream(bos);
+
+            Set<String> loaded = data.getLoadedProperties();
+            out.writeBoolean(loaded == null);
+            if (loaded != null) {
+                writeLoadedBitmap(out, loaded);
+            }
+            out.writeShort(data.getNaturalKeyIndex());
+
+            for (int i = 0; i < props.length; i++) {
+                if (loaded == null || loaded.contains(props[i].getName())) {
+                    if (writeProps[i] != null) {
+                        writeProps[i].writeData(out, data.getData(i));
+                    } else if (data.getData(i) != null) {
+                        return null;
+                    }
+                }
+            }
+            out.flush();
+            return bos.toByteArray();
+
+        } catch (IOException e) {
+            return null;
+        } catch (RuntimeException e) {
+            // not expected but the ScalarType may not support writeData()
+            return null;
+        }
+    }
+
+    /**
+     * Decode the bytes back into CachedBeanData.
+     */
+    public CachedBeanData decode(byte[] bytes) throws IOException {
+
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(bytes));
+
+        Set<String> loaded = null;
+        boolean[] include = null;
+        if (!in.readBoolean()) {
+            loaded = new HashSet<String>();
+            include = readLoadedBitmap(in, loaded);
+        }
+        int naturalKeyIndex = in.readShort();
+
+        Object[] data = new Object[props.length];
+        for (int i = 0; i < props.length; i++) {
+            if ((include == null || include[i]) && writeProps[i] != null) {
+                data[i] = writeProps[i].readData(in);
+            }
+        }
+        return new CachedBeanData(null, loaded, data, naturalKeyIndex);
+    }
+
+    private void writeLoadedBitmap(DataOutputStream out, Set<String> loaded) throws IOException {
+        int b = 0;
+        for (int i = 0; i < props.length; i++) {
+            if (loaded.contains(props[i].getName())) {
+                b |= (1 << (i & 7));
+            }
+            if ((i & 7) == 7) {
+                out.writeByte(b);
+                b = 0;
+            }
+        }
+        if ((props.length & 7) != 0) {
+            out.writeByte(b);
+        }
+    }
+
+    private boolean[] readLoadedBitmap(DataInputStream in, Set<String> loaded) throws IOException {
+        boolean[] include = new boolean[props.length];
+        int b = 0;
+        for (int i = 0; i < props.length; i++) {
+            if ((i & 7) == 0) {
+                b = in.readUnsignedByte();
+            }
+            if ((b & (1 << (i & 7))) != 0) {
+                include[i] = true;
+                loaded.add(props[i].getName());
+            }
+        }
+        return include;
+    }
+}
@@ -1,11 +1,14 @@
 package com.avaje.ebeaninternal.server.cache;
 
 import java.util.HashSet;
+import java.util.List;
 import java.util.Set;
 
 import com.avaje.ebeaninternal.server.core.PersistRequestBean;
 import com.avaje.ebeaninternal.server.deploy.BeanDescriptor;
 import com.avaje.ebeaninternal.server.deploy.BeanProperty;
+import com.avaje.ebeaninternal.server.transaction.BeanDelta;
+import com.avaje.ebeaninternal.server.transaction.BeanDeltaProperty;
 
 public class CachedBeanDataUpdate {
 
@@ -43,7 +46,45 @@ public class CachedBeanDataUpdate {
     	return new CachedBeanData(null, loadedProperties, copyOfData, naturalKeyUpdate);
         
     }
+
+    /**
+     * Update the cached data with the property values of a BeanDelta.
+     */
+    public static CachedBeanData update(BeanDescriptor<?> desc, CachedBeanData data, BeanDelta delta){
+
+    	Set<String> loadedProperties = data.getLoadedProperties();
+    	Object[] copyOfData = data.copyData();
+
+    	int naturalKeyUpdate = -1;
+    	HashSet<String> mergeProps = null;
+    	BeanProperty[] props = desc.propertiesNonMany();
+    	List<BeanDeltaProperty> deltaProps = delta.getProperties();
+    	for (int j = 0; j < deltaProps.size(); j++) {
+    		BeanDeltaProperty deltaProp = deltaProps.get(j);
+    		for (int i = 0; i < props.length; i++) {
+    			if (props[i] == deltaProp.getBeanProperty()){
+    				if (props[i].isNaturalKey()){
+    					naturalKeyUpdate = i;
+    				}
+    				copyOfData[i] = deltaProp.getValue();
+    				if (loadedProperties != null && !loadedProperties.contains(props[i].getName())){
+    					if (mergeProps == null){
+    						mergeProps = new HashSet<String>(loadedProperties);
+    					}
+    					mergeProps.add(props[i].getName());
+    				}
+    				break;
+    			}
+    		}
+    	}
+
+    	if (mergeProps != null){
+    		loadedProperties = mergeProps;
+    	}
+
+    	return new CachedBeanData(null, loadedProperties, copyOfData, naturalKeyUpdate);
+    }
     
     
 
-}
\ No newline at end of file
+}
\ No newline at end of file
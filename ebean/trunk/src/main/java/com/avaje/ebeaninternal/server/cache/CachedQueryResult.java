@@ -0,0 +1,54 @@
+package com.avaje.ebeaninternal.server.cache;
+
+import com.avaje.ebean.bean.BeanCollection;
+
+/**
+ * A query result held in the query cache with the tables it depends on.
+ */
+public class CachedQueryResult {
+
+    private final BeanCollection<?> result;
+
+    private final String[] dependentTables;
+
+    private final long stamp;
+
+    /**
+     * Create with the result, the (lower case) tables used by the query and
+     * the stamp taken before the query was executed.
+     */
+    public CachedQueryResult(BeanCollection<?> result, String[] dependentTables, long stamp) {
+        this.result = result;
+        this.dependentTables = dependentTables;
+        this.stamp = stamp;
+    }
+
+    /**
+     * Return the query result.
+     */
+    public BeanCollection<?> getResult() {
+        return result;
+    }
+
+    /**
+     * Return the tables used by the query.
+     */
+    public String[] getDependentTables() {
+        return dependentTables;
+    }
+
+    /**
+     * Return the stamp taken before the query was executed.
+     */
+    public long getStamp() {
+        return stamp;
+    }
+
+    /**
+     * Return true if any of the dependent tables have been modified since the
+     * query was executed.
+     */
+    public boolean isStale(QueryCacheTableStamps tableStamps) {
+        return tableStamps.isModifiedSince(dependentTables, stamp);
+    }
+}
@@ -23,14 +23,25 @@ public class DefaultServerCacheManager implements ServerCacheManager {
 
 	private final ServerCacheFactory cacheFactory;
 	
+	private final ServerCacheFactory beanCacheFactory;
+	
 	private SpiEbeanServer ebeanServer;
 	
 	/**
 	 * Create with a cache factory and default cache options.
 	 */
 	public DefaultServerCacheManager(ServerCacheFactory cacheFactory, ServerCacheOptions defaultBeanOptions, ServerCacheOptions defaultQueryOptions) {
+		this(cacheFactory, defaultBeanOptions, defaultQueryOptions, 0);
+	}
+	
+	/**
+	 * Create with a cache factory, default cache options and the maximum bytes
+	 * used for an off heap bean cache tier (0 for no off heap tier).
+	 */
+	public DefaultServerCacheManager(ServerCacheFactory cacheFactory, ServerCacheOptions defaultBeanOptions, ServerCacheOptions defaultQueryOptions, long maxOffHeapBytes) {
 		this.cacheFactory = cacheFactory;
-		this.beanCache = new DefaultCacheHolder(cacheFactory, defaultBeanOptions, true);
+		this.beanCacheFactory = (maxOffHeapBytes > 0) ? new OffHeapBeanCacheFactory(cacheFactory, maxOffHeapBytes) : cacheFactory;
+		this.beanCache = new DefaultCacheHolder(beanCacheFactory, defaultBeanOptions, true);
 		this.queryCache = new DefaultCacheHolder(cacheFactory, defaultQueryOptions, false);
 		this.naturalKeyCache = new DefaultCacheHolder(cacheFactory, defaultQueryOptions, false);
 		this.collectionIdsCache = new DefaultCacheHolder(cacheFactory, defaultQueryOptions, false);
@@ -38,6 +49,9 @@ public class DefaultServerCacheManager implements ServerCacheManager {
 			
 	public void init(EbeanServer server) {
 		cacheFactory.init(server);
+		if (beanCacheFactory != cacheFactory) {
+			beanCacheFactory.init(server);
+		}
 		this.ebeanServer = (SpiEbeanServer)server;
 	}
 	
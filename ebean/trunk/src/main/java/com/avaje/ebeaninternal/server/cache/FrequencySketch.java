@@ -0,0 +1,131 @@
+/**
+ * Copyright (C) 2009 Authors
+ * 
+ * This file is part of Ebean.
+ * 
+ * Ebean is free software; you can redistribute it and/or modify it 
+ * under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation; either version 2.1 of the License, or
+ * (at your option) any later version.
+ *  
+ * Ebean is distributed in the hope that it will be useful, but 
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with Ebean; if not, write to the Free Software Foundation, Inc.,
+ * 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA  
+ */
+package com.avaje.ebeaninternal.server.cache;
+
+/**
+ * A count-min sketch estimating how often keys have been accessed.
+ * <p>
+ * Each long in the table holds sixteen 4 bit counters and each key maps to
+ * four counters. The estimated frequency is the minimum of those counters.
+ * When the number of increments reaches the sample size all counters are
+ * halved so that the sketch ages and favours recent popularity.
+ * </p>
+ * <p>
+ * Not thread safe. Access is controlled externally (by TinyLfuServerCache).
+ * </p>
+ */
+public class FrequencySketch {
+
+    private static final long[] SEED = new long[] { 0xc3a5c85c97cb3127L, 0xb492b66fbe98f273L, 0x9ae16a3b2f90404fL,
+            0xcbf29ce484222325L };
+
+    private static final long RESET_MASK = 0x7777777777777777L;
+
+    private long[] table;
+
+    private int tableMask;
+
+    private int sampleSize;
+
+    private int size;
+
+    public FrequencySketch(int maxSize) {
+        setMaxSize(maxSize);
+    }
+
+    /**
+     * Resize the sketch for a new maximum cache size. This clears all counts.
+     */
+    public void setMaxSize(int maxSize) {
+        int capacity = ceilingPowerOfTwo(Math.max(maxSize, 16));
+        this.table = new long[capacity];
+        this.tableMask = capacity - 1;
+        this.sampleSize = 10 * Math.max(maxSize, 16);
+        this.size = 0;
+    }
+
+    /**
+     * Return the estimated number of times the key has been accessed (max 15).
+     */
+    public int frequency(Object key) {
+        int hash = spread(key.hashCode());
+        int start = (hash & 3) << 4;
+        int frequency = Integer.MAX_VALUE;
+        for (int i = 0; i < 4; i++) {
+            int index = indexOf(hash, i);
+            int count = (int) ((table[index] >>> (start + (i << 2))) & 0xfL);
+            frequency = Math.min(frequency, count);
+        }
+        return frequency;
+    }
+
+    /**
+     * Increment the counters for the key aging the sketch if required.
+     */
+    public void increment(Object key) {
+        int hash = spread(key.hashCode());
+        int start = (hash & 3) << 4;
+
+        boolean added = false;
+        for (int i = 0; i < 4; i++) {
+            int index = indexOf(hash, i);
+            added |= incrementAt(index, start + (i << 2));
+        }
+        if (added && ++size == sampleSize) {
+            reset();
+        }
+    }
+
+    private boolean incrementAt(int index, int offset) {
+        long mask = (0xfL << offset);
+        if ((table[index] & mask) != mask) {
+            table[index] += (1L << offset);
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * Halve all the counters.
+     */
+    private void reset() {
+        for (int i = 0; i < table.length; i++) {
+            table[i] = (table[i] >>> 1) & RESET_MASK;
+        }
+        size = (size >>> 1);
+    }
+
+    private int indexOf(int item, int i) {
+        long hash = (item + SEED[i]) * SEED[i];
+        hash += (hash >>> 32);
+        return ((int) hash) & tableMask;
+    }
+
+    private static int spread(int x) {
+        x = ((x >>> 16) ^ x) * 0x45d9f3b;
+        x = ((x >>> 16) ^ x) * 0x45d9f3b;
+        return (x >>> 16) ^ x;
+    }
+
+    private static int ceilingPowerOfTwo(int x) {
+        int n = Integer.highestOneBit(x);
+        return (n == x) ? n : n << 1;
+    }
+}
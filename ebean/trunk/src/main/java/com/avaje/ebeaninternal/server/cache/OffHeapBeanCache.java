@@ -0,0 +1,329 @@
+/**
+ * Copyright (C) 2009 Authors
+ * 
+ * This file is part of Ebean.
+ * 
+ * Ebean is free software; you can redistribute it and/or modify it 
+ * under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation; either version 2.1 of the License, or
+ * (at your option) any later version.
+ *  
+ * Ebean is distributed in the hope that it will be useful, but 
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with Ebean; if not, write to the Free Software Foundation, Inc.,
+ * 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA  
+ */
+package com.avaje.ebeaninternal.server.cache;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import com.avaje.ebean.EbeanServer;
+import com.avaje.ebean.cache.ServerCache;
+import com.avaje.ebean.cache.ServerCacheOptions;
+import com.avaje.ebean.cache.ServerCacheStatistics;
+import com.avaje.ebeaninternal.server.deploy.BeanDescriptor;
+
+/**
+ * A bean cache with an off heap tier and a small on heap tier for hot beans.
+ * <p>
+ * CachedBeanData is put into an {@link OffHeapSlabStore} in a compact binary
+ * form (see {@link CachedBeanDataCodec}) and only the key, the location of the
+ * data and its create and last access times are held on heap. On a get the
+ * data is decoded from the off heap tier and put into the on heap tier so the
+ * on heap tier (bounded by its max size) only holds the beans that are used.
+ * </p>
+ * <p>
+ * The off heap entries expire using the maxSecsToLive and maxIdleSecs of the
+ * cache options (as the on heap tier does). Data that can not be encoded (for
+ * example sharable beans) is only held in the on heap tier.
+ * </p>
+ */
+public class OffHeapBeanCache implements ServerCache {
+
+	private static final Logger logger = Logger.getLogger(OffHeapBeanCache.class.getName());
+
+	private final ConcurrentHashMap<Object, OffHeapEntry> index = new ConcurrentHashMap<Object, OffHeapEntry>();
+
+	private final AtomicInteger offHeapHitCount = new AtomicInteger();
+
+	private final ServerCache heapCache;
+
+	private final OffHeapSlabStore store;
+
+	private final BeanDescriptor<?> descriptor;
+
+	private final CachedBeanDataCodec codec;
+
+	/**
+	 * The keys written into each slab (guarded by itself).
+	 */
+	private final List<List<Object>> slabKeys;
+
+	/**
+	 * The generation of each slab when its keys were last purged.
+	 */
+	private final int[] slabGenerations;
+
+	private volatile long lastPurgeRecycleCount;
+
+	private volatile long maxIdleMillis;
+
+	private volatile long maxLiveMillis;
+
+	public OffHeapBeanCache(ServerCache heapCache, OffHeapSlabStore store, BeanDescriptor<?> descriptor) {
+		this.heapCache = heapCache;
+		this.store = store;
+		this.descriptor = descriptor;
+		this.codec = new CachedBeanDataCodec(descriptor);
+		this.slabGenerations = new int[store.getSlabCount()];
+		this.slabKeys = new ArrayList<List<Object>>(slabGenerations.length);
+		for (int i = 0; i < slabGenerations.length; i++) {
+			slabGenerations[i] = store.getGeneration(i);
+			slabKeys.add(new ArrayList<Object>());
+		}
+		setExpiry(heapCache.getOptions());
+	}
+
+	/**
+	 * The on heap cache is initialised by its factory.
+	 */
+	public void init(EbeanServer ebeanServer) {
+	}
+
+	public ServerCacheOptions getOptions() {
+		return heapCache.getOptions();
+	}
+
+	public void setOptions(ServerCacheOptions options) {
+		heapCache.setOptions(options);
+		setExpiry(options);
+	}
+
+	private void setExpiry(ServerCacheOptions options) {
+		maxIdleMillis = options.getMaxIdleSecs() * 1000L;
+		maxLiveMillis = options.getMaxSecsToLive() * 1000L;
+	}
+
+	public Object get(Object id) {
+
+		OffHeapEntry entry = index.get(id);
+		if (entry != null && entry.isExpired(System.currentTimeMillis(), maxIdleMillis, maxLiveMillis)) {
+			remove(id);
+			return null;
+		}
+		Object value = heapCache.get(id);
+		if (value != null) {
+			if (entry != null) {
+				entry.lastAccessTime = System.currentTimeMillis();
+			}
+			return value;
+		}
+		if (entry == null) {
+			return null;
+		}
+		byte[] bytes = store.read(entry.location);
+		if (bytes == null) {
+			// evicted when its slab was reused
+			index.remove(id, entry);
+			return null;
+		}
+		try {
+			CachedBeanData data = codec.decode(bytes);
+			offHeapHitCount.incrementAndGet();
+			entry.lastAccessTime = System.currentTimeMillis();
+
+			// a hot bean so put it into the on heap tier
+			heapCache.put(id, data);
+			if (index.get(id) != entry) {
+				// replaced or removed concurrently so do not keep the old data
+				heapCache.remove(id);
+			}
+			return data;
+
+		} catch (IOException e) {
+			String msg = "Error decoding off heap cache data for " + descriptor.getFullName() + " id:" + id;
+			logger.log(Level.WARNING, msg, e);
+			index.remove(id, entry);
+			return null;
+		}
+	}
+
+	/**
+	 * Put the data into the off heap tier (or the on heap tier if it can not be
+	 * encoded).
+	 */
+	public Object put(Object id, Object value) {
+
+		byte[] bytes = (value instanceof CachedBeanData) ? codec.encode((CachedBeanData) value) : null;
+		long location = (bytes == null) ? -1 : store.write(bytes);
+		if (location < 0) {
+			index.remove(id);
+			return heapCache.put(id, value);
+		}
+
+		index.put(id, new OffHeapEntry(location));
+		addSlabKey(location, id);
+		purgeEvicted();
+
+		// any on heap copy is now stale
+		return heapCache.remove(id);
+	}
+
+	public Object putIfAbsent(Object id, Object value) {
+		Object existing = get(id);
+		if (existing != null) {
+			return existing;
+		}
+		put(id, value);
+		return null;
+	}
+
+	private void addSlabKey(long location, Object id) {
+		List<Object> keys = slabKeys.get(OffHeapSlabStore.getSlab(location));
+		synchronized (keys) {
+			keys.add(id);
+		}
+	}
+
+	/**
+	 * Remove the index entries for the slabs reused since the last purge.
+	 */
+	private void purgeEvicted() {
+		long recycleCount = store.getRecycleCount();
+		if (recycleCount != lastPurgeRecycleCount) {
+			lastPurgeRecycleCount = recycleCount;
+			for (int slab = 0; slab < slabGenerations.length; slab++) {
+				purgeSlab(slab);
+			}
+		}
+	}
+
+	/**
+	 * Remove the index entries for data in the slab if it has been reused.
+	 */
+	private void purgeSlab(int slab) {
+
+		List<Object> keys = slabKeys.get(slab);
+		List<Object> written;
+		synchronized (keys) {
+			int generation = store.getGeneration(slab);
+			if (generation == slabGenerations[slab]) {
+				return;
+			}
+			slabGenerations[slab] = generation;
+			written = new ArrayList<Object>(keys);
+			keys.clear();
+		}
+
+		List<Object> retain = new ArrayList<Object>();
+		for (int i = 0; i < written.size(); i++) {
+			Object id = written.get(i);
+			OffHeapEntry entry = index.get(id);
+			if (entry != null) {
+				if (!store.isValid(entry.location)) {
+					index.remove(id, entry);
+				} else if (OffHeapSlabStore.getSlab(entry.location) == slab) {
+					// written since the slab was reused
+					retain.add(id);
+				}
+			}
+		}
+		if (!retain.isEmpty()) {
+			synchronized (keys) {
+				keys.addAll(retain);
+			}
+		}
+	}
+
+	public Object remove(Object id) {
+		index.remove(id);
+		return heapCache.remove(id);
+	}
+
+	public void clear() {
+		index.clear();
+		for (int i = 0; i < slabKeys.size(); i++) {
+			List<Object> keys = slabKeys.get(i);
+			synchronized (keys) {
+				keys.clear();
+			}
+		}
+		heapCache.clear();
+	}
+
+	/**
+	 * Return the number of entries. Generally all the entries are in the off
+	 * heap tier.
+	 */
+	public int size() {
+		return Math.max(index.size(), heapCache.size());
+	}
+
+	/**
+	 * Return the number of entries in the on heap tier.
+	 */
+	public int getHeapSize() {
+		return heapCache.size();
+	}
+
+	/**
+	 * Return the number of hits served by the off heap tier.
+	 */
+	public int getOffHeapHitCount() {
+		return offHeapHitCount.get();
+	}
+
+	public int getHitRatio() {
+		ServerCacheStatistics s = getStatistics(false);
+		return s.getHitRatio();
+	}
+
+	/**
+	 * Return the statistics where hits include hits on either tier.
+	 */
+	public ServerCacheStatistics getStatistics(boolean reset) {
+
+		ServerCacheStatistics s = heapCache.getStatistics(reset);
+		int offHeapHits = reset ? offHeapHitCount.getAndSet(0) : offHeapHitCount.get();
+
+		s.setHitCount(s.getHitCount() + offHeapHits);
+		s.setMissCount(Math.max(0, s.getMissCount() - offHeapHits));
+		s.setSize(size());
+		return s;
+	}
+
+	/**
+	 * The location of the off heap data with its create and last access times.
+	 */
+	private static class OffHeapEntry {
+
+		private final long location;
+
+		private final long createTime;
+
+		private volatile long lastAccessTime;
+
+		private OffHeapEntry(long location) {
+			this.location = location;
+			this.createTime = System.currentTimeMillis();
+			this.lastAccessTime = createTime;
+		}
+
+		private boolean isExpired(long now, long maxIdleMillis, long maxLiveMillis) {
+			if (maxLiveMillis > 0 && now - createTime > maxLiveMillis) {
+				return true;
+			}
+			return maxIdleMillis > 0 && now - lastAccessTime > maxIdleMillis;
+		}
+	}
+}
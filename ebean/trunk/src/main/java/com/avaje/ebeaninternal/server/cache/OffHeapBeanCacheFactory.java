@@ -0,0 +1,87 @@
+/**
+ * Copyright (C) 2009 Authors
+ * 
+ * This file is part of Ebean.
+ * 
+ * Ebean is free software; you can redistribute it and/or modify it 
+ * under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation; either version 2.1 of the License, or
+ * (at your option) any later version.
+ *  
+ * Ebean is distributed in the hope that it will be useful, but 
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with Ebean; if not, write to the Free Software Foundation, Inc.,
+ * 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA  
+ */
+package com.avaje.ebeaninternal.server.cache;
+
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import com.avaje.ebean.EbeanServer;
+import com.avaje.ebean.cache.ServerCache;
+import com.avaje.ebean.cache.ServerCacheFactory;
+import com.avaje.ebean.cache.ServerCacheOptions;
+import com.avaje.ebeaninternal.api.ClassUtil;
+import com.avaje.ebeaninternal.api.SpiEbeanServer;
+import com.avaje.ebeaninternal.server.deploy.BeanDescriptor;
+
+/**
+ * Creates bean caches that have an off heap tier behind the caches created by
+ * the underlying ServerCacheFactory.
+ * <p>
+ * All the bean caches share a single {@link OffHeapSlabStore}. Only used for
+ * bean caches (where the cache key is the bean type name).
+ * </p>
+ */
+public class OffHeapBeanCacheFactory implements ServerCacheFactory {
+
+	private static final Logger logger = Logger.getLogger(OffHeapBeanCacheFactory.class.getName());
+
+	private final ServerCacheFactory heapCacheFactory;
+
+	private final OffHeapSlabStore store;
+
+	private SpiEbeanServer ebeanServer;
+
+	/**
+	 * Create with the factory for the on heap caches and the maximum number of
+	 * bytes to allocate off heap.
+	 */
+	public OffHeapBeanCacheFactory(ServerCacheFactory heapCacheFactory, long maxOffHeapBytes) {
+		this.heapCacheFactory = heapCacheFactory;
+		this.store = new OffHeapSlabStore(maxOffHeapBytes);
+	}
+
+	/**
+	 * The underlying factory is initialised separately.
+	 */
+	public void init(EbeanServer ebeanServer) {
+		this.ebeanServer = (SpiEbeanServer) ebeanServer;
+		logger.info("Off heap bean cache capacity [" + store.getCapacity() + "] bytes");
+	}
+
+	public ServerCache createCache(String cacheKey, ServerCacheOptions cacheOptions) {
+
+		ServerCache heapCache = heapCacheFactory.createCache(cacheKey, cacheOptions);
+
+		BeanDescriptor<?> desc = getBeanDescriptor(cacheKey);
+		if (desc == null) {
+			return heapCache;
+		}
+		return new OffHeapBeanCache(heapCache, store, desc);
+	}
+
+	private BeanDescriptor<?> getBeanDescriptor(String beanType) {
+		try {
+			return ebeanServer.getBeanDescriptor(ClassUtil.forName(beanType, getClass()));
+		} catch (ClassNotFoundException e) {
+			logger.log(Level.WARNING, "No off heap cache tier for " + beanType, e);
+			return null;
+		}
+	}
+}
@@ -0,0 +1,185 @@
+/**
+ * Copyright (C) 2009 Authors
+ * 
+ * This file is part of Ebean.
+ * 
+ * Ebean is free software; you can redistribute it and/or modify it 
+ * under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation; either version 2.1 of the License, or
+ * (at your option) any later version.
+ *  
+ * Ebean is distributed in the hope that it will be useful, but 
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with Ebean; if not, write to the Free Software Foundation, Inc.,
+ * 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA  
+ */
+package com.avaje.ebeaninternal.server.cache;
+
+import java.nio.ByteBuffer;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Stores byte arrays outside of the java heap in direct ByteBuffer slabs.
+ * <p>
+ * Data is appended to the current slab. When the current slab is full the
+ * next slab (in a ring) is reused which implicitly evicts everything that was
+ * stored in it. Each slab has a generation that is incremented when it is
+ * reused and the location returned by {@link #write(byte[])} includes the
+ * generation so that reads of evicted data return null.
+ * </p>
+ * <p>
+ * Writes are synchronized. Reads do not lock but check the generation of the
+ * slab before and after copying the data.
+ * </p>
+ */
+public class OffHeapSlabStore {
+
+    private static final int DEFAULT_SLAB_SIZE = 4 * 1024 * 1024;
+
+    private static final int MAX_SLABS = 256;
+
+    private static final int GENERATION_MASK = 0x7fffff;
+
+    private final ByteBuffer[] slabs;
+
+    private final AtomicIntegerArray generations;
+
+    private final int slabSize;
+
+    /**
+     * Incremented each time a slab is reused.
+     */
+    private final AtomicLong recycleCount = new AtomicLong();
+
+    private int currentSlab;
+
+    private int slabsUsed = 1;
+
+    private int position;
+
+    /**
+     * Create with the maximum number of bytes to allocate off heap.
+     */
+    public OffHeapSlabStore(long maxBytes) {
+        long count = Math.max(2, Math.min(MAX_SLABS, maxBytes / DEFAULT_SLAB_SIZE));
+        this.slabSize = (int) Math.min(Integer.MAX_VALUE, maxBytes / count);
+        this.slabs = new ByteBuffer[(int) count];
+        this.generations = new AtomicIntegerArray(slabs.length);
+        for (int i = 0; i < slabs.length; i++) {
+            slabs[i] = ByteBuffer.allocateDirect(slabSize);
+        }
+    }
+
+    /**
+     * Return the total number of bytes allocated off heap.
+     */
+    public long getCapacity() {
+        return (long) slabSize * slabs.length;
+    }
+
+    /**
+     * Return the number of times a slab has been reused.
+     */
+    public long getRecycleCount() {
+        return recycleCount.get();
+    }
+
+    /**
+     * Return the number of slabs.
+     */
+    public int getSlabCount() {
+        return slabs.length;
+    }
+
+    /**
+     * Return the generation of the slab (incremented each time it is reused).
+     */
+    public int getGeneration(int slab) {
+        return generations.get(slab) & GENERATION_MASK;
+    }
+
+    /**
+     * Return the slab that holds the data at this location.
+     */
+    public static int getSlab(long location) {
+        return (int) ((location >>> 32) & 0xff);
+    }
+
+    /**
+     * Write the data returning its location or -1 if it is too large.
+     */
+    public synchronized long write(byte[] data) {
+
+        int length = data.length + 4;
+        if (length > slabSize) {
+            return -1;
+        }
+        if (position + length > slabSize) {
+            currentSlab = (currentSlab + 1) % slabs.length;
+            if (slabsUsed < slabs.length) {
+                slabsUsed++;
+            } else {
+                // reuse the slab evicting all its current entries
+                generations.incrementAndGet(currentSlab);
+                recycleCount.incrementAndGet();
+            }
+            position = 0;
+        }
+
+        ByteBuffer buffer = slabs[currentSlab].duplicate();
+        buffer.position(position);
+        buffer.putInt(data.length);
+        buffer.put(data);
+
+        long location = location(generations.get(currentSlab), currentSlab, position);
+        position += length;
+        return location;
+    }
+
+    /**
+     * Return true if the data at this location has not been evicted.
+     */
+    public boolean isValid(long location) {
+        int slab = getSlab(location);
+        int generation = (int) (location >>> 40);
+        return (generations.get(slab) & GENERATION_MASK) == generation;
+    }
+
+    /**
+     * Read the data at the location returning null if it has been evicted.
+     */
+    public byte[] read(long location) {
+
+        int slab = getSlab(location);
+        int offset = (int) location;
+        int generation = (int) (location >>> 40);
+
+        if ((generations.get(slab) & GENERATION_MASK) != generation) {
+            return null;
+        }
+
+        ByteBuffer buffer = slabs[slab].duplicate();
+        buffer.position(offset);
+        int length = buffer.getInt();
+        if (length < 0 || offset + 4 + length > slabSize) {
+            return null;
+        }
+        byte[] data = new byte[length];
+        buffer.get(data);
+
+        if ((generations.get(slab) & GENERATION_MASK) != generation) {
+            // the slab was reused while we were reading
+            return null;
+        }
+        return data;
+    }
+
+    private static long location(int generation, int slab, int offset) {
+        return ((long) (generation & GENERATION_MASK) << 40) | ((long) slab << 32) | (offset & 0xffffffffL);
+    }
+}
@@ -0,0 +1,76 @@
+package com.avaje.ebeaninternal.server.cache;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Records when each table was last modified so that cached query results can
+ * be invalidated based on the tables they depend on.
+ * <p>
+ * Rather than removing entries from the query caches when a table is modified
+ * the table is given a new stamp. A cached query result records the stamp
+ * taken before the query was executed and is treated as invalid when any of
+ * its dependent tables has a later stamp.
+ * </p>
+ * <p>
+ * Modifications are only recorded once a query has been cached (there is
+ * nothing to invalidate before that).
+ * </p>
+ */
+public class QueryCacheTableStamps {
+
+    private final AtomicLong counter = new AtomicLong();
+
+    private final ConcurrentHashMap<String, Long> tableStamps = new ConcurrentHashMap<String, Long>();
+
+    private volatile boolean active;
+
+    /**
+     * Return true if query results are being cached.
+     */
+    public boolean isActive() {
+        return active;
+    }
+
+    /**
+     * Return the current stamp. This is taken before a query is executed.
+     */
+    public long currentStamp() {
+        active = true;
+        return counter.get();
+    }
+
+    /**
+     * Record that the table has been modified.
+     */
+    public void tableModified(String tableName) {
+        if (!active || tableName == null) {
+            return;
+        }
+        String key = tableName.toLowerCase();
+        long stamp = counter.incrementAndGet();
+        Long newStamp = Long.valueOf(stamp);
+        while (true) {
+            Long current = tableStamps.putIfAbsent(key, newStamp);
+            if (current == null || current.longValue() >= stamp) {
+                return;
+            }
+            if (tableStamps.replace(key, current, newStamp)) {
+                return;
+            }
+        }
+    }
+
+    /**
+     * Return true if any of the tables have been modified after the stamp.
+     */
+    public boolean isModifiedSince(String[] tableNames, long stamp) {
+        for (int i = 0; i < tableNames.length; i++) {
+            Long tableStamp = tableStamps.get(tableNames[i]);
+            if (tableStamp != null && tableStamp.longValue() > stamp) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
@@ -0,0 +1,551 @@
+/**
+ * Copyright (C) 2009 Authors
+ * 
+ * This file is part of Ebean.
+ * 
+ * Ebean is free software; you can redistribute it and/or modify it 
+ * under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation; either version 2.1 of the License, or
+ * (at your option) any later version.
+ *  
+ * Ebean is distributed in the hope that it will be useful, but 
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with Ebean; if not, write to the Free Software Foundation, Inc.,
+ * 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA  
+ */
+package com.avaje.ebeaninternal.server.cache;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import com.avaje.ebean.BackgroundExecutor;
+import com.avaje.ebean.EbeanServer;
+import com.avaje.ebean.cache.ServerCache;
+import com.avaje.ebean.cache.ServerCacheOptions;
+import com.avaje.ebean.cache.ServerCacheStatistics;
+
+/**
+ * A cache that enforces maxSize on every insert using W-TinyLFU eviction.
+ * <p>
+ * New entries go into a small LRU admission window. Entries leaving the window
+ * compete with the least recently used entry of the main space and the one with
+ * the lower estimated frequency (from a {@link FrequencySketch}) is evicted.
+ * The main space is a segmented LRU with probation and protected segments.
+ * </p>
+ * <p>
+ * Reads are served from a ConcurrentHashMap. The eviction policy is guarded by
+ * a lock that reads only try to obtain so under contention some access
+ * reordering is skipped rather than blocking the reader. Idle and time to live
+ * expiry is checked on read and a few of the least recently used entries are
+ * checked on each write so the cache never needs a full sort.
+ * </p>
+ */
+public class TinyLfuServerCache implements ServerCache {
+
+	private static final Logger logger = Logger.getLogger(TinyLfuServerCache.class.getName());
+
+	/**
+	 * The max number of entries per segment checked for expiry on each write.
+	 */
+	private static final int EXPIRE_BATCH = 3;
+
+	private static final int WINDOW = 0;
+	private static final int PROBATION = 1;
+	private static final int PROTECTED = 2;
+
+	private final ConcurrentHashMap<Object, Node> map = new ConcurrentHashMap<Object, Node>();
+
+	private final AtomicInteger hitCount = new AtomicInteger();
+
+	private final AtomicInteger missCount = new AtomicInteger();
+
+	private final AtomicInteger evictCount = new AtomicInteger();
+
+	/**
+	 * Guards the segments and the sketch.
+	 */
+	private final ReentrantLock lock = new ReentrantLock();
+
+	private final Segment window = new Segment();
+	private final Segment probation = new Segment();
+	private final Segment protect = new Segment();
+
+	private final FrequencySketch sketch;
+
+	private final String name;
+
+	private long trimFrequency;
+
+	private volatile int maxSize;
+
+	private volatile int maxIdleSecs;
+
+	private volatile int maxSecsToLive;
+
+	private int windowMax;
+
+	private int protectedMax;
+
+	public TinyLfuServerCache(String name, ServerCacheOptions options) {
+		this(name, options.getMaxSize(), options.getMaxIdleSecs(), options.getMaxSecsToLive());
+	}
+
+	public TinyLfuServerCache(String name, int maxSize, int maxIdleSecs, int maxSecsToLive) {
+		this.name = name;
+		this.maxIdleSecs = maxIdleSecs;
+		this.maxSecsToLive = maxSecsToLive;
+		this.trimFrequency = 60;
+		this.sketch = new FrequencySketch(maxSize);
+		initMaxSize(maxSize);
+	}
+
+	/**
+	 * Schedule a periodic removal of expired entries. This only walks the least
+	 * recently used end of each segment so that unused caches still release
+	 * expired entries.
+	 */
+	public void init(EbeanServer server) {
+
+		BackgroundExecutor executor = server.getBackgroundExecutor();
+		executor.executePeriodically(new ExpireTask(), trimFrequency, TimeUnit.SECONDS);
+	}
+
+	private void initMaxSize(int maxSize) {
+		this.maxSize = maxSize;
+		if (maxSize > 0) {
+			this.windowMax = Math.max(1, maxSize / 100);
+			this.protectedMax = (int)((maxSize - windowMax) * 0.8);
+		} else {
+			this.windowMax = Integer.MAX_VALUE;
+			this.protectedMax = Integer.MAX_VALUE;
+		}
+	}
+
+	public ServerCacheStatistics getStatistics(boolean reset) {
+
+		ServerCacheStatistics s = new ServerCacheStatistics();
+		s.setCacheName(name);
+		s.setMaxSize(maxSize);
+
+		int mc = reset ? missCount.getAndSet(0) : missCount.get();
+		int hc = reset ? hitCount.getAndSet(0) : hitCount.get();
+
+		s.setSize(size());
+		s.setHitCount(hc);
+		s.setMissCount(mc);
+		return s;
+	}
+
+	public int getHitRatio() {
+
+		int mc = missCount.get();
+		int hc = hitCount.get();
+
+		int totalCount = hc + mc;
+		if (totalCount == 0) {
+			return 0;
+		} else {
+			return hc * 100 / totalCount;
+		}
+	}
+
+	/**
+	 * Return the number of entries evicted to keep the cache within maxSize.
+	 */
+	public int getEvictCount() {
+		return evictCount.get();
+	}
+
+	public ServerCacheOptions getOptions() {
+		ServerCacheOptions o = new ServerCacheOptions();
+		o.setMaxIdleSecs(maxIdleSecs);
+		o.setMaxSize(maxSize);
+		o.setMaxSecsToLive(maxSecsToLive);
+		return o;
+	}
+
+	public void setOptions(ServerCacheOptions o) {
+		lock.lock();
+		try {
+			maxIdleSecs = o.getMaxIdleSecs();
+			maxSecsToLive = o.getMaxSecsToLive();
+			if (o.getMaxSize() != maxSize) {
+				initMaxSize(o.getMaxSize());
+				sketch.setMaxSize(o.getMaxSize());
+				evict();
+			}
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	/**
+	 * Return the name of the cache.
+	 */
+	public String getName() {
+		return name;
+	}
+
+	/**
+	 * Clear the cache.
+	 */
+	public void clear() {
+		lock.lock();
+		try {
+			map.clear();
+			window.clear();
+			probation.clear();
+			protect.clear();
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	/**
+	 * Return a value from the cache.
+	 */
+	public Object get(Object key) {
+
+		Node node = map.get(key);
+		if (node == null) {
+			missCount.incrementAndGet();
+			return null;
+		}
+
+		long now = System.currentTimeMillis();
+		if (isExpired(node, now)) {
+			lock.lock();
+			try {
+				removeNode(node);
+			} finally {
+				lock.unlock();
+			}
+			missCount.incrementAndGet();
+			return null;
+		}
+
+		hitCount.incrementAndGet();
+		node.lastAccessTime = now;
+
+		// skip the policy update rather than block the reader
+		if (lock.tryLock()) {
+			try {
+				sketch.increment(key);
+				onAccess(node);
+			} finally {
+				lock.unlock();
+			}
+		}
+		return node.value;
+	}
+
+	/**
+	 * Put a value into the cache.
+	 */
+	public Object put(Object key, Object value) {
+		lock.lock();
+		try {
+			Node old = map.put(key, add(key, value));
+			if (old == null) {
+				return null;
+			}
+			segment(old.queue).remove(old);
+			return old.value;
+
+		} finally {
+			afterWrite();
+			lock.unlock();
+		}
+	}
+
+	/**
+	 * Put a value into the cache but only if absent.
+	 */
+	public Object putIfAbsent(Object key, Object value) {
+		lock.lock();
+		try {
+			Node existing = map.get(key);
+			if (existing != null) {
+				if (!isExpired(existing, System.currentTimeMillis())) {
+					return existing.value;
+				}
+				removeNode(existing);
+			}
+			map.put(key, add(key, value));
+			return null;
+
+		} finally {
+			afterWrite();
+			lock.unlock();
+		}
+	}
+
+	/**
+	 * Remove an entry from the cache.
+	 */
+	public Object remove(Object key) {
+		lock.lock();
+		try {
+			Node node = map.remove(key);
+			if (node == null) {
+				return null;
+			}
+			segment(node.queue).remove(node);
+			return node.value;
+
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	/**
+	 * Return the number of elements in the cache.
+	 */
+	public int size() {
+		return map.size();
+	}
+
+	/**
+	 * Create a new node adding it to the admission window.
+	 */
+	private Node add(Object key, Object value) {
+		Node node = new Node(key, value);
+		sketch.increment(key);
+		node.queue = WINDOW;
+		window.addLast(node);
+		return node;
+	}
+
+	private void afterWrite() {
+		evict();
+		expire(System.currentTimeMillis(), EXPIRE_BATCH);
+	}
+
+	/**
+	 * Move the node according to the segmented LRU policy.
+	 */
+	private void onAccess(Node node) {
+		if (map.get(node.key) != node) {
+			// removed or replaced concurrently
+			return;
+		}
+		switch (node.queue) {
+		case WINDOW:
+			window.moveToLast(node);
+			break;
+
+		case PROBATION:
+			probation.remove(node);
+			node.queue = PROTECTED;
+			protect.addLast(node);
+			while (protect.size > protectedMax) {
+				Node demote = protect.removeFirst();
+				demote.queue = PROBATION;
+				probation.addLast(demote);
+			}
+			break;
+
+		default:
+			protect.moveToLast(node);
+		}
+	}
+
+	/**
+	 * Move entries from the window to probation and then evict until the
+	 * cache is within its maxSize.
+	 */
+	private void evict() {
+
+		if (maxSize <= 0) {
+			return;
+		}
+
+		while (window.size > windowMax) {
+			Node candidate = window.removeFirst();
+			candidate.queue = PROBATION;
+			probation.addLast(candidate);
+		}
+
+		while (window.size + probation.size + protect.size > maxSize) {
+			Node victim = probation.first;
+			Node candidate = probation.last;
+			Node evict;
+			if (victim == null) {
+				evict = (protect.first != null) ? protect.first : window.first;
+
+			} else if (victim == candidate) {
+				evict = victim;
+
+			} else {
+				// admit the candidate only if it is more popular than the victim
+				int candidateFreq = sketch.frequency(candidate.key);
+				int victimFreq = sketch.frequency(victim.key);
+				evict = (candidateFreq > victimFreq) ? victim : candidate;
+			}
+			removeNode(evict);
+			evictCount.incrementAndGet();
+		}
+	}
+
+	/**
+	 * Remove expired entries from the least recently used end of each segment.
+	 */
+	private int expire(long now, int maxPerSegment) {
+		if (maxIdleSecs <= 0 && maxSecsToLive <= 0) {
+			return 0;
+		}
+		return expire(window, now, maxPerSegment) + expire(probation, now, maxPerSegment)
+				+ expire(protect, now, maxPerSegment);
+	}
+
+	private int expire(Segment segment, long now, int max) {
+		int count = 0;
+		Node node = segment.first;
+		while (node != null && count < max && isExpired(node, now)) {
+			Node next = node.next;
+			removeNode(node);
+			count++;
+			node = next;
+		}
+		return count;
+	}
+
+	private boolean isExpired(Node node, long now) {
+		if (maxIdleSecs > 0 && now - node.lastAccessTime > maxIdleSecs * 1000L) {
+			return true;
+		}
+		return (maxSecsToLive > 0 && now - node.createTime > maxSecsToLive * 1000L);
+	}
+
+	/**
+	 * Remove the node from the map and its segment if it is still current.
+	 */
+	private void removeNode(Node node) {
+		if (map.remove(node.key, node)) {
+			segment(node.queue).remove(node);
+		}
+	}
+
+	private Segment segment(int queue) {
+		switch (queue) {
+		case WINDOW:
+			return window;
+		case PROBATION:
+			return probation;
+		default:
+			return protect;
+		}
+	}
+
+	/**
+	 * Periodically removes expired entries.
+	 */
+	private class ExpireTask implements Runnable {
+
+		public void run() {
+			long startTime = System.currentTimeMillis();
+			int expired;
+			lock.lock();
+			try {
+				expired = expire(startTime, Integer.MAX_VALUE);
+			} finally {
+				lock.unlock();
+			}
+
+			if (logger.isLoggable(Level.FINE)) {
+				long exeTime = System.currentTimeMillis() - startTime;
+				logger.fine("Executed expire of cache " + name + " in [" + exeTime + "]millis  expired[" + expired
+						+ "] evicted[" + evictCount.get() + "]");
+			}
+		}
+	}
+
+	/**
+	 * An entry in the cache and a node in one of the LRU segments.
+	 */
+	private static class Node {
+
+		final Object key;
+		final Object value;
+		final long createTime;
+		volatile long lastAccessTime;
+
+		int queue;
+		Node prev;
+		Node next;
+
+		Node(Object key, Object value) {
+			this.key = key;
+			this.value = value;
+			this.createTime = System.currentTimeMillis();
+			this.lastAccessTime = createTime;
+		}
+	}
+
+	/**
+	 * A doubly linked LRU list with the least recently used node first.
+	 */
+	private static class Segment {
+
+		Node first;
+		Node last;
+		int size;
+
+		void addLast(Node node) {
+			node.prev = last;
+			node.next = null;
+			if (last == null) {
+				first = node;
+			} else {
+				last.next = node;
+			}
+			last = node;
+			size++;
+		}
+
+		Node removeFirst() {
+			Node node = first;
+			remove(node);
+			return node;
+		}
+
+		void moveToLast(Node node) {
+			if (node != last) {
+				remove(node);
+				addLast(node);
+			}
+		}
+
+		void remove(Node node) {
+			Node prev = node.prev;
+			Node next = node.next;
+			if (prev == null) {
+				first = next;
+			} else {
+				prev.next = next;
+			}
+			if (next == null) {
+				last = prev;
+			} else {
+				next.prev = prev;
+			}
+			node.prev = null;
+			node.next = null;
+			size--;
+		}
+
+		void clear() {
+			first = null;
+			last = null;
+			size = 0;
+		}
+	}
+}
@@ -0,0 +1,50 @@
+/**
+ * Copyright (C) 2009 Authors
+ * 
+ * This file is part of Ebean.
+ * 
+ * Ebean is free software; you can redistribute it and/or modify it 
+ * under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation; either version 2.1 of the License, or
+ * (at your option) any later version.
+ *  
+ * Ebean is distributed in the hope that it will be useful, but 
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with Ebean; if not, write to the Free Software Foundation, Inc.,
+ * 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA  
+ */
+package com.avaje.ebeaninternal.server.cache;
+
+import com.avaje.ebean.EbeanServer;
+import com.avaje.ebean.cache.ServerCache;
+import com.avaje.ebean.cache.ServerCacheFactory;
+import com.avaje.ebean.cache.ServerCacheOptions;
+
+
+/**
+ * ServerCacheFactory creating size bounded W-TinyLFU caches.
+ * <p>
+ * Use by setting serverCacheFactory in ServerConfig or
+ * ebean.serverCacheFactory=com.avaje.ebeaninternal.server.cache.TinyLfuServerCacheFactory
+ * </p>
+ */
+public class TinyLfuServerCacheFactory implements ServerCacheFactory {
+
+	private EbeanServer ebeanServer;
+	
+	public void init(EbeanServer ebeanServer){
+		this.ebeanServer = ebeanServer;
+	}
+	
+	public ServerCache createCache(String cacheKey, ServerCacheOptions cacheOptions) {
+		
+		ServerCache cache = new TinyLfuServerCache(cacheKey, cacheOptions);	
+		cache.init(ebeanServer);
+		return cache;
+	}
+	
+}
@@ -25,6 +25,7 @@ import com.avaje.ebean.EbeanServer;
 import com.avaje.ebean.config.GlobalProperties;
 import com.avaje.ebeaninternal.api.ClassUtil;
 import com.avaje.ebeaninternal.server.cluster.mcast.McastClusterManager;
+import com.avaje.ebeaninternal.server.cluster.nio.NioClusterBroadcast;
 import com.avaje.ebeaninternal.server.cluster.socket.SocketClusterBroadcast;
 import com.avaje.ebeaninternal.server.transaction.RemoteTransactionEvent;
 
@@ -53,15 +54,29 @@ public class ClusterManager {
     } else {
 
       try {
+        ClusterBroadcast transport;
         if ("mcast".equalsIgnoreCase(clusterType)) {
-          this.broadcast = new McastClusterManager();
+          transport = new McastClusterManager();
 
         } else if ("socket".equalsIgnoreCase(clusterType)) {
-          this.broadcast = new SocketClusterBroadcast();
+          transport = new SocketClusterBroadcast();
+
+        } else if ("nio".equalsIgnoreCase(clusterType)) {
+          transport = new NioClusterBroadcast();
 
         } else {
           logger.info("Clustering using [" + clusterType + "]");
-          this.broadcast = (ClusterBroadcast) ClassUtil.newInstance(clusterType);
+          transport = (ClusterBroadcast) ClassUtil.newInstance(clusterType);
+        }
+
+        int coalesceMillis = GlobalProperties.getInt("ebean.cluster.coalesceMillis", 0);
+        if (coalesceMillis > 0) {
+          // merge the events that occur within the time window
+          int coalesceMaxEvents = GlobalProperties.getInt("ebean.cluster.coalesceMaxEvents", 1000);
+          logger.info("Clustering coalescing events within [" + coalesceMillis + "] millis");
+          this.broadcast = new CoalescingClusterBroadcast(transport, coalesceMillis, coalesceMaxEvents);
+        } else {
+          this.broadcast = transport;
         }
 
       } catch (Exception e) {
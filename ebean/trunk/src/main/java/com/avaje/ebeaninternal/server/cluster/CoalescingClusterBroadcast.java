@@ -0,0 +1,262 @@
+/**
+ * Copyright (C) 2009 Authors
+ * 
+ * This file is part of Ebean.
+ * 
+ * Ebean is free software; you can redistribute it and/or modify it 
+ * under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation; either version 2.1 of the License, or
+ * (at your option) any later version.
+ *  
+ * Ebean is distributed in the hope that it will be useful, but 
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with Ebean; if not, write to the Free Software Foundation, Inc.,
+ * 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA  
+ */
+package com.avaje.ebeaninternal.server.cluster;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import com.avaje.ebeaninternal.server.transaction.RemoteTransactionEvent;
+
+/**
+ * Wraps a ClusterBroadcast coalescing the RemoteTransactionEvents that occur
+ * within a short time window.
+ * <p>
+ * The events for each server are merged into a single RemoteTransactionEvent
+ * with duplicate table and bean id invalidations removed. This reduces the
+ * number of messages sent when there are many small transactions.
+ * </p>
+ * <p>
+ * An event is not merged when that would lose the order of the changes to a
+ * bean (such as a delete followed by an insert of the same id). Instead the
+ * pending events are sent first.
+ * </p>
+ * <p>
+ * The merged events are broadcast by a single thread (or the broadcasting
+ * thread when too many events are pending) in the order they were created.
+ * With the transport delivering the messages from each member in order the
+ * events are applied in order per sender.
+ * </p>
+ */
+public class CoalescingClusterBroadcast implements ClusterBroadcast, Runnable {
+
+    private static final Logger logger = Logger.getLogger(CoalescingClusterBroadcast.class.getName());
+
+    private final ClusterBroadcast broadcast;
+
+    private final long windowMillis;
+
+    private final int maxEvents;
+
+    private final Object monitor = new Object();
+
+    /**
+     * Used to send the merged events in order.
+     */
+    private final Object sendMonitor = new Object();
+
+    private final Thread flushThread;
+
+    private Map<String, RemoteTransactionEvent> pending = new LinkedHashMap<String, RemoteTransactionEvent>();
+
+    private int pendingCount;
+
+    private int eventCount;
+
+    private int sendCount;
+
+    private boolean shutdown;
+
+    /**
+     * Create wrapping the underlying ClusterBroadcast.
+     *
+     * @param broadcast
+     *            the transport used to send the merged events
+     * @param windowMillis
+     *            the time events are held to coalesce with later events
+     * @param maxEvents
+     *            the number of pending events that are sent immediately
+     */
+    public CoalescingClusterBroadcast(ClusterBroadcast broadcast, long windowMillis, int maxEvents) {
+        this.broadcast = broadcast;
+        this.windowMillis = windowMillis;
+        this.maxEvents = maxEvents;
+        this.flushThread = new Thread(this, "EbeanClusterCoalesce");
+        this.flushThread.setDaemon(true);
+    }
+
+    /**
+     * Return the underlying ClusterBroadcast.
+     */
+    public ClusterBroadcast getBroadcast() {
+        return broadcast;
+    }
+
+    /**
+     * Return the number of events broadcast.
+     */
+    public int getEventCount() {
+        synchronized (monitor) {
+            return eventCount;
+        }
+    }
+
+    /**
+     * Return the number of merged events sent by the underlying ClusterBroadcast.
+     */
+    public int getSendCount() {
+        synchronized (sendMonitor) {
+            return sendCount;
+        }
+    }
+
+    public void startup(ClusterManager clusterManager) {
+        broadcast.startup(clusterManager);
+        flushThread.start();
+    }
+
+    public void shutdown() {
+        synchronized (monitor) {
+            shutdown = true;
+            monitor.notifyAll();
+        }
+        try {
+            flushThread.join(windowMillis + 1000);
+        } catch (InterruptedException e) {
+            logger.log(Level.INFO, "Interrupted waiting for coalesce thread", e);
+        }
+        flush();
+        broadcast.shutdown();
+    }
+
+    /**
+     * Add the event to be merged and sent with other events in the time
+     * window.
+     */
+    public void broadcast(RemoteTransactionEvent remoteTransEvent) {
+
+        boolean mergeable;
+        synchronized (monitor) {
+            RemoteTransactionEvent merged = pending.get(remoteTransEvent.getServerName());
+            mergeable = merged == null || merged.isMergeable(remoteTransEvent);
+            if (mergeable) {
+                add(remoteTransEvent);
+            }
+        }
+        if (!mergeable) {
+            flushThenAdd(remoteTransEvent);
+        }
+        if (isFlushNow()) {
+            flush();
+        }
+    }
+
+    /**
+     * Add the event to the pending events (merging it into the pending event
+     * for its server).
+     */
+    private void add(RemoteTransactionEvent remoteTransEvent) {
+
+        String serverName = remoteTransEvent.getServerName();
+        RemoteTransactionEvent merged = pending.get(serverName);
+        if (merged == null) {
+            merged = new RemoteTransactionEvent(serverName);
+            pending.put(serverName, merged);
+        }
+        merged.merge(remoteTransEvent);
+        eventCount++;
+        pendingCount++;
+        if (pendingCount == 1) {
+            monitor.notifyAll();
+        }
+    }
+
+    private boolean isFlushNow() {
+        synchronized (monitor) {
+            return pendingCount > 0 && (shutdown || pendingCount >= maxEvents);
+        }
+    }
+
+    /**
+     * Send the pending events and then add the event that could not be
+     * merged with them.
+     */
+    private void flushThenAdd(RemoteTransactionEvent remoteTransEvent) {
+
+        synchronized (sendMonitor) {
+            List<RemoteTransactionEvent> events;
+            synchronized (monitor) {
+                events = takePending();
+                add(remoteTransEvent);
+            }
+            send(events);
+        }
+    }
+
+    /**
+     * Send all the pending merged events.
+     */
+    public void flush() {
+
+        synchronized (sendMonitor) {
+            // swapped while holding sendMonitor so the events are sent in order
+            List<RemoteTransactionEvent> events;
+            synchronized (monitor) {
+                events = takePending();
+            }
+            send(events);
+        }
+    }
+
+    private List<RemoteTransactionEvent> takePending() {
+
+        List<RemoteTransactionEvent> events = new ArrayList<RemoteTransactionEvent>(pending.values());
+        if (pendingCount > 0) {
+            pending = new LinkedHashMap<String, RemoteTransactionEvent>();
+            pendingCount = 0;
+        }
+        return events;
+    }
+
+    private void send(List<RemoteTransactionEvent> events) {
+        for (int i = 0; i < events.size(); i++) {
+            sendCount++;
+            broadcast.broadcast(events.get(i));
+        }
+    }
+
+    public void run() {
+        while (true) {
+            try {
+                synchronized (monitor) {
+                    while (pendingCount == 0 && !shutdown) {
+                        monitor.wait();
+                    }
+                    if (shutdown) {
+                        return;
+                    }
+                }
+                // wait for other events to coalesce with
+                Thread.sleep(windowMillis);
+                flush();
+
+            } catch (InterruptedException e) {
+                logger.log(Level.INFO, "Coalesce thread interrupted", e);
+                return;
+
+            } catch (Exception e) {
+                logger.log(Level.SEVERE, "Error broadcasting coalesced events", e);
+            }
+        }
+    }
+}
@@ -25,19 +25,38 @@ import java.io.Serializable;
  * Simple holder of binary data.
  * Used to use Packet based serialisation of RemoteTransactionEvent
  * with simple Java Serialisation of the DataHolder.
+ * <p>
+ * The serialVersionUID changed when the compressed flag was added so a server
+ * with the older version fails to read (rather than misreads) the data. All
+ * the servers in the cluster need to be upgraded together.
+ * </p>
  */
 public class DataHolder implements Serializable {
 
-    private static final long serialVersionUID = 9090748723571322192L;
+    private static final long serialVersionUID = 9090748723571322193L;
 
     private final byte[] data;
+
+    private final boolean compressed;
     
     public DataHolder(byte[] data) {
+        this(data, false);
+    }
+
+    public DataHolder(byte[] data, boolean compressed) {
         this.data = data;
+        this.compressed = compressed;
     }
 
     public byte[] getData() {
         return data;
     }
+
+    /**
+     * Return true if the data has been compressed using a Deflater.
+     */
+    public boolean isCompressed() {
+        return compressed;
+    }
     
 }
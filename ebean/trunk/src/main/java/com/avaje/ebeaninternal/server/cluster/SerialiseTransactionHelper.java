@@ -20,22 +20,35 @@
 package com.avaje.ebeaninternal.server.cluster;
 
 import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
 import java.io.DataInputStream;
 import java.io.IOException;
+import java.io.InputStream;
 import java.util.List;
+import java.util.zip.Deflater;
+import java.util.zip.InflaterInputStream;
 
+import com.avaje.ebean.config.GlobalProperties;
 import com.avaje.ebeaninternal.api.SpiEbeanServer;
 import com.avaje.ebeaninternal.server.transaction.RemoteTransactionEvent;
 
 /**
  * Mechanism to convert RemoteTransactionEvent to/from byte[] content.
+ * <p>
+ * When ebean.cluster.compress is true the content is compressed with a
+ * Deflater when that makes it smaller. Compressed content is always read
+ * regardless of the setting.
+ * </p>
  */
 public abstract class SerialiseTransactionHelper {
 
     private final PacketWriter packetWriter;
 
+    private final boolean compress;
+
     public SerialiseTransactionHelper() {
         packetWriter = new PacketWriter(Integer.MAX_VALUE);
+        compress = GlobalProperties.getBoolean("ebean.cluster.compress", false);
     }
 
     public abstract SpiEbeanServer getEbeanServer(String serverName);
@@ -50,25 +63,59 @@ public abstract class SerialiseTransactionHelper {
             throw new RuntimeException("Always expecting 1 Packet but got " + packetList.size());
         }
         byte[] data = packetList.get(0).getBytes();
+        if (compress) {
+            byte[] compressed = compress(data);
+            if (compressed.length < data.length) {
+                return new DataHolder(compressed, true);
+            }
+        }
         return new DataHolder(data);
     }
 
+    private byte[] compress(byte[] data) {
+
+        Deflater deflater = new Deflater(Deflater.BEST_SPEED);
+        try {
+            deflater.setInput(data);
+            deflater.finish();
+
+            ByteArrayOutputStream out = new ByteArrayOutputStream(data.length / 2 + 16);
+            byte[] buffer = new byte[1024];
+            while (!deflater.finished()) {
+                int count = deflater.deflate(buffer);
+                out.write(buffer, 0, count);
+            }
+            return out.toByteArray();
+
+        } finally {
+            deflater.end();
+        }
+    }
+
     /**
      * Convert the byte[] content to RemoteTransactionEvent.
      */
     public RemoteTransactionEvent read(DataHolder dataHolder) throws IOException {
 
-        ByteArrayInputStream bi = new ByteArrayInputStream(dataHolder.getData());
+        InputStream bi = new ByteArrayInputStream(dataHolder.getData());
+        if (dataHolder.isCompressed()) {
+            bi = new InflaterInputStream(bi);
+        }
         DataInputStream dataInput = new DataInputStream(bi);
+        try {
+            Packet header = Packet.readHeader(dataInput);
+    
+            SpiEbeanServer server = getEbeanServer(header.getServerName());
+    
+            PacketTransactionEvent tranEventPacket = PacketTransactionEvent.forRead(header, server);
+            tranEventPacket.read(dataInput);
+    
+            return tranEventPacket.getEvent();
 
-        Packet header = Packet.readHeader(dataInput);
-
-        SpiEbeanServer server = getEbeanServer(header.getServerName());
-
-        PacketTransactionEvent tranEventPacket = PacketTransactionEvent.forRead(header, server);
-        tranEventPacket.read(dataInput);
-
-        return tranEventPacket.getEvent();
+        } finally {
+            // releases the Inflater
+            dataInput.close();
+        }
 
     }
 }
@@ -0,0 +1,82 @@
+/**
+ * Copyright (C) 2009 Authors
+ * 
+ * This file is part of Ebean.
+ * 
+ * Ebean is free software; you can redistribute it and/or modify it 
+ * under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation; either version 2.1 of the License, or
+ * (at your option) any later version.
+ *  
+ * Ebean is distributed in the hope that it will be useful, but 
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with Ebean; if not, write to the Free Software Foundation, Inc.,
+ * 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA  
+ */
+package com.avaje.ebeaninternal.server.cluster.nio;
+
+import java.nio.ByteBuffer;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * A length prefixed frame written to one or more members.
+ * <p>
+ * The frame is encoded once into a pooled buffer and each member writes its
+ * own view of it. The buffer is returned to the pool when the last member has
+ * written it.
+ * </p>
+ * <p>
+ * The frame is the int length followed by the type, the compressed flag and
+ * the payload.
+ * </p>
+ */
+class Frame {
+
+    static final byte TYPE_REGISTER = 1;
+
+    static final byte TYPE_DEREGISTER = 2;
+
+    static final byte TYPE_TRANSEVENT = 3;
+
+    /**
+     * The type and compressed flag written after the length.
+     */
+    static final int HEADER_SIZE = 2;
+
+    private final FrameBufferPool pool;
+
+    private final ByteBuffer buffer;
+
+    private final AtomicInteger refCount = new AtomicInteger(1);
+
+    Frame(FrameBufferPool pool, byte type, boolean compressed, byte[] payload) {
+        this.pool = pool;
+        this.buffer = pool.acquire(4 + HEADER_SIZE + payload.length);
+        buffer.putInt(HEADER_SIZE + payload.length);
+        buffer.put(type);
+        buffer.put(compressed ? (byte) 1 : (byte) 0);
+        buffer.put(payload);
+        buffer.flip();
+    }
+
+    /**
+     * Return a view of the frame for a member to write.
+     */
+    ByteBuffer view() {
+        return buffer.duplicate();
+    }
+
+    void retain() {
+        refCount.incrementAndGet();
+    }
+
+    void release() {
+        if (refCount.decrementAndGet() == 0) {
+            pool.release(buffer);
+        }
+    }
+}
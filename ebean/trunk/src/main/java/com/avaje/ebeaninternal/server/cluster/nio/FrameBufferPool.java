@@ -0,0 +1,82 @@
+/**
+ * Copyright (C) 2009 Authors
+ * 
+ * This file is part of Ebean.
+ * 
+ * Ebean is free software; you can redistribute it and/or modify it 
+ * under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation; either version 2.1 of the License, or
+ * (at your option) any later version.
+ *  
+ * Ebean is distributed in the hope that it will be useful, but 
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with Ebean; if not, write to the Free Software Foundation, Inc.,
+ * 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA  
+ */
+package com.avaje.ebeaninternal.server.cluster.nio;
+
+import java.nio.ByteBuffer;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * A pool of direct ByteBuffers used to write the frames.
+ * <p>
+ * Frames larger than the buffer size use a heap buffer that is not pooled.
+ * </p>
+ */
+public class FrameBufferPool {
+
+    private final ConcurrentLinkedQueue<ByteBuffer> pool = new ConcurrentLinkedQueue<ByteBuffer>();
+
+    private final AtomicInteger pooledCount = new AtomicInteger();
+
+    private final int bufferSize;
+
+    private final int maxPooled;
+
+    public FrameBufferPool(int bufferSize, int maxPooled) {
+        this.bufferSize = bufferSize;
+        this.maxPooled = maxPooled;
+    }
+
+    /**
+     * Return a cleared buffer with at least the given capacity.
+     */
+    public ByteBuffer acquire(int size) {
+        if (size > bufferSize) {
+            return ByteBuffer.allocate(size);
+        }
+        ByteBuffer buffer = pool.poll();
+        if (buffer == null) {
+            return ByteBuffer.allocateDirect(bufferSize);
+        }
+        pooledCount.decrementAndGet();
+        buffer.clear();
+        return buffer;
+    }
+
+    /**
+     * Return the buffer to the pool.
+     */
+    public void release(ByteBuffer buffer) {
+        if (buffer.isDirect() && buffer.capacity() == bufferSize) {
+            if (pooledCount.incrementAndGet() <= maxPooled) {
+                pool.offer(buffer);
+            } else {
+                pooledCount.decrementAndGet();
+            }
+        }
+    }
+
+    /**
+     * Return the number of buffers currently in the pool.
+     */
+    public int size() {
+        return pooledCount.get();
+    }
+}
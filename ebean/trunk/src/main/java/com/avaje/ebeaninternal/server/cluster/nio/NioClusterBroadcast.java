@@ -0,0 +1,489 @@
+/**
+ * Copyright (C) 2009 Authors
+ * 
+ * This file is part of Ebean.
+ * 
+ * Ebean is free software; you can redistribute it and/or modify it 
+ * under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation; either version 2.1 of the License, or
+ * (at your option) any later version.
+ *  
+ * Ebean is distributed in the hope that it will be useful, but 
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with Ebean; if not, write to the Free Software Foundation, Inc.,
+ * 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA  
+ */
+package com.avaje.ebeaninternal.server.cluster.nio;
+
+import java.io.IOException;
+import java.io.UnsupportedEncodingException;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import javax.persistence.PersistenceException;
+
+import com.avaje.ebean.config.GlobalProperties;
+import com.avaje.ebeaninternal.api.SpiEbeanServer;
+import com.avaje.ebeaninternal.server.cluster.ClusterBroadcast;
+import com.avaje.ebeaninternal.server.cluster.ClusterManager;
+import com.avaje.ebeaninternal.server.cluster.DataHolder;
+import com.avaje.ebeaninternal.server.cluster.SerialiseTransactionHelper;
+import com.avaje.ebeaninternal.server.cluster.socket.SocketClusterStatus;
+import com.avaje.ebeaninternal.server.lib.util.StringHelper;
+import com.avaje.ebeaninternal.server.transaction.RemoteTransactionEvent;
+
+/**
+ * Broadcast messages across the cluster using non-blocking sockets.
+ * <p>
+ * A single event loop thread accepts, connects, reads and writes all the
+ * connections so the number of threads does not grow with the size of the
+ * cluster. Each RemoteTransactionEvent is encoded once into a length prefixed
+ * frame in a pooled direct buffer that is written to every member.
+ * </p>
+ * <p>
+ * Uses the same ebean.cluster.local and ebean.cluster.members properties as
+ * the socket transport. Incoming events are applied in order by a task run
+ * by the BackgroundExecutor so the event loop thread is not held up by them.
+ * </p>
+ */
+public class NioClusterBroadcast implements ClusterBroadcast, Runnable {
+
+    private static final Logger logger = Logger.getLogger(NioClusterBroadcast.class.getName());
+
+    private static final long SELECT_MILLIS = 1000;
+
+    private static final long RECONNECT_MILLIS = 5000;
+
+    private final String localHostPort;
+
+    private final NioConnection[] members;
+
+    private final Map<String, NioConnection> memberMap = new HashMap<String, NioConnection>();
+
+    private final FrameBufferPool bufferPool = new FrameBufferPool(64 * 1024, 32);
+
+    private final TxnSerialiseHelper txnSerialiseHelper = new TxnSerialiseHelper();
+
+    private final AtomicInteger txnOutgoing = new AtomicInteger();
+
+    private final AtomicInteger txnIncoming = new AtomicInteger();
+
+    /**
+     * Incoming events waiting to be applied.
+     */
+    private final ConcurrentLinkedQueue<RemoteTransactionEvent> incomingEvents = new ConcurrentLinkedQueue<RemoteTransactionEvent>();
+
+    /**
+     * True when a task to apply the incoming events has been submitted.
+     */
+    private final AtomicBoolean applyingEvents = new AtomicBoolean();
+
+    private final ApplyIncomingEvents applyIncomingEvents = new ApplyIncomingEvents();
+
+    private final Selector selector;
+
+    private final ServerSocketChannel serverChannel;
+
+    private final Thread eventLoop;
+
+    private ClusterManager clusterManager;
+
+    private volatile boolean shutdown;
+
+    public NioClusterBroadcast() {
+
+        String localHost = GlobalProperties.get("ebean.cluster.local", null);
+        String memberHosts = GlobalProperties.get("ebean.cluster.members", null);
+
+        logger.info("Clustering using NIO local[" + localHost + "] members[" + memberHosts + "]");
+
+        InetSocketAddress local = parseFullName(localHost);
+        this.localHostPort = hostPort(local);
+
+        String[] memArray = StringHelper.delimitedToArray(memberHosts, ",", false);
+        for (int i = 0; i < memArray.length; i++) {
+            InetSocketAddress member = parseFullName(memArray[i]);
+            String memberHostPort = hostPort(member);
+            if (!localHostPort.equalsIgnoreCase(memberHostPort)) {
+                // don't add the local one ...
+                memberMap.put(memberHostPort, new NioConnection(memberHostPort, member));
+            }
+        }
+        this.members = memberMap.values().toArray(new NioConnection[memberMap.size()]);
+
+        try {
+            this.selector = Selector.open();
+            this.serverChannel = ServerSocketChannel.open();
+            serverChannel.configureBlocking(false);
+            serverChannel.socket().setReuseAddress(true);
+            serverChannel.socket().bind(new InetSocketAddress(local.getPort()));
+            serverChannel.register(selector, SelectionKey.OP_ACCEPT);
+
+        } catch (IOException e) {
+            String msg = "Error starting cluster NIO listener on port " + local.getPort();
+            throw new RuntimeException(msg, e);
+        }
+        this.eventLoop = new Thread(this, "EbeanClusterNio");
+        this.eventLoop.setDaemon(true);
+    }
+
+    /**
+     * Return the current status of this instance.
+     */
+    public SocketClusterStatus getStatus() {
+
+        // count of online members
+        int currentGroupSize = 0;
+        for (int i = 0; i < members.length; i++) {
+            if (members[i].isOnline()) {
+                ++currentGroupSize;
+            }
+        }
+        return new SocketClusterStatus(currentGroupSize, txnIncoming.get(), txnOutgoing.get());
+    }
+
+    public void startup(ClusterManager clusterManager) {
+        this.clusterManager = clusterManager;
+        eventLoop.start();
+    }
+
+    public void shutdown() {
+
+        // leave the cluster and give the members a chance to get the message
+        sendToMembers(createFrame(Frame.TYPE_DEREGISTER, false, encode(localHostPort)));
+        long until = System.currentTimeMillis() + 1000;
+        while (hasPendingWrites() && System.currentTimeMillis() < until) {
+            try {
+                Thread.sleep(20);
+            } catch (InterruptedException e) {
+                break;
+            }
+        }
+
+        shutdown = true;
+        selector.wakeup();
+        try {
+            eventLoop.join(SELECT_MILLIS + 1000);
+        } catch (InterruptedException e) {
+            logger.log(Level.INFO, "Interrupted waiting for NIO event loop", e);
+        }
+    }
+
+    /**
+     * Send the payload to all the members of the cluster.
+     */
+    public void broadcast(RemoteTransactionEvent remoteTransEvent) {
+        try {
+            txnOutgoing.incrementAndGet();
+            DataHolder dataHolder = txnSerialiseHelper.createDataHolder(remoteTransEvent);
+            sendToMembers(createFrame(Frame.TYPE_TRANSEVENT, dataHolder.isCompressed(), dataHolder.getData()));
+
+        } catch (Exception e) {
+            String msg = "Error sending RemoteTransactionEvent " + remoteTransEvent + " to cluster members.";
+            logger.log(Level.SEVERE, msg, e);
+        }
+    }
+
+    private Frame createFrame(byte type, boolean compressed, byte[] payload) {
+        return new Frame(bufferPool, type, compressed, payload);
+    }
+
+    private void sendToMembers(Frame frame) {
+        for (int i = 0; i < members.length; i++) {
+            members[i].send(frame);
+        }
+        // release our reference so the buffer returns to the pool when written
+        frame.release();
+        selector.wakeup();
+    }
+
+    private boolean hasPendingWrites() {
+        for (int i = 0; i < members.length; i++) {
+            if (members[i].isOnline() && members[i].hasPendingWrites()) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    public void run() {
+
+        for (int i = 0; i < members.length; i++) {
+            connect(members[i], System.currentTimeMillis());
+        }
+
+        while (!shutdown) {
+            try {
+                selector.select(SELECT_MILLIS);
+
+                Iterator<SelectionKey> it = selector.selectedKeys().iterator();
+                while (it.hasNext()) {
+                    SelectionKey key = it.next();
+                    it.remove();
+                    process(key);
+                }
+
+                long now = System.currentTimeMillis();
+                for (int i = 0; i < members.length; i++) {
+                    NioConnection member = members[i];
+                    if (member.isOnline()) {
+                        member.updateInterest();
+
+                    } else if (!member.isConnecting() && now - member.getLastConnectAttempt() > RECONNECT_MILLIS) {
+                        connect(member, now);
+                    }
+                }
+
+            } catch (Exception e) {
+                logger.log(Level.SEVERE, "Error in cluster NIO event loop", e);
+            }
+        }
+
+        close();
+    }
+
+    private void process(SelectionKey key) {
+
+        NioConnection connection = (NioConnection) key.attachment();
+        try {
+            if (!key.isValid()) {
+                return;
+            }
+            if (key.isAcceptable()) {
+                accept();
+
+            } else if (key.isConnectable()) {
+                if (connection.finishConnect()) {
+                    setMemberOnline(connection, key);
+                }
+            } else {
+                if (key.isReadable()) {
+                    read(connection);
+                }
+                if (key.isValid() && key.isWritable()) {
+                    connection.write();
+                    connection.updateInterest();
+                }
+            }
+        } catch (IOException e) {
+            String hostPort = (connection == null) ? null : connection.getHostPort();
+            if (hostPort != null) {
+                String msg = "Cluster Member [" + hostPort + "] online[false] " + e.getMessage();
+                logger.info(msg);
+            } else {
+                logger.log(Level.FINE, "Closing incoming cluster connection", e);
+            }
+            if (connection != null) {
+                connection.close();
+            }
+        }
+    }
+
+    private void accept() throws IOException {
+        SocketChannel channel = serverChannel.accept();
+        if (channel != null) {
+            channel.configureBlocking(false);
+            NioConnection connection = new NioConnection(channel);
+            connection.setKey(channel.register(selector, SelectionKey.OP_READ, connection));
+        }
+    }
+
+    private void connect(NioConnection member, long now) {
+        try {
+            SocketChannel channel = member.connect(now);
+            SelectionKey key = channel.register(selector, SelectionKey.OP_CONNECT, member);
+            member.setKey(key);
+            if (channel.isConnected()) {
+                setMemberOnline(member, key);
+            }
+        } catch (IOException e) {
+            String msg = "Cluster Member [" + member.getHostPort() + "] online[false] " + e.getMessage();
+            logger.info(msg);
+            member.close();
+        }
+    }
+
+    private void setMemberOnline(NioConnection member, SelectionKey key) {
+
+        String msg = "Cluster Member [" + member.getHostPort() + "] online[true]";
+        logger.info(msg);
+
+        // let the member know we are online (and to connect back)
+        member.setOnline(createFrame(Frame.TYPE_REGISTER, false, encode(localHostPort)));
+        key.interestOps(SelectionKey.OP_WRITE);
+    }
+
+    private void read(NioConnection connection) throws IOException {
+
+        List<ByteBuffer> frames = connection.read();
+        if (frames == null) {
+            connection.close();
+            return;
+        }
+        for (int i = 0; i < frames.size(); i++) {
+            processFrame(frames.get(i));
+        }
+    }
+
+    /**
+     * Process a frame from another member.
+     */
+    private void processFrame(ByteBuffer frame) {
+
+        byte type = frame.get();
+        boolean compressed = frame.get() == 1;
+        byte[] payload = new byte[frame.remaining()];
+        frame.get(payload);
+
+        switch (type) {
+        case Frame.TYPE_REGISTER: {
+            NioConnection member = memberMap.get(decode(payload));
+            if (member != null && !member.isOnline() && !member.isConnecting()) {
+                // connect back now rather than waiting to reconnect
+                connect(member, System.currentTimeMillis());
+            }
+            break;
+        }
+        case Frame.TYPE_DEREGISTER: {
+            NioConnection member = memberMap.get(decode(payload));
+            if (member != null) {
+                String msg = "Cluster Member [" + member.getHostPort() + "] online[false]";
+                logger.info(msg);
+                member.close();
+            }
+            break;
+        }
+        case Frame.TYPE_TRANSEVENT:
+            try {
+                txnIncoming.incrementAndGet();
+                RemoteTransactionEvent transEvent = txnSerialiseHelper.read(new DataHolder(payload, compressed));
+                applyInBackground(transEvent);
+            } catch (Exception e) {
+                logger.log(Level.SEVERE, "Error processing RemoteTransactionEvent", e);
+            }
+            break;
+
+        default:
+            logger.warning("Unknown cluster frame type " + type);
+        }
+    }
+
+    /**
+     * Queue the event to be applied by a background task. A single task at a
+     * time applies the queued events so they are applied in order.
+     */
+    private void applyInBackground(RemoteTransactionEvent transEvent) {
+        incomingEvents.offer(transEvent);
+        if (applyingEvents.compareAndSet(false, true)) {
+            transEvent.getServer().getBackgroundExecutor().execute(applyIncomingEvents);
+        }
+    }
+
+    /**
+     * Applies the queued incoming events.
+     */
+    private class ApplyIncomingEvents implements Runnable {
+
+        public void run() {
+            do {
+                RemoteTransactionEvent transEvent;
+                while ((transEvent = incomingEvents.poll()) != null) {
+                    try {
+                        transEvent.run();
+                    } catch (Exception e) {
+                        logger.log(Level.SEVERE, "Error processing RemoteTransactionEvent", e);
+                    }
+                }
+                applyingEvents.set(false);
+
+                // continue if an event was queued after the last poll
+            } while (!incomingEvents.isEmpty() && applyingEvents.compareAndSet(false, true));
+        }
+    }
+
+    private void close() {
+        for (int i = 0; i < members.length; i++) {
+            members[i].close();
+        }
+        for (SelectionKey key : selector.keys()) {
+            Object attachment = key.attachment();
+            if (attachment instanceof NioConnection) {
+                ((NioConnection) attachment).close();
+            }
+        }
+        try {
+            serverChannel.close();
+            selector.close();
+        } catch (IOException e) {
+            logger.log(Level.SEVERE, "Error closing cluster NIO listener", e);
+        }
+    }
+
+    private static String hostPort(InetSocketAddress address) {
+        return address.getHostName() + ":" + address.getPort();
+    }
+
+    private static byte[] encode(String value) {
+        try {
+            return value.getBytes("UTF-8");
+        } catch (UnsupportedEncodingException e) {
+            throw new PersistenceException(e);
+        }
+    }
+
+    private static String decode(byte[] value) {
+        try {
+            return new String(value, "UTF-8");
+        } catch (UnsupportedEncodingException e) {
+            throw new PersistenceException(e);
+        }
+    }
+
+    /**
+     * Parse a host:port into a InetSocketAddress.
+     */
+    private InetSocketAddress parseFullName(String hostAndPort) {
+
+        try {
+            hostAndPort = hostAndPort.trim();
+            int colonPos = hostAndPort.indexOf(":");
+            if (colonPos == -1) {
+                String msg = "No colon \":\" in " + hostAndPort;
+                throw new IllegalArgumentException(msg);
+            }
+            String host = hostAndPort.substring(0, colonPos);
+            String sPort = hostAndPort.substring(colonPos + 1, hostAndPort.length());
+            int port = Integer.parseInt(sPort);
+
+            return new InetSocketAddress(host, port);
+
+        } catch (Exception ex) {
+            throw new RuntimeException("Error parsing [" + hostAndPort + "] for the form [host:port]", ex);
+        }
+    }
+
+    class TxnSerialiseHelper extends SerialiseTransactionHelper {
+
+        @Override
+        public SpiEbeanServer getEbeanServer(String serverName) {
+            return (SpiEbeanServer) clusterManager.getServer(serverName);
+        }
+    }
+}
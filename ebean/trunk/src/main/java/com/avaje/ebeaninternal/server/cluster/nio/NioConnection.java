@@ -0,0 +1,269 @@
+/**
+ * Copyright (C) 2009 Authors
+ * 
+ * This file is part of Ebean.
+ * 
+ * Ebean is free software; you can redistribute it and/or modify it 
+ * under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation; either version 2.1 of the License, or
+ * (at your option) any later version.
+ *  
+ * Ebean is distributed in the hope that it will be useful, but 
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with Ebean; if not, write to the Free Software Foundation, Inc.,
+ * 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA  
+ */
+package com.avaje.ebeaninternal.server.cluster.nio;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.SocketChannel;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+/**
+ * A connection to another member of the cluster.
+ * <p>
+ * Outgoing connections are used to write frames to a member and incoming
+ * connections to read frames from a member. Other than {@link #send(Frame)}
+ * the methods are only called by the event loop thread.
+ * </p>
+ * <p>
+ * Queuing a frame and the changes to online are atomic so a frame is never
+ * queued after the queue is cleared on close (leaking its pooled buffer) and
+ * the register frame is always the first frame written on a new connection.
+ * </p>
+ */
+class NioConnection {
+
+    /**
+     * The largest frame accepted before the connection is treated as corrupt.
+     */
+    private static final int MAX_FRAME_SIZE = 64 * 1024 * 1024;
+
+    private final String hostPort;
+
+    private final InetSocketAddress address;
+
+    private final ConcurrentLinkedQueue<Frame> writeQueue = new ConcurrentLinkedQueue<Frame>();
+
+    /**
+     * Guards online with the queuing and clearing of frames.
+     */
+    private final Object queueMonitor = new Object();
+
+    private SocketChannel channel;
+
+    private SelectionKey key;
+
+    private volatile boolean online;
+
+    private long lastConnectAttempt;
+
+    private ByteBuffer readBuffer;
+
+    private Frame currentFrame;
+
+    private ByteBuffer currentView;
+
+    /**
+     * Create an outgoing connection to a member.
+     */
+    NioConnection(String hostPort, InetSocketAddress address) {
+        this.hostPort = hostPort;
+        this.address = address;
+    }
+
+    /**
+     * Create for an accepted incoming connection.
+     */
+    NioConnection(SocketChannel channel) {
+        this.hostPort = null;
+        this.address = null;
+        this.channel = channel;
+        this.readBuffer = ByteBuffer.allocate(8192);
+    }
+
+    String getHostPort() {
+        return hostPort;
+    }
+
+    boolean isOnline() {
+        return online;
+    }
+
+    boolean isConnecting() {
+        return channel != null && !online;
+    }
+
+    long getLastConnectAttempt() {
+        return lastConnectAttempt;
+    }
+
+    void setKey(SelectionKey key) {
+        this.key = key;
+    }
+
+    /**
+     * Start connecting returning the channel to register with the selector.
+     */
+    SocketChannel connect(long now) throws IOException {
+        lastConnectAttempt = now;
+        channel = SocketChannel.open();
+        channel.configureBlocking(false);
+        channel.socket().setTcpNoDelay(true);
+        channel.connect(address);
+        return channel;
+    }
+
+    /**
+     * Complete the connection returning true if it is now connected.
+     */
+    boolean finishConnect() throws IOException {
+        return channel.finishConnect();
+    }
+
+    /**
+     * Set online with the first frame to send.
+     */
+    void setOnline(Frame registerFrame) {
+        synchronized (queueMonitor) {
+            writeQueue.offer(registerFrame);
+            online = true;
+        }
+    }
+
+    /**
+     * Queue the frame to be written returning false if the member is not
+     * online.
+     */
+    boolean send(Frame frame) {
+        synchronized (queueMonitor) {
+            if (!online) {
+                return false;
+            }
+            frame.retain();
+            writeQueue.offer(frame);
+            return true;
+        }
+    }
+
+    /**
+     * Return true if there are frames waiting to be written.
+     */
+    boolean hasPendingWrites() {
+        return currentFrame != null || !writeQueue.isEmpty();
+    }
+
+    /**
+     * Register interest in writing when there are frames waiting.
+     */
+    void updateInterest() {
+        if (key != null && key.isValid() && online) {
+            int ops = hasPendingWrites() ? SelectionKey.OP_WRITE : 0;
+            if (key.interestOps() != ops) {
+                key.interestOps(ops);
+            }
+        }
+    }
+
+    /**
+     * Write as many of the queued frames as the socket will take.
+     */
+    void write() throws IOException {
+        while (true) {
+            if (currentFrame == null) {
+                currentFrame = writeQueue.poll();
+                if (currentFrame == null) {
+                    return;
+                }
+                currentView = currentFrame.view();
+            }
+            channel.write(currentView);
+            if (currentView.hasRemaining()) {
+                // socket buffer full, wait for OP_WRITE
+                return;
+            }
+            currentFrame.release();
+            currentFrame = null;
+            currentView = null;
+        }
+    }
+
+    /**
+     * Read the available data returning the complete frames (without the
+     * length prefix) or null if the connection has been closed by the other
+     * member.
+     */
+    List<ByteBuffer> read() throws IOException {
+
+        if (channel.read(readBuffer) < 0) {
+            return null;
+        }
+        List<ByteBuffer> frames = new ArrayList<ByteBuffer>(2);
+        readBuffer.flip();
+        while (readBuffer.remaining() >= 4) {
+            int length = readBuffer.getInt(readBuffer.position());
+            if (length < Frame.HEADER_SIZE || length > MAX_FRAME_SIZE) {
+                throw new IOException("Invalid frame length " + length);
+            }
+            if (readBuffer.remaining() < 4 + length) {
+                break;
+            }
+            byte[] frame = new byte[length];
+            readBuffer.position(readBuffer.position() + 4);
+            readBuffer.get(frame);
+            frames.add(ByteBuffer.wrap(frame));
+        }
+        readBuffer.compact();
+
+        if (readBuffer.position() >= 4) {
+            int length = readBuffer.getInt(0);
+            if (4 + length > readBuffer.capacity()) {
+                // grow to hold the large frame
+                ByteBuffer larger = ByteBuffer.allocate(4 + length);
+                readBuffer.flip();
+                larger.put(readBuffer);
+                readBuffer = larger;
+            }
+        }
+        return frames;
+    }
+
+    /**
+     * Close the channel and discard any frames not yet written.
+     */
+    void close() {
+        synchronized (queueMonitor) {
+            online = false;
+            Frame frame;
+            while ((frame = writeQueue.poll()) != null) {
+                frame.release();
+            }
+        }
+        if (key != null) {
+            key.cancel();
+            key = null;
+        }
+        if (channel != null) {
+            try {
+                channel.close();
+            } catch (IOException e) {
+                // ignore as closing
+            }
+            channel = null;
+        }
+        if (currentFrame != null) {
+            currentFrame.release();
+            currentFrame = null;
+            currentView = null;
+        }
+    }
+}
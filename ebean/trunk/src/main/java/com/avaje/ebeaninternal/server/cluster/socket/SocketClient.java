@@ -76,7 +76,10 @@ class SocketClient {
      * Set whether the client is thought to be online.
      */
     private void setOnline() throws IOException {
-        connect();
+        if (socket == null) {
+            // already connected when both members registered with each other
+            connect();
+        }
         this.online = true;
     }
       
@@ -41,7 +41,7 @@ import com.avaje.ebeaninternal.api.SpiQuery;
 import com.avaje.ebeaninternal.api.SpiQuery.Mode;
 import com.avaje.ebeaninternal.server.deploy.BeanDescriptor;
 import com.avaje.ebeaninternal.server.deploy.BeanPropertyAssocMany;
-import com.avaje.ebeaninternal.server.transaction.DefaultPersistenceContext;
+import com.avaje.ebeaninternal.server.transaction.PersistenceContextFactory;
 
 /**
  * Helper to handle lazy loading and refreshing of beans.
@@ -230,7 +230,7 @@ public class DefaultBeanLoader {
     Object parentId = parentDesc.getId(parentBean);
 
     if (pc == null) {
-      pc = new DefaultPersistenceContext();
+      pc = PersistenceContextFactory.create();
       pc.put(parentId, parentBean);
     }
 
@@ -418,7 +418,7 @@ public class DefaultBeanLoader {
 
     if (pc == null) {
       // a reference with no existing persistenceContext
-      pc = new DefaultPersistenceContext();
+      pc = PersistenceContextFactory.create();
       pc.put(id, bean);
       if (ebi != null) {
         ebi.setPersistenceContext(pc);
@@ -22,6 +22,7 @@ package com.avaje.ebeaninternal.server.core;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.ObjectInputStream;
+import java.io.Writer;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
@@ -45,6 +46,7 @@ import com.avaje.ebean.BackgroundExecutor;
 import com.avaje.ebean.BeanState;
 import com.avaje.ebean.CallableSql;
 import com.avaje.ebean.Ebean;
+import com.avaje.ebean.Expression;
 import com.avaje.ebean.ExpressionFactory;
 import com.avaje.ebean.Filter;
 import com.avaje.ebean.FutureIds;
@@ -79,9 +81,11 @@ import com.avaje.ebean.config.dbplatform.DatabasePlatform;
 import com.avaje.ebean.config.ldap.LdapConfig;
 import com.avaje.ebean.event.BeanPersistController;
 import com.avaje.ebean.event.BeanQueryAdapter;
+import com.avaje.ebean.text.PathProperties;
 import com.avaje.ebean.text.csv.CsvReader;
 import com.avaje.ebean.text.json.JsonContext;
 import com.avaje.ebean.text.json.JsonElement;
+import com.avaje.ebean.text.json.JsonWriteOptions;
 import com.avaje.ebeaninternal.api.LoadBeanRequest;
 import com.avaje.ebeaninternal.api.LoadManyRequest;
 import com.avaje.ebeaninternal.api.ScopeTrans;
@@ -117,7 +121,9 @@ import com.avaje.ebeaninternal.server.query.CallableQueryIds;
 import com.avaje.ebeaninternal.server.query.CallableQueryList;
 import com.avaje.ebeaninternal.server.query.CallableQueryRowCount;
 import com.avaje.ebeaninternal.server.query.CallableSqlQueryList;
+import com.avaje.ebeaninternal.server.query.KeysetPagingQuery;
 import com.avaje.ebeaninternal.server.query.LimitOffsetPagingQuery;
+import com.avaje.ebeaninternal.server.query.ParallelQueryVisit;
 import com.avaje.ebeaninternal.server.query.QueryFutureIds;
 import com.avaje.ebeaninternal.server.query.QueryFutureList;
 import com.avaje.ebeaninternal.server.query.QueryFutureRowCount;
@@ -127,7 +133,8 @@ import com.avaje.ebeaninternal.server.querydefn.DefaultOrmUpdate;
 import com.avaje.ebeaninternal.server.querydefn.DefaultRelationalQuery;
 import com.avaje.ebeaninternal.server.querydefn.NaturalKeyBindParam;
 import com.avaje.ebeaninternal.server.text.csv.TCsvReader;
-import com.avaje.ebeaninternal.server.transaction.DefaultPersistenceContext;
+import com.avaje.ebeaninternal.server.text.json.DJsonContext;
+import com.avaje.ebeaninternal.server.transaction.PersistenceContextFactory;
 import com.avaje.ebeaninternal.server.transaction.RemoteTransactionEvent;
 import com.avaje.ebeaninternal.server.transaction.TransactionManager;
 import com.avaje.ebeaninternal.server.transaction.TransactionScopeManager;
@@ -208,7 +215,7 @@ public final class DefaultServer implements SpiEbeanServer {
 
   private final EncryptKeyManager encryptKeyManager;
 
-  private final JsonContext jsonContext;
+  private final DJsonContext jsonContext;
 
   /**
    * The MBean name used to register Ebean.
@@ -225,6 +232,11 @@ public final class DefaultServer implements SpiEbeanServer {
    */
   private int lazyLoadBatchSize;
 
+  /**
+   * Execute independent secondary queries in parallel.
+   */
+  private final boolean parallelSecondaryQueries;
+
   /** The query batch size */
   private int queryBatchSize;
   /**
@@ -246,6 +258,7 @@ public final class DefaultServer implements SpiEbeanServer {
     this.backgroundExecutor = config.getBackgroundExecutor();
     this.serverName = config.getServerConfig().getName();
     this.lazyLoadBatchSize = config.getServerConfig().getLazyLoadBatchSize();
+    this.parallelSecondaryQueries = config.getServerConfig().isParallelSecondaryQueries();
     this.queryBatchSize = config.getServerConfig().getQueryBatchSize();
     this.cqueryEngine = config.getCQueryEngine();
     this.expressionFactory = config.getExpressionFactory();
@@ -303,6 +316,10 @@ public final class DefaultServer implements SpiEbeanServer {
     return lazyLoadBatchSize;
   }
 
+  public boolean isParallelSecondaryQueries() {
+    return parallelSecondaryQueries;
+  }
+
   public PstmtBatch getPstmtBatch() {
     return pstmtBatch;
   }
@@ -1206,7 +1223,7 @@ public final class DefaultServer implements SpiEbeanServer {
     Object cachedBean = beanDescriptor.cacheGetBean(query.getId(), vanilla, query.isReadOnly());
     if (cachedBean != null) {
       if (context == null) {
-        context = new DefaultPersistenceContext();
+        context = PersistenceContextFactory.create();
 
       }
       context.put(query.getId(), cachedBean);
@@ -1457,6 +1474,19 @@ public final class DefaultServer implements SpiEbeanServer {
 
   public <T> PagingList<T> findPagingList(Query<T> query, Transaction t, int pageSize) {
 
+    SpiQuery<T> spiQuery = pagingQuery(query);
+    return new LimitOffsetPagingQuery<T>(this, spiQuery, pageSize);
+  }
+
+  public <T> PagingList<T> findKeysetPagingList(Query<T> query, Transaction t, int pageSize) {
+
+    SpiQuery<T> spiQuery = pagingQuery(query);
+    BeanDescriptor<T> desc = getBeanDescriptor(spiQuery.getBeanType());
+    return new KeysetPagingQuery<T>(this, spiQuery, pageSize, desc);
+  }
+
+  private <T> SpiQuery<T> pagingQuery(Query<T> query) {
+
     SpiQuery<T> spiQuery = (SpiQuery<T>) query;
 
     // we want to use a single PersistenceContext to be used
@@ -1469,12 +1499,11 @@ public final class DefaultServer implements SpiEbeanServer {
         pc = currentTransaction.getPersistenceContext();
       }
       if (pc == null) {
-        pc = new DefaultPersistenceContext();
+        pc = PersistenceContextFactory.create();
       }
       spiQuery.setPersistenceContext(pc);
     }
-
-    return new LimitOffsetPagingQuery<T>(this, spiQuery, pageSize);
+    return spiQuery;
   }
 
   public <T> void findVisit(Query<T> query, QueryResultVisitor<T> visitor, Transaction t) {
@@ -1491,6 +1520,18 @@ public final class DefaultServer implements SpiEbeanServer {
     }
   }
 
+  public <T> void findVisitParallel(Query<T> query, int partitions, QueryResultVisitor<T> visitor) {
+
+    ParallelQueryVisit<T> parallel = new ParallelQueryVisit<T>(this, backgroundExecutor, (SpiQuery<T>) query, visitor);
+    parallel.visit(partitions);
+  }
+
+  public <T> void findVisitParallel(Query<T> query, List<Expression> partitions, QueryResultVisitor<T> visitor) {
+
+    ParallelQueryVisit<T> parallel = new ParallelQueryVisit<T>(this, backgroundExecutor, (SpiQuery<T>) query, visitor);
+    parallel.visit(partitions);
+  }
+
   public <T> QueryIterator<T> findIterate(Query<T> query, Transaction t) {
 
     SpiOrmQueryRequest<T> request = createQueryRequest(Type.LIST, query, t);
@@ -1506,6 +1547,27 @@ public final class DefaultServer implements SpiEbeanServer {
     }
   }
 
+  public <T> void findJson(Query<T> query, Writer writer, JsonWriteOptions options, Transaction t) {
+
+    PathProperties pathProperties = (options == null) ? null : options.getPathProperties();
+    if (pathProperties != null && !pathProperties.isEmpty()) {
+      // select and fetch the properties that will be written
+      pathProperties.apply(query);
+    }
+
+    SpiOrmQueryRequest<T> request = createQueryRequest(Type.LIST, query, t);
+
+    try {
+      request.initTransIfRequired();
+      request.findJson(jsonContext.createWriteJsonContext(writer, options));
+      request.endTransIfRequired();
+
+    } catch (RuntimeException ex) {
+      request.rollbackTransIfRequired();
+      throw ex;
+    }
+  }
+
   @SuppressWarnings("unchecked")
   public <T> List<T> findList(Query<T> query, Transaction t) {
 
@@ -294,7 +294,10 @@ public class DefaultServerFactory implements BootupEbeanManager {
       cacheFactory = new DefaultServerCacheFactory();
     }
 
-    return new DefaultServerCacheManager(cacheFactory, beanOptions, queryOptions);
+    // optional off heap tier for the bean caches
+    long offHeapBytes = GlobalProperties.getInt("cache.offHeapMaxMegabytes", 0) * 1024L * 1024L;
+
+    return new DefaultServerCacheManager(cacheFactory, beanOptions, queryOptions, offHeapBytes);
   }
 
   /**
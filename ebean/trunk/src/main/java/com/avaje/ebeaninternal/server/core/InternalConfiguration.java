@@ -165,7 +165,7 @@ public class InternalConfiguration {
 
   }
 
-  public JsonContext createJsonContext(SpiEbeanServer server) {
+  public DJsonContext createJsonContext(SpiEbeanServer server) {
 
     String s = serverConfig.getProperty("json.pretty", "false");
     boolean dfltPretty = "true".equalsIgnoreCase(s);
@@ -22,6 +22,7 @@ package com.avaje.ebeaninternal.server.core;
 import com.avaje.ebean.QueryIterator;
 import com.avaje.ebean.bean.BeanCollection;
 import com.avaje.ebeaninternal.api.BeanIdList;
+import com.avaje.ebeaninternal.server.text.json.WriteJsonContext;
 
 /**
  * The Object Relational query execution API.
@@ -42,6 +43,12 @@ public interface OrmQueryEngine {
      * Execute the query using a QueryIterator.
      */
     public <T> QueryIterator<T> findIterate(OrmQueryRequest<T> request);
+
+    /**
+     * Execute the query writing the results as JSON returning the number of
+     * root beans written.
+     */
+    public <T> int findJson(OrmQueryRequest<T> request, WriteJsonContext json);
     
     /**
      * Execute the row count query.
@@ -19,6 +19,9 @@
  */
 package com.avaje.ebeaninternal.server.core;
 
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
@@ -30,6 +33,9 @@ import com.avaje.ebean.QueryResultVisitor;
 import com.avaje.ebean.RawSql;
 import com.avaje.ebean.bean.BeanCollection;
 import com.avaje.ebean.bean.PersistenceContext;
+import com.avaje.ebean.common.BeanList;
+import com.avaje.ebean.common.BeanMap;
+import com.avaje.ebean.common.BeanSet;
 import com.avaje.ebean.event.BeanFinder;
 import com.avaje.ebean.event.BeanQueryRequest;
 import com.avaje.ebeaninternal.api.BeanIdList;
@@ -46,6 +52,7 @@ import com.avaje.ebeaninternal.server.deploy.DeployPropertyParserMap;
 import com.avaje.ebeaninternal.server.loadcontext.DLoadContext;
 import com.avaje.ebeaninternal.server.query.CQueryPlan;
 import com.avaje.ebeaninternal.server.query.CancelableQuery;
+import com.avaje.ebeaninternal.server.text.json.WriteJsonContext;
 
 /**
  * Wraps the objects involved in executing a Query.
@@ -72,6 +79,8 @@ public final class OrmQueryRequest<T> extends BeanRequest implements BeanQueryRe
 
   private Integer cacheKey;
 
+  private long queryCacheStamp;
+
   private int queryPlanHash;
 
   /**
@@ -94,7 +103,12 @@ public final class OrmQueryRequest<T> extends BeanRequest implements BeanQueryRe
     this.queryEngine = queryEngine;
     this.query = query;
     this.vanillaMode = query.isVanillaMode(server.isVanillaMode());
-    this.readOnly = query.isReadOnly();
+    if (query.isUseQueryCache() && query.isReadOnly() == null) {
+      // the result may be shared via the query cache so read only
+      this.readOnly = Boolean.TRUE;
+    } else {
+      this.readOnly = query.isReadOnly();
+    }
 
     this.graphContext = new DLoadContext(ebeanServer, beanDescriptor, readOnly, query);
     graphContext.registerSecondaryQueries(query);
@@ -232,6 +246,14 @@ public final class OrmQueryRequest<T> extends BeanRequest implements BeanQueryRe
     }
   }
 
+  /**
+   * Return true if the transaction was created for this query (rather than
+   * being explicit or the current transaction).
+   */
+  public boolean isCreatedTransaction() {
+    return createdTransaction;
+  }
+
   /**
    * This query is using background fetching.
    */
@@ -283,6 +305,10 @@ public final class OrmQueryRequest<T> extends BeanRequest implements BeanQueryRe
     return queryEngine.findIterate(this);
   }
 
+  public int findJson(WriteJsonContext json) {
+    return queryEngine.findJson(this, json);
+  }
+
   /**
    * Execute the query as findList.
    */
@@ -385,6 +411,11 @@ public final class OrmQueryRequest<T> extends BeanRequest implements BeanQueryRe
       return null;
     }
 
+    if (Boolean.FALSE.equals(query.isReadOnly())) {
+      // explicitly not read only so don't share a cached result
+      return null;
+    }
+
     if (query.getType() == null) {
       // the query plan and bind values must be the same
       cacheKey = Integer.valueOf(query.queryHash());
@@ -394,20 +425,65 @@ public final class OrmQueryRequest<T> extends BeanRequest implements BeanQueryRe
       cacheKey = Integer.valueOf(31 * query.queryHash() + query.getType().hashCode());
     }
 
-    // TODO: Sort out returning BeanCollection from L2 cache
-    return null;
+    // taken before the query executes so that changes committed while it
+    // executes invalidate the result
+    queryCacheStamp = beanDescriptor.queryCacheStamp();
+
+    // the transaction is not initialised yet so use the current one if not
+    // explicitly passed in (as it may have modified the tables)
+    SpiTransaction t = transaction;
+    if (t == null) {
+      t = ebeanServer.getCurrentServerTransaction();
+    }
 
-    // BeanCollection<T> bc = beanDescriptor.queryCacheGet(cacheKey);
-    // if (bc != null && Boolean.FALSE.equals(query.isReadOnly())) {
-    // // Explicit readOnly=false for query cache
-    // CopyContext ctx = new CopyContext(vanillaMode, false);
-    // return new CopyBeanCollection<T>(bc, beanDescriptor, ctx, 5).copy();
-    // }
-    // return bc;
+    // the same (read only) instance is returned
+    return beanDescriptor.queryCacheGet(cacheKey, t);
   }
 
   public void putToQueryCache(BeanCollection<T> queryResult) {
-    beanDescriptor.queryCachePut(cacheKey, queryResult);
+    if (cacheKey == null) {
+      // not using the query cache (explicitly not read only)
+      return;
+    }
+    String[] dependentTables = null;
+    CQueryPlan queryPlan = getQueryPlan();
+    if (queryPlan != null) {
+      dependentTables = queryPlan.getSqlTree().getDependentTables();
+    }
+    if (dependentTables == null) {
+      // no SqlTree (such as a BeanFinder) so just the base table
+      String baseTable = beanDescriptor.getBaseTable();
+      dependentTables = (baseTable == null) ? new String[0] : new String[] { baseTable.toLowerCase() };
+    }
+    if (transaction != null && transaction.isModifiedTable(dependentTables)) {
+      // the result includes changes that are not committed
+      return;
+    }
+    BeanCollection<T> shared = readOnlyCopy(queryResult);
+    if (shared != null) {
+      beanDescriptor.queryCachePut(cacheKey, shared, dependentTables, queryCacheStamp);
+    }
+  }
+
+  /**
+   * Return a read only copy of the query result to share via the query cache
+   * (the beans are already read only).
+   */
+  @SuppressWarnings({ "unchecked", "rawtypes" })
+  private BeanCollection<T> readOnlyCopy(BeanCollection<T> queryResult) {
+
+    BeanCollection<T> copy;
+    if (queryResult instanceof BeanList<?>) {
+      copy = new BeanList<T>(new ArrayList<T>(((BeanList<T>) queryResult).getActualList()));
+    } else if (queryResult instanceof BeanSet<?>) {
+      copy = new BeanSet<T>(new LinkedHashSet<T>(((BeanSet<T>) queryResult).getActualSet()));
+    } else if (queryResult instanceof BeanMap<?, ?>) {
+      copy = new BeanMap(new LinkedHashMap(((BeanMap) queryResult).getActualMap()));
+    } else {
+      return null;
+    }
+    copy.setReadOnly(true);
+    return copy;
   }
 
   /**
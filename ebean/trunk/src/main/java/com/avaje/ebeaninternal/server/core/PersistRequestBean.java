@@ -110,6 +110,11 @@ public class PersistRequestBean<T> extends PersistRequest implements BeanPersist
 
 	protected boolean notifyCache;
 
+	/**
+	 * Set when an update registered a BeanDelta with the transaction event.
+	 */
+	private boolean beanDelta;
+
 	private boolean statelessUpdate;
 	private boolean deleteMissingChildren;
 	private boolean updateNullProperties;
@@ -240,7 +245,7 @@ public class PersistRequestBean<T> extends PersistRequest implements BeanPersist
 
 	public void addToPersistMap(BeanPersistIdMap beanPersistMap) {
 
-		beanPersistMap.add(beanDescriptor, type, idValue);
+		beanPersistMap.add(beanDescriptor, type, idValue, beanDelta);
 	}
 
 	public boolean notifyLocalPersistListener() {
@@ -439,6 +444,14 @@ public class PersistRequestBean<T> extends PersistRequest implements BeanPersist
 		return new BeanDelta(beanDescriptor, getBeanId());
 	}
 
+	/**
+	 * Set when the update has registered a BeanDelta with the transaction
+	 * event.
+	 */
+	public void setBeanDelta() {
+		this.beanDelta = true;
+	}
+
 	/**
 	 * Get the old values bean. This is used to perform optimistic concurrency
 	 * checking on updates and deletes.
@@ -28,6 +28,7 @@ import com.avaje.ebean.QueryResultVisitor;
 import com.avaje.ebean.bean.BeanCollection;
 import com.avaje.ebeaninternal.api.SpiQuery;
 import com.avaje.ebeaninternal.server.deploy.BeanDescriptor;
+import com.avaje.ebeaninternal.server.text.json.WriteJsonContext;
 
 /**
  * Defines the ORM query request api.
@@ -90,6 +91,11 @@ public interface SpiOrmQueryRequest<T> {
      * Execute the find returning a QueryIterator.
      */
     public QueryIterator<T> findIterate();
+
+    /**
+     * Execute the find writing the results as JSON without building beans.
+     */
+    public int findJson(WriteJsonContext json);
     
     /**
      * Execute the query as findList.
@@ -116,4 +122,4 @@ public interface SpiOrmQueryRequest<T> {
      */
     public BeanCollection<T> getFromQueryCache();
 
-}
\ No newline at end of file
+}
\ No newline at end of file
@@ -64,6 +64,7 @@ import com.avaje.ebean.text.json.JsonWriteBeanVisitor;
 import com.avaje.ebean.validation.factory.Validator;
 import com.avaje.ebeaninternal.api.SpiEbeanServer;
 import com.avaje.ebeaninternal.api.SpiQuery;
+import com.avaje.ebeaninternal.api.SpiTransaction;
 import com.avaje.ebeaninternal.api.SpiUpdatePlan;
 import com.avaje.ebeaninternal.api.TransactionEventTable.TableIUD;
 import com.avaje.ebeaninternal.server.cache.CachedBeanData;
@@ -71,6 +72,8 @@ import com.avaje.ebeaninternal.server.cache.CachedBeanDataFromBean;
 import com.avaje.ebeaninternal.server.cache.CachedBeanDataToBean;
 import com.avaje.ebeaninternal.server.cache.CachedBeanDataUpdate;
 import com.avaje.ebeaninternal.server.cache.CachedManyIds;
+import com.avaje.ebeaninternal.server.cache.CachedQueryResult;
+import com.avaje.ebeaninternal.server.cache.QueryCacheTableStamps;
 import com.avaje.ebeaninternal.server.core.CacheOptions;
 import com.avaje.ebeaninternal.server.core.ConcurrencyMode;
 import com.avaje.ebeaninternal.server.core.DefaultSqlUpdate;
@@ -95,6 +98,7 @@ import com.avaje.ebeaninternal.server.text.json.ReadJsonContext;
 import com.avaje.ebeaninternal.server.text.json.ReadJsonContext.ReadBeanState;
 import com.avaje.ebeaninternal.server.text.json.WriteJsonContext;
 import com.avaje.ebeaninternal.server.text.json.WriteJsonContext.WriteBeanState;
+import com.avaje.ebeaninternal.server.transaction.BeanDelta;
 import com.avaje.ebeaninternal.server.type.DataBind;
 import com.avaje.ebeaninternal.server.type.TypeManager;
 import com.avaje.ebeaninternal.util.SortByClause;
@@ -405,6 +409,8 @@ public class BeanDescriptor<T> {
   private ServerCache naturalKeyCache;
   private ServerCache queryCache;
 
+  private final QueryCacheTableStamps queryCacheTableStamps;
+
   /**
    * Construct the BeanDescriptor.
    */
@@ -412,6 +418,7 @@ public class BeanDescriptor<T> {
 
     this.owner = owner;
     this.cacheManager = owner.getCacheManager();
+    this.queryCacheTableStamps = owner.getQueryCacheTableStamps();
     this.serverName = owner.getServerName();
     this.entityType = deploy.getEntityType();
     this.name = InternString.intern(deploy.getName());
@@ -950,7 +957,8 @@ public class BeanDescriptor<T> {
    */
   public boolean isCacheNotify() {
 
-    if (isBeanCaching() || isQueryCaching()) {
+    if (isBeanCaching() || queryCacheTableStamps.isActive()) {
+      // cached queries of any type could depend on this table
       return true;
     }
     for (int i = 0; i < propertiesOneImported.length; i++) {
@@ -977,8 +985,28 @@ public class BeanDescriptor<T> {
     if (tableIUD.isUpdateOrDelete()) {
       cacheClear();
     }
-    // any change invalidates the query cache
-    queryCacheClear();
+    // the query cache is invalidated by the modified table
+    // in BeanDescriptorManager.cacheNotify()
+  }
+
+  /**
+   * Invalidate the cached queries (of any bean type) that use the base table
+   * of this bean type.
+   */
+  public void queryCacheInvalidate() {
+    if (baseTable == null) {
+      queryCacheClear();
+    } else {
+      queryCacheTableStamps.tableModified(baseTable);
+    }
+  }
+
+  /**
+   * Return the stamp taken before executing a query that may be put into the
+   * query cache.
+   */
+  public long queryCacheStamp() {
+    return queryCacheTableStamps.currentStamp();
   }
 
   /**
@@ -992,24 +1020,55 @@ public class BeanDescriptor<T> {
 
   /**
    * Get a query result from the query cache.
+   * <p>
+   * Returns null if any of the tables used by the query have been modified
+   * since the result was cached or have been modified (and not yet committed)
+   * by the transaction.
+   * </p>
    */
   @SuppressWarnings("unchecked")
-  public BeanCollection<T> queryCacheGet(Object id) {
+  public BeanCollection<T> queryCacheGet(Object id, SpiTransaction transaction) {
     if (queryCache == null) {
       return null;
-    } else {
-      return (BeanCollection<T>) queryCache.get(id);
     }
+    CachedQueryResult cached = (CachedQueryResult) queryCache.get(id);
+    if (cached == null) {
+      return null;
+    }
+    if (cached.isStale(queryCacheTableStamps)) {
+      queryCache.remove(id);
+      return null;
+    }
+    if (transaction != null && transaction.isModifiedTable(cached.getDependentTables())) {
+      // the cached result would not include the changes of this transaction
+      return null;
+    }
+    return (BeanCollection<T>) cached.getResult();
   }
 
   /**
    * Put a query result into the query cache.
-   */
-  public void queryCachePut(Object id, BeanCollection<T> query) {
+   * 
+   * @param id
+   *          the cache key
+   * @param query
+   *          the query result
+   * @param dependentTables
+   *          the tables used by the query
+   * @param stamp
+   *          the stamp taken before the query was executed
+   */
+  public void queryCachePut(Object id, BeanCollection<T> query, String[] dependentTables, long stamp) {
+
+    CachedQueryResult cached = new CachedQueryResult(query, dependentTables, stamp);
+    if (cached.isStale(queryCacheTableStamps)) {
+      // modified while the query was executing
+      return;
+    }
     if (queryCache == null) {
       queryCache = cacheManager.getQueryCache(beanType);
     }
-    queryCache.put(id, query);
+    queryCache.put(id, cached);
   }
 
   private ServerCache getBeanCache() {
@@ -1158,6 +1217,7 @@ public class BeanDescriptor<T> {
    * Remove a bean from the cache given its Id.
    */
   public void cacheDelete(Object id, PersistRequestBean<T> deleteRequest) {
+    queryCacheInvalidate();
     if (beanCache != null) {
       beanCache.remove(id);
     }
@@ -1170,9 +1230,7 @@ public class BeanDescriptor<T> {
   }
 
   public void cacheInsert(Object id, PersistRequestBean<T> insertRequest) {
-    if (queryCache != null) {
-      queryCache.clear();
-    }
+    queryCacheInvalidate();
     for (int i = 0; i < propertiesOneImported.length; i++) {
       propertiesOneImported[i].cacheDelete(false, insertRequest.getBean());
     }
@@ -1183,7 +1241,11 @@ public class BeanDescriptor<T> {
    */
   public void cacheUpdate(Object id, PersistRequestBean<T> updateRequest) {
 
-    ServerCache cache = getBeanCache();
+    queryCacheInvalidate();
+    if (beanCache == null) {
+      return;
+    }
+    ServerCache cache = beanCache;
     CachedBeanData cd = (CachedBeanData) cache.get(id);
     if (cd != null) {
       CachedBeanData newCd = CachedBeanDataUpdate.update(this, cd, updateRequest);
@@ -1201,6 +1263,68 @@ public class BeanDescriptor<T> {
     }
   }
 
+  /**
+   * Update the cached bean data with the property values changed on another
+   * server in the cluster.
+   * <p>
+   * The delta is only applied when it has a newer version than the cached
+   * data. Otherwise (or without a version property) the order of the changes
+   * is not known so the bean is removed from the cache.
+   * </p>
+   */
+  public void cacheUpdateDelta(Object id, BeanDelta delta) {
+
+    if (beanCache == null) {
+      return;
+    }
+    ServerCache cache = beanCache;
+    CachedBeanData cd = (CachedBeanData) cache.get(id);
+    if (cd != null) {
+      if (!isNewerVersion(cd, delta)) {
+        cacheRemove(id);
+        return;
+      }
+      CachedBeanData newCd = CachedBeanDataUpdate.update(this, cd, delta);
+      cache.put(id, newCd);
+      if (newCd.isNaturalKeyUpdate() && naturalKeyCache != null) {
+        Object oldKey = cd.getData(newCd.getNaturalKeyIndex());
+        Object newKey = newCd.getNaturalKey();
+        if (oldKey != null) {
+          naturalKeyCache.remove(oldKey);
+        }
+        if (newKey != null) {
+          naturalKeyCache.put(newKey, id);
+        }
+      }
+    }
+  }
+
+  /**
+   * Return true if the version value of the delta is greater than the version
+   * value of the cached data.
+   */
+  @SuppressWarnings({ "unchecked", "rawtypes" })
+  private boolean isNewerVersion(CachedBeanData cd, BeanDelta delta) {
+
+    if (propertyFirstVersion == null) {
+      return false;
+    }
+    Object deltaVersion = delta.getValue(propertyFirstVersion);
+    if (!(deltaVersion instanceof Comparable)) {
+      return false;
+    }
+    for (int i = 0; i < propertiesNonMany.length; i++) {
+      if (propertiesNonMany[i] == propertyFirstVersion) {
+        Object cachedVersion = cd.getData(i);
+        if (cachedVersion == null || !deltaVersion.getClass().equals(cachedVersion.getClass())) {
+          return false;
+        }
+        return ((Comparable) deltaVersion).compareTo(cachedVersion) > 0;
+      }
+    }
+    return false;
+  }
+
   /**
    * Return the base table alias. This is always the first letter of the bean
    * name.
@@ -29,6 +29,12 @@ import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
@@ -48,11 +54,14 @@ import com.avaje.ebean.config.dbplatform.DatabasePlatform;
 import com.avaje.ebean.config.dbplatform.DbIdentity;
 import com.avaje.ebean.config.dbplatform.IdGenerator;
 import com.avaje.ebean.config.dbplatform.IdType;
+import com.avaje.ebean.config.dbplatform.PrefetchSequenceIdGenerator;
+import com.avaje.ebean.config.dbplatform.SequenceIdGenerator;
 import com.avaje.ebean.event.BeanFinder;
 import com.avaje.ebean.validation.factory.LengthValidatorFactory;
 import com.avaje.ebean.validation.factory.NotNullValidatorFactory;
 import com.avaje.ebeaninternal.api.SpiEbeanServer;
 import com.avaje.ebeaninternal.api.TransactionEventTable;
+import com.avaje.ebeaninternal.server.cache.QueryCacheTableStamps;
 import com.avaje.ebeaninternal.server.core.BootupClasses;
 import com.avaje.ebeaninternal.server.core.ConcurrencyMode;
 import com.avaje.ebeaninternal.server.core.InternString;
@@ -76,7 +85,9 @@ import com.avaje.ebeaninternal.server.deploy.parse.DeployInherit;
 import com.avaje.ebeaninternal.server.deploy.parse.DeployUtil;
 import com.avaje.ebeaninternal.server.deploy.parse.ReadAnnotations;
 import com.avaje.ebeaninternal.server.deploy.parse.TransientProperties;
+import com.avaje.ebeaninternal.server.idgen.TimeUuidIdGenerator;
 import com.avaje.ebeaninternal.server.idgen.UuidIdGenerator;
+import com.avaje.ebeaninternal.server.lib.DaemonThreadFactory;
 import com.avaje.ebeaninternal.server.lib.util.Dnode;
 import com.avaje.ebeaninternal.server.reflect.BeanReflect;
 import com.avaje.ebeaninternal.server.reflect.BeanReflectFactory;
@@ -129,9 +140,14 @@ public class BeanDescriptorManager implements BeanDescriptorMap {
 
   private final BeanManagerFactory beanManagerFactory;
 
-  private int enhancedClassCount;
-  private int subclassClassCount;
-  private final HashSet<String> subclassedEntities = new HashSet<String>();
+  private final AtomicInteger enhancedClassCount = new AtomicInteger();
+  private final AtomicInteger subclassClassCount = new AtomicInteger();
+  private final Set<String> subclassedEntities = Collections.synchronizedSet(new HashSet<String>());
+
+  /**
+   * The number of threads used to read the deployment of the beans.
+   */
+  private final int deployThreads;
 
   private final boolean updateChangesOnly;
 
@@ -154,6 +170,8 @@ public class BeanDescriptorManager implements BeanDescriptorMap {
 
   private final Set<Integer> descriptorUniqueIds = new HashSet<Integer>();
 
+  private final QueryCacheTableStamps queryCacheTableStamps = new QueryCacheTableStamps();
+
   private final DbIdentity dbIdentity;
 
   private final DataSource dataSource;
@@ -162,12 +180,20 @@ public class BeanDescriptorManager implements BeanDescriptorMap {
 
   private final UuidIdGenerator uuidIdGenerator = new UuidIdGenerator();
 
+  private final TimeUuidIdGenerator timeUuidIdGenerator = new TimeUuidIdGenerator();
+
+  private final boolean uuidTimeOrdered;
+
   private final ServerCacheManager cacheManager;
 
   private final BackgroundExecutor backgroundExecutor;
 
   private final int dbSequenceBatchSize;
 
+  private final boolean dbSequencePrefetch;
+
+  private final int dbSequenceMaxBatchSize;
+
   private final EncryptKeyManager encryptKeyManager;
 
   private final IdBinderFactory idBinderFactory;
@@ -185,6 +211,9 @@ public class BeanDescriptorManager implements BeanDescriptorMap {
     this.cacheManager = config.getCacheManager();
     this.xmlConfig = config.getXmlConfig();
     this.dbSequenceBatchSize = config.getServerConfig().getDatabaseSequenceBatchSize();
+    this.dbSequencePrefetch = config.getServerConfig().isDatabaseSequencePrefetch();
+    this.dbSequenceMaxBatchSize = config.getServerConfig().getDatabaseSequenceMaxBatchSize();
+    this.uuidTimeOrdered = config.getServerConfig().isUuidTimeOrdered();
     this.backgroundExecutor = config.getBackgroundExecutor();
     this.dataSource = config.getServerConfig().getDataSource();
     this.encryptKeyManager = config.getServerConfig().getEncryptKeyManager();
@@ -201,7 +230,7 @@ public class BeanDescriptorManager implements BeanDescriptorMap {
     this.deployOrmXml = config.getDeployOrmXml();
     this.deployUtil = config.getDeployUtil();
 
-    this.beanManagerFactory = new BeanManagerFactory(config.getServerConfig(), config.getDatabasePlatform());
+    this.beanManagerFactory = new BeanManagerFactory(config.getServerConfig(), config.getDatabasePlatform(), config.getClusterManager().isClustering());
 
     this.updateChangesOnly = config.getServerConfig().isUpdateChangesOnly();
 
@@ -214,6 +243,9 @@ public class BeanDescriptorManager implements BeanDescriptorMap {
     this.reflectFactory = createReflectionFactory();
     this.transientProperties = new TransientProperties();
     this.allowSubclassing = config.getServerConfig().isAllowSubclassing();
+
+    int processors = Runtime.getRuntime().availableProcessors();
+    this.deployThreads = GlobalProperties.getInt("ebean.deploy.threads", processors);
   }
 
   public BeanDescriptor<?> getBeanDescriptorById(String descriptorId) {
@@ -261,15 +293,38 @@ public class BeanDescriptorManager implements BeanDescriptorMap {
     return idBinderFactory.createIdBinder(uids);
   }
 
+  public QueryCacheTableStamps getQueryCacheTableStamps() {
+    return queryCacheTableStamps;
+  }
+
+  /**
+   * Deploy all the beans.
+   * <p>
+   * The annotations of each bean are read and the deployment of each bean is
+   * built in parallel as these only depend on the bean itself and the
+   * BeanTables. The relationships between the beans are then resolved and the
+   * BeanDescriptors created and initialised by this thread.
+   * </p>
+   */
   public void deploy() {
 
+    ExecutorService executor = createDeployExecutor();
     try {
+      long startTime = System.nanoTime();
+      long phaseStart = startTime;
+      StringBuilder timings = new StringBuilder();
+
       createListeners();
-      readEmbeddedDeployment();
-      readEntityDeploymentInitial();
+      readEmbeddedDeployment(executor);
+      readEntityDeploymentInitial(executor);
+      phaseStart = phaseTime(timings, "parse", phaseStart);
+
       readEntityBeanTable();
-      readEntityDeploymentAssociations();
+      phaseStart = phaseTime(timings, "tables", phaseStart);
+
+      readEntityDeploymentAssociations(executor);
       readInheritedIdGenerators();
+      phaseStart = phaseTime(timings, "associations", phaseStart);
 
       // creates the BeanDescriptors
       readEntityRelationships();
@@ -284,19 +339,101 @@ public class BeanDescriptorManager implements BeanDescriptorMap {
         idDescMap.put(d.getDescriptorId(), d);
       }
 
+      phaseStart = phaseTime(timings, "relationships", phaseStart);
+
       initialiseAll();
       readForeignKeys();
 
       readTableToDescriptor();
+      phaseTime(timings, "initialise", phaseStart);
 
       logStatus();
 
+      long totalMillis = (System.nanoTime() - startTime) / 1000000;
+      String msg = "Deployed " + descMap.size() + " beans in " + totalMillis + "ms using " + deployThreads
+          + " threads " + timings;
+      logger.info(msg);
+
       deplyInfoMap.clear();
       deplyInfoMap = null;
     } catch (RuntimeException e) {
       String msg = "Error in deployment";
       logger.log(Level.SEVERE, msg, e);
       throw e;
+
+    } finally {
+      if (executor != null) {
+        executor.shutdown();
+      }
+    }
+  }
+
+  /**
+   * Append the time taken by a deployment phase returning the start of the
+   * next phase.
+   */
+  private long phaseTime(StringBuilder timings, String phase, long phaseStart) {
+    long now = System.nanoTime();
+    if (timings.length() > 0) {
+      timings.append(" ");
+    }
+    timings.append(phase).append("[").append((now - phaseStart) / 1000000).append("ms]");
+    return now;
+  }
+
+  /**
+   * Return the executor used to deploy the beans in parallel or null to deploy
+   * them using this thread.
+   */
+  private ExecutorService createDeployExecutor() {
+    if (deployThreads <= 1) {
+      return null;
+    }
+    return Executors.newFixedThreadPool(deployThreads, new DaemonThreadFactory("Ebean-" + serverName + "-deploy"));
+  }
+
+  /**
+   * Run the tasks returning the results in the same order as the tasks.
+   * <p>
+   * If any of the tasks fail the first failure is thrown after all the tasks
+   * have completed.
+   * </p>
+   */
+  private <T> List<T> runAll(ExecutorService executor, List<Callable<T>> tasks) {
+
+    List<T> results = new ArrayList<T>(tasks.size());
+    try {
+      if (executor == null) {
+        for (int i = 0; i < tasks.size(); i++) {
+          results.add(tasks.get(i).call());
+        }
+      } else {
+        List<Future<T>> futures = executor.invokeAll(tasks);
+        for (int i = 0; i < futures.size(); i++) {
+          results.add(futures.get(i).get());
+        }
+      }
+      return results;
+
+    } catch (ExecutionException e) {
+      Throwable cause = e.getCause();
+      if (cause instanceof RuntimeException) {
+        throw (RuntimeException) cause;
+      }
+      if (cause instanceof Error) {
+        throw (Error) cause;
+      }
+      throw new PersistenceException(cause);
+
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new PersistenceException("Interrupted during deployment", e);
+
+    } catch (RuntimeException e) {
+      throw e;
+
+    } catch (Exception e) {
+      throw new PersistenceException(e);
     }
   }
 
@@ -313,6 +450,10 @@ public class BeanDescriptorManager implements BeanDescriptorMap {
    */
   public void cacheNotify(TransactionEventTable.TableIUD tableIUD) {
 
+    // invalidate the cached queries using the table (which could be an
+    // intersection table not mapped to a bean type)
+    queryCacheTableStamps.tableModified(tableIUD.getTableName());
+
     List<BeanDescriptor<?>> list = getBeanDescriptors(tableIUD.getTableName());
     if (list != null) {
       for (int i = 0; i < list.size(); i++) {
@@ -496,8 +637,8 @@ public class BeanDescriptorManager implements BeanDescriptorMap {
     String msg = "Entities enhanced[" + enhancedClassCount + "] subclassed[" + subclassClassCount + "]";
     logger.info(msg);
 
-    if (enhancedClassCount > 0) {
-      if (subclassClassCount > 0) {
+    if (enhancedClassCount.get() > 0) {
+      if (subclassClassCount.get() > 0) {
         String subclassEntityNames = subclassedEntities.toString();
 
         String m = "Mixing enhanced and subclassed entities. Subclassed classes:" + subclassEntityNames;
@@ -506,10 +647,7 @@ public class BeanDescriptorManager implements BeanDescriptorMap {
     }
   }
 
-  private <T> BeanDescriptor<T> createEmbedded(Class<T> beanClass) {
-
-    DeployBeanInfo<T> info = createDeployBeanInfo(beanClass);
-    readDeployAssociations(info);
+  private <T> BeanDescriptor<T> createEmbedded(DeployBeanInfo<T> info) {
 
     Integer key = getUniqueHash(info.getDescriptor());
 
@@ -523,16 +661,28 @@ public class BeanDescriptorManager implements BeanDescriptorMap {
   /**
    * Read deployment information for all the embedded beans.
    */
-  private void readEmbeddedDeployment() {
+  private void readEmbeddedDeployment(ExecutorService executor) {
 
     ArrayList<Class<?>> embeddedClasses = bootupClasses.getEmbeddables();
+    List<Callable<DeployBeanInfo<?>>> tasks = new ArrayList<Callable<DeployBeanInfo<?>>>(embeddedClasses.size());
     for (int i = 0; i < embeddedClasses.size(); i++) {
-      Class<?> cls = embeddedClasses.get(i);
+      final Class<?> cls = embeddedClasses.get(i);
       if (logger.isLoggable(Level.FINER)) {
         String msg = "load deployinfo for embeddable:" + cls.getName();
         logger.finer(msg);
       }
-      BeanDescriptor<?> embDesc = createEmbedded(cls);
+      tasks.add(new Callable<DeployBeanInfo<?>>() {
+        public DeployBeanInfo<?> call() {
+          DeployBeanInfo<?> info = createDeployBeanInfo(cls);
+          readDeployAssociations(info);
+          return info;
+        }
+      });
+    }
+
+    List<DeployBeanInfo<?>> infos = runAll(executor, tasks);
+    for (int i = 0; i < infos.size(); i++) {
+      BeanDescriptor<?> embDesc = createEmbedded(infos.get(i));
       registerBeanDescriptor(embDesc);
     }
   }
@@ -544,13 +694,21 @@ public class BeanDescriptorManager implements BeanDescriptorMap {
    * BeanTables have all been created.
    * </p>
    */
-  private void readEntityDeploymentInitial() {
+  private void readEntityDeploymentInitial(ExecutorService executor) {
 
     ArrayList<Class<?>> entityClasses = bootupClasses.getEntities();
+    List<Callable<DeployBeanInfo<?>>> tasks = new ArrayList<Callable<DeployBeanInfo<?>>>(entityClasses.size());
+    for (final Class<?> entityClass : entityClasses) {
+      tasks.add(new Callable<DeployBeanInfo<?>>() {
+        public DeployBeanInfo<?> call() {
+          return createDeployBeanInfo(entityClass);
+        }
+      });
+    }
 
-    for (Class<?> entityClass : entityClasses) {
-      DeployBeanInfo<?> info = createDeployBeanInfo(entityClass);
-      deplyInfoMap.put(entityClass, info);
+    List<DeployBeanInfo<?>> infos = runAll(executor, tasks);
+    for (int i = 0; i < infos.size(); i++) {
+      deplyInfoMap.put(entityClasses.get(i), infos.get(i));
     }
   }
 
@@ -576,13 +734,20 @@ public class BeanDescriptorManager implements BeanDescriptorMap {
    * This is determined prior to resolving relationship information.
    * </p>
    */
-  private void readEntityDeploymentAssociations() {
+  private void readEntityDeploymentAssociations(ExecutorService executor) {
 
+    List<Callable<DeployBeanInfo<?>>> tasks = new ArrayList<Callable<DeployBeanInfo<?>>>(deplyInfoMap.size());
     Iterator<DeployBeanInfo<?>> it = deplyInfoMap.values().iterator();
     while (it.hasNext()) {
-      DeployBeanInfo<?> info = it.next();
-      readDeployAssociations(info);
+      final DeployBeanInfo<?> info = it.next();
+      tasks.add(new Callable<DeployBeanInfo<?>>() {
+        public DeployBeanInfo<?> call() {
+          readDeployAssociations(info);
+          return info;
+        }
+      });
     }
+    runAll(executor, tasks);
   }
 
   private void readInheritedIdGenerators() {
@@ -1112,7 +1277,11 @@ public class BeanDescriptorManager implements BeanDescriptorMap {
     if (IdType.GENERATOR.equals(desc.getIdType())) {
       String genName = desc.getIdGeneratorName();
       if (UuidIdGenerator.AUTO_UUID.equals(genName)) {
-        desc.setIdGenerator(uuidIdGenerator);
+        desc.setIdGenerator(uuidTimeOrdered ? timeUuidIdGenerator : uuidIdGenerator);
+        return IdType.GENERATOR;
+      }
+      if (UuidIdGenerator.TIME_UUID.equals(genName)) {
+        desc.setIdGenerator(timeUuidIdGenerator);
         return IdType.GENERATOR;
       }
     }
@@ -1147,7 +1316,12 @@ public class BeanDescriptorManager implements BeanDescriptorMap {
   }
 
   private IdGenerator createSequenceIdGenerator(String seqName) {
-    return databasePlatform.createSequenceIdGenerator(backgroundExecutor, dataSource, seqName, dbSequenceBatchSize);
+    IdGenerator idGenerator = databasePlatform.createSequenceIdGenerator(backgroundExecutor, dataSource, seqName, dbSequenceBatchSize);
+    if (dbSequencePrefetch && idGenerator instanceof SequenceIdGenerator) {
+      SequenceIdGenerator sequence = (SequenceIdGenerator) idGenerator;
+      return new PrefetchSequenceIdGenerator(sequence, backgroundExecutor, dbSequenceBatchSize, dbSequenceMaxBatchSize);
+    }
+    return idGenerator;
   }
 
   private void createByteCode(DeployBeanDescriptor<?> deploy) {
@@ -1501,7 +1675,7 @@ public class BeanDescriptorManager implements BeanDescriptorMap {
 
     desc.setFactoryType(beanClass);
     if (!beanClass.getName().startsWith("com.avaje.ebean.meta")) {
-      enhancedClassCount++;
+      enhancedClassCount.incrementAndGet();
     }
   }
 
@@ -1518,7 +1692,7 @@ public class BeanDescriptorManager implements BeanDescriptorMap {
       if (!allowSubclassing) {
         throw new PersistenceException("This configuration does not allow entity subclassing [" + beanClass + "]");
       }
-      subclassClassCount++;      
+      subclassClassCount.incrementAndGet();
       Class<?> subClass = subClassManager.resolve(beanClass.getName());
       desc.setFactoryType(subClass);
       subclassedEntities.add(desc.getName());
@@ -21,6 +21,7 @@ package com.avaje.ebeaninternal.server.deploy;
 
 import com.avaje.ebean.cache.ServerCacheManager;
 import com.avaje.ebean.config.EncryptKey;
+import com.avaje.ebeaninternal.server.cache.QueryCacheTableStamps;
 import com.avaje.ebeaninternal.server.deploy.id.IdBinder;
 
 /**
@@ -53,4 +54,10 @@ public interface BeanDescriptorMap {
     
     public IdBinder createIdBinder(BeanProperty[] uids);
 
+    /**
+     * Return the modification stamps of the tables used to invalidate the
+     * query caches.
+     */
+    public QueryCacheTableStamps getQueryCacheTableStamps();
+
 }
@@ -32,8 +32,12 @@ public class BeanManagerFactory {
 
 	final BeanPersisterFactory peristerFactory;
 	
-	public BeanManagerFactory(ServerConfig config, DatabasePlatform dbPlatform) {
-		peristerFactory = new DmlBeanPersisterFactory(dbPlatform);
+	/**
+	 * Create with clustering true if updates should collect BeanDeltas to send
+	 * to the other servers in the cluster.
+	 */
+	public BeanManagerFactory(ServerConfig config, DatabasePlatform dbPlatform, boolean clustering) {
+		peristerFactory = new DmlBeanPersisterFactory(dbPlatform, config.isPersistBatchMultiRowInsert(), clustering);
 	}
 	
 	public <T> BeanManager<T> create(BeanDescriptor<T> desc) {
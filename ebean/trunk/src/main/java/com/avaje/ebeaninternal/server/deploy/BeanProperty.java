@@ -631,6 +631,13 @@ public class BeanProperty implements ElPropertyValue {
         return scalarType.read(ctx.getDataReader());
     }
 
+    /**
+     * Read the value from the resultSet writing it as JSON (without a bean).
+     */
+    public void loadJson(DbReadContext ctx, WriteJsonContext json) throws SQLException {
+        jsonWriteValue(json, read(ctx));
+    }
+
     public Object readSet(DbReadContext ctx, Object bean, Class<?> type) throws SQLException {
 
         try {
@@ -1300,10 +1307,17 @@ public class BeanProperty implements ElPropertyValue {
         return name;
     }
 
-    @SuppressWarnings("unchecked")
     public void jsonWrite(WriteJsonContext ctx, Object bean) {
 
         Object value = getValueIntercept(bean);
+        jsonWriteValue(ctx, value);
+    }
+
+    /**
+     * Write the value as JSON using the name of this property.
+     */
+    @SuppressWarnings("unchecked")
+    public void jsonWriteValue(WriteJsonContext ctx, Object value) {
         if (value == null) {
             ctx.appendNull(name);
         } else {
@@ -44,6 +44,7 @@ import com.avaje.ebeaninternal.server.query.SplitName;
 import com.avaje.ebeaninternal.server.query.SqlBeanLoad;
 import com.avaje.ebeaninternal.server.text.json.ReadJsonContext;
 import com.avaje.ebeaninternal.server.text.json.WriteJsonContext;
+import com.avaje.ebeaninternal.server.text.json.WriteJsonContext.WriteBeanState;
 
 /**
  * Property mapped to a joined bean.
@@ -613,6 +614,11 @@ public class BeanPropertyAssocOne<T> extends BeanPropertyAssoc<T> {
         localHelp.loadIgnore(ctx);
     }
 
+    @Override
+    public void loadJson(DbReadContext ctx, WriteJsonContext json) throws SQLException {
+        localHelp.loadJson(ctx, json);
+    }
+
     @Override
     public void load(SqlBeanLoad sqlBeanLoad) throws SQLException {
         Object dbVal = sqlBeanLoad.load(this);
@@ -643,6 +649,8 @@ public class BeanPropertyAssocOne<T> extends BeanPropertyAssoc<T> {
 
         abstract Object read(DbReadContext ctx) throws SQLException;
 
+        abstract void loadJson(DbReadContext ctx, WriteJsonContext json) throws SQLException;
+
         abstract Object readSet(DbReadContext ctx, Object bean, boolean assignAble) throws SQLException;
 
         abstract void appendSelect(DbSqlContext ctx, boolean subQuery);
@@ -692,6 +700,32 @@ public class BeanPropertyAssocOne<T> extends BeanPropertyAssoc<T> {
             }
         }
 
+        void loadJson(DbReadContext ctx, WriteJsonContext json) throws SQLException {
+
+            Object[] values = new Object[embeddedProps.length];
+            boolean notNull = false;
+            for (int i = 0; i < embeddedProps.length; i++) {
+                values[i] = embeddedProps[i].read(ctx);
+                if (values[i] != null) {
+                    notNull = true;
+                }
+            }
+            if (!notNull) {
+                json.beginAssocOneIsNull(name);
+                
+            } else {
+                json.beginAssocOne(name);
+                json.appendObjectBegin();
+                WriteBeanState prevState = json.pushBeanState(null);
+                for (int i = 0; i < embeddedProps.length; i++) {
+                    embeddedProps[i].jsonWriteValue(json, values[i]);
+                }
+                json.pushPreviousState(prevState);
+                json.appendObjectEnd();
+                json.endAssocOne();
+            }
+        }
+
         @Override
         void appendFrom(DbSqlContext ctx, boolean forceOuterJoin) {
         }
@@ -731,6 +765,16 @@ public class BeanPropertyAssocOne<T> extends BeanPropertyAssoc<T> {
             return val;
         }
 
+        void loadJson(DbReadContext ctx, WriteJsonContext json) throws SQLException {
+
+            InheritInfo rowInheritInfo = null;
+            if (targetInheritInfo != null) {
+                rowInheritInfo = targetInheritInfo.readType(ctx);
+            }
+            Object id = targetIdBinder.read(ctx);
+            jsonWriteReference(json, rowInheritInfo, id);
+        }
+
         /**
          * Read and set a Reference bean.
          */
@@ -842,6 +886,13 @@ public class BeanPropertyAssocOne<T> extends BeanPropertyAssoc<T> {
             return dbVal;
         }
 
+        @Override
+        void loadJson(DbReadContext ctx, WriteJsonContext json) throws SQLException {
+
+            Object id = targetDescriptor.getIdBinder().read(ctx);
+            jsonWriteReference(json, null, id);
+        }
+
         @Override
         Object read(DbReadContext ctx) throws SQLException {
 
@@ -921,6 +972,48 @@ public class BeanPropertyAssocOne<T> extends BeanPropertyAssoc<T> {
         }
     }
     
+    @Override
+    public void jsonWriteValue(WriteJsonContext ctx, Object value) {
+
+        if (value == null) {
+            ctx.beginAssocOneIsNull(name);
+
+        } else {
+            ctx.beginAssocOne(name);
+            BeanDescriptor<?> refDesc = descriptor.getBeanDescriptor(value.getClass());
+            refDesc.jsonWrite(ctx, value);
+            ctx.endAssocOne();
+        }
+    }
+
+    /**
+     * Write a reference (just the id and discriminator) read from the
+     * resultSet rather than from a reference bean.
+     */
+    private void jsonWriteReference(WriteJsonContext json, InheritInfo rowInheritInfo, Object id) {
+
+        if (id == null) {
+            json.beginAssocOneIsNull(name);
+
+        } else {
+            BeanDescriptor<?> refDesc = targetDescriptor;
+            json.beginAssocOne(name);
+            json.appendObjectBegin();
+            WriteBeanState prevState = json.pushBeanState(null);
+            if (rowInheritInfo != null) {
+                json.appendDiscriminator(rowInheritInfo.getDiscriminatorColumn(), rowInheritInfo.getDiscriminatorStringValue());
+                refDesc = rowInheritInfo.getBeanDescriptor();
+            }
+            BeanProperty[] idProps = refDesc.propertiesId();
+            if (idProps.length == 1) {
+                idProps[0].jsonWriteValue(json, id);
+            }
+            json.pushPreviousState(prevState);
+            json.appendObjectEnd();
+            json.endAssocOne();
+        }
+    }
+
     @Override
     public void jsonRead(ReadJsonContext ctx, Object bean){
         
@@ -220,6 +220,11 @@ public class BeanPropertyCompound extends BeanProperty {
         Object valueObject = getValueIntercept(bean);
         compoundType.jsonWrite(ctx, valueObject, name);
     }
+
+    @Override
+    public void jsonWriteValue(WriteJsonContext ctx, Object value) {
+        compoundType.jsonWrite(ctx, value, name);
+    }
     
     public void jsonRead(ReadJsonContext ctx, Object bean){
 
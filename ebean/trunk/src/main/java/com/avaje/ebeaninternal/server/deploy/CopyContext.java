@@ -20,7 +20,7 @@
 package com.avaje.ebeaninternal.server.deploy;
 
 import com.avaje.ebean.bean.PersistenceContext;
-import com.avaje.ebeaninternal.server.transaction.DefaultPersistenceContext;
+import com.avaje.ebeaninternal.server.transaction.PersistenceContextFactory;
 
 /**
  * Provides context when performing a bean copy.
@@ -38,7 +38,7 @@ public class CopyContext {
     public CopyContext(boolean vanillaMode, boolean sharing) {
         this.vanillaMode = vanillaMode;
         this.sharing = sharing;
-        this.pc = new DefaultPersistenceContext();
+        this.pc = PersistenceContextFactory.create();
     }
 
     public CopyContext(boolean vanillaMode) {
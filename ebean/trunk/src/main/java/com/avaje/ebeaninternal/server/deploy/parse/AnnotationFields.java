@@ -426,7 +426,11 @@ public class AnnotationFields extends AnnotationParser {
 
 		} else if (strategy == GenerationType.AUTO) {
 			if (prop.getPropertyType().equals(UUID.class)){
-				descriptor.setIdGeneratorName(UuidIdGenerator.AUTO_UUID);
+				if (UuidIdGenerator.TIME_UUID.equals(genName)){
+					descriptor.setIdGeneratorName(UuidIdGenerator.TIME_UUID);
+				} else {
+					descriptor.setIdGeneratorName(UuidIdGenerator.AUTO_UUID);
+				}
 				descriptor.setIdType(IdType.GENERATOR);
 
 			} else {
@@ -1,5 +1,6 @@
 package com.avaje.ebeaninternal.server.expression;
 
+import java.io.Writer;
 import java.util.Collection;
 import java.util.List;
 import java.util.Map;
@@ -218,10 +219,22 @@ abstract class JunctionExpression<T> implements Junction<T>, SpiExpression, Expr
     exprList.findVisit(visitor);
   }
 
+  public void findVisitParallel(int partitions, QueryResultVisitor<T> visitor) {
+    exprList.findVisitParallel(partitions, visitor);
+  }
+
+  public void findVisitParallel(List<Expression> partitions, QueryResultVisitor<T> visitor) {
+    exprList.findVisitParallel(partitions, visitor);
+  }
+
   public QueryIterator<T> findIterate() {
     return exprList.findIterate();
   }
 
+  public void findJson(Writer writer) {
+    exprList.findJson(writer);
+  }
+
   public List<T> findList() {
     return exprList.findList();
   }
@@ -238,6 +251,10 @@ abstract class JunctionExpression<T> implements Junction<T>, SpiExpression, Expr
     return exprList.findPagingList(pageSize);
   }
 
+  public PagingList<T> findKeysetPagingList(int pageSize) {
+    return exprList.findKeysetPagingList(pageSize);
+  }
+
   public int findRowCount() {
     return exprList.findRowCount();
   }
@@ -0,0 +1,98 @@
+package com.avaje.ebeaninternal.server.idgen;
+
+import java.security.SecureRandom;
+import java.util.Random;
+import java.util.UUID;
+
+import com.avaje.ebean.Transaction;
+import com.avaje.ebean.config.dbplatform.IdGenerator;
+
+/**
+ * IdGenerator for time ordered java util UUID.
+ * <p>
+ * The UUID has the same layout as a version 7 UUID. The most significant 48
+ * bits are the current time in milliseconds followed by a counter so that the
+ * UUID's generated by a thread are always increasing. The remaining bits are
+ * random.
+ * </p>
+ * <p>
+ * As the Id's are roughly in insert order new rows are added to the end of
+ * the primary key index rather than spread across it. Each thread uses its
+ * own random (seeded from a SecureRandom) so threads do not contend. These
+ * UUID's are unique but are not suitable where they must be hard to guess.
+ * </p>
+ */
+public class TimeUuidIdGenerator implements IdGenerator {
+
+	private static final int MAX_COUNTER = 0xFFF;
+
+	private final SecureRandom seedRandom = new SecureRandom();
+
+	private final ThreadLocal<State> state = new ThreadLocal<State>() {
+		protected State initialValue() {
+			return new State(new Random(seedRandom.nextLong()));
+		}
+	};
+
+	/**
+	 * Return a time ordered UUID.
+	 */
+	public Object nextId(Transaction t) {
+
+		State s = state.get();
+
+		long millis = System.currentTimeMillis();
+		if (millis > s.lastMillis) {
+			// start the counter in the lower half leaving room to increment
+			s.lastMillis = millis;
+			s.counter = s.random.nextInt(MAX_COUNTER / 2);
+
+		} else if (s.counter < MAX_COUNTER) {
+			// same millisecond (or the clock went back)
+			s.counter++;
+
+		} else {
+			// counter exhausted so move to the next millisecond
+			s.lastMillis++;
+			s.counter = 0;
+		}
+
+		long msb = (s.lastMillis << 16) | 0x7000L | s.counter;
+		long lsb = (s.random.nextLong() & 0x3FFFFFFFFFFFFFFFL) | 0x8000000000000000L;
+		return new UUID(msb, lsb);
+	}
+
+	/**
+	 * Returns "time.uuid".
+	 */
+	public String getName() {
+		return TIME_UUID;
+	}
+
+	/**
+	 * Returns false.
+	 */
+	public boolean isDbSequence() {
+		return false;
+	}
+
+	/**
+	 * Ignored for UUID as not required as a performance optimisation.
+	 */
+	public void preAllocateIds(int allocateSize) {
+		// ignored
+	}
+
+	private static class State {
+
+		private final Random random;
+
+		private long lastMillis;
+
+		private int counter;
+
+		private State(Random random) {
+			this.random = random;
+		}
+	}
+}
@@ -118,4 +118,16 @@ public class MAdminAutofetch implements MAdminAutofetchMBean, AdminAutofetch {
 		return autoFetchManager.getTotalTunedQuerySize();
 	}
 
+	public boolean isLazyLoadBatchAdaptive() {
+		return autoFetchManager.isLazyLoadBatchAdaptive();
+	}
+
+	public void setLazyLoadBatchAdaptive(boolean lazyLoadBatchAdaptive) {
+		autoFetchManager.setLazyLoadBatchAdaptive(lazyLoadBatchAdaptive);
+	}
+
+	public String getLazyLoadBatchSizes() {
+		return autoFetchManager.getLazyLoadBatchSizes();
+	}
+
 }
@@ -142,4 +142,19 @@ public interface MAdminAutofetchMBean {
 	 */
 	public int getTotalProfileSize();
 
+	/**
+	 * Return true if the lazy loading batch size is adapted per path.
+	 */
+	public boolean isLazyLoadBatchAdaptive();
+
+	/**
+	 * Set to true to adapt the lazy loading batch size per path.
+	 */
+	public void setLazyLoadBatchAdaptive(boolean lazyLoadBatchAdaptive);
+
+	/**
+	 * Return a summary of the adapted lazy loading batch sizes per path.
+	 */
+	public String getLazyLoadBatchSizes();
+
 }
@@ -29,6 +29,7 @@ import com.avaje.ebean.bean.BeanCollection;
 import com.avaje.ebeaninternal.api.SpiQuery;
 import com.avaje.ebeaninternal.server.core.SpiOrmQueryRequest;
 import com.avaje.ebeaninternal.server.deploy.BeanDescriptor;
+import com.avaje.ebeaninternal.server.text.json.WriteJsonContext;
 
 public class LdapOrmQueryRequest<T> implements SpiOrmQueryRequest<T> {
 
@@ -70,6 +71,10 @@ public class LdapOrmQueryRequest<T> implements SpiOrmQueryRequest<T> {
         throw new RuntimeException("Not Implemented yet");
     }
 
+    public int findJson(WriteJsonContext json) {
+        throw new RuntimeException("Not Implemented yet");
+    }
+
     public Map<?, ?> findMap() {
         throw new RuntimeException("Not Implemented yet");
     }
@@ -0,0 +1,103 @@
+/**
+ * Copyright (C) 2009 Authors
+ * 
+ * This file is part of Ebean.
+ * 
+ * Ebean is free software; you can redistribute it and/or modify it 
+ * under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation; either version 2.1 of the License, or
+ * (at your option) any later version.
+ *  
+ * Ebean is distributed in the hope that it will be useful, but 
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with Ebean; if not, write to the Free Software Foundation, Inc.,
+ * 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA  
+ */
+package com.avaje.ebeaninternal.server.lib.sql;
+
+import java.sql.SQLException;
+
+import com.avaje.ebeaninternal.server.lib.sql.DataSourcePool.Status;
+
+/**
+ * The engine a DataSourcePool uses to hand out and take back connections.
+ * <p>
+ * {@link PooledConnectionQueue} guards all access with a single fair lock
+ * while {@link LockFreeConnectionQueue} uses thread affinity and a lock free
+ * free list only falling back to a wait queue when the pool is exhausted.
+ * </p>
+ */
+public interface ConnectionQueue {
+
+    /**
+     * Return the current status of the queue optionally resetting the counters.
+     */
+    public Status getStatus(boolean reset);
+
+    /**
+     * Set the minimum number of connections the pool should maintain.
+     */
+    public void setMinSize(int minSize);
+
+    /**
+     * Set the maximum number of connections the pool can grow to.
+     */
+    public void setMaxSize(int maxSize);
+
+    /**
+     * Set the size at which the pool sends a warning about getting close to
+     * its maximum size.
+     */
+    public void setWarningSize(int warningSize);
+
+    /**
+     * Create connections such that the pool is at least its minimum size.
+     */
+    public void ensureMinimumConnections() throws SQLException;
+
+    /**
+     * Get a connection waiting if necessary when the pool is at its maximum
+     * size.
+     */
+    public PooledConnection getPooledConnection() throws SQLException;
+
+    /**
+     * Return a connection back into the queue.
+     */
+    public void returnPooledConnection(PooledConnection c);
+
+    /**
+     * Trim connections that have been inactive for longer than the given time.
+     */
+    public void trim(int maxInactiveTimeSecs) throws SQLException;
+
+    /**
+     * Close free connections and any busy connections when they are returned.
+     */
+    public void reset(long leakTimeMinutes);
+
+    /**
+     * Close the free connections and any leaked busy connections.
+     */
+    public void shutdown();
+
+    /**
+     * Close any busy connections that have not been used for some time.
+     */
+    public void closeBusyConnections(long leakTimeMinutes);
+
+    /**
+     * Return information describing connections that are currently being used.
+     */
+    public String getBusyConnectionInformation();
+
+    /**
+     * Dump the busy connection information to the logs.
+     */
+    public void dumpBusyConnectionInformation();
+
+}
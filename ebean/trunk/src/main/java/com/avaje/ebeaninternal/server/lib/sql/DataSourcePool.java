@@ -161,7 +161,12 @@ public class DataSourcePool implements DataSource {
      */
     private int maxInactiveTimeSecs;
 
-    private final PooledConnectionQueue queue;
+    private final ConnectionQueue queue;
+
+    /**
+     * PreparedStatement statistics across all the connections.
+     */
+    private final PstmtStatistics pstmtStatistics = new PstmtStatistics();
 
     /**
      * Used to find and close() leaked connections. Leaked connections are
@@ -192,7 +197,11 @@ public class DataSourcePool implements DataSource {
         this.waitTimeoutMillis = params.getWaitTimeoutMillis();
         this.heartbeatsql = params.getHeartbeatSql();
 
-        queue = new PooledConnectionQueue(this);
+        if (params.isLockFreeQueue()) {
+            queue = new LockFreeConnectionQueue(this);
+        } else {
+            queue = new PooledConnectionQueue(this);
+        }
 
         String un = params.getUsername();
         String pw = params.getPassword();
@@ -799,6 +808,18 @@ public class DataSourcePool implements DataSource {
         this.pstmtCacheSize = pstmtCacheSize;
     }
 
+    /**
+     * Return the PreparedStatement execute, prepare and eviction counts per
+     * statement shape aggregated across all the connections.
+     * <p>
+     * Use this to size the pstmtCacheSize. Shapes with high prepare counts
+     * relative to their execute counts are being evicted.
+     * </p>
+     */
+    public PstmtStatistics getPstmtStatistics() {
+        return pstmtStatistics;
+    }
+
     /**
      * Return the current status of the connection pool.
      * <p>
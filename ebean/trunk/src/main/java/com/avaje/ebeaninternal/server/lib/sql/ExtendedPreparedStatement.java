@@ -53,16 +53,22 @@ public class ExtendedPreparedStatement extends ExtendedStatement implements Prep
 	/**
 	 * The key used to cache this in the connection.
 	 */
-    final String cacheKey;
+    final PstmtKey cacheKey;
+
+	/**
+	 * The pool wide statistics for this statement shape (null if not tracked).
+	 */
+    final PstmtStatistics.Shape shape;
 
 	/**
 	 * Create a wrapped PreparedStatement that can be cached.
 	 */
 	public ExtendedPreparedStatement(PooledConnection pooledConnection, PreparedStatement pstmt,
-			String sql, String cacheKey) {
+			String sql, PstmtKey cacheKey, PstmtStatistics.Shape shape) {
 		super(pooledConnection, pstmt);
 		this.sql = sql;
 		this.cacheKey = cacheKey;
+		this.shape = shape;
 	}
 	
 	public PreparedStatement getDelegate() {
@@ -72,10 +78,25 @@ public class ExtendedPreparedStatement extends ExtendedStatement implements Prep
 	/**
 	 * Return the key used to cache this on the Connection.
 	 */
-	public String getCacheKey() {
+	public PstmtKey getCacheKey() {
 		return cacheKey;
 	}
 
+	/**
+	 * Note that this statement has been evicted from the connection cache.
+	 */
+	void evicted() {
+		if (shape != null) {
+			shape.incrementEvict();
+		}
+	}
+
+	private void executed() {
+		if (shape != null) {
+			shape.incrementExecute();
+		}
+	}
+
 	/**
 	 * Return the SQL used to create this PreparedStatement.
 	 */
@@ -132,6 +153,7 @@ public class ExtendedPreparedStatement extends ExtendedStatement implements Prep
 	 * execute the statement.
 	 */
 	public boolean execute() throws SQLException {
+		executed();
 		try {
 			return pstmt.execute();
 		} catch (SQLException e) {
@@ -146,6 +168,7 @@ public class ExtendedPreparedStatement extends ExtendedStatement implements Prep
 	 * Execute teh query.
 	 */
 	public ResultSet executeQuery() throws SQLException {
+		executed();
 		try {
 			return pstmt.executeQuery();
 		} catch (SQLException e) {
@@ -160,6 +183,7 @@ public class ExtendedPreparedStatement extends ExtendedStatement implements Prep
 	 * Execute the dml statement.
 	 */
 	public int executeUpdate() throws SQLException {
+		executed();
 		try {
 			return pstmt.executeUpdate();
 		} catch (SQLException e) {
@@ -170,6 +194,21 @@ public class ExtendedPreparedStatement extends ExtendedStatement implements Prep
 		}
 	}
 
+	/**
+	 * Execute the batch.
+	 */
+	public int[] executeBatch() throws SQLException {
+		executed();
+		try {
+			return pstmt.executeBatch();
+		} catch (SQLException e) {
+			// we got an error... need to check 
+			// this connection before returning it
+			pooledConnection.addError(e);
+			throw e;
+		}
+	}
+
 	/**
 	 * Return the MetaData for the query.
 	 */
@@ -0,0 +1,625 @@
+/**
+ * Copyright (C) 2009 Authors
+ *
+ * This file is part of Ebean.
+ *
+ * Ebean is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation; either version 2.1 of the License, or
+ * (at your option) any later version.
+ *
+ * Ebean is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with Ebean; if not, write to the Free Software Foundation, Inc.,
+ * 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA
+ */
+package com.avaje.ebeaninternal.server.lib.sql;
+
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import com.avaje.ebeaninternal.server.lib.sql.DataSourcePool.Status;
+
+/**
+ * A ConnectionQueue that avoids a single lock on borrow and return.
+ * <p>
+ * A thread first tries to reclaim the connection it last returned (thread
+ * affinity) and then polls a lock free free list. Free connections are
+ * claimed by compare and set so a connection found via thread affinity and via
+ * the free list can only be handed out once. A connection claimed via thread
+ * affinity is left in the free list and discarded when polled, and is only
+ * added to the free list when it is not already in it.
+ * </p>
+ * <p>
+ * Only when the pool is at its maximum size do threads take a fair lock and
+ * wait on a condition for a connection to be returned. While any thread is
+ * waiting other threads do not use the fast paths so waiting threads get
+ * priority.
+ * </p>
+ */
+public class LockFreeConnectionQueue implements ConnectionQueue {
+
+    private static final Logger logger = Logger.getLogger(LockFreeConnectionQueue.class.getName());
+
+    private static final TimeUnit MILLIS_TIME_UNIT = TimeUnit.MILLISECONDS;
+
+    private final String name;
+
+    private final DataSourcePool pool;
+
+    /**
+     * Free connections. May contain connections that have already been
+     * claimed via thread affinity, these fail the claim and are discarded.
+     * Each connection is in the list at most once.
+     */
+    private final ConcurrentLinkedQueue<PooledConnection> freeList = new ConcurrentLinkedQueue<PooledConnection>();
+
+    /**
+     * The busy connections.
+     */
+    private final ConcurrentHashMap<PooledConnection, Boolean> busyMap = new ConcurrentHashMap<PooledConnection, Boolean>();
+
+    /**
+     * The connection this thread last returned.
+     */
+    private final ThreadLocal<PooledConnection> lastReturned = new ThreadLocal<PooledConnection>();
+
+    /**
+     * Fair lock only used when the pool is exhausted.
+     */
+    private final ReentrantLock waitLock = new ReentrantLock(true);
+
+    /**
+     * Condition for threads waiting to take a connection.
+     */
+    private final Condition notEmpty = waitLock.newCondition();
+
+    /**
+     * The total number of connections (free and busy).
+     */
+    private final AtomicInteger totalSize = new AtomicInteger();
+
+    /**
+     * The number of free connections.
+     */
+    private final AtomicInteger freeSize = new AtomicInteger();
+
+    private final AtomicInteger connectionId = new AtomicInteger();
+
+    private final AtomicInteger waitingThreads = new AtomicInteger();
+
+    private final AtomicInteger waitCount = new AtomicInteger();
+
+    private final AtomicInteger hitCount = new AtomicInteger();
+
+    private final AtomicInteger affinityHitCount = new AtomicInteger();
+
+    private final AtomicInteger highWaterMark = new AtomicInteger();
+
+    private final long waitTimeoutMillis;
+
+    private final long leakTimeMinutes;
+
+    private volatile int warningSize;
+
+    private volatile int maxSize;
+
+    private volatile int minSize;
+
+    private volatile long lastResetTime;
+
+    private volatile boolean doingShutdown;
+
+    public LockFreeConnectionQueue(DataSourcePool pool) {
+
+        this.pool = pool;
+        this.name = pool.getName();
+        this.minSize = pool.getMinSize();
+        this.maxSize = pool.getMaxSize();
+
+        this.warningSize = pool.getWarningSize();
+        this.waitTimeoutMillis = pool.getWaitTimeoutMillis();
+        this.leakTimeMinutes = pool.getLeakTimeMinutes();
+    }
+
+    private Status createStatus() {
+        return new Status(name, minSize, maxSize, freeSize.get(), busyMap.size(), waitingThreads.get(),
+                highWaterMark.get(), waitCount.get(), hitCount.get());
+    }
+
+    public String toString() {
+        return createStatus().toString() + " affinityHitCount:" + affinityHitCount.get();
+    }
+
+    public Status getStatus(boolean reset) {
+        Status s = createStatus();
+        if (reset) {
+            highWaterMark.set(busyMap.size());
+            hitCount.set(0);
+            waitCount.set(0);
+            affinityHitCount.set(0);
+        }
+        return s;
+    }
+
+    public void setMinSize(int minSize) {
+        if (minSize > this.maxSize) {
+            throw new IllegalArgumentException("minSize " + minSize + " > maxSize " + this.maxSize);
+        }
+        this.minSize = minSize;
+    }
+
+    public void setMaxSize(int maxSize) {
+        if (maxSize < this.minSize) {
+            throw new IllegalArgumentException("maxSize " + maxSize + " < minSize " + this.minSize);
+        }
+        this.maxSize = maxSize;
+    }
+
+    public void setWarningSize(int warningSize) {
+        if (warningSize > this.maxSize) {
+            throw new IllegalArgumentException("warningSize " + warningSize + " > maxSize " + this.maxSize);
+        }
+        this.warningSize = warningSize;
+    }
+
+    public void ensureMinimumConnections() throws SQLException {
+        while (reserveSlot(minSize)) {
+            PooledConnection c;
+            try {
+                c = pool.createConnectionForQueue(connectionId.getAndIncrement());
+            } catch (SQLException e) {
+                totalSize.decrementAndGet();
+                throw e;
+            }
+            addToFreeList(c);
+        }
+    }
+
+    /**
+     * Reserve a slot for a new connection if the total size is less than the
+     * limit.
+     */
+    private boolean reserveSlot(int limit) {
+        for (;;) {
+            int current = totalSize.get();
+            if (current >= limit) {
+                return false;
+            }
+            if (totalSize.compareAndSet(current, current + 1)) {
+                return true;
+            }
+        }
+    }
+
+    /**
+     * Return a PooledConnection.
+     */
+    public void returnPooledConnection(PooledConnection c) {
+
+        if (busyMap.remove(c) == null) {
+            logger.log(Level.SEVERE, "Connection [" + c + "] not found in BusyList? ");
+        }
+        if (doingShutdown || c.getCreationTime() <= lastResetTime) {
+            totalSize.decrementAndGet();
+            c.closeConnectionFully(false);
+            signalWaiting();
+
+        } else {
+            lastReturned.set(c);
+            addToFreeList(c);
+        }
+    }
+
+    private void addToFreeList(PooledConnection c) {
+        freeSize.incrementAndGet();
+        c.markQueueFree();
+        if (c.markInQueueFreeList()) {
+            freeList.offer(c);
+        }
+        signalWaiting();
+    }
+
+    /**
+     * Poll the free list. The flag is cleared before the connection is claimed
+     * so a connection returned in between is either claimed or added again.
+     */
+    private PooledConnection pollFreeList() {
+        PooledConnection c = freeList.poll();
+        if (c != null) {
+            c.clearInQueueFreeList();
+        }
+        return c;
+    }
+
+    /**
+     * Wake up a waiting thread if there are any.
+     */
+    private void signalWaiting() {
+        if (waitingThreads.get() > 0) {
+            final ReentrantLock lock = this.waitLock;
+            lock.lock();
+            try {
+                notEmpty.signal();
+            } finally {
+                lock.unlock();
+            }
+        }
+    }
+
+    public PooledConnection getPooledConnection() throws SQLException {
+
+        try {
+            PooledConnection pc = _getPooledConnection();
+            pc.resetForUse();
+            return pc;
+
+        } catch (InterruptedException e) {
+            String msg = "Interrupted getting connection from pool " + e;
+            throw new SQLException(msg);
+        }
+    }
+
+    /**
+     * Register the PooledConnection as busy.
+     */
+    private PooledConnection registerBusyConnection(PooledConnection c) {
+        busyMap.put(c, Boolean.TRUE);
+        int busySize = busyMap.size();
+        for (;;) {
+            int hwm = highWaterMark.get();
+            if (busySize <= hwm || highWaterMark.compareAndSet(hwm, busySize)) {
+                return c;
+            }
+        }
+    }
+
+    private PooledConnection _getPooledConnection() throws InterruptedException, SQLException {
+
+        if (doingShutdown) {
+            throw new SQLException("Trying to access the Connection Pool when it is shutting down");
+        }
+
+        // this includes attempts that fail with InterruptedException
+        // or SQLException but that is ok as its only an indicator
+        hitCount.incrementAndGet();
+
+        // are other threads already waiting? (they get priority)
+        if (waitingThreads.get() == 0) {
+
+            PooledConnection c = claimAffine();
+            if (c != null) {
+                return c;
+            }
+            c = claimFromFreeList();
+            if (c != null) {
+                return c;
+            }
+            c = growPool();
+            if (c != null) {
+                return c;
+            }
+        }
+
+        // The pool is at maximum size. We are going to go into
+        // a wait loop until connections are returned into the pool.
+        waitCount.incrementAndGet();
+        return waitForConnection();
+    }
+
+    /**
+     * Try to claim the connection this thread last returned.
+     */
+    private PooledConnection claimAffine() {
+        PooledConnection c = lastReturned.get();
+        if (c != null && c.claimQueueFree()) {
+            // the stale free list entry is discarded when polled
+            freeSize.decrementAndGet();
+            affinityHitCount.incrementAndGet();
+            return registerBusyConnection(c);
+        }
+        return null;
+    }
+
+    /**
+     * Poll the free list discarding entries already claimed via affinity.
+     */
+    private PooledConnection claimFromFreeList() {
+        PooledConnection c;
+        while ((c = pollFreeList()) != null) {
+            if (c.claimQueueFree()) {
+                freeSize.decrementAndGet();
+                return registerBusyConnection(c);
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Create a new connection if the pool is below its maximum size.
+     */
+    private PooledConnection growPool() throws SQLException {
+
+        if (!reserveSlot(maxSize)) {
+            return null;
+        }
+        PooledConnection c;
+        try {
+            c = pool.createConnectionForQueue(connectionId.getAndIncrement());
+        } catch (SQLException e) {
+            totalSize.decrementAndGet();
+            throw e;
+        }
+        registerBusyConnection(c);
+
+        String msg = "DataSourcePool [" + name + "] grow; id[" + c.getName() + "] busy[" + busyMap.size() + "] max[" + maxSize + "]";
+        logger.info(msg);
+
+        checkForWarningSize();
+        return c;
+    }
+
+    /**
+     * Go into a loop waiting for connections to be returned to the pool.
+     */
+    private PooledConnection waitForConnection() throws SQLException, InterruptedException {
+
+        final ReentrantLock lock = this.waitLock;
+        lock.lockInterruptibly();
+        try {
+            waitingThreads.incrementAndGet();
+            try {
+                long nanos = MILLIS_TIME_UNIT.toNanos(waitTimeoutMillis);
+                for (;;) {
+                    // waitingThreads is incremented before looking at the free
+                    // list so a returning thread will always signal us
+                    PooledConnection c = claimFromFreeList();
+                    if (c == null) {
+                        // busy connections may have been closed by a reset
+                        c = growPool();
+                    }
+                    if (c != null) {
+                        return c;
+                    }
+                    if (nanos <= 0) {
+                        String msg = "Unsuccessfully waited [" + waitTimeoutMillis + "] millis for a connection to be returned."
+                                + " No connections are free. You need to Increase the max connections of [" + maxSize + "]"
+                                + " or look for a connection pool leak using datasource.xxx.capturestacktrace=true";
+                        if (pool.isCaptureStackTrace()) {
+                            dumpBusyConnectionInformation();
+                        }
+                        throw new SQLException(msg);
+                    }
+                    try {
+                        nanos = notEmpty.awaitNanos(nanos);
+                    } catch (InterruptedException ie) {
+                        notEmpty.signal(); // propagate to non-interrupted thread
+                        throw ie;
+                    }
+                }
+            } finally {
+                waitingThreads.decrementAndGet();
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public void shutdown() {
+
+        doingShutdown = true;
+        Status status = createStatus();
+        logger.info("DataSourcePool [" + name + "] shutdown: " + status);
+
+        closeFreeConnections(true);
+
+        if (!busyMap.isEmpty()) {
+            String msg = "A potential connection leak was detected.  Busy connections: " + busyMap.size();
+            logger.warning(msg);
+
+            dumpBusyConnectionInformation();
+            closeBusyConnections(0);
+        }
+    }
+
+    /**
+     * Close all the connections in the pool and any current busy connections
+     * when they are returned. New connections will be then created on demand.
+     */
+    public void reset(long leakTimeMinutes) {
+
+        Status status = createStatus();
+        logger.info("Reseting DataSourcePool [" + name + "] " + status);
+        lastResetTime = System.currentTimeMillis();
+
+        closeFreeConnections(false);
+        closeBusyConnections(leakTimeMinutes);
+
+        String busyMsg = "Busy Connections:\r\n" + getBusyConnectionInformation();
+        logger.info(busyMsg);
+    }
+
+    public void trim(int maxInactiveTimeSecs) throws SQLException {
+        trimInactiveConnections(maxInactiveTimeSecs);
+        ensureMinimumConnections();
+    }
+
+    /**
+     * Trim connections that have been not used for some time.
+     */
+    private int trimInactiveConnections(int maxInactiveTimeSecs) {
+
+        int maxTrim = freeSize.get() - minSize;
+        if (maxTrim <= 0) {
+            return 0;
+        }
+
+        int trimedCount = 0;
+        long usedSince = System.currentTimeMillis() - (maxInactiveTimeSecs * 1000);
+
+        Iterator<PooledConnection> it = freeList.iterator();
+        while (it.hasNext()) {
+            PooledConnection pc = it.next();
+            if (pc.getLastUsedTime() < usedSince && pc.claimQueueFree()) {
+                // trim this connection as it hasn't been used in a while
+                it.remove();
+                pc.clearInQueueFreeList();
+                freeSize.decrementAndGet();
+                totalSize.decrementAndGet();
+                pc.closeConnectionFully(true);
+                trimedCount++;
+                if (trimedCount >= maxTrim) {
+                    break;
+                }
+            }
+        }
+
+        if (trimedCount > 0) {
+            String msg = "DataSourcePool [" + name + "] trimmed [" + trimedCount + "] inactive connections. New size[" + totalSize.get() + "]";
+            logger.info(msg);
+        }
+        return trimedCount;
+    }
+
+    /**
+     * Close all the connections that are in the free list.
+     */
+    public void closeFreeConnections(boolean logErrors) {
+        PooledConnection c;
+        while ((c = pollFreeList()) != null) {
+            if (c.claimQueueFree()) {
+                freeSize.decrementAndGet();
+                totalSize.decrementAndGet();
+                logger.info("PSTMT Statistics: " + c.getStatistics());
+                c.closeConnectionFully(logErrors);
+            }
+        }
+    }
+
+    /**
+     * Close any busy connections that have not been used for some time.
+     * <p>
+     * These connections are considered to have leaked from the connection pool.
+     * </p>
+     */
+    public void closeBusyConnections(long leakTimeMinutes) {
+
+        long olderThanTime = System.currentTimeMillis() - (leakTimeMinutes * 60000);
+
+        List<PooledConnection> copy = new ArrayList<PooledConnection>(busyMap.keySet());
+        for (int i = 0; i < copy.size(); i++) {
+            PooledConnection pc = copy.get(i);
+            if (pc.isLongRunning() || pc.getLastUsedTime() > olderThanTime) {
+                // PooledConnection has been used recently or
+                // expected to be longRunning so not closing...
+            } else {
+                busyMap.remove(pc);
+                closeBusyConnection(pc);
+            }
+        }
+    }
+
+    private void closeBusyConnection(PooledConnection pc) {
+        try {
+            String methodLine = pc.getCreatedByMethod();
+
+            Date luDate = new Date();
+            luDate.setTime(pc.getLastUsedTime());
+
+            String msg = "DataSourcePool closing leaked connection? " + " name["
+                    + pc.getName() + "] lastUsed[" + luDate + "] createdBy[" + methodLine
+                    + "] lastStmt[" + pc.getLastStatement() + "]";
+
+            logger.warning(msg);
+            logStackElement(pc, "Possible Leaked Connection: ");
+
+            pc.close();
+
+        } catch (SQLException ex) {
+            // this should never actually happen
+            logger.log(Level.SEVERE, null, ex);
+        }
+    }
+
+    private void logStackElement(PooledConnection pc, String prefix) {
+        StackTraceElement[] stackTrace = pc.getStackTrace();
+        if (stackTrace != null) {
+            String s = Arrays.toString(stackTrace);
+            String msg = prefix + " name[" + pc.getName() + "] stackTrace: " + s;
+            logger.warning(msg);
+            // also send to syserr ... as the loggers get turned
+            // off early in JVM shutdown
+            System.err.println(msg);
+        }
+    }
+
+    /**
+     * As the pool grows it gets closer to the maxConnections limit. We can send
+     * an Alert (or warning) as we get close to this limit.
+     */
+    private void checkForWarningSize() {
+
+        // the the total number of connections that we can add
+        // to the pool before it hits the maximum
+        int availableGrowth = (maxSize - totalSize.get());
+
+        if (availableGrowth < warningSize) {
+
+            closeBusyConnections(leakTimeMinutes);
+
+            String msg = "DataSourcePool [" + name + "] is [" + availableGrowth + "] connections from its maximum size.";
+            pool.notifyWarning(msg);
+        }
+    }
+
+    public String getBusyConnectionInformation() {
+        return getBusyConnectionInformation(false);
+    }
+
+    public void dumpBusyConnectionInformation() {
+        getBusyConnectionInformation(true);
+    }
+
+    /**
+     * Returns information describing connections that are currently being used.
+     */
+    private String getBusyConnectionInformation(boolean toLogger) {
+
+        if (toLogger) {
+            logger.info("Dumping busy connections: (Use datasource.xxx.capturestacktrace=true  ... to get stackTraces)");
+        }
+
+        StringBuilder sb = new StringBuilder();
+
+        Iterator<PooledConnection> it = busyMap.keySet().iterator();
+        while (it.hasNext()) {
+            PooledConnection pc = it.next();
+            if (toLogger) {
+                logger.info(pc.getDescription());
+                logStackElement(pc, "Busy Connection: ");
+
+            } else {
+                sb.append(pc.getDescription()).append("\r\n");
+            }
+        }
+
+        return sb.toString();
+    }
+
+}
@@ -30,6 +30,7 @@ import java.sql.Statement;
 import java.util.ArrayList;
 import java.util.Iterator;
 import java.util.Map;
+import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
@@ -163,6 +164,18 @@ public class PooledConnection extends ConnectionDelegator
 	 */
 	int slotId;
 	
+	/**
+	 * Set when the connection is free in a LockFreeConnectionQueue. Threads
+	 * claim the connection by compare and set on this flag.
+	 */
+	private final AtomicBoolean queueFree = new AtomicBoolean();
+
+	/**
+	 * Set when the connection is in the free list of a LockFreeConnectionQueue
+	 * so that it is only added once.
+	 */
+	private final AtomicBoolean inQueueFreeList = new AtomicBoolean();
+	
 	/**
 	 * Construct the connection that can refer back to the pool it belongs to.
 	 * <p>
@@ -210,6 +223,35 @@ public class PooledConnection extends ConnectionDelegator
         this.slotId = slotId;
     }
 
+    /**
+     * Mark this connection as free to be claimed by a LockFreeConnectionQueue.
+     */
+    void markQueueFree() {
+        queueFree.set(true);
+    }
+
+    /**
+     * Try to claim this free connection returning true if successful.
+     */
+    boolean claimQueueFree() {
+        return queueFree.compareAndSet(true, false);
+    }
+
+    /**
+     * Return true if this connection should be added to the free list (it is
+     * not already in it).
+     */
+    boolean markInQueueFreeList() {
+        return inQueueFreeList.compareAndSet(false, true);
+    }
+
+    /**
+     * Clear the flag when this connection is taken out of the free list.
+     */
+    void clearInQueueFreeList() {
+        inQueueFreeList.set(false);
+    }
+
     /**
 	 * Return the DataSourcePool that this connection belongs to.
 	 */
@@ -385,7 +427,7 @@ public class PooledConnection extends ConnectionDelegator
 	 * This will try to use a cache of PreparedStatements.
 	 */
 	public PreparedStatement prepareStatement(String sql, int returnKeysFlag) throws SQLException {
-		String cacheKey = sql + returnKeysFlag;
+		PstmtKey cacheKey = new PstmtKey(sql, returnKeysFlag);
 		return prepareStatement(sql, true, returnKeysFlag, cacheKey);
 	}
 
@@ -393,13 +435,29 @@ public class PooledConnection extends ConnectionDelegator
 	 * This will try to use a cache of PreparedStatements.
 	 */
 	public PreparedStatement prepareStatement(String sql) throws SQLException {
-		return prepareStatement(sql, false, 0, sql);
+		return prepareStatement(sql, false, -1, new PstmtKey(sql, -1));
+	}
+
+	/**
+	 * Prepare a statement for a query or update plan using the plan hash as
+	 * the cache key rather than hashing the SQL.
+	 * <p>
+	 * The SQL is still used for equality so plans with colliding hashes get
+	 * their own statements. Plans without a hash (0 for RawSql, row count and
+	 * find ids plans) use the hash of the SQL so they do not all share a key.
+	 * </p>
+	 */
+	public PreparedStatement preparePlanStatement(int planHash, String sql) throws SQLException {
+		if (planHash == 0) {
+			return prepareStatement(sql);
+		}
+		return prepareStatement(sql, false, -1, new PstmtKey(planHash, sql, -1));
 	}
 
 	/**
 	 * This will try to use a cache of PreparedStatements.
 	 */
-	private PreparedStatement prepareStatement(String sql, boolean useFlag, int flag, String cacheKey) throws SQLException {
+	private PreparedStatement prepareStatement(String sql, boolean useFlag, int flag, PstmtKey cacheKey) throws SQLException {
 		
 		if (status == STATUS_IDLE) {
 			String m = IDLE_CONNECTION_ACCESSED_ERROR + "prepareStatement()";
@@ -419,13 +477,17 @@ public class PooledConnection extends ConnectionDelegator
 	
 				// create a new PreparedStatement
 				pstmtMissCounter++;
+				PstmtStatistics.Shape shape = pool.getPstmtStatistics().getShape(cacheKey);
+				if (shape != null) {
+					shape.incrementPrepare();
+				}
 				PreparedStatement actualPstmt;
 				if (useFlag) {
 					actualPstmt = connection.prepareStatement(sql, flag);
 				} else {
 					actualPstmt = connection.prepareStatement(sql);
 				}
-				return new ExtendedPreparedStatement(this, actualPstmt, sql, cacheKey);
+				return new ExtendedPreparedStatement(this, actualPstmt, sql, cacheKey, shape);
 			}
 
 		} catch (SQLException ex) {
@@ -32,7 +32,7 @@ import java.util.logging.Logger;
 
 import com.avaje.ebeaninternal.server.lib.sql.DataSourcePool.Status;
 
-public class PooledConnectionQueue {
+public class PooledConnectionQueue implements ConnectionQueue {
 
     private static final Logger logger = Logger.getLogger(PooledConnectionQueue.class.getName());
     
@@ -216,7 +216,7 @@ public class PooledConnectionQueue {
     /**
      * Return a PooledConnection.
      */
-    protected void returnPooledConnection(PooledConnection c) {
+    public void returnPooledConnection(PooledConnection c) {
         
         final ReentrantLock lock = this.lock;
         lock.lock();
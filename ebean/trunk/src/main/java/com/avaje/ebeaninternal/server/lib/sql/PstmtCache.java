@@ -26,7 +26,7 @@ import java.util.logging.Logger;
 /**
  * A LRU based cache for PreparedStatements.
  */
-public class PstmtCache extends LinkedHashMap<String, ExtendedPreparedStatement> {
+public class PstmtCache extends LinkedHashMap<PstmtKey, ExtendedPreparedStatement> {
 
 	private static final Logger logger = Logger.getLogger(PstmtCache.class.getName());
 	
@@ -117,6 +117,13 @@ public class PstmtCache extends LinkedHashMap<String, ExtendedPreparedStatement>
 		return putCounter;
 	}
 
+	/**
+	 * The total number of entries evicted from this cache.
+	 */
+	public int getRemoveCounter() {
+		return removeCounter;
+	}
+
 	/**
 	 * additionally maintains hit and miss statistics.
 	 */
@@ -148,7 +155,7 @@ public class PstmtCache extends LinkedHashMap<String, ExtendedPreparedStatement>
 	/**
 	 * additionally maintains put counter statistics.
 	 */
-	public ExtendedPreparedStatement put(String key, ExtendedPreparedStatement value) {
+	public ExtendedPreparedStatement put(PstmtKey key, ExtendedPreparedStatement value) {
 
 		putCounter++;
 		return super.put(key, value);
@@ -159,7 +166,7 @@ public class PstmtCache extends LinkedHashMap<String, ExtendedPreparedStatement>
 	 * if so call the cacheCleanup.cleanupEldestLRUCacheEntry() if
 	 * one has been set.
 	 */
-	protected boolean removeEldestEntry(Map.Entry<String,ExtendedPreparedStatement> eldest) {
+	protected boolean removeEldestEntry(Map.Entry<PstmtKey,ExtendedPreparedStatement> eldest) {
 		
 		if (size() < maxSize) {
 			return false;
@@ -169,6 +176,7 @@ public class PstmtCache extends LinkedHashMap<String, ExtendedPreparedStatement>
 		
 		try {
 			ExtendedPreparedStatement pstmt = eldest.getValue();
+			pstmt.evicted();
 			pstmt.closeDestroy();
 		} catch (SQLException e) {
 			logger.log(Level.SEVERE, "Error closing ExtendedPreparedStatement", e);
@@ -0,0 +1,85 @@
+/**
+ * Copyright (C) 2009 Authors
+ * 
+ * This file is part of Ebean.
+ * 
+ * Ebean is free software; you can redistribute it and/or modify it 
+ * under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation; either version 2.1 of the License, or
+ * (at your option) any later version.
+ *  
+ * Ebean is distributed in the hope that it will be useful, but 
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with Ebean; if not, write to the Free Software Foundation, Inc.,
+ * 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA  
+ */
+package com.avaje.ebeaninternal.server.lib.sql;
+
+/**
+ * The key used to cache PreparedStatements on a PooledConnection.
+ * <p>
+ * The hash is computed once. When the statement comes from a query or update
+ * plan the plan hash is used rather than hashing the SQL. Equality checks the
+ * SQL by identity first (plans reuse the same SQL String) and only compares
+ * the SQL content when the hash matches and the identity check fails.
+ * </p>
+ */
+public final class PstmtKey {
+
+	private final String sql;
+
+	private final int flag;
+
+	private final int hash;
+
+	/**
+	 * Create a key for SQL that has no plan hash.
+	 */
+	public PstmtKey(String sql, int flag) {
+		this.sql = sql;
+		this.flag = flag;
+		this.hash = sql.hashCode() * 31 + flag;
+	}
+
+	/**
+	 * Create a key using a precomputed plan hash.
+	 */
+	public PstmtKey(int planHash, String sql, int flag) {
+		this.sql = sql;
+		this.flag = flag;
+		this.hash = planHash * 31 + flag;
+	}
+
+	/**
+	 * Return the SQL.
+	 */
+	public String getSql() {
+		return sql;
+	}
+
+	public int hashCode() {
+		return hash;
+	}
+
+	public boolean equals(Object o) {
+		if (o == this) {
+			return true;
+		}
+		if (!(o instanceof PstmtKey)) {
+			return false;
+		}
+		PstmtKey other = (PstmtKey) o;
+		if (hash != other.hash || flag != other.flag) {
+			return false;
+		}
+		return sql == other.sql || sql.equals(other.sql);
+	}
+
+	public String toString() {
+		return hash + ":" + sql;
+	}
+}
@@ -0,0 +1,203 @@
+/**
+ * Copyright (C) 2009 Authors
+ * 
+ * This file is part of Ebean.
+ * 
+ * Ebean is free software; you can redistribute it and/or modify it 
+ * under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation; either version 2.1 of the License, or
+ * (at your option) any later version.
+ *  
+ * Ebean is distributed in the hope that it will be useful, but 
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with Ebean; if not, write to the Free Software Foundation, Inc.,
+ * 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA  
+ */
+package com.avaje.ebeaninternal.server.lib.sql;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Logger;
+
+/**
+ * PreparedStatement statistics aggregated across all the PooledConnections of
+ * a DataSourcePool.
+ * <p>
+ * Counts are kept per statement shape (the PstmtKey) so that the execute,
+ * prepare and eviction counts can be used to choose a pstmtCacheSize. A shape
+ * that is prepared many times relative to its executions is being evicted
+ * from the connection caches and would benefit from a larger cache.
+ * </p>
+ * <p>
+ * The number of shapes tracked is bounded so that applications that build SQL
+ * with literal values do not grow this without limit.
+ * </p>
+ */
+public class PstmtStatistics {
+
+	private static final Logger logger = Logger.getLogger(PstmtStatistics.class.getName());
+
+	private static final int DEFAULT_MAX_SHAPES = 1000;
+
+	private final ConcurrentHashMap<PstmtKey, Shape> shapes = new ConcurrentHashMap<PstmtKey, Shape>();
+
+	private final AtomicLong untrackedCount = new AtomicLong();
+
+	private final int maxShapes;
+
+	public PstmtStatistics() {
+		this(DEFAULT_MAX_SHAPES);
+	}
+
+	public PstmtStatistics(int maxShapes) {
+		this.maxShapes = maxShapes;
+	}
+
+	/**
+	 * Return the Shape for the key or null if the maximum number of shapes are
+	 * already tracked.
+	 */
+	public Shape getShape(PstmtKey key) {
+		Shape shape = shapes.get(key);
+		if (shape != null) {
+			return shape;
+		}
+		if (shapes.size() >= maxShapes) {
+			if (untrackedCount.incrementAndGet() == 1) {
+				logger.warning("PreparedStatement statistics are tracking the maximum of " + maxShapes
+						+ " statement shapes. New shapes are not tracked until the statistics are reset.");
+			}
+			return null;
+		}
+		shape = new Shape(key.getSql());
+		Shape existing = shapes.putIfAbsent(key, shape);
+		return existing == null ? shape : existing;
+	}
+
+	/**
+	 * Return the number of distinct statement shapes tracked.
+	 */
+	public int getShapeCount() {
+		return shapes.size();
+	}
+
+	/**
+	 * Return the number of statements prepared that were not tracked as the
+	 * maximum number of shapes was reached.
+	 */
+	public long getUntrackedCount() {
+		return untrackedCount.get();
+	}
+
+	/**
+	 * Return the total number of statements evicted from the connection
+	 * caches.
+	 */
+	public long getEvictCount() {
+		long total = 0;
+		Iterator<Shape> it = shapes.values().iterator();
+		while (it.hasNext()) {
+			total += it.next().getEvictCount();
+		}
+		return total;
+	}
+
+	/**
+	 * Return the shapes ordered by execute count (highest first).
+	 */
+	public List<Shape> getShapes(int maxCount) {
+		List<Shape> list = new ArrayList<Shape>(shapes.values());
+		Collections.sort(list, new Comparator<Shape>() {
+			public int compare(Shape o1, Shape o2) {
+				long c1 = o1.getExecuteCount();
+				long c2 = o2.getExecuteCount();
+				return c1 < c2 ? 1 : (c1 == c2 ? 0 : -1);
+			}
+		});
+		if (maxCount > 0 && list.size() > maxCount) {
+			return new ArrayList<Shape>(list.subList(0, maxCount));
+		}
+		return list;
+	}
+
+	/**
+	 * Clear all the statistics.
+	 */
+	public void reset() {
+		shapes.clear();
+		untrackedCount.set(0);
+	}
+
+	/**
+	 * Statistics for a single statement shape.
+	 */
+	public static class Shape {
+
+		private final String sql;
+
+		private final AtomicLong executeCount = new AtomicLong();
+
+		private final AtomicLong prepareCount = new AtomicLong();
+
+		private final AtomicLong evictCount = new AtomicLong();
+
+		Shape(String sql) {
+			this.sql = sql;
+		}
+
+		void incrementExecute() {
+			executeCount.incrementAndGet();
+		}
+
+		void incrementPrepare() {
+			prepareCount.incrementAndGet();
+		}
+
+		void incrementEvict() {
+			evictCount.incrementAndGet();
+		}
+
+		/**
+		 * Return the SQL of the statement.
+		 */
+		public String getSql() {
+			return sql;
+		}
+
+		/**
+		 * Return the number of times the statement was executed.
+		 */
+		public long getExecuteCount() {
+			return executeCount.get();
+		}
+
+		/**
+		 * Return the number of times the statement was prepared (a miss on
+		 * the connection cache).
+		 */
+		public long getPrepareCount() {
+			return prepareCount.get();
+		}
+
+		/**
+		 * Return the number of times the statement was evicted from a
+		 * connection cache.
+		 */
+		public long getEvictCount() {
+			return evictCount.get();
+		}
+
+		public String toString() {
+			return "exe:" + executeCount + " prepare:" + prepareCount + " evict:" + evictCount + " sql:" + sql;
+		}
+	}
+}
@@ -24,6 +24,7 @@ import java.util.List;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
+import com.avaje.ebean.Transaction;
 import com.avaje.ebean.bean.BeanLoader;
 import com.avaje.ebean.bean.EntityBean;
 import com.avaje.ebean.bean.EntityBeanIntercept;
@@ -33,7 +34,6 @@ import com.avaje.ebeaninternal.api.LoadBeanContext;
 import com.avaje.ebeaninternal.api.LoadBeanRequest;
 import com.avaje.ebeaninternal.api.LoadContext;
 import com.avaje.ebeaninternal.api.SpiQuery;
-import com.avaje.ebeaninternal.server.core.OrmQueryRequest;
 import com.avaje.ebeaninternal.server.deploy.BeanDescriptor;
 import com.avaje.ebeaninternal.server.querydefn.OrmQueryProperties;
 
@@ -174,18 +174,20 @@ public class DLoadBeanContext implements LoadBeanContext, BeanLoader {
       return;
     }
 
+    int loadBatchSize = getLazyLoadBatchSize();
+
     // Get a batch of beans to lazy load
     List<EntityBeanIntercept> batch = null;
     try {
-      batch = weakList.getLoadBatch(position, batchSize);
+      batch = weakList.getLoadBatch(position, loadBatchSize);
     } catch (IllegalStateException e) {
-      logger.log(Level.SEVERE, "type["+desc.getFullName()+"] fullPath[" + fullPath + "] batchSize["+batchSize+"]", e);
+      logger.log(Level.SEVERE, "type["+desc.getFullName()+"] fullPath[" + fullPath + "] batchSize["+loadBatchSize+"]", e);
     }
     
-    if (hitCache && batchSize > 1) {
+    if (hitCache && loadBatchSize > 1) {
       // Check each of the beans in the batch to see if they are in the L2 cache.
       // Add more as necessary to make up our batch that will be loaded.
-      batch = loadBeanCheckBatch(batch);
+      batch = loadBeanCheckBatch(batch, loadBatchSize);
     }
 
     if (logger.isLoggable(Level.FINER)) {
@@ -199,16 +201,27 @@ public class DLoadBeanContext implements LoadBeanContext, BeanLoader {
       }
     }
     
-    LoadBeanRequest req = new LoadBeanRequest(this, batch, null, batchSize, true, ebi.getLazyLoadProperty(), hitCache);
+    LoadBeanRequest req = new LoadBeanRequest(this, batch, null, loadBatchSize, true, ebi.getLazyLoadProperty(), hitCache);
     parent.getEbeanServer().loadBean(req);
   
   }
 
+  /**
+   * Return the batch size for this lazy load. Unless the batch size was
+   * explicitly set on the query this can be adapted per path by autofetch.
+   */
+  private int getLazyLoadBatchSize() {
+    if (queryProps != null && queryProps.getLazyFetchBatch() > 0) {
+      return batchSize;
+    }
+    return parent.getLazyLoadBatchSize(getObjectGraphNode(), null, batchSize, weakList.getRemainingCount());
+  }
+
   /**
    * Check each of the beans in the batch to see if they are in the cache.
    * Get more beans out as necessary to get our desired batch size.
    */
-  private List<EntityBeanIntercept> loadBeanCheckBatch(List<EntityBeanIntercept> batch) {
+  private List<EntityBeanIntercept> loadBeanCheckBatch(List<EntityBeanIntercept> batch, int batchSize) {
     
     
     List<EntityBeanIntercept> actualLoadBatch = new ArrayList<EntityBeanIntercept>(batchSize);
@@ -243,7 +256,7 @@ public class DLoadBeanContext implements LoadBeanContext, BeanLoader {
     return actualLoadBatch;
   }
 	
-  public void loadSecondaryQuery(OrmQueryRequest<?> parentRequest, int requestedBatchSize, boolean all) {
+  public void loadSecondaryQuery(Transaction transaction, int requestedBatchSize, boolean all) {
 
     synchronized (this) {
       do {
@@ -256,7 +269,7 @@ public class DLoadBeanContext implements LoadBeanContext, BeanLoader {
           return;
         }
         boolean loadCache = false;
-        LoadBeanRequest req = new LoadBeanRequest(this, batch, parentRequest.getTransaction(), requestedBatchSize, false, null, loadCache);
+        LoadBeanRequest req = new LoadBeanRequest(this, batch, transaction, requestedBatchSize, false, null, loadCache);
 
         if (logger.isLoggable(Level.FINEST)) {
           logger.log(Level.FINEST, "Loading path:" + fullPath + " - secondary query batch load [" + batch.size() + "] beans");
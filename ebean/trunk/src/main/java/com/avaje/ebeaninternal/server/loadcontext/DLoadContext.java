@@ -19,10 +19,17 @@
  */
 package com.avaje.ebeaninternal.server.loadcontext;
 
+import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.FutureTask;
 
+import javax.persistence.PersistenceException;
+
+import com.avaje.ebean.Transaction;
 import com.avaje.ebean.bean.BeanCollection;
 import com.avaje.ebean.bean.EntityBeanIntercept;
 import com.avaje.ebean.bean.ObjectGraphNode;
@@ -33,6 +40,7 @@ import com.avaje.ebeaninternal.api.LoadContext;
 import com.avaje.ebeaninternal.api.LoadSecondaryQuery;
 import com.avaje.ebeaninternal.api.SpiEbeanServer;
 import com.avaje.ebeaninternal.api.SpiQuery;
+import com.avaje.ebeaninternal.server.autofetch.AutoFetchManager;
 import com.avaje.ebeaninternal.server.core.OrmQueryRequest;
 import com.avaje.ebeaninternal.server.deploy.BeanDescriptor;
 import com.avaje.ebeaninternal.server.deploy.BeanProperty;
@@ -132,26 +140,149 @@ public class DLoadContext implements LoadContext {
 	public void executeSecondaryQueries(OrmQueryRequest<?> parentRequest, int defaultQueryBatch) {
 		
 		if (secQuery != null){
+			if (secQuery.size() > 1 && ebeanServer.isParallelSecondaryQueries() && parentRequest.isCreatedTransaction()){
+				executeParallel(parentRequest, defaultQueryBatch);
+			} else {
+				for (int i = 0; i < secQuery.size(); i++) {
+					executeSecondaryQuery(secQuery.get(i), parentRequest.getTransaction(), defaultQueryBatch);
+				}
+			}
+		}
+	}
+
+	private void executeSecondaryQuery(OrmQueryProperties properties, Transaction transaction, int defaultQueryBatch) {
+
+		int batchSize = properties.getQueryFetchBatch();
+		if (batchSize == 0){
+			batchSize = defaultQueryBatch;
+		}
+		LoadSecondaryQuery load = getLoadSecondaryQuery(properties.getPath());
+		load.loadSecondaryQuery(transaction, batchSize, properties.isQueryFetchAll());
+	}
+
+	/**
+	 * Execute the secondary queries in stages where the queries in a stage do
+	 * not depend on each other and are executed in parallel.
+	 * <p>
+	 * The parallel queries use their own transactions (connections) and load
+	 * the beans into the same persistence context.
+	 * </p>
+	 */
+	private void executeParallel(OrmQueryRequest<?> parentRequest, int defaultQueryBatch) {
+
+		List<List<OrmQueryProperties>> stages = getSecondaryQueryStages();
+		for (int i = 0; i < stages.size(); i++) {
+			List<OrmQueryProperties> stage = stages.get(i);
+			if (stage.size() == 1){
+				executeSecondaryQuery(stage.get(0), parentRequest.getTransaction(), defaultQueryBatch);
+			} else {
+				executeStage(stage, defaultQueryBatch);
+			}
+		}
+	}
+
+	private void executeStage(List<OrmQueryProperties> stage, final int defaultQueryBatch) {
+
+		List<FutureTask<Boolean>> futures = new ArrayList<FutureTask<Boolean>>(stage.size());
+		for (int i = 0; i < stage.size(); i++) {
+			final OrmQueryProperties properties = stage.get(i);
+			FutureTask<Boolean> future = new FutureTask<Boolean>(new Callable<Boolean>() {
+				public Boolean call() throws Exception {
+					executeSecondaryQuery(properties, null, defaultQueryBatch);
+					return Boolean.TRUE;
+				}
+			});
+			futures.add(future);
+			ebeanServer.getBackgroundExecutor().execute(future);
+		}
+
+		RuntimeException error = null;
+		for (int i = 0; i < futures.size(); i++) {
+			try {
+				futures.get(i).get();
+			} catch (ExecutionException e) {
+				if (error == null){
+					Throwable cause = e.getCause();
+					error = (cause instanceof RuntimeException) ? (RuntimeException)cause : new PersistenceException(cause);
+				}
+			} catch (InterruptedException e) {
+				if (error == null){
+					error = new PersistenceException(e);
+				}
+			}
+		}
+		if (error != null){
+			throw error;
+		}
+	}
+
+	/**
+	 * Group the secondary queries into stages. A query on a nested path is in
+	 * a later stage than the query on its parent path (as the beans it loads
+	 * are registered by the query on the parent path).
+	 */
+	private List<List<OrmQueryProperties>> getSecondaryQueryStages() {
+
+		int[] stageOf = new int[secQuery.size()];
+		int maxStage = 0;
+		// parents have shorter paths so resolve them first
+		for (int depth = 0; depth <= maxPathDepth(); depth++) {
 			for (int i = 0; i < secQuery.size(); i++) {
-				OrmQueryProperties properties = secQuery.get(i);
-				
-				int batchSize = properties.getQueryFetchBatch();
-				if (batchSize == 0){
-					batchSize = defaultQueryBatch;
+				String path = secQuery.get(i).getPath();
+				if (pathDepth(path) != depth){
+					continue;
 				}
-				LoadSecondaryQuery load = getLoadSecondaryQuery(properties.getPath());
-				load.loadSecondaryQuery(parentRequest, batchSize, properties.isQueryFetchAll());
+				int stage = 0;
+				for (int j = 0; j < secQuery.size(); j++) {
+					if (path.startsWith(secQuery.get(j).getPath() + ".")){
+						stage = Math.max(stage, stageOf[j] + 1);
+					}
+				}
+				stageOf[i] = stage;
+				maxStage = Math.max(maxStage, stage);
 			}
 		}
+
+		List<List<OrmQueryProperties>> stages = new ArrayList<List<OrmQueryProperties>>(maxStage + 1);
+		for (int s = 0; s <= maxStage; s++) {
+			stages.add(new ArrayList<OrmQueryProperties>());
+		}
+		for (int i = 0; i < secQuery.size(); i++) {
+			stages.get(stageOf[i]).add(secQuery.get(i));
+		}
+		return stages;
+	}
+
+	private int maxPathDepth() {
+		int max = 0;
+		for (int i = 0; i < secQuery.size(); i++) {
+			max = Math.max(max, pathDepth(secQuery.get(i).getPath()));
+		}
+		return max;
+	}
+
+	private static int pathDepth(String path) {
+		int depth = 0;
+		for (int i = 0; i < path.length(); i++) {
+			if (path.charAt(i) == '.'){
+				depth++;
+			}
+		}
+		return depth;
 	}
 	
 	/**
 	 * Return the LoadBeanContext or LoadManyContext for the given path.
 	 */
 	private LoadSecondaryQuery getLoadSecondaryQuery(String path){
-		LoadSecondaryQuery beanLoad = beanMap.get(path);
+		LoadSecondaryQuery beanLoad;
+		synchronized (beanMap) {
+			beanLoad = beanMap.get(path);
+		}
 		if (beanLoad == null){
-			beanLoad = manyMap.get(path);
+			synchronized (manyMap) {
+				beanLoad = manyMap.get(path);
+			}
 		}
 		return beanLoad;
 	}
@@ -201,13 +332,14 @@ public class DLoadContext implements LoadContext {
 
 	public ObjectGraphNode getObjectGraphNode(String path) {
 	
-		ObjectGraphNode node = nodePathMap.get(path);
-		if (node == null){
-			node = createObjectGraphNode(path);
-			nodePathMap.put(path, node);
+		synchronized (nodePathMap) {
+			ObjectGraphNode node = nodePathMap.get(path);
+			if (node == null){
+				node = createObjectGraphNode(path);
+				nodePathMap.put(path, node);
+			}
+			return node;
 		}
-		
-		return node;
 	}
 	
 	private ObjectGraphNode createObjectGraphNode(String path) {
@@ -222,6 +354,18 @@ public class DLoadContext implements LoadContext {
 		return new ObjectGraphNode(origin, path);		
 	}
 
+	/**
+	 * Return the batch size for a lazy load which is adapted by the autofetch
+	 * profiling information if that is turned on.
+	 */
+	protected int getLazyLoadBatchSize(ObjectGraphNode node, String manyProperty, int batchSize, int candidates) {
+		AutoFetchManager autoFetchManager = ebeanServer.getAutoFetchManager();
+		if (autoFetchManager == null) {
+			return batchSize;
+		}
+		return autoFetchManager.getLazyLoadBatchSize(node, manyProperty, batchSize, candidates);
+	}
+
 	public boolean isUseAutofetchManager() {
 		return useAutofetchManager;
 	}
@@ -262,12 +406,15 @@ public class DLoadContext implements LoadContext {
 		if (path == null){
 			return rootBeanContext;
 		}
-		DLoadBeanContext beanContext = beanMap.get(path);
-		if (beanContext == null){
-			beanContext = createBeanContext(path, defaultBatchSize, null);
-			beanMap.put(path, beanContext);
+		// synchronized as parallel secondary queries register beans
+		synchronized (beanMap) {
+			DLoadBeanContext beanContext = beanMap.get(path);
+			if (beanContext == null){
+				beanContext = createBeanContext(path, defaultBatchSize, null);
+				beanMap.put(path, beanContext);
+			}
+			return beanContext;
 		}
-		return beanContext;
 	}
 	
 	private void registerSecondaryNode(boolean many, OrmQueryProperties props) {
@@ -289,12 +436,14 @@ public class DLoadContext implements LoadContext {
 		if (path == null){
 			throw new RuntimeException("path is null?");
 		}
-		DLoadManyContext ctx = manyMap.get(path);
-		if (ctx == null){
-			ctx = createManyContext(path, defaultBatchSize, null);
-			manyMap.put(path, ctx);
+		synchronized (manyMap) {
+			DLoadManyContext ctx = manyMap.get(path);
+			if (ctx == null){
+				ctx = createManyContext(path, defaultBatchSize, null);
+				manyMap.put(path, ctx);
+			}
+			return ctx;
 		}
-		return ctx;
 	}
 	
 	private DLoadManyContext createManyContext(String path, int batchSize, OrmQueryProperties queryProps) {
@@ -69,6 +69,12 @@ public class DLoadHardList<T> implements DLoadList<T> {
 	public List<T> getLoadBatch(int position, int batchSize) {
 		return getLoadBatch(position, batchSize, false);
 	}
+
+	public int getRemainingCount() {
+		synchronized (this) {
+			return list.size() - removedFromTop;
+		}
+	}
 	
 	private List<T> getLoadBatch(int position, int batchSize, boolean ignoreMissing) {
 
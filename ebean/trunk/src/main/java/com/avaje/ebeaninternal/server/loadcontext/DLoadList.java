@@ -18,4 +18,11 @@ public interface DLoadList<T> {
 	 */
 	public List<T> getLoadBatch(int position, int batchSize);
 
-}
\ No newline at end of file
+	/**
+	 * Return the number of entries from the first entry not yet loaded to the
+	 * end of the list. Entries already loaded after that are included so this
+	 * is an upper bound on the number of entries still to load.
+	 */
+	public int getRemainingCount();
+
+}
\ No newline at end of file
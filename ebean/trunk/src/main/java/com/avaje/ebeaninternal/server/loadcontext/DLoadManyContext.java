@@ -21,6 +21,7 @@ package com.avaje.ebeaninternal.server.loadcontext;
 
 import java.util.List;
 
+import com.avaje.ebean.Transaction;
 import com.avaje.ebean.bean.BeanCollection;
 import com.avaje.ebean.bean.BeanCollectionLoader;
 import com.avaje.ebean.bean.ObjectGraphNode;
@@ -28,7 +29,6 @@ import com.avaje.ebean.bean.PersistenceContext;
 import com.avaje.ebeaninternal.api.LoadManyContext;
 import com.avaje.ebeaninternal.api.LoadManyRequest;
 import com.avaje.ebeaninternal.api.SpiQuery;
-import com.avaje.ebeaninternal.server.core.OrmQueryRequest;
 import com.avaje.ebeaninternal.server.deploy.BeanDescriptor;
 import com.avaje.ebeaninternal.server.deploy.BeanPropertyAssocMany;
 import com.avaje.ebeaninternal.server.querydefn.OrmQueryProperties;
@@ -152,13 +152,25 @@ public class DLoadManyContext implements LoadManyContext, BeanCollectionLoader {
 		    	}	    	
 		    }
 		    
-			List<BeanCollection<?>> loadBatch = weakList.getLoadBatch(position, batchSize);
-			req = new LoadManyRequest(this, loadBatch, null, batchSize, true, onlyIds, hitCache);
+			int loadBatchSize = getLazyLoadBatchSize();
+			List<BeanCollection<?>> loadBatch = weakList.getLoadBatch(position, loadBatchSize);
+			req = new LoadManyRequest(this, loadBatch, null, loadBatchSize, true, onlyIds, hitCache);
 		}		
 		parent.getEbeanServer().loadMany(req);
 	}
 	
-	public void loadSecondaryQuery(OrmQueryRequest<?> parentRequest, int requestedBatchSize, boolean all){
+	/**
+	 * Return the batch size for this lazy load. Unless the batch size was
+	 * explicitly set on the query this can be adapted per path by autofetch.
+	 */
+	private int getLazyLoadBatchSize() {
+		if (queryProps != null && queryProps.getLazyFetchBatch() > 0){
+			return batchSize;
+		}
+		return parent.getLazyLoadBatchSize(getObjectGraphNode(), property.getName(), batchSize, weakList.getRemainingCount());
+	}
+	
+	public void loadSecondaryQuery(Transaction transaction, int requestedBatchSize, boolean all){
 
 	    do {
 	    	LoadManyRequest req;
@@ -167,7 +179,7 @@ public class DLoadManyContext implements LoadManyContext, BeanCollectionLoader {
 				if (batch.size() == 0){
 					return;
 				}
-        		req = new LoadManyRequest(this, batch, parentRequest.getTransaction(), requestedBatchSize, false, false, false);
+        		req = new LoadManyRequest(this, batch, transaction, requestedBatchSize, false, false, false);
 			}
     		parent.getEbeanServer().loadMany(req);
     		if (!all){
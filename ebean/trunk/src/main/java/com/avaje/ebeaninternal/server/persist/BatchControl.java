@@ -260,10 +260,14 @@ public final class BatchControl {
     }
     for (int i = 0; i < bsArray.length; i++) {
       BatchedBeanHolder bs = bsArray[i];
+      pstmtHolder.setDepth(bs.getOrder());
       bs.executeNow();
       // flush all the batched Pstmts
       flushPstmtHolder();
     }
+    if (transaction.isLogSummary()) {
+      transaction.logInternal("BatchControl timings " + pstmtHolder.getDepthTimings());
+    }
   }
 
 }
@@ -0,0 +1,457 @@
+/**
+ * Copyright (C) 2009 Authors
+ * 
+ * This file is part of Ebean.
+ * 
+ * Ebean is free software; you can redistribute it and/or modify it 
+ * under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation; either version 2.1 of the License, or
+ * (at your option) any later version.
+ *  
+ * Ebean is distributed in the hope that it will be useful, but 
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with Ebean; if not, write to the Free Software Foundation, Inc.,
+ * 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA  
+ */
+package com.avaje.ebeaninternal.server.persist;
+
+import java.io.ByteArrayInputStream;
+import java.io.StringReader;
+import java.math.BigDecimal;
+import java.sql.Connection;
+import java.sql.Date;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Time;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.List;
+
+import com.avaje.ebeaninternal.server.type.DataBind;
+
+/**
+ * A batched insert that is executed as multi row insert statements of the form
+ * <code>insert into t (a,b) values (?,?),(?,?),...</code> rather than using
+ * JDBC batch.
+ * <p>
+ * The insert handlers bind each row to a DataBind that records the typed
+ * values (see {@link #createDataBind()}) and addBatch() ends the row. On
+ * execute the rows are split into chunks that fit within the maximum number
+ * of bind parameters for the database platform and the recorded values are
+ * bound with the parameter index offset for the row.
+ * </p>
+ * <p>
+ * Generated keys are only requested when the database platform returns the
+ * keys for all the rows of a multi row insert (in row order).
+ * </p>
+ */
+public class BatchedMultiRowInsert extends BatchedPstmt {
+
+	/**
+	 * The maximum number of rows in a single insert statement.
+	 */
+	private static final int MAX_ROWS = 1000;
+
+	private final Connection connection;
+
+	private final String insertPrefix;
+
+	private final String rowTemplate;
+
+	private final int paramsPerRow;
+
+	private final int rowsPerStatement;
+
+	private final boolean genKeys;
+
+	/**
+	 * The recorded values of each row.
+	 */
+	private final ArrayList<List<BindValue>> rows = new ArrayList<List<BindValue>>();
+
+	/**
+	 * Create for a single row insert sql statement.
+	 * 
+	 * @param connection
+	 *            the connection the inserts are executed on
+	 * @param sql
+	 *            the single row insert statement
+	 * @param genKeys
+	 *            true if generated keys are fetched
+	 * @param maxParameters
+	 *            the maximum number of bind parameters in a single statement
+	 */
+	public BatchedMultiRowInsert(Connection connection, String sql, boolean genKeys, int maxParameters) {
+		super(null, genKeys, sql, null, false);
+		this.connection = connection;
+		this.genKeys = genKeys;
+
+		int valuesPos = sql.lastIndexOf(" values ");
+		this.insertPrefix = sql.substring(0, valuesPos + 8);
+		this.rowTemplate = sql.substring(valuesPos + 8);
+
+		this.paramsPerRow = countParameters(rowTemplate);
+		this.rowsPerStatement = Math.max(1, Math.min(MAX_ROWS, maxParameters / Math.max(1, paramsPerRow)));
+	}
+
+	/**
+	 * Return true if the sql can be converted into a multi row insert.
+	 */
+	public static boolean isSupported(String sql) {
+		int valuesPos = sql.lastIndexOf(" values ");
+		return valuesPos > -1 && sql.endsWith(")");
+	}
+
+	private static int countParameters(String sql) {
+		int count = 0;
+		for (int i = 0; i < sql.length(); i++) {
+			if (sql.charAt(i) == '?') {
+				count++;
+			}
+		}
+		return count;
+	}
+
+	/**
+	 * Return a DataBind that records the values for a row.
+	 */
+	public DataBind createDataBind() {
+		return new RowDataBind();
+	}
+
+	/**
+	 * Return the number of rows included in each insert statement.
+	 */
+	public int getRowsPerStatement() {
+		return rowsPerStatement;
+	}
+
+	/**
+	 * Execute the rows in chunks as multi row insert statements.
+	 */
+	@Override
+	public void executeStatement(boolean getGeneratedKeys) throws SQLException {
+
+		if (rows.size() != list.size()) {
+			throw new SQLException("Multi row insert rows " + rows.size() + " <> " + list.size());
+		}
+
+		int start = 0;
+		while (start < rows.size()) {
+			int end = Math.min(rows.size(), start + rowsPerStatement);
+			executeChunk(start, end, genKeys && getGeneratedKeys);
+			start = end;
+		}
+		rows.clear();
+	}
+
+	private void executeChunk(int start, int end, boolean fetchKeys) throws SQLException {
+
+		String sql = getSql(end - start);
+		PreparedStatement pstmt;
+		if (fetchKeys) {
+			pstmt = connection.prepareStatement(sql, Statement.RETURN_GENERATED_KEYS);
+		} else {
+			pstmt = connection.prepareStatement(sql);
+		}
+		try {
+			for (int i = start; i < end; i++) {
+				List<BindValue> row = rows.get(i);
+				int offset = (i - start) * paramsPerRow;
+				for (int j = 0; j < row.size(); j++) {
+					row.get(j).bind(pstmt, offset);
+				}
+			}
+
+			int rc = pstmt.executeUpdate();
+			if (rc >= 0 && rc != (end - start)) {
+				throw new SQLException("Multi row insert of " + (end - start) + " rows inserted " + rc);
+			}
+			for (int i = start; i < end; i++) {
+				list.get(i).checkRowCount(1);
+			}
+			if (fetchKeys) {
+				getGeneratedKeys(pstmt, start);
+			}
+		} finally {
+			pstmt.close();
+		}
+	}
+
+	private void getGeneratedKeys(PreparedStatement pstmt, int start) throws SQLException {
+
+		int index = start;
+		ResultSet rset = pstmt.getGeneratedKeys();
+		try {
+			while (rset.next()) {
+				Object idValue = rset.getObject(1);
+				list.get(index).setGeneratedKey(idValue);
+				index++;
+			}
+		} finally {
+			rset.close();
+		}
+	}
+
+	/**
+	 * Return the insert statement for the given number of rows.
+	 */
+	private String getSql(int rowCount) {
+		StringBuilder sb = new StringBuilder(insertPrefix.length() + rowCount * (rowTemplate.length() + 1));
+		sb.append(insertPrefix);
+		for (int i = 0; i < rowCount; i++) {
+			if (i > 0) {
+				sb.append(",");
+			}
+			sb.append(rowTemplate);
+		}
+		return sb.toString();
+	}
+
+	/**
+	 * There is no underlying statement to close. The chunk statements are
+	 * closed after they are executed.
+	 */
+	@Override
+	public void close() throws SQLException {
+		rows.clear();
+	}
+
+	/**
+	 * Records the values bound for a row. addBatch() ends the row.
+	 */
+	private class RowDataBind extends DataBind {
+
+		private ArrayList<BindValue> values = new ArrayList<BindValue>();
+
+		RowDataBind() {
+			super(null);
+		}
+
+		private void add(int type, Object value) {
+			values.add(new BindValue(nextPos(), type, value, 0));
+		}
+
+		@Override
+		public void addBatch() {
+			rows.add(values);
+			values = new ArrayList<BindValue>();
+		}
+
+		@Override
+		public void close() {
+			// nothing to close
+		}
+
+		@Override
+		public int executeUpdate() throws SQLException {
+			throw new SQLException("executeUpdate not supported for multi row insert");
+		}
+
+		@Override
+		public void setObject(Object value) {
+			add(BindValue.OBJECT, value);
+		}
+
+		@Override
+		public void setObject(Object value, int sqlType) {
+			values.add(new BindValue(nextPos(), BindValue.OBJECT_TYPE, value, sqlType));
+		}
+
+		@Override
+		public void setNull(int jdbcType) {
+			values.add(new BindValue(nextPos(), BindValue.NULL, null, jdbcType));
+		}
+
+		@Override
+		public void setString(String s) {
+			add(BindValue.STRING, s);
+		}
+
+		@Override
+		public void setInt(int i) {
+			add(BindValue.INT, Integer.valueOf(i));
+		}
+
+		@Override
+		public void setLong(long i) {
+			add(BindValue.LONG, Long.valueOf(i));
+		}
+
+		@Override
+		public void setShort(short i) {
+			add(BindValue.SHORT, Short.valueOf(i));
+		}
+
+		@Override
+		public void setFloat(float i) {
+			add(BindValue.FLOAT, Float.valueOf(i));
+		}
+
+		@Override
+		public void setDouble(double i) {
+			add(BindValue.DOUBLE, Double.valueOf(i));
+		}
+
+		@Override
+		public void setBigDecimal(BigDecimal v) {
+			add(BindValue.BIGDECIMAL, v);
+		}
+
+		@Override
+		public void setDate(Date v) {
+			add(BindValue.DATE, v);
+		}
+
+		@Override
+		public void setTimestamp(Timestamp v) {
+			add(BindValue.TIMESTAMP, v);
+		}
+
+		@Override
+		public void setTime(Time v) {
+			add(BindValue.TIME, v);
+		}
+
+		@Override
+		public void setBoolean(boolean v) {
+			add(BindValue.BOOLEAN, Boolean.valueOf(v));
+		}
+
+		@Override
+		public void setBytes(byte[] v) {
+			add(BindValue.BYTES, v);
+		}
+
+		@Override
+		public void setByte(byte v) {
+			add(BindValue.BYTE, Byte.valueOf(v));
+		}
+
+		@Override
+		public void setChar(char v) {
+			add(BindValue.STRING, String.valueOf(v));
+		}
+
+		@Override
+		public void setBlob(byte[] bytes) {
+			add(BindValue.BLOB, bytes);
+		}
+
+		@Override
+		public void setClob(String content) {
+			add(BindValue.CLOB, content);
+		}
+	}
+
+	/**
+	 * A value bound for a row at a parameter index (relative to the row).
+	 */
+	private static class BindValue {
+
+		static final int OBJECT = 0;
+		static final int OBJECT_TYPE = 1;
+		static final int NULL = 2;
+		static final int STRING = 3;
+		static final int INT = 4;
+		static final int LONG = 5;
+		static final int SHORT = 6;
+		static final int FLOAT = 7;
+		static final int DOUBLE = 8;
+		static final int BIGDECIMAL = 9;
+		static final int DATE = 10;
+		static final int TIMESTAMP = 11;
+		static final int TIME = 12;
+		static final int BOOLEAN = 13;
+		static final int BYTES = 14;
+		static final int BYTE = 15;
+		static final int BLOB = 16;
+		static final int CLOB = 17;
+
+		final int index;
+		final int type;
+		final Object value;
+		final int sqlType;
+
+		BindValue(int index, int type, Object value, int sqlType) {
+			this.index = index;
+			this.type = type;
+			this.value = value;
+			this.sqlType = sqlType;
+		}
+
+		/**
+		 * Bind the value with the parameter index offset for the row.
+		 */
+		void bind(PreparedStatement pstmt, int offset) throws SQLException {
+			int pos = index + offset;
+			switch (type) {
+			case OBJECT:
+				pstmt.setObject(pos, value);
+				break;
+			case OBJECT_TYPE:
+				pstmt.setObject(pos, value, sqlType);
+				break;
+			case NULL:
+				pstmt.setNull(pos, sqlType);
+				break;
+			case STRING:
+				pstmt.setString(pos, (String) value);
+				break;
+			case INT:
+				pstmt.setInt(pos, ((Integer) value).intValue());
+				break;
+			case LONG:
+				pstmt.setLong(pos, ((Long) value).longValue());
+				break;
+			case SHORT:
+				pstmt.setShort(pos, ((Short) value).shortValue());
+				break;
+			case FLOAT:
+				pstmt.setFloat(pos, ((Float) value).floatValue());
+				break;
+			case DOUBLE:
+				pstmt.setDouble(pos, ((Double) value).doubleValue());
+				break;
+			case BIGDECIMAL:
+				pstmt.setBigDecimal(pos, (BigDecimal) value);
+				break;
+			case DATE:
+				pstmt.setDate(pos, (Date) value);
+				break;
+			case TIMESTAMP:
+				pstmt.setTimestamp(pos, (Timestamp) value);
+				break;
+			case TIME:
+				pstmt.setTime(pos, (Time) value);
+				break;
+			case BOOLEAN:
+				pstmt.setBoolean(pos, ((Boolean) value).booleanValue());
+				break;
+			case BYTES:
+				pstmt.setBytes(pos, (byte[]) value);
+				break;
+			case BYTE:
+				pstmt.setByte(pos, ((Byte) value).byteValue());
+				break;
+			case BLOB:
+				byte[] bytes = (byte[]) value;
+				pstmt.setBinaryStream(pos, new ByteArrayInputStream(bytes), bytes.length);
+				break;
+			case CLOB:
+				String content = (String) value;
+				pstmt.setCharacterStream(pos, new StringReader(content), content.length());
+				break;
+
+			default:
+				throw new SQLException("Invalid bind type " + type);
+			}
+		}
+	}
+}
@@ -48,7 +48,7 @@ public class BatchedPstmt {
     /**
      * The list of BatchPostExecute used to perform post processing.
      */
-    private final ArrayList<BatchPostExecute> list = new ArrayList<BatchPostExecute>();
+    protected final ArrayList<BatchPostExecute> list = new ArrayList<BatchPostExecute>();
     
     private final String sql;
     
@@ -104,12 +104,21 @@ public class BatchedPstmt {
      */
     public void executeBatch(boolean getGeneratedKeys) throws SQLException {
     	
+    	executeStatement(getGeneratedKeys);
+        postExecute();
+        close();
+    }
+
+    /**
+     * Execute the statement and fetch any generated keys but do not perform
+     * the post execute processing.
+     */
+    public void executeStatement(boolean getGeneratedKeys) throws SQLException {
+    	
     	executeAndCheckRowCounts();
         if (isGenKeys && getGeneratedKeys){
             getGeneratedKeys();
         }
-        postExecute();
-        close();
     }
     
     /**
@@ -122,7 +131,7 @@ public class BatchedPstmt {
         }
     }
     
-    private void postExecute() throws SQLException {
+    protected void postExecute() throws SQLException {
     	for (int i = 0; i < list.size(); i++) {
             list.get(i).postExecute();
         }
@@ -21,8 +21,9 @@ package com.avaje.ebeaninternal.server.persist;
 
 import java.sql.PreparedStatement;
 import java.sql.SQLException;
-import java.util.Iterator;
+import java.util.ArrayList;
 import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
@@ -50,6 +51,16 @@ public class BatchedPstmtHolder {
 	 * The Max size across all the BatchedPstmt.
 	 */
 	private int maxSize;
+
+	/**
+	 * The depth of the statements currently being batched.
+	 */
+	private int depth;
+
+	/**
+	 * The execution timings by depth.
+	 */
+	private final LinkedHashMap<Integer, DepthTiming> depthTimings = new LinkedHashMap<Integer, DepthTiming>();
 	
 	public BatchedPstmtHolder() {
 		
@@ -60,6 +71,15 @@ public class BatchedPstmtHolder {
 	 * This will return null if no matching PreparedStatement is found.
 	 */
 	public PreparedStatement getStmt(String stmtKey, BatchPostExecute postExecute) {
+		BatchedPstmt bs = getBatchedPstmt(stmtKey, postExecute);
+		return bs == null ? null : bs.getStatement();
+	}
+
+	/**
+	 * Return the BatchedPstmt for the sql adding the postExecute or null if it
+	 * has not been created.
+	 */
+	public BatchedPstmt getBatchedPstmt(String stmtKey, BatchPostExecute postExecute) {
 		BatchedPstmt bs = stmtMap.get(stmtKey);
 		if (bs == null) {
 			// the PreparedStatement has need been created
@@ -74,7 +94,7 @@ public class BatchedPstmtHolder {
 		if (bsSize > maxSize){
 			maxSize = bsSize;
 		}
-		return bs.getStatement();
+		return bs;
 	}
 
 	/**
@@ -95,6 +115,14 @@ public class BatchedPstmtHolder {
 		return stmtMap.isEmpty();
 	}
 
+	/**
+	 * Set the depth of the statements that will be batched next. Used to
+	 * report the timings by depth.
+	 */
+	public void setDepth(int depth) {
+		this.depth = depth;
+	}
+
 	/**
 	 * Execute all batched PreparedStatements.
 	 * 
@@ -103,6 +131,9 @@ public class BatchedPstmtHolder {
 	 */
 	public void flush(boolean getGeneratedKeys) throws PersistenceException {
 
+		long startNanos = System.nanoTime();
+		ArrayList<BatchedPstmt> list = takeStatements();
+
 		SQLException firstError = null;
 		String errorSql = null;
 
@@ -110,19 +141,14 @@ public class BatchedPstmtHolder {
 		// but still need to close PreparedStatements.
 		boolean isError = false;
 
-		Iterator<BatchedPstmt> it = stmtMap.values().iterator();
-		while (it.hasNext()) {
-			BatchedPstmt bs = it.next();
+		for (int i = 0; i < list.size(); i++) {
+			BatchedPstmt bs = list.get(i);
 			try {
 				if (!isError) {
 					bs.executeBatch(getGeneratedKeys);
 				}
 			} catch (SQLException ex) {
-	    		SQLException next = ex.getNextException();
-	    		while(next != null) {
-	    			logger.log(Level.SEVERE, "Next Exception during batch execution", next);
-	    			next = next.getNextException();
-	    		}
+				logNextExceptions(ex);
 				
 				if (firstError == null) {
 					firstError = ex;
@@ -133,18 +159,11 @@ public class BatchedPstmtHolder {
 				isError = true;
 
 			} finally {
-				try {
-					bs.close();
-				} catch (SQLException ex) {
-					// error closing PreparedStatement
-		        	logger.log(Level.SEVERE, null, ex);
-				}
+				close(bs);
 			}
 		}
 
-		// clear the batch cache
-		stmtMap.clear();
-		maxSize = 0;
+		addTiming(depth, list, System.nanoTime() - startNanos);
 
 		if (firstError != null) {
 			String msg = "Error when batch flush on sql: "+errorSql;
@@ -152,6 +171,58 @@ public class BatchedPstmtHolder {
 		}
 	}
 
+	/**
+	 * Remove and return the batched statements.
+	 */
+	private ArrayList<BatchedPstmt> takeStatements() {
+		ArrayList<BatchedPstmt> list = new ArrayList<BatchedPstmt>(stmtMap.values());
+
+		// clear the batch cache
+		stmtMap.clear();
+		maxSize = 0;
+		return list;
+	}
+
+	private void addTiming(int depth, List<BatchedPstmt> list, long nanos) {
+
+		int rows = 0;
+		for (int i = 0; i < list.size(); i++) {
+			rows += list.get(i).size();
+		}
+		Integer key = Integer.valueOf(depth);
+		DepthTiming timing = depthTimings.get(key);
+		if (timing == null) {
+			timing = new DepthTiming(depth);
+			depthTimings.put(key, timing);
+		}
+		timing.add(list.size(), rows, nanos);
+	}
+
+	/**
+	 * Return the execution timings by depth for the statements executed by
+	 * this holder.
+	 */
+	public List<DepthTiming> getDepthTimings() {
+		return new ArrayList<DepthTiming>(depthTimings.values());
+	}
+
+	private static void logNextExceptions(SQLException ex) {
+		SQLException next = ex.getNextException();
+		while(next != null) {
+			logger.log(Level.SEVERE, "Next Exception during batch execution", next);
+			next = next.getNextException();
+		}
+	}
+
+	private static void close(BatchedPstmt bs) {
+		try {
+			bs.close();
+		} catch (SQLException ex) {
+			// error closing PreparedStatement
+        	logger.log(Level.SEVERE, null, ex);
+		}
+	}
+
 	/**
 	 * Return the size of the biggest batched statement.
 	 * <p>
@@ -162,4 +233,60 @@ public class BatchedPstmtHolder {
 		return maxSize;
 	}
 
+	/**
+	 * The number of statements, rows and execution time for a given depth.
+	 */
+	public static class DepthTiming {
+
+		private final int depth;
+
+		private int statementCount;
+
+		private int rowCount;
+
+		private long nanos;
+
+		private DepthTiming(int depth) {
+			this.depth = depth;
+		}
+
+		private void add(int statements, int rows, long execNanos) {
+			statementCount += statements;
+			rowCount += rows;
+			nanos += execNanos;
+		}
+
+		/**
+		 * Return the depth.
+		 */
+		public int getDepth() {
+			return depth;
+		}
+
+		/**
+		 * Return the number of statements executed.
+		 */
+		public int getStatementCount() {
+			return statementCount;
+		}
+
+		/**
+		 * Return the number of rows (batched requests) executed.
+		 */
+		public int getRowCount() {
+			return rowCount;
+		}
+
+		/**
+		 * Return the total execution time in microseconds.
+		 */
+		public long getExecuteMicros() {
+			return nanos / 1000;
+		}
+
+		public String toString() {
+			return "depth:" + depth + " stmts:" + statementCount + " rows:" + rowCount + " micros:" + getExecuteMicros();
+		}
+	}
+
 }
@@ -28,7 +28,7 @@ import com.avaje.ebeaninternal.api.SpiTransaction;
 import com.avaje.ebeaninternal.server.core.PersistRequestBean;
 import com.avaje.ebeaninternal.server.deploy.BeanDescriptor;
 import com.avaje.ebeaninternal.server.deploy.BeanPropertyAssocOne;
-import com.avaje.ebeaninternal.server.transaction.DefaultPersistenceContext;
+import com.avaje.ebeaninternal.server.transaction.PersistenceContextFactory;
 
 /**
  * Used for deletion of a partially populated bean where some cascade delete
@@ -80,7 +80,7 @@ public class DeleteUnloadedForeignKeys {
         }
 
         // run query in a separate persistence context
-        q.setPersistenceContext(new DefaultPersistenceContext());
+        q.setPersistenceContext(PersistenceContextFactory.create());
         q.setAutofetch(false);
         q.select(sb.toString());
         q.where().idEq(id);
@@ -31,8 +31,8 @@ public class DmlBeanPersisterFactory implements BeanPersisterFactory {
 	
 	private final MetaFactory metaFactory;
 	
-	public DmlBeanPersisterFactory(DatabasePlatform dbPlatform) {
-		this.metaFactory = new MetaFactory(dbPlatform);
+	public DmlBeanPersisterFactory(DatabasePlatform dbPlatform, boolean multiRowInsert, boolean beanDeltas) {
+		this.metaFactory = new MetaFactory(dbPlatform, multiRowInsert, beanDeltas);
 	}
 	
 	
@@ -33,10 +33,13 @@ import javax.persistence.OptimisticLockException;
 import com.avaje.ebeaninternal.api.SpiTransaction;
 import com.avaje.ebeaninternal.server.core.PersistRequestBean;
 import com.avaje.ebeaninternal.server.core.PstmtBatch;
+import com.avaje.ebeaninternal.server.deploy.BeanDescriptor;
 import com.avaje.ebeaninternal.server.deploy.BeanProperty;
+import com.avaje.ebeaninternal.server.lib.sql.PooledConnection;
 import com.avaje.ebeaninternal.server.persist.BatchedPstmt;
 import com.avaje.ebeaninternal.server.persist.BatchedPstmtHolder;
 import com.avaje.ebeaninternal.server.persist.dmlbind.BindableRequest;
+import com.avaje.ebeaninternal.server.transaction.BeanDelta;
 import com.avaje.ebeaninternal.server.type.DataBind;
 
 
@@ -68,14 +71,19 @@ public abstract class DmlHandler implements PersistHandler, BindableRequest {
     protected DataBind dataBind;
     
     protected String sql;
+
+    /**
+     * The hash of the plan that generated the sql (null when there is no plan).
+     */
+    protected Integer planKey;
     
     protected ArrayList<UpdateGenValue> updateGenValues;
     
     private Set<String> additionalProps;
 
-//    private boolean checkDelta;
-//
-//    private BeanDelta deltaBean;
+    private boolean checkDelta;
+
+    private BeanDelta deltaBean;
 
   protected DmlHandler(PersistRequestBean<?> persistRequest, boolean emptyStringToNull) {
     this.persistRequest = persistRequest;
@@ -90,9 +98,48 @@ public abstract class DmlHandler implements PersistHandler, BindableRequest {
     }
   }
 
-//	protected void setCheckDelta(boolean checkDelta) {
-//        this.checkDelta = checkDelta;
-//    }
+	/**
+	 * Set to true while binding the set clause of an update so that the bound
+	 * values are collected (only for beans that use the bean cache and only
+	 * called when clustering).
+	 */
+	protected void setCheckDelta(boolean checkDelta) {
+        this.checkDelta = checkDelta && persistRequest.getBeanDescriptor().isBeanCaching();
+    }
+
+	/**
+	 * Register the bound set clause values as a BeanDelta with the transaction
+	 * event so that other servers in the cluster can update their cached bean.
+	 * <p>
+	 * This is only done when there is a value for every updatable property
+	 * included in the update (so not when associated or embedded beans are
+	 * updated).
+	 * </p>
+	 */
+	protected void registerBeanDelta() {
+		
+		BeanDelta delta = deltaBean;
+		deltaBean = null;
+		if (delta == null) {
+			return;
+		}
+		BeanDescriptor<?> desc = persistRequest.getBeanDescriptor();
+		if (!delta.isPropertiesOf(desc)) {
+			return;
+		}
+		// the properties in the set clause
+		Set<String> updatedProps = persistRequest.getUpdatedProperties();
+		BeanProperty[] props = desc.propertiesNonMany();
+		for (int i = 0; i < props.length; i++) {
+			BeanProperty prop = props[i];
+			if (!prop.isId() && prop.isDbUpdatable() && !delta.contains(prop)
+					&& (updatedProps == null || updatedProps.contains(prop.getName()))) {
+				return;
+			}
+		}
+		transaction.getEvent().addBeanDelta(delta);
+		persistRequest.setBeanDelta();
+	}
 
   public PersistRequestBean<?> getPersistRequest() {
     return persistRequest;
@@ -131,7 +178,7 @@ public abstract class DmlHandler implements PersistHandler, BindableRequest {
 		if (pstmtBatch != null){
 			pstmtBatch.addBatch(dataBind.getPstmt());
 		} else {
-		    dataBind.getPstmt().addBatch();
+		    dataBind.addBatch();
 		}
 	}
 
@@ -262,15 +309,12 @@ public abstract class DmlHandler implements PersistHandler, BindableRequest {
 			}
 			// do the actual binding to PreparedStatement
 			prop.bind(dataBind, value);
-//			if (checkDelta) {
-//			    if (!prop.isId() && prop.isDeltaRequired()){
-//			        if (deltaBean == null){
-//			            deltaBean = persistRequest.createDeltaBean();
-//			            transaction.getEvent().addBeanDelta(deltaBean);
-//			        }
-//			        deltaBean.add(prop, value);
-//			    }
-//			}
+			if (checkDelta) {
+		        if (deltaBean == null){
+		            deltaBean = persistRequest.createDeltaBean();
+		        }
+		        deltaBean.add(prop, value);
+			}
 		}
 		return value;
 	}
@@ -355,6 +399,10 @@ public abstract class DmlHandler implements PersistHandler, BindableRequest {
             int[] columns = {1};
             return conn.prepareStatement(sql, columns);
             
+        } else if (planKey != null && conn instanceof PooledConnection) {
+            // use the plan hash as the statement cache key
+            return ((PooledConnection)conn).preparePlanStatement(planKey.intValue(), sql);
+            
         } else {
             return conn.prepareStatement(sql);
         }
@@ -38,6 +38,8 @@ import com.avaje.ebeaninternal.server.core.Message;
 import com.avaje.ebeaninternal.server.core.PersistRequestBean;
 import com.avaje.ebeaninternal.server.deploy.BeanDescriptor;
 import com.avaje.ebeaninternal.server.deploy.BeanProperty;
+import com.avaje.ebeaninternal.server.persist.BatchedMultiRowInsert;
+import com.avaje.ebeaninternal.server.persist.BatchedPstmtHolder;
 import com.avaje.ebeaninternal.server.persist.DmlUtil;
 import com.avaje.ebeaninternal.server.type.DataBind;
 
@@ -115,15 +117,20 @@ public class InsertHandler extends DmlHandler {
     // get the appropriate sql
     sql = meta.getSql(withId);
 
-    PreparedStatement pstmt;
-    if (isBatch) {
-      pstmt = getPstmt(t, sql, persistRequest, useGeneratedKeys);
+    if (isBatch && selectLastInsertedId == null && persistRequest.getPstmtBatch() == null
+        && meta.isMultiRowInsert(useGeneratedKeys) && BatchedMultiRowInsert.isSupported(sql)) {
+      dataBind = getMultiRowDataBind(t, sql);
 
     } else {
-      logSql(sql);
-      pstmt = getPstmt(t, sql, useGeneratedKeys);
+      PreparedStatement pstmt;
+      if (isBatch) {
+        pstmt = getPstmt(t, sql, persistRequest, useGeneratedKeys);
+      } else {
+        logSql(sql);
+        pstmt = getPstmt(t, sql, useGeneratedKeys);
+      }
+      dataBind = new DataBind(pstmt);
     }
-    dataBind = new DataBind(pstmt);
 
     bindLogAppend("Binding Insert [");
     bindLogAppend(desc.getBaseTable());
@@ -136,6 +143,26 @@ public class InsertHandler extends DmlHandler {
     logBinding();
   }
 
+  /**
+   * Return the DataBind that records a row for a multi row insert. Each bound
+   * row is added via addBatch() and the rows are executed as multi row insert
+   * statements when the batch is flushed.
+   */
+  private DataBind getMultiRowDataBind(SpiTransaction t, String sql) throws SQLException {
+
+    BatchedPstmtHolder batch = t.getBatchControl().getPstmtHolder();
+    BatchedMultiRowInsert bs = (BatchedMultiRowInsert) batch.getBatchedPstmt(sql, persistRequest);
+    if (bs == null) {
+      if (logLevelSql) {
+        t.logInternal(sql);
+      }
+      Connection conn = t.getInternalConnection();
+      bs = new BatchedMultiRowInsert(conn, sql, useGeneratedKeys, meta.getMultiRowMaxParameters());
+      batch.addStmt(bs, persistRequest);
+    }
+    return bs.createDataBind();
+  }
+
   /**
    * Check with useGeneratedKeys to get appropriate PreparedStatement.
    */
@@ -62,8 +62,15 @@ public final class InsertMeta {
 	private final String[] identityDbColumns;
 	
 	private final boolean emptyStringToNull;
+
+	/**
+	 * The max bind parameters for a multi row insert (0 when not used).
+	 */
+	private final int multiRowMaxParameters;
+
+	private final boolean multiRowGeneratedKeys;
 	
-	public InsertMeta(DatabasePlatform dbPlatform, BeanDescriptor<?> desc, Bindable shadowFKey, BindableId id, Bindable all) {
+	public InsertMeta(DatabasePlatform dbPlatform, BeanDescriptor<?> desc, Bindable shadowFKey, BindableId id, Bindable all, int multiRowMaxParameters) {
 
 	    this.emptyStringToNull = dbPlatform.isTreatEmptyStringsAsNull();
 		this.tableName = desc.getBaseTable();
@@ -73,6 +80,8 @@ public final class InsertMeta {
 		this.shadowFKey = shadowFKey;
 
 		this.sqlWithId = genSql(false, null);
+		this.multiRowMaxParameters = multiRowMaxParameters;
+		this.multiRowGeneratedKeys = dbPlatform.isMultiRowInsertGeneratedKeys();
 
 		// only available for single Id property
 		if (id.isConcatenated()) {
@@ -140,6 +149,23 @@ public final class InsertMeta {
 		return supportsGetGeneratedKeys;
 	}
 
+	/**
+	 * Return true if batched inserts can use multi row insert statements.
+	 * 
+	 * @param useGeneratedKeys
+	 *            true if the insert requires generated keys
+	 */
+	public boolean isMultiRowInsert(boolean useGeneratedKeys) {
+		return multiRowMaxParameters > 0 && (!useGeneratedKeys || multiRowGeneratedKeys);
+	}
+
+	/**
+	 * Return the maximum number of bind parameters for a multi row insert.
+	 */
+	public int getMultiRowMaxParameters() {
+		return multiRowMaxParameters;
+	}
+
 	/**
 	 * Return true if the Id can be derived from other property values.
 	 */
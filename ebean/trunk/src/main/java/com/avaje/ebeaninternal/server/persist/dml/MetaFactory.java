@@ -58,9 +58,21 @@ public class MetaFactory {
 
   private final boolean emptyStringAsNull;
 
-  public MetaFactory(DatabasePlatform dbPlatform) {
+  /**
+   * The max bind parameters for multi row insert (0 when not used).
+   */
+  private final int multiRowInsertMaxParameters;
+
+  /**
+   * True if updates collect BeanDeltas (only when clustering).
+   */
+  private final boolean beanDeltas;
+
+  public MetaFactory(DatabasePlatform dbPlatform, boolean multiRowInsert, boolean beanDeltas) {
     this.dbPlatform = dbPlatform;
+    this.beanDeltas = beanDeltas;
     this.emptyStringAsNull = dbPlatform.isTreatEmptyStringsAsNull();
+    this.multiRowInsertMaxParameters = multiRowInsert ? dbPlatform.getMultiRowInsertMaxParameters() : 0;
 
     // to bind encryption data before or after the encryption key
     DbEncrypt dbEncrypt = dbPlatform.getDbEncrypt();
@@ -94,7 +106,7 @@ public class MetaFactory {
     Bindable setBindable = new BindableList(setList);
     Bindable allBindable = new BindableList(allList);
 
-    return new UpdateMeta(emptyStringAsNull, desc, setBindable, id, ver, allBindable);
+    return new UpdateMeta(emptyStringAsNull, desc, setBindable, id, ver, allBindable, beanDeltas);
   }
 
   /**
@@ -141,6 +153,6 @@ public class MetaFactory {
       shadowFkey = new BindableUnidirectional(desc, unidirectional);
     }
 
-    return new InsertMeta(dbPlatform, desc, shadowFkey, id, allBindable);
+    return new InsertMeta(dbPlatform, desc, shadowFkey, id, allBindable, multiRowInsertMaxParameters);
   }
 }
@@ -64,6 +64,7 @@ public class UpdateHandler extends DmlHandler {
 		updatedProperties = updatePlan.getProperties();
 
 		sql  = updatePlan.getSql();
+		planKey = updatePlan.getKey();
 		
 		SpiTransaction t = persistRequest.getTransaction();
 		boolean isBatch = t.isBatchThisRequest();
@@ -83,6 +84,7 @@ public class UpdateHandler extends DmlHandler {
 		bindLogAppend("] ");
 		
 		meta.bind(persistRequest, this, updatePlan);
+		registerBeanDelta();
 		
 		setUpdateGenValues();
 		
@@ -56,8 +56,15 @@ public final class UpdateMeta {
 
   private final boolean emptyStringAsNull;
 
-  public UpdateMeta(boolean emptyStringAsNull, BeanDescriptor<?> desc, Bindable set, BindableId id, Bindable version, Bindable all) {
+  /**
+   * True to collect the bound set clause values as a BeanDelta for the other
+   * servers in the cluster (so only when clustering).
+   */
+  private final boolean checkDelta;
+
+  public UpdateMeta(boolean emptyStringAsNull, BeanDescriptor<?> desc, Bindable set, BindableId id, Bindable version, Bindable all, boolean checkDelta) {
     this.emptyStringAsNull = emptyStringAsNull;
+    this.checkDelta = checkDelta;
     this.tableName = desc.getBaseTable();
     this.set = set;
     this.id = id;
@@ -94,9 +101,13 @@ public final class UpdateMeta {
     Object bean = persist.getBean();
 
     bind.bindLogAppend(" set[");
-    // bind.setCheckDelta(true);
-    updatePlan.bindSet(bind, bean);
-    // bind.setCheckDelta(false);
+    if (checkDelta) {
+      bind.setCheckDelta(true);
+      updatePlan.bindSet(bind, bean);
+      bind.setCheckDelta(false);
+    } else {
+      updatePlan.bindSet(bind, bean);
+    }
 
     bind.bindLogAppend("] where[");
     id.dmlBind(bind, false, bean);
@@ -55,9 +55,11 @@ import com.avaje.ebeaninternal.server.deploy.BeanDescriptor;
 import com.avaje.ebeaninternal.server.deploy.BeanPropertyAssocMany;
 import com.avaje.ebeaninternal.server.deploy.DbReadContext;
 import com.avaje.ebeaninternal.server.el.ElPropertyValue;
+import com.avaje.ebeaninternal.server.lib.sql.PooledConnection;
 import com.avaje.ebeaninternal.server.lib.util.StringHelper;
 import com.avaje.ebeaninternal.server.querydefn.OrmQueryProperties;
-import com.avaje.ebeaninternal.server.transaction.DefaultPersistenceContext;
+import com.avaje.ebeaninternal.server.text.json.WriteJsonContext;
+import com.avaje.ebeaninternal.server.transaction.PersistenceContextFactory;
 import com.avaje.ebeaninternal.server.type.DataBind;
 import com.avaje.ebeaninternal.server.type.DataReader;
 
@@ -291,7 +293,7 @@ public class CQuery<T> implements DbReadContext, CancelableQuery {
 			// 'Row Level Transaction Context'...
 			// local transaction context that will be reset
 			// after each 'master' bean is sent to the listener
-			this.persistenceContext = new DefaultPersistenceContext();
+			this.persistenceContext = PersistenceContextFactory.create();
 		}
 
 		this.maxRowsLimit = query.getMaxRows() > 0 ? query.getMaxRows() : GLOBAL_ROW_LIMIT;
@@ -381,7 +383,12 @@ public class CQuery<T> implements DbReadContext, CancelableQuery {
 			// prepare
 			SpiTransaction t = request.getTransaction();
 			Connection conn = t.getInternalConnection();
-			pstmt = conn.prepareStatement(sql);
+			if (conn instanceof PooledConnection){
+				// use the plan hash as the statement cache key
+				pstmt = ((PooledConnection)conn).preparePlanStatement(queryPlan.getHash(), sql);
+			} else {
+				pstmt = conn.prepareStatement(sql);
+			}
 	
 			if (query.getTimeout() > 0){
 				pstmt.setQueryTimeout(query.getTimeout());
@@ -548,6 +555,47 @@ public class CQuery<T> implements DbReadContext, CancelableQuery {
 		}
 	}
 	
+	/**
+	 * Read all the rows writing them as JSON rather than building beans.
+	 * Returns the number of root beans written.
+	 */
+	public int readJson(WriteJsonContext json) throws SQLException {
+
+		SqlTreeJsonLoad jsonLoad = new SqlTreeJsonLoad(json, manyIncluded);
+		jsonLoad.begin();
+		while (readJsonRow(jsonLoad)) {
+			// keep writing
+		}
+		jsonLoad.end();
+
+		loadedBeanCount = jsonLoad.getRootCount();
+		updateExecutionStatistics();
+		return loadedBeanCount;
+	}
+
+	private boolean readJsonRow(SqlTreeJsonLoad jsonLoad) throws SQLException {
+
+		synchronized (this) {
+			if (cancelled){
+				return false;
+			}
+			if (!dataReader.next()){
+			    return false;
+			}
+
+			rowCount++;
+			dataReader.resetColumnPosition();
+			
+			if (rowNumberIncluded) {
+				// row_number() column used for limit features
+			    dataReader.incrementPos(1);
+			}
+	
+			rootNode.loadJson(this, jsonLoad, false);
+			return true;
+		}
+	}
+	
 	public int getQueryExecutionTimeMicros(){
 		return executionTimeMicros;
 	}
@@ -23,6 +23,8 @@ import java.sql.SQLException;
 import java.util.concurrent.FutureTask;
 import java.util.logging.Logger;
 
+import javax.persistence.PersistenceException;
+
 import com.avaje.ebean.BackgroundExecutor;
 import com.avaje.ebean.QueryIterator;
 import com.avaje.ebean.bean.BeanCollection;
@@ -34,6 +36,7 @@ import com.avaje.ebeaninternal.api.SpiQuery;
 import com.avaje.ebeaninternal.server.core.OrmQueryRequest;
 import com.avaje.ebeaninternal.server.jmx.MAdminLogging;
 import com.avaje.ebeaninternal.server.persist.Binder;
+import com.avaje.ebeaninternal.server.text.json.WriteJsonContext;
 
 /**
  * Handles the Object Relational fetching.
@@ -247,6 +250,50 @@ public class CQueryEngine {
     }
   }
 
+  /**
+   * Execute the query writing the rows as JSON without building beans.
+   */
+  public <T> int findJson(OrmQueryRequest<T> request, WriteJsonContext json) {
+
+    CQuery<T> cquery = queryBuilder.buildQuery(request);
+    request.setCancelableQuery(cquery);
+
+    String manyPropertyName = cquery.getSqlTree().getManyPropertyName();
+    if (manyPropertyName != null && manyPropertyName.indexOf('.') > -1) {
+      String msg = "findJson() only supports a fetch join to a many property of the root bean type"
+          + " but [" + manyPropertyName + "] is fetch joined. Use a query join instead.";
+      throw new PersistenceException(msg);
+    }
+
+    try {
+      if (logControl.isDebugGeneratedSql()) {
+        logSqlToConsole(cquery);
+      }
+      if (request.isLogSql()) {
+        logSql(cquery);
+      }
+
+      if (!cquery.prepareBindExecuteQuery()) {
+        // query has been cancelled already
+        return 0;
+      }
+
+      int rootCount = cquery.readJson(json);
+
+      if (request.isLogSummary()) {
+        logFindManySummary(cquery);
+      }
+
+      return rootCount;
+
+    } catch (SQLException e) {
+      throw cquery.createPersistenceException(e);
+
+    } finally {
+      cquery.close();
+    }
+  }
+
   /**
    * Find and return a single bean using its unique id.
    */
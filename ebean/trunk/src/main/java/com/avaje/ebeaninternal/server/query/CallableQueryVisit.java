@@ -0,0 +1,53 @@
+/**
+ * Copyright (C) 2009 Authors
+ * 
+ * This file is part of Ebean.
+ * 
+ * Ebean is free software; you can redistribute it and/or modify it 
+ * under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation; either version 2.1 of the License, or
+ * (at your option) any later version.
+ *  
+ * Ebean is distributed in the hope that it will be useful, but 
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with Ebean; if not, write to the Free Software Foundation, Inc.,
+ * 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA  
+ */
+package com.avaje.ebeaninternal.server.query;
+
+import java.util.concurrent.Callable;
+
+import com.avaje.ebean.Query;
+import com.avaje.ebean.QueryResultVisitor;
+import com.avaje.ebeaninternal.api.SpiEbeanServer;
+
+/**
+ * Visits the results of a query (one partition of a parallel visit) in a
+ * background thread.
+ * <p>
+ * No transaction is passed so the query uses its own implicit transaction
+ * (and hence its own connection) which is ended when the visit completes.
+ * </p>
+ */
+public class CallableQueryVisit<T> extends CallableQuery<T> implements Callable<Boolean> {
+
+	private final QueryResultVisitor<T> visitor;
+
+	public CallableQueryVisit(SpiEbeanServer server, Query<T> query, QueryResultVisitor<T> visitor) {
+		super(server, query, null);
+		this.visitor = visitor;
+	}
+
+	/**
+	 * Execute the query visiting the results.
+	 */
+	public Boolean call() throws Exception {
+		server.findVisit(query, visitor, t);
+		return Boolean.TRUE;
+	}
+
+}
@@ -31,6 +31,7 @@ import com.avaje.ebeaninternal.server.core.OrmQueryEngine;
 import com.avaje.ebeaninternal.server.core.OrmQueryRequest;
 import com.avaje.ebeaninternal.server.deploy.BeanDescriptor;
 import com.avaje.ebeaninternal.server.deploy.BeanDescriptorManager;
+import com.avaje.ebeaninternal.server.text.json.WriteJsonContext;
 
 /**
  * Main Finder implementation.
@@ -74,6 +75,17 @@ public class DefaultOrmQueryEngine implements OrmQueryEngine {
         
         return queryEngine.findIterate(request);
     }
+
+    public <T> int findJson(OrmQueryRequest<T> request, WriteJsonContext json) {
+
+        SpiTransaction t = request.getTransaction();
+        
+        // before we perform a query, we need to flush any
+        // previous persist requests that are queued/batched.
+        t.flushBatch();
+        
+        return queryEngine.findJson(request, json);
+    }
     
 	public <T> BeanCollection<T> findMany(OrmQueryRequest<T> request) {
 
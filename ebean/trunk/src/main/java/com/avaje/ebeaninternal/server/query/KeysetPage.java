@@ -0,0 +1,113 @@
+/**
+ * Copyright (C) 2009 Authors
+ * 
+ * This file is part of Ebean.
+ * 
+ * Ebean is free software; you can redistribute it and/or modify it 
+ * under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation; either version 2.1 of the License, or
+ * (at your option) any later version.
+ *  
+ * Ebean is distributed in the hope that it will be useful, but 
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with Ebean; if not, write to the Free Software Foundation, Inc.,
+ * 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA  
+ */
+package com.avaje.ebeaninternal.server.query;
+
+import java.util.Collection;
+import java.util.List;
+
+import com.avaje.ebean.Expression;
+import com.avaje.ebean.bean.BeanCollection;
+import com.avaje.ebeaninternal.api.SpiQuery;
+
+/**
+ * Page of a {@link KeysetPagingQuery}.
+ * <p>
+ * Pages after the first use a predicate on the order by values of the last
+ * bean of the previous page rather than an offset.
+ * </p>
+ * <p>
+ * The last bean is captured when the list is first touched. This occurs in
+ * the thread that first accesses the list (not the background thread that
+ * executed the query) and is when fetch ahead creates the query for the next
+ * page. If the next page is required before this the last bean is read from
+ * the list waiting for the query to complete.
+ * </p>
+ * 
+ * @param <T>
+ *            the entity bean type
+ */
+public class KeysetPage<T> extends LimitOffsetPage<T> {
+
+	private final KeysetPagingQuery<T> keysetOwner;
+
+	/**
+	 * The previous page or null for the first page.
+	 */
+	private final KeysetPage<T> prevPage;
+
+	private volatile boolean lastBeanRead;
+
+	private volatile Object lastBean;
+
+	public KeysetPage(int pageIndex, KeysetPagingQuery<T> owner, KeysetPage<T> prevPage) {
+		super(pageIndex, owner);
+		this.keysetOwner = owner;
+		this.prevPage = prevPage;
+	}
+
+	@Override
+	protected void setPageRows(SpiQuery<T> copy, int pageSize) {
+
+		if (prevPage != null) {
+			Expression predicate = keysetOwner.getKeysetPredicate(prevPage);
+			if (predicate != null) {
+				copy.where().add(predicate);
+				copy.setMaxRows(pageSize);
+				return;
+			}
+		}
+		super.setPageRows(copy, pageSize);
+	}
+
+	@Override
+	public void notifyTouched(BeanCollection<?> c) {
+		setLastBean(c.getActualDetails());
+		super.notifyTouched(c);
+	}
+
+	/**
+	 * Return the last bean of this page waiting for the query to complete if
+	 * necessary. Returns null if the page is empty.
+	 */
+	protected Object getLastBean() {
+		if (!lastBeanRead) {
+			List<T> list = getList();
+			if (!lastBeanRead) {
+				if (list instanceof BeanCollection<?>) {
+					setLastBean(((BeanCollection<?>) list).getActualDetails());
+				} else {
+					setLastBean(list);
+				}
+			}
+		}
+		return lastBean;
+	}
+
+	private void setLastBean(Collection<?> details) {
+		Object last = null;
+		if (details != null) {
+			for (Object bean : details) {
+				last = bean;
+			}
+		}
+		lastBean = last;
+		lastBeanRead = true;
+	}
+}
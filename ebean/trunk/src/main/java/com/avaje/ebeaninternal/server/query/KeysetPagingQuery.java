@@ -0,0 +1,203 @@
+/**
+ * Copyright (C) 2009 Authors
+ * 
+ * This file is part of Ebean.
+ * 
+ * Ebean is free software; you can redistribute it and/or modify it 
+ * under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation; either version 2.1 of the License, or
+ * (at your option) any later version.
+ *  
+ * Ebean is distributed in the hope that it will be useful, but 
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with Ebean; if not, write to the Free Software Foundation, Inc.,
+ * 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA  
+ */
+package com.avaje.ebeaninternal.server.query;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import com.avaje.ebean.EbeanServer;
+import com.avaje.ebean.Expression;
+import com.avaje.ebean.ExpressionFactory;
+import com.avaje.ebean.OrderBy;
+import com.avaje.ebean.OrderBy.Property;
+import com.avaje.ebeaninternal.api.SpiQuery;
+import com.avaje.ebeaninternal.server.deploy.BeanDescriptor;
+import com.avaje.ebeaninternal.server.deploy.BeanProperty;
+import com.avaje.ebeaninternal.server.el.ElPropertyValue;
+
+/**
+ * PagingList that uses keyset (seek) pagination rather than offset.
+ * <p>
+ * The id property is appended to the order by of the query as a tie breaker
+ * so that the order is unique. Each page after the first is then found using
+ * the order by values of the last bean of the previous page as a predicate
+ * (for example <code>name &gt; ? or (name = ? and id &gt; ?)</code>) and
+ * max rows with no offset. This means the database does not read and discard
+ * all the rows of the prior pages and the cost of a page does not grow with
+ * its page index.
+ * </p>
+ * <p>
+ * Pages are built sequentially so that getting a page (or fetching it ahead)
+ * requires the previous page. Offset is used when keyset paging is not
+ * possible for the query (an embedded id, RawSql, an order by on something
+ * other than a property of the bean).
+ * </p>
+ * <p>
+ * Offset is also used when an order by property is nullable. A predicate
+ * such as <code>name &gt; ?</code> is never true for a null name so on
+ * databases that sort nulls last the rows with a null value would be skipped.
+ * </p>
+ */
+public class KeysetPagingQuery<T> extends LimitOffsetPagingQuery<T> {
+
+	/**
+	 * The order by properties including the id or null to use offset.
+	 */
+	private final List<ElPropertyValue> keys;
+
+	private final List<Property> keyOrder;
+
+	public KeysetPagingQuery(EbeanServer server, SpiQuery<T> query, int pageSize, BeanDescriptor<T> desc) {
+		super(server, query, pageSize);
+		this.keyOrder = keysetOrder(query, desc);
+		this.keys = keysetProperties(desc, keyOrder);
+		if (keyOrder != null) {
+			// a unique order so offset pages are also stable
+			OrderBy<T> orderBy = new OrderBy<T>();
+			for (Property p : keyOrder) {
+				orderBy.add(p.copy());
+			}
+			query.setOrderBy(orderBy);
+		}
+	}
+
+	/**
+	 * Return true if this uses keyset paging for pages after the first.
+	 */
+	public boolean isKeyset() {
+		return keys != null;
+	}
+
+	/**
+	 * Create the page with a reference to the previous page (which has already
+	 * been created) so the page does not need to look it up.
+	 */
+	@Override
+	protected LimitOffsetPage<T> createPage(int pageIndex) {
+		KeysetPage<T> prevPage = null;
+		if (pageIndex > 0) {
+			prevPage = (KeysetPage<T>) getPage(pageIndex - 1);
+		}
+		return new KeysetPage<T>(pageIndex, this, prevPage);
+	}
+
+	/**
+	 * Return the predicate for the rows after the last bean of the previous
+	 * page or null if offset should be used.
+	 */
+	protected Expression getKeysetPredicate(KeysetPage<T> prevPage) {
+
+		if (keys == null) {
+			return null;
+		}
+		Object lastBean = prevPage.getLastBean();
+		if (lastBean == null) {
+			return null;
+		}
+
+		Object[] values = new Object[keys.size()];
+		for (int i = 0; i < values.length; i++) {
+			values[i] = keys.get(i).elGetValue(lastBean);
+			if (values[i] == null) {
+				// null does not compare so use offset for this page
+				return null;
+			}
+		}
+
+		ExpressionFactory expr = getServer().getExpressionFactory();
+
+		int last = values.length - 1;
+		Expression predicate = compare(expr, last, values[last]);
+		for (int i = last - 1; i >= 0; i--) {
+			String name = keyOrder.get(i).getProperty();
+			Expression sameKey = expr.and(expr.eq(name, values[i]), predicate);
+			predicate = expr.or(compare(expr, i, values[i]), sameKey);
+		}
+		return predicate;
+	}
+
+	private Expression compare(ExpressionFactory expr, int i, Object value) {
+		Property p = keyOrder.get(i);
+		if (p.isAscending()) {
+			return expr.gt(p.getProperty(), value);
+		} else {
+			return expr.lt(p.getProperty(), value);
+		}
+	}
+
+	/**
+	 * Return the order by properties with the id appended or null if the bean
+	 * does not have a single id property.
+	 */
+	private static <T> List<Property> keysetOrder(SpiQuery<T> query, BeanDescriptor<T> desc) {
+
+		BeanProperty idProperty = desc.getSingleIdProperty();
+		if (idProperty == null || query.isRawSql()) {
+			return null;
+		}
+		String idName = idProperty.getName();
+
+		List<Property> order = new ArrayList<Property>();
+		OrderBy<T> orderBy = query.getOrderBy();
+		if (orderBy != null) {
+			for (Property p : orderBy.getProperties()) {
+				order.add(p.copy());
+				if (idName.equals(p.getProperty())) {
+					// the id makes the order unique so ignore the rest
+					return order;
+				}
+			}
+		}
+		order.add(new Property(idName, true));
+		return order;
+	}
+
+	private static <T> List<ElPropertyValue> keysetProperties(BeanDescriptor<T> desc, List<Property> order) {
+
+		if (order == null) {
+			return null;
+		}
+		List<ElPropertyValue> props = new ArrayList<ElPropertyValue>(order.size());
+		for (Property p : order) {
+			ElPropertyValue el = desc.getElGetValue(p.getProperty());
+			if (el == null || el.containsMany()) {
+				return null;
+			}
+			if (isNullable(el, p)) {
+				// rows with a null value would be skipped so use offset
+				return null;
+			}
+			props.add(el);
+		}
+		return props;
+	}
+
+	/**
+	 * Return true if the order by property could have a null value. A path to
+	 * an associated bean could be null even if the property itself is not.
+	 */
+	private static boolean isNullable(ElPropertyValue el, Property p) {
+		if (p.getProperty().indexOf('.') > -1) {
+			return true;
+		}
+		BeanProperty prop = el.getBeanProperty();
+		return prop == null || (!prop.isId() && prop.isNullable());
+	}
+}
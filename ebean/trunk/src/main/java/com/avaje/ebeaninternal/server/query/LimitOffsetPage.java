@@ -39,9 +39,9 @@ import com.avaje.ebeaninternal.api.SpiQuery;
  */
 public class LimitOffsetPage<T> implements Page<T>, BeanCollectionTouched {
 
-	private final int pageIndex;
+	protected final int pageIndex;
 
-	private final LimitOffsetPagingQuery<T> owner;
+	protected final LimitOffsetPagingQuery<T> owner;
 
 	private FutureList<T> futureList;
 
@@ -52,19 +52,35 @@ public class LimitOffsetPage<T> implements Page<T>, BeanCollectionTouched {
 
 	public FutureList<T> getFutureList() {
 
-		if (futureList == null) {
-			SpiQuery<T> originalQuery = owner.getSpiQuery();
-			SpiQuery<T> copy = originalQuery.copy();
-			copy.setPersistenceContext(originalQuery.getPersistenceContext());
+		synchronized (this) {
+			if (futureList != null) {
+				return futureList;
+			}
+		}
+
+		// built without holding the lock as this can wait for the previous page
+		SpiQuery<T> originalQuery = owner.getSpiQuery();
+		SpiQuery<T> copy = originalQuery.copy();
+		copy.setPersistenceContext(originalQuery.getPersistenceContext());
+
+		setPageRows(copy, owner.getPageSize());
+		copy.setBeanCollectionTouched(this);
 
-			int pageSize = owner.getPageSize();
-			copy.setFirstRow(pageIndex * pageSize);
-			copy.setMaxRows(pageSize);
-			copy.setBeanCollectionTouched(this);
-			futureList = owner.getServer().findFutureList(copy, null);
+		synchronized (this) {
+			if (futureList == null) {
+				futureList = owner.getServer().findFutureList(copy, null);
+			}
+			return futureList;
 		}
+	}
 
-		return futureList;
+	/**
+	 * Restrict the query to the rows of this page using first row and max
+	 * rows.
+	 */
+	protected void setPageRows(SpiQuery<T> copy, int pageSize) {
+		copy.setFirstRow(pageIndex * pageSize);
+		copy.setMaxRows(pageSize);
 	}
 
 	/**
@@ -88,22 +88,27 @@ public class LimitOffsetPagingQuery<T> implements PagingList<T> {
 			int ps = pages.size();
 			if (ps <= i){
 				for (int j = ps; j <= i; j++) {
-					LimitOffsetPage<T> p = new LimitOffsetPage<T>(j, this);
-					pages.add(p);
+					pages.add(createPage(j));
 				}
 			} 
 			return pages.get(i);
 		}
 	}
 	
+	/**
+	 * Create the page for the given page index.
+	 */
+	protected LimitOffsetPage<T> createPage(int pageIndex) {
+		return new LimitOffsetPage<T>(pageIndex, this);
+	}
+
 	protected void fetchAheadIfRequired(int pageIndex){
-		synchronized (monitor) {
-			// Already checked in LimitOffsetPage that there is another page
-			if (fetchAhead){
-				// fetchAhead is turned on so get the next page and trigger query
-				LimitOffsetPage<T> nextPage = internalGetPage(pageIndex + 1);
-				nextPage.getFutureList();
-			}
+		// Already checked in LimitOffsetPage that there is another page
+		if (fetchAhead){
+			// fetchAhead is turned on so get the next page and trigger query
+			// (outside the monitor as the page takes its own lock)
+			LimitOffsetPage<T> nextPage = internalGetPage(pageIndex + 1);
+			nextPage.getFutureList();
 		}
 	}
 	
@@ -0,0 +1,233 @@
+/**
+ * Copyright (C) 2009 Authors
+ * 
+ * This file is part of Ebean.
+ * 
+ * Ebean is free software; you can redistribute it and/or modify it 
+ * under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation; either version 2.1 of the License, or
+ * (at your option) any later version.
+ *  
+ * Ebean is distributed in the hope that it will be useful, but 
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with Ebean; if not, write to the Free Software Foundation, Inc.,
+ * 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA  
+ */
+package com.avaje.ebeaninternal.server.query;
+
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.FutureTask;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import javax.persistence.PersistenceException;
+
+import com.avaje.ebean.Expression;
+import com.avaje.ebean.ExpressionFactory;
+import com.avaje.ebean.QueryResultVisitor;
+import com.avaje.ebean.SqlRow;
+import com.avaje.ebeaninternal.api.SpiBackgroundExecutor;
+import com.avaje.ebeaninternal.api.SpiEbeanServer;
+import com.avaje.ebeaninternal.api.SpiQuery;
+import com.avaje.ebeaninternal.server.deploy.BeanDescriptor;
+import com.avaje.ebeaninternal.server.deploy.BeanProperty;
+
+/**
+ * Visits the results of a query in parallel by splitting it into partitions.
+ * <p>
+ * Each partition is a copy of the query with the partition expression added
+ * to its where clause. The partitions are executed by the background
+ * executor each with its own transaction and connection. The partitions are
+ * either given explicitly or are ranges of an integral id (using the min and
+ * max id values of the base table).
+ * </p>
+ * <p>
+ * The visitor is called concurrently by the partitions and so must be thread
+ * safe. When the visitor returns false all the partitions stop.
+ * </p>
+ */
+public class ParallelQueryVisit<T> {
+
+	private static final Logger logger = Logger.getLogger(ParallelQueryVisit.class.getName());
+
+	private final SpiEbeanServer server;
+
+	private final SpiBackgroundExecutor executor;
+
+	private final SpiQuery<T> query;
+
+	private final SharedVisitor<T> visitor;
+
+	public ParallelQueryVisit(SpiEbeanServer server, SpiBackgroundExecutor executor, SpiQuery<T> query,
+			QueryResultVisitor<T> visitor) {
+
+		this.server = server;
+		this.executor = executor;
+		this.query = query;
+		this.visitor = new SharedVisitor<T>(visitor);
+	}
+
+	/**
+	 * Visit the query splitting it into ranges of the id.
+	 * <p>
+	 * If the id is not a single integral property the query is visited in the
+	 * current thread without partitioning.
+	 * </p>
+	 */
+	public void visit(int partitions) {
+
+		BeanDescriptor<T> desc = server.getBeanDescriptor(query.getBeanType());
+		List<Expression> ranges = idRanges(desc, partitions);
+		if (ranges == null) {
+			if (logger.isLoggable(Level.FINE)) {
+				logger.fine("No id partitions for " + desc.getFullName() + " visiting without partitions");
+			}
+			server.findVisit(query, visitor, null);
+		} else {
+			visit(ranges);
+		}
+	}
+
+	/**
+	 * Visit the query executing a query per partition expression.
+	 */
+	public void visit(List<Expression> partitions) {
+
+		List<FutureTask<Boolean>> futures = new ArrayList<FutureTask<Boolean>>(partitions.size());
+		for (int i = 0; i < partitions.size(); i++) {
+			SpiQuery<T> copy = query.copy();
+			copy.where().add(partitions.get(i));
+
+			CallableQueryVisit<T> call = new CallableQueryVisit<T>(server, copy, visitor);
+			FutureTask<Boolean> futureTask = new FutureTask<Boolean>(call);
+			futures.add(futureTask);
+			executor.execute(futureTask);
+		}
+
+		RuntimeException error = null;
+		for (int i = 0; i < futures.size(); i++) {
+			try {
+				futures.get(i).get();
+
+			} catch (ExecutionException e) {
+				// stop the other partitions and throw the first error
+				visitor.stop();
+				if (error == null) {
+					Throwable cause = e.getCause();
+					if (cause instanceof RuntimeException) {
+						error = (RuntimeException) cause;
+					} else {
+						error = new PersistenceException(cause);
+					}
+				}
+			} catch (InterruptedException e) {
+				visitor.stop();
+				if (error == null) {
+					error = new PersistenceException(e);
+				}
+			}
+		}
+		if (error != null) {
+			throw error;
+		}
+	}
+
+	/**
+	 * Return expressions that split the integral id into ranges or null if the
+	 * bean does not have a single integral id property.
+	 * <p>
+	 * The last range has no upper bound so it includes any ids above the max
+	 * (such as rows inserted since the max was read).
+	 * </p>
+	 */
+	private List<Expression> idRanges(BeanDescriptor<T> desc, int partitions) {
+
+		BeanProperty idProperty = desc.getSingleIdProperty();
+		if (idProperty == null || partitions < 2 || !isIntegral(idProperty.getPropertyType())) {
+			return null;
+		}
+
+		String sql = "select min(" + idProperty.getDbColumn() + ") as minid, max(" + idProperty.getDbColumn()
+				+ ") as maxid from " + desc.getBaseTable();
+
+		SqlRow row = server.createSqlQuery(sql).findUnique();
+		Object min = row == null ? null : row.get("minid");
+		Object max = row == null ? null : row.get("maxid");
+		if (min == null || max == null) {
+			// no rows so nothing to visit
+			return new ArrayList<Expression>(0);
+		}
+		if (!(min instanceof Number) || !(max instanceof Number)) {
+			return null;
+		}
+
+		long lo = ((Number) min).longValue();
+		long hi = ((Number) max).longValue();
+		long span = hi - lo + 1;
+		if (span < partitions) {
+			partitions = (int) Math.max(1, span);
+		}
+		long step = (span + partitions - 1) / partitions;
+
+		ExpressionFactory expr = server.getExpressionFactory();
+		String idName = idProperty.getName();
+
+		List<Expression> ranges = new ArrayList<Expression>(partitions);
+		for (long start = lo; start <= hi; start += step) {
+			Object from = desc.convertId(Long.valueOf(start));
+			if (start + step > hi) {
+				ranges.add(expr.ge(idName, from));
+			} else {
+				Object to = desc.convertId(Long.valueOf(start + step));
+				ranges.add(expr.and(expr.ge(idName, from), expr.lt(idName, to)));
+			}
+		}
+		return ranges;
+	}
+
+	/**
+	 * Return true for the integral types that the id ranges can be computed
+	 * for using long values.
+	 */
+	private static boolean isIntegral(Class<?> type) {
+		return type == Integer.class || type == int.class || type == Long.class || type == long.class
+				|| type == Short.class || type == short.class || type == BigInteger.class;
+	}
+
+	/**
+	 * Wraps the visitor so that all the partitions stop when the visitor
+	 * returns false.
+	 */
+	private static class SharedVisitor<T> implements QueryResultVisitor<T> {
+
+		private final QueryResultVisitor<T> visitor;
+
+		private volatile boolean stopped;
+
+		SharedVisitor(QueryResultVisitor<T> visitor) {
+			this.visitor = visitor;
+		}
+
+		void stop() {
+			stopped = true;
+		}
+
+		public boolean accept(T bean) {
+			if (stopped) {
+				return false;
+			}
+			if (!visitor.accept(bean)) {
+				stopped = true;
+				return false;
+			}
+			return true;
+		}
+	}
+}
@@ -63,6 +63,11 @@ public class SqlTree {
      */
     private String inheritanceWhereSql;
 
+    /**
+     * The tables used by the query (lower case).
+     */
+    private String[] dependentTables;
+
     
     /**
      * Create the SqlSelectClause.
@@ -188,4 +193,19 @@ public class SqlTree {
     public void setEncryptedProps(BeanProperty[] encryptedProps) {
         this.encryptedProps = encryptedProps;
     }
+
+    /**
+     * Return the base, joined and intersection tables used by the query.
+     * <p>
+     * Cached results of the query are invalidated when any of these tables
+     * are modified.
+     * </p>
+     */
+    public String[] getDependentTables() {
+        return dependentTables;
+    }
+
+    public void setDependentTables(String[] dependentTables) {
+        this.dependentTables = dependentTables;
+    }
 }
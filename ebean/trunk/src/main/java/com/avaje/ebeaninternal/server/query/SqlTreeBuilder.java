@@ -25,6 +25,7 @@ import java.util.Collection;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Iterator;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
@@ -83,6 +84,11 @@ public class SqlTreeBuilder {
     private final TableJoin includeJoin;
 
     private final boolean rawSql;
+
+    /**
+     * The tables used by the query (lower case).
+     */
+    private final Set<String> dependentTables = new LinkedHashSet<String>();
     
     /**
      * Construct for RawSql query.
@@ -134,6 +140,9 @@ public class SqlTreeBuilder {
 
         // build the appropriate chain of SelectAdapter's
         buildRoot(desc, sqlTree);
+        if (includeJoin != null) {
+            addDependentTable(includeJoin.getTable());
+        }
         
         // build the actual String
         SqlTreeNode rootNode = sqlTree.getRootNode();
@@ -146,6 +155,7 @@ public class SqlTreeBuilder {
         }        
         sqlTree.setIncludes(queryDetail.getIncludes());
         sqlTree.setSummary(summary.toString());
+        sqlTree.setDependentTables(dependentTables.toArray(new String[dependentTables.size()]));
             
         if (manyPropertyName != null){
             ElPropertyValue manyPropEl = desc.getElGetValue(manyPropertyName);
@@ -258,6 +268,28 @@ public class SqlTreeBuilder {
             BeanPropertyAssoc<?> beanProperty = (BeanPropertyAssoc<?>) desc.getBeanPropertyFromPath(joinProp);
             SqlTreeNodeManyWhereJoin nodeJoin = new SqlTreeNodeManyWhereJoin(joinProp, beanProperty);
             myJoinList.add(nodeJoin);
+            addDependentTables(beanProperty);
+        }
+    }
+
+    /**
+     * Add the tables joined to by the association property.
+     */
+    private void addDependentTables(BeanPropertyAssoc<?> prop) {
+        if (!prop.isEmbedded()) {
+            addDependentTable(prop.getTargetDescriptor().getBaseTable());
+        }
+        if (prop instanceof BeanPropertyAssocMany<?>) {
+            BeanPropertyAssocMany<?> manyProp = (BeanPropertyAssocMany<?>) prop;
+            if (manyProp.isManyToMany()) {
+                addDependentTable(manyProp.getIntersectionTableJoin().getTable());
+            }
+        }
+    }
+
+    private void addDependentTable(String tableName) {
+        if (tableName != null) {
+            dependentTables.add(tableName.toLowerCase());
         }
     }
 
@@ -267,6 +299,11 @@ public class SqlTreeBuilder {
 
         SqlTreeProperties props = getBaseSelect(desc, queryProps);
 
+        addDependentTable(desc.getBaseTable());
+        if (prop != null) {
+            addDependentTables(prop);
+        }
+
         if (prefix == null) {
             buildExtraJoins(desc, myList);
             return new SqlTreeNodeRoot(desc, props, myList, !subQuery, includeJoin);
@@ -302,6 +339,7 @@ public class SqlTreeBuilder {
 
         // remove ManyWhereJoins from the predicateIncludes
         predicateIncludes.removeAll(manyWhereJoins.getJoins());
+        addPredicateDependentTables(desc, predicateIncludes);
         
         // look for predicateIncludes that are not in selectIncludes and add
         // them as extra joins to the query
@@ -329,6 +367,25 @@ public class SqlTreeBuilder {
         }
     }
 
+    /**
+     * Add the tables joined to support the predicates including any implicit
+     * joins to the parent paths.
+     */
+    private void addPredicateDependentTables(BeanDescriptor<?> desc, Set<String> predicateIncludes) {
+
+        for (String include : predicateIncludes) {
+            String path = include;
+            while (path != null) {
+                ElPropertyValue elGetValue = desc.getElGetValue(path);
+                if (elGetValue != null && elGetValue.getBeanProperty() instanceof BeanPropertyAssoc<?>) {
+                    addDependentTables((BeanPropertyAssoc<?>) elGetValue.getBeanProperty());
+                }
+                int lastDot = path.lastIndexOf('.');
+                path = lastDot > 0 ? path.substring(0, lastDot) : null;
+            }
+        }
+    }
+
     /**
      * A subQuery has slightly different rules in that it just generates SQL
      * (into the where clause) and its properties are not required to read the
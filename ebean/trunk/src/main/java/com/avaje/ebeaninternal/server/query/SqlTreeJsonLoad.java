@@ -0,0 +1,158 @@
+/**
+ * Copyright (C) 2009 Authors
+ * 
+ * This file is part of Ebean.
+ * 
+ * Ebean is free software; you can redistribute it and/or modify it 
+ * under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation; either version 2.1 of the License, or
+ * (at your option) any later version.
+ *  
+ * Ebean is distributed in the hope that it will be useful, but 
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with Ebean; if not, write to the Free Software Foundation, Inc.,
+ * 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA  
+ */
+package com.avaje.ebeaninternal.server.query;
+
+import java.util.Set;
+
+import com.avaje.ebeaninternal.server.text.json.WriteJsonContext;
+import com.avaje.ebeaninternal.server.text.json.WriteJsonContext.WriteBeanState;
+
+/**
+ * Controls the writing of the resultSet rows as JSON for findJson.
+ * <p>
+ * No beans are created and nothing is added to the persistence context. The
+ * root beans are written as a JSON array. When a many property is fetch
+ * joined the rows for a root bean are consecutive (the query is ordered by
+ * the root id) and the details are written into a JSON array of the root
+ * object which is left open until a row for a different root bean is read.
+ * </p>
+ */
+public class SqlTreeJsonLoad {
+
+	private final WriteJsonContext json;
+
+	private final boolean manyIncluded;
+
+	private Object rootId;
+
+	private boolean rootOpen;
+
+	private WriteBeanState rootPrevState;
+
+	private int rootCount;
+
+	private boolean manyOpen;
+
+	private int manyCount;
+
+	public SqlTreeJsonLoad(WriteJsonContext json, boolean manyIncluded) {
+		this.json = json;
+		this.manyIncluded = manyIncluded;
+	}
+
+	/**
+	 * Return the JSON context the rows are written to.
+	 */
+	public WriteJsonContext getJson() {
+		return json;
+	}
+
+	/**
+	 * Return the number of root beans written.
+	 */
+	public int getRootCount() {
+		return rootCount;
+	}
+
+	/**
+	 * Begin the JSON array of root beans.
+	 */
+	public void begin() {
+		json.appendArrayBegin();
+	}
+
+	/**
+	 * End the last root bean and the JSON array.
+	 */
+	public void end() {
+		endRoot();
+		json.appendArrayEnd();
+		json.end();
+	}
+
+	/**
+	 * Return true if the row is for the same root bean as the previous row.
+	 * This is only the case when a many property is fetch joined.
+	 */
+	public boolean isSameRoot(Object id) {
+		return manyIncluded && rootOpen && id != null && id.equals(rootId);
+	}
+
+	/**
+	 * Begin the JSON object for a root bean ending the previous one.
+	 */
+	public void beginRoot(Object id) {
+		endRoot();
+		if (rootCount++ > 0) {
+			json.appendComma();
+		}
+		json.appendObjectBegin();
+		rootPrevState = json.pushBeanState(null);
+		rootId = id;
+		rootOpen = true;
+	}
+
+	private void endRoot() {
+		if (rootOpen) {
+			if (manyOpen) {
+				json.endAssocMany();
+				json.popParentBeanMany();
+				manyOpen = false;
+			}
+			json.pushPreviousState(rootPrevState);
+			json.appendObjectEnd();
+			rootOpen = false;
+		}
+	}
+
+	/**
+	 * Begin the JSON array for the many property if not already started for
+	 * the current root bean.
+	 */
+	public void beginMany(String name) {
+		if (!manyOpen) {
+			json.pushParentBeanMany(rootId);
+			json.beginAssocMany(name);
+			manyOpen = true;
+			manyCount = 0;
+		}
+	}
+
+	/**
+	 * Start another element of the many property array.
+	 */
+	public void beginManyElement() {
+		if (manyCount++ > 0) {
+			json.appendComma();
+		}
+	}
+
+	/**
+	 * Return the properties to include for the current path or null to
+	 * include all the properties read.
+	 */
+	public Set<String> getIncludeProperties() {
+		Set<String> props = json.getIncludeProperties();
+		if (props == null || props.isEmpty() || props.contains("*")) {
+			return null;
+		}
+		return props;
+	}
+}
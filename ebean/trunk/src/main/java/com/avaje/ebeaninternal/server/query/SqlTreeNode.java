@@ -52,4 +52,13 @@ public interface SqlTreeNode {
 	 */
 	public void load(DbReadContext ctx, Object parentBean) throws SQLException;
 
+	/**
+	 * Read the appropriate information from the SqlSelectReader writing it as
+	 * JSON rather than loading it into beans.
+	 * <p>
+	 * When ignore is true the data is read but not written.
+	 * </p>
+	 */
+	public void loadJson(DbReadContext ctx, SqlTreeJsonLoad jsonLoad, boolean ignore) throws SQLException;
+
 }
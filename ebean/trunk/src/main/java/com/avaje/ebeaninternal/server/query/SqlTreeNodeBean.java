@@ -34,6 +34,8 @@ import com.avaje.ebeaninternal.server.deploy.InheritInfo;
 import com.avaje.ebeaninternal.server.deploy.TableJoin;
 import com.avaje.ebeaninternal.server.deploy.id.IdBinder;
 import com.avaje.ebeaninternal.server.lib.util.StringHelper;
+import com.avaje.ebeaninternal.server.text.json.WriteJsonContext;
+import com.avaje.ebeaninternal.server.text.json.WriteJsonContext.WriteBeanState;
 
 import java.sql.SQLException;
 import java.util.HashMap;
@@ -366,6 +368,130 @@ public class SqlTreeNodeBean implements SqlTreeNode {
 		}
 	}
 
+	/**
+	 * Read the properties from the resultSet writing them as JSON.
+	 */
+	public void loadJson(DbReadContext ctx, SqlTreeJsonLoad jsonLoad, boolean ignore) throws SQLException {
+
+		BeanDescriptor<?> localDesc = desc;
+		IdBinder localIdBinder = idBinder;
+		InheritInfo localInfo = null;
+		boolean nullBean = false;
+
+		if (inheritInfo != null){
+			localInfo = inheritInfo.readType(ctx);
+			if (localInfo == null){
+				// the bean must be null
+				nullBean = true;
+			} else {
+				localDesc = localInfo.getBeanDescriptor();
+				localIdBinder = localInfo.getIdBinder();
+			}
+		}
+
+		Object id = null;
+		if (readId){
+			id = localIdBinder.read(ctx);
+			if (id == null){
+				nullBean = true;
+			}
+		}
+
+		WriteJsonContext json = jsonLoad.getJson();
+		WriteBeanState prevState = null;
+		boolean many = nodeBeanProp instanceof BeanPropertyAssocMany<?>;
+		boolean sameRoot = false;
+		boolean write;
+		
+		if (nodeBeanProp == null){
+			// the root bean which is repeated when a many is fetch joined
+			sameRoot = jsonLoad.isSameRoot(id);
+			write = !sameRoot;
+			if (write){
+				jsonLoad.beginRoot(id);
+			}
+		} else if (ignore){
+			write = false;
+			
+		} else if (many){
+			jsonLoad.beginMany(nodeBeanProp.getName());
+			write = !nullBean;
+			if (write){
+				jsonLoad.beginManyElement();
+				json.appendObjectBegin();
+				prevState = json.pushBeanState(null);
+			}
+		} else if (nullBean){
+			json.beginAssocOneIsNull(nodeBeanProp.getName());
+			write = false;
+
+		} else {
+			json.pushParentBean(id);
+			json.beginAssocOne(nodeBeanProp.getName());
+			json.appendObjectBegin();
+			prevState = json.pushBeanState(null);
+			write = true;
+		}
+
+		Set<String> include = write ? jsonLoad.getIncludeProperties() : null;
+		// like jsonWrite() the bi-directional reference back to the parent is not written
+		String parentName = many ? nodeBeanProp.getMappedBy() : null;
+		if (write){
+			if (localInfo != null){
+				json.appendDiscriminator(localInfo.getDiscriminatorColumn(), localInfo.getDiscriminatorStringValue());
+			}
+			BeanProperty[] idProps = localDesc.propertiesId();
+			if (readId && idProps.length == 1 && (include == null || include.contains(idProps[0].getName()))){
+				idProps[0].jsonWriteValue(json, id);
+			}
+		}
+		
+		for (int i = 0, x = properties.length; i < x; i++) {
+			// get a local version of the BeanProperty for inheritance
+			BeanProperty p = (localInfo == null) ? properties[i] : localDesc.getBeanProperty(properties[i].getName());
+			if (p != null && p.getName().equals(parentName)){
+				p = null;
+			}
+			loadJsonProperty(ctx, json, write, include, p, properties[i]);
+		}
+		
+		for (int i = 0, x = tableJoins.length; i < x; i++) {
+			BeanProperty[] joinProps = tableJoins[i].properties();
+			for (int j = 0; j < joinProps.length; j++) {
+				loadJsonProperty(ctx, json, write, include, joinProps[j], joinProps[j]);
+			}
+		}
+
+		for (int i = 0; i < children.length; i++) {
+			// the children are ignored when this bean is null or
+			// repeated (except for the many of a repeated root)
+			boolean ignoreChild = !write && !(sameRoot && children[i] instanceof SqlTreeNodeManyRoot);
+			children[i].loadJson(ctx, jsonLoad, ignoreChild);
+		}
+
+		if (prevState != null){
+			json.pushPreviousState(prevState);
+			json.appendObjectEnd();
+			if (!many){
+				json.endAssocOne();
+				json.popParentBean();
+			}
+		}
+	}
+
+	/**
+	 * Write the property as JSON if it is included otherwise just read it.
+	 */
+	private void loadJsonProperty(DbReadContext ctx, WriteJsonContext json, boolean write, Set<String> include,
+			BeanProperty localProp, BeanProperty prop) throws SQLException {
+
+		if (write && localProp != null && (include == null || include.contains(localProp.getName()))){
+			localProp.loadJson(ctx, json);
+		} else {
+			prop.loadIgnore(ctx);
+		}
+	}
+
 	/**
 	 * Create lazy loading proxies for the Many's except for the one that is
 	 * included in the actual query.
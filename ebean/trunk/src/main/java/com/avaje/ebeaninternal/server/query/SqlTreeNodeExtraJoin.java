@@ -123,4 +123,10 @@ public class SqlTreeNodeExtraJoin implements SqlTreeNode {
 	public void load(DbReadContext ctx, Object parentBean) throws SQLException {
 	}
 
+	/**
+	 * Does nothing.
+	 */
+	public void loadJson(DbReadContext ctx, SqlTreeJsonLoad jsonLoad, boolean ignore) throws SQLException {
+	}
+
 }
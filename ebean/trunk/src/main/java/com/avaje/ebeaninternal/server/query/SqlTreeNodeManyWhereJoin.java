@@ -109,4 +109,8 @@ public class SqlTreeNodeManyWhereJoin implements SqlTreeNode {
         // nothing to do here
     }
 
+    public void loadJson(DbReadContext ctx, SqlTreeJsonLoad jsonLoad, boolean ignore) throws SQLException {
+        // nothing to do here
+    }
+
 }
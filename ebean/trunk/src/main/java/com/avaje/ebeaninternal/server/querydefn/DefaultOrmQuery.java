@@ -1,5 +1,6 @@
 package com.avaje.ebeaninternal.server.querydefn;
 
+import java.io.Writer;
 import java.util.ArrayList;
 import java.util.Iterator;
 import java.util.List;
@@ -32,6 +33,7 @@ import com.avaje.ebean.bean.ObjectGraphOrigin;
 import com.avaje.ebean.bean.PersistenceContext;
 import com.avaje.ebean.event.BeanQueryRequest;
 import com.avaje.ebean.meta.MetaAutoFetchStatistic;
+import com.avaje.ebean.text.json.JsonWriteOptions;
 import com.avaje.ebeaninternal.api.BindParams;
 import com.avaje.ebeaninternal.api.ManyWhereJoins;
 import com.avaje.ebeaninternal.api.SpiExpression;
@@ -896,10 +898,26 @@ public class DefaultOrmQuery<T> implements SpiQuery<T> {
         server.findVisit(this, visitor, null);
     }
 
+	public void findVisitParallel(int partitions, QueryResultVisitor<T> visitor) {
+		server.findVisitParallel(this, partitions, visitor);
+	}
+
+	public void findVisitParallel(List<Expression> partitions, QueryResultVisitor<T> visitor) {
+		server.findVisitParallel(this, partitions, visitor);
+	}
+
     public QueryIterator<T> findIterate() {
         return server.findIterate(this, null);
     }
 
+    public void findJson(Writer writer) {
+        server.findJson(this, writer, null, null);
+    }
+
+    public void findJson(Writer writer, JsonWriteOptions options) {
+        server.findJson(this, writer, options, null);
+    }
+
     public List<T> findList() {
 		return server.findList(this, null);
 	}
@@ -938,6 +956,10 @@ public class DefaultOrmQuery<T> implements SpiQuery<T> {
 		return server.findPagingList(this, null, pageSize);
 	}
 
+	public PagingList<T> findKeysetPagingList(int pageSize) {
+		return server.findKeysetPagingList(this, null, pageSize);
+	}
+
 	/**
 	 * Set an ordered bind parameter according to its position. Note that the
 	 * position starts at 1 to be consistent with JDBC PreparedStatement. You
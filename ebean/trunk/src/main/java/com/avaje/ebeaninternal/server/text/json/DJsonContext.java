@@ -196,6 +196,13 @@ public class DJsonContext implements JsonContext {
         toJsonInternal(o, new WriteJsonBufferWriter(writer), pretty, options, callback);
     }
 
+    /**
+     * Create a WriteJsonContext writing to the Writer (used by findJson).
+     */
+    public WriteJsonContext createWriteJsonContext(Writer writer, JsonWriteOptions options) {
+        return new WriteJsonContext(new WriteJsonBufferWriter(writer), dfltPretty, dfltValueAdapter, options, null);
+    }
+
     public String toJsonString(Object o){
         return toJsonString(o, dfltPretty, null);
     }
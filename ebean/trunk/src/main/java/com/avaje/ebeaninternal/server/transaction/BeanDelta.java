@@ -69,6 +69,52 @@ public class BeanDelta {
     public void add(BeanDeltaProperty propertyDelta) {
         this.properties.add(propertyDelta);
     }
+
+    /**
+     * Return the changed properties.
+     */
+    public List<BeanDeltaProperty> getProperties() {
+        return properties;
+    }
+
+    /**
+     * Return true if there is a value for the property.
+     */
+    public boolean contains(BeanProperty beanProperty) {
+        for (int i = 0; i < properties.size(); i++) {
+            if (properties.get(i).getBeanProperty() == beanProperty) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Return the value for the property or null if it is not in this delta.
+     */
+    public Object getValue(BeanProperty beanProperty) {
+        for (int i = 0; i < properties.size(); i++) {
+            BeanDeltaProperty deltaProperty = properties.get(i);
+            if (deltaProperty.getBeanProperty() == beanProperty) {
+                return deltaProperty.getValue();
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Return true if all the properties are properties of the descriptor (rather
+     * than properties of an associated or embedded bean).
+     */
+    public boolean isPropertiesOf(BeanDescriptor<?> desc) {
+        for (int i = 0; i < properties.size(); i++) {
+            BeanProperty beanProperty = properties.get(i).getBeanProperty();
+            if (desc.getBeanProperty(beanProperty.getName()) != beanProperty) {
+                return false;
+            }
+        }
+        return true;
+    }
     
     public void apply(Object bean) {
         
@@ -21,7 +21,9 @@ package com.avaje.ebeaninternal.server.transaction;
 
 import java.io.IOException;
 import java.util.ArrayList;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Set;
 
 import com.avaje.ebeaninternal.server.cluster.BinaryMessageList;
 import com.avaje.ebeaninternal.server.deploy.BeanDescriptor;
@@ -52,9 +54,32 @@ public class BeanDeltaList {
         return deltaBeans;
     }
 
+    /**
+     * Apply the deltas to the cached beans returning the Ids of the beans.
+     */
+    public Set<Object> notifyCache() {
+        Set<Object> ids = new HashSet<Object>();
+        for (int i = 0; i < deltaBeans.size(); i++) {
+            BeanDelta delta = deltaBeans.get(i);
+            beanDescriptor.cacheUpdateDelta(delta.getId(), delta);
+            ids.add(delta.getId());
+        }
+        return ids;
+    }
+
     public void writeBinaryMessage(BinaryMessageList msgList) throws IOException {
+        writeBinaryMessage(msgList, null);
+    }
+
+    /**
+     * Write the deltas excluding the deltas for the excludeIds.
+     */
+    public void writeBinaryMessage(BinaryMessageList msgList, Set<Object> excludeIds) throws IOException {
         for (int i = 0; i < deltaBeans.size(); i++) {
-            deltaBeans.get(i).writeBinaryMessage(msgList);
+            BeanDelta delta = deltaBeans.get(i);
+            if (excludeIds == null || !excludeIds.contains(delta.getId())) {
+                delta.writeBinaryMessage(msgList);
+            }
         }
     }
     
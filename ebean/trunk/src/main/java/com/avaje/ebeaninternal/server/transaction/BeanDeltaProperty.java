@@ -39,6 +39,14 @@ public class BeanDeltaProperty {
     public String toString() {
         return beanProperty.getName()+":"+value;
     }
+
+    public BeanProperty getBeanProperty() {
+        return beanProperty;
+    }
+
+    public Object getValue() {
+        return value;
+    }
     
     public void apply(Object bean) {
         beanProperty.setValue(bean, value);
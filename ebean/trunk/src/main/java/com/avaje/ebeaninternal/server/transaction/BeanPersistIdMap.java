@@ -47,12 +47,17 @@ public final class BeanPersistIdMap {
     }
     
 	/**
-	 * Add a Insert Update or Delete payload.
+	 * Add a Insert Update or Delete payload noting if an update registered a
+	 * BeanDelta.
 	 */
-	public void add(BeanDescriptor<?> desc, PersistRequest.Type type, Object id) {
+	public void add(BeanDescriptor<?> desc, PersistRequest.Type type, Object id, boolean beanDelta) {
 	    
 	    BeanPersistIds r = getPersistIds(desc);
 		r.addId(type, (Serializable)id);
+		if (type == PersistRequest.Type.UPDATE && !beanDelta && desc.isBeanCaching()) {
+			// cached bean updated without a delta so must be removed
+			r.addUpdateNoDeltaId((Serializable)id);
+		}
 	}
 	
     private BeanPersistIds getPersistIds(BeanDescriptor<?> desc) {
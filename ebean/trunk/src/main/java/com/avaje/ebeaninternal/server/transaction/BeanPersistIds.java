@@ -24,7 +24,9 @@ import java.io.DataOutputStream;
 import java.io.IOException;
 import java.io.Serializable;
 import java.util.ArrayList;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Set;
 
 import com.avaje.ebean.event.BeanPersistListener;
 import com.avaje.ebeaninternal.api.SpiEbeanServer;
@@ -59,6 +61,19 @@ public class BeanPersistIds implements Serializable {
     private ArrayList<Serializable> updateIds;
     private ArrayList<Serializable> deleteIds;
 
+    /**
+     * Updated ids of cached beans where the update did not produce a
+     * BeanDelta. These are removed from the cache even when another update
+     * of the same bean produced a delta.
+     * <p>
+     * These are not sent as their own id list (older servers would reject an
+     * unknown iudType). They are already in the updateIds and instead the
+     * deltas for these ids are not sent so that the receiving server removes
+     * the beans from its cache.
+     * </p>
+     */
+    private ArrayList<Serializable> updateNoDeltaIds;
+
     /**
      * Create the payload.
      */
@@ -190,6 +205,9 @@ public class BeanPersistIds implements Serializable {
         if (deleteIds != null) {
             sb.append(" deleteIds:").append(deleteIds);
         }
+        if (updateNoDeltaIds != null) {
+            sb.append(" updateNoDeltaIds:").append(updateNoDeltaIds);
+        }
         return sb.toString();
     }
 
@@ -210,6 +228,58 @@ public class BeanPersistIds implements Serializable {
         }
     }
 
+    /**
+     * Add the ids of another BeanPersistIds for the same bean type ignoring
+     * any ids that have already been added.
+     */
+    public void addAll(BeanPersistIds other) {
+        insertIds = addAll(insertIds, other.insertIds);
+        updateIds = addAll(updateIds, other.updateIds);
+        deleteIds = addAll(deleteIds, other.deleteIds);
+        updateNoDeltaIds = addAll(updateNoDeltaIds, other.updateNoDeltaIds);
+    }
+
+    /**
+     * Return true if adding the ids of the other (later) BeanPersistIds would
+     * lose the order of the changes to an id. That is, an id deleted here is
+     * inserted or updated by the other, or an id inserted here is deleted by
+     * the other.
+     */
+    public boolean isOrderConflict(BeanPersistIds other) {
+        return containsAny(deleteIds, other.insertIds) || containsAny(deleteIds, other.updateIds)
+                || containsAny(insertIds, other.deleteIds);
+    }
+
+    private boolean containsAny(ArrayList<Serializable> idList, ArrayList<Serializable> otherIds) {
+        if (idList == null || otherIds == null) {
+            return false;
+        }
+        Set<Serializable> ids = new HashSet<Serializable>(idList);
+        for (int i = 0; i < otherIds.size(); i++) {
+            if (ids.contains(otherIds.get(i))) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private ArrayList<Serializable> addAll(ArrayList<Serializable> idList, ArrayList<Serializable> otherIds) {
+        if (otherIds == null) {
+            return idList;
+        }
+        if (idList == null) {
+            idList = new ArrayList<Serializable>(otherIds.size());
+        }
+        Set<Serializable> existing = new HashSet<Serializable>(idList);
+        for (int i = 0; i < otherIds.size(); i++) {
+            Serializable id = otherIds.get(i);
+            if (existing.add(id)) {
+                idList.add(id);
+            }
+        }
+        return idList;
+    }
+
     private void addInsertId(Serializable id) {
         if (insertIds == null) {
             insertIds = new ArrayList<Serializable>();
@@ -224,6 +294,17 @@ public class BeanPersistIds implements Serializable {
         updateIds.add(id);
     }
 
+    /**
+     * Add the id of a cached bean that was updated without producing a
+     * BeanDelta.
+     */
+    public void addUpdateNoDeltaId(Serializable id) {
+        if (updateNoDeltaIds == null) {
+            updateNoDeltaIds = new ArrayList<Serializable>();
+        }
+        updateNoDeltaIds.add(id);
+    }
+
     private void addDeleteId(Serializable id) {
         if (deleteIds == null) {
             deleteIds = new ArrayList<Serializable>();
@@ -255,6 +336,13 @@ public class BeanPersistIds implements Serializable {
         return deleteIds;
     }
 
+    /**
+     * Return the ids of cached beans updated without a BeanDelta.
+     */
+    public List<Serializable> getUpdateNoDeltaIds() {
+        return updateNoDeltaIds;
+    }
+
     public void setBeanDescriptor(BeanDescriptor<?> beanDescriptor) {
         this.beanDescriptor = beanDescriptor;
     }
@@ -262,13 +350,18 @@ public class BeanPersistIds implements Serializable {
     /**
      * Notify the cache and local BeanPersistListener of this event that came
      * from another server in the cluster.
+     * <p>
+     * The cached beans with the deltaIds have already been updated with the
+     * changed property values so are not removed from the cache unless they
+     * were also updated without a delta.
+     * </p>
      */
-    public void notifyCacheAndListener() {
+    public void notifyCacheAndListener(Set<Object> deltaIds) {
 
         BeanPersistListener<?> listener = beanDescriptor.getPersistListener();
 
-        // any change invalidates the query cache
-        beanDescriptor.queryCacheClear();
+        // any change invalidates the cached queries using the table
+        beanDescriptor.queryCacheInvalidate();
         
         if (insertIds != null) {
             if (listener != null) {
@@ -282,14 +375,22 @@ public class BeanPersistIds implements Serializable {
             for (int i = 0; i < updateIds.size(); i++) {
                 Serializable id = updateIds.get(i);
 
-                // remove from cache
-                beanDescriptor.cacheRemove(id);
+                if (deltaIds == null || !deltaIds.contains(id)) {
+                    // remove from cache
+                    beanDescriptor.cacheRemove(id);
+                }
                 if (listener != null) {
                     // notify listener
                     listener.remoteInsert(id);
                 }
             }
         }
+        if (updateNoDeltaIds != null) {
+            for (int i = 0; i < updateNoDeltaIds.size(); i++) {
+                // the delta does not reflect all the updates so remove
+                beanDescriptor.cacheRemove(updateNoDeltaIds.get(i));
+            }
+        }
         if (deleteIds != null) {
             for (int i = 0; i < deleteIds.size(); i++) {
                 Serializable id = deleteIds.get(i);
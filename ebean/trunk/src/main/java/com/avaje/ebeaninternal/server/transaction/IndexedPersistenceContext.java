@@ -0,0 +1,319 @@
+/**
+ * Copyright (C) 2009 Authors
+ * 
+ * This file is part of Ebean.
+ * 
+ * Ebean is free software; you can redistribute it and/or modify it 
+ * under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation; either version 2.1 of the License, or
+ * (at your option) any later version.
+ *  
+ * Ebean is distributed in the hope that it will be useful, but 
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with Ebean; if not, write to the Free Software Foundation, Inc.,
+ * 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA  
+ */
+package com.avaje.ebeaninternal.server.transaction;
+
+import com.avaje.ebean.bean.PersistenceContext;
+import com.avaje.ebeaninternal.api.Monitor;
+import com.avaje.ebeaninternal.server.subclass.SubClassUtil;
+
+/**
+ * An alternative PersistenceContext for loading large numbers of beans.
+ * <p>
+ * Compared with DefaultPersistenceContext this does not look up the bean type
+ * by its class name but by the identity of the Class (typically there are only
+ * a few types per persistence context). Long and Integer ids are held in
+ * {@link WeakLongValueMap}s without boxing the ids into map entries.
+ * </p>
+ * <p>
+ * As per DefaultPersistenceContext all access is synchronized as the
+ * persistence context can be used by other threads (such as a background
+ * fetch, a parallel secondary query or a lazy load from another thread).
+ * </p>
+ */
+public final class IndexedPersistenceContext implements PersistenceContext {
+
+    private final Monitor monitor = new Monitor();
+
+    /**
+     * The bean classes (including generated subclasses) in the order they were
+     * first used.
+     */
+    private Class<?>[] types = new Class<?>[4];
+
+    /**
+     * The ClassContext for the bean class at the same index.
+     */
+    private ClassContext[] contexts = new ClassContext[4];
+
+    private int typeCount;
+
+    /**
+     * Create a new PersistanceContext.
+     */
+    public IndexedPersistenceContext() {
+    }
+
+    /**
+     * Set an object into the PersistanceContext.
+     */
+    public void put(Object id, Object bean) {
+        synchronized (monitor) {
+            getClassContext(bean.getClass(), true).put(id, bean);
+        }
+    }
+
+    public Object putIfAbsent(Object id, Object bean) {
+        synchronized (monitor) {
+            return getClassContext(bean.getClass(), true).putIfAbsent(id, bean);
+        }
+    }
+
+    /**
+     * Return an object given its type and unique id.
+     */
+    public Object get(Class<?> beanType, Object id) {
+        synchronized (monitor) {
+            return get(getClassContext(beanType, false), id);
+        }
+    }
+
+    private Object get(ClassContext classContext, Object id) {
+        return classContext == null ? null : classContext.get(id);
+    }
+
+    /**
+     * Return the number of beans of the given type in the persistence context.
+     */
+    public int size(Class<?> beanType) {
+        synchronized (monitor) {
+            return size(getClassContext(beanType, false));
+        }
+    }
+
+    private int size(ClassContext classContext) {
+        return classContext == null ? 0 : classContext.size();
+    }
+
+    /**
+     * Clear the PersistenceContext.
+     */
+    public void clear() {
+        synchronized (monitor) {
+            clearAll();
+        }
+    }
+
+    private void clearAll() {
+        for (int i = 0; i < typeCount; i++) {
+            types[i] = null;
+            contexts[i] = null;
+        }
+        typeCount = 0;
+    }
+
+    public void clear(Class<?> beanType) {
+        synchronized (monitor) {
+            clear(getClassContext(beanType, false), null);
+        }
+    }
+
+    public void clear(Class<?> beanType, Object id) {
+        if (id == null) {
+            return;
+        }
+        synchronized (monitor) {
+            clear(getClassContext(beanType, false), id);
+        }
+    }
+
+    /**
+     * Clear all the beans of the ClassContext or just the one with the id.
+     */
+    private void clear(ClassContext classContext, Object id) {
+        if (classContext != null) {
+            if (id == null) {
+                classContext.clear();
+            } else {
+                classContext.remove(id);
+            }
+        }
+    }
+
+    public String toString() {
+        synchronized (monitor) {
+            return description();
+        }
+    }
+
+    private String description() {
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < typeCount; i++) {
+            if (isFirstEntry(i) && contexts[i].size() > 0) {
+                sb.append(contexts[i].name + ":" + contexts[i].size() + "; ");
+            }
+        }
+        return sb.toString();
+    }
+
+    /**
+     * Return true if this is the first entry for the ClassContext at index i
+     * (generated subclasses share the ClassContext of their super class).
+     */
+    private boolean isFirstEntry(int i) {
+        for (int j = 0; j < i; j++) {
+            if (contexts[j] == contexts[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private ClassContext getClassContext(Class<?> beanType, boolean create) {
+
+        for (int i = 0; i < typeCount; i++) {
+            if (types[i] == beanType) {
+                return contexts[i];
+            }
+        }
+
+        // strip off $$EntityBean.. suffix...
+        String clsName = SubClassUtil.getSuperClassName(beanType.getName());
+
+        ClassContext classContext = null;
+        for (int i = 0; i < typeCount; i++) {
+            if (contexts[i].name.equals(clsName)) {
+                classContext = contexts[i];
+                break;
+            }
+        }
+        if (classContext == null) {
+            if (!create) {
+                return null;
+            }
+            classContext = new ClassContext(clsName);
+        }
+        addType(beanType, classContext);
+        return classContext;
+    }
+
+    private void addType(Class<?> beanType, ClassContext classContext) {
+        if (typeCount == types.length) {
+            Class<?>[] newTypes = new Class<?>[typeCount * 2];
+            ClassContext[] newContexts = new ClassContext[typeCount * 2];
+            System.arraycopy(types, 0, newTypes, 0, typeCount);
+            System.arraycopy(contexts, 0, newContexts, 0, typeCount);
+            types = newTypes;
+            contexts = newContexts;
+        }
+        types[typeCount] = beanType;
+        contexts[typeCount] = classContext;
+        typeCount++;
+    }
+
+    /**
+     * The beans of one type. Long and Integer ids are held separately (as per
+     * DefaultPersistenceContext an Integer id does not match a Long id).
+     */
+    private static class ClassContext {
+
+        private final String name;
+
+        private WeakLongValueMap<Object> longMap;
+
+        private WeakLongValueMap<Object> intMap;
+
+        private WeakValueMap<Object, Object> map;
+
+        private ClassContext(String name) {
+            this.name = name;
+        }
+
+        private Object get(Object id) {
+            if (id instanceof Long) {
+                return longMap == null ? null : longMap.get(((Long) id).longValue());
+            }
+            if (id instanceof Integer) {
+                return intMap == null ? null : intMap.get(((Integer) id).longValue());
+            }
+            return map == null ? null : map.get(id);
+        }
+
+        private Object putIfAbsent(Object id, Object bean) {
+            if (id instanceof Long) {
+                return longMap().putIfAbsent(((Long) id).longValue(), bean);
+            }
+            if (id instanceof Integer) {
+                return intMap().putIfAbsent(((Integer) id).longValue(), bean);
+            }
+            return map().putIfAbsent(id, bean);
+        }
+
+        private void put(Object id, Object bean) {
+            if (id instanceof Long) {
+                longMap().put(((Long) id).longValue(), bean);
+            } else if (id instanceof Integer) {
+                intMap().put(((Integer) id).longValue(), bean);
+            } else {
+                map().put(id, bean);
+            }
+        }
+
+        private Object remove(Object id) {
+            if (id instanceof Long) {
+                return longMap == null ? null : longMap.remove(((Long) id).longValue());
+            }
+            if (id instanceof Integer) {
+                return intMap == null ? null : intMap.remove(((Integer) id).longValue());
+            }
+            return map == null ? null : map.remove(id);
+        }
+
+        private int size() {
+            int size = 0;
+            if (longMap != null) {
+                size += longMap.size();
+            }
+            if (intMap != null) {
+                size += intMap.size();
+            }
+            if (map != null) {
+                size += map.size();
+            }
+            return size;
+        }
+
+        private void clear() {
+            longMap = null;
+            intMap = null;
+            map = null;
+        }
+
+        private WeakLongValueMap<Object> longMap() {
+            if (longMap == null) {
+                longMap = new WeakLongValueMap<Object>();
+            }
+            return longMap;
+        }
+
+        private WeakLongValueMap<Object> intMap() {
+            if (intMap == null) {
+                intMap = new WeakLongValueMap<Object>();
+            }
+            return intMap;
+        }
+
+        private WeakValueMap<Object, Object> map() {
+            if (map == null) {
+                map = new WeakValueMap<Object, Object>();
+            }
+            return map;
+        }
+    }
+}
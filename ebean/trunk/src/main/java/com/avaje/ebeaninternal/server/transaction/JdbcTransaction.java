@@ -159,7 +159,7 @@ public class JdbcTransaction implements SpiTransaction {
         connection.setAutoCommit(false);
       }
       this.onQueryOnly = manager == null ? OnQueryOnly.ROLLBACK : manager.getOnQueryOnly();
-      this.persistenceContext = new DefaultPersistenceContext();
+      this.persistenceContext = PersistenceContextFactory.create();
 
       this.logBuffer = new TransactionLogBuffer(50, id);
 
@@ -414,6 +414,10 @@ public class JdbcTransaction implements SpiTransaction {
   /**
    * Return the underlying TransactionEvent.
    */
+  public boolean isModifiedTable(String[] tableNames) {
+    return event != null && event.isModifiedTable(tableNames);
+  }
+
   public TransactionEvent getEvent() {
     queryOnly = false;
     if (event == null) {
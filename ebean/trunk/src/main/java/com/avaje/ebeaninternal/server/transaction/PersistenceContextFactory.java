@@ -0,0 +1,62 @@
+/**
+ * Copyright (C) 2009 Authors
+ * 
+ * This file is part of Ebean.
+ * 
+ * Ebean is free software; you can redistribute it and/or modify it 
+ * under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation; either version 2.1 of the License, or
+ * (at your option) any later version.
+ *  
+ * Ebean is distributed in the hope that it will be useful, but 
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with Ebean; if not, write to the Free Software Foundation, Inc.,
+ * 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA  
+ */
+package com.avaje.ebeaninternal.server.transaction;
+
+import com.avaje.ebean.bean.PersistenceContext;
+import com.avaje.ebean.config.GlobalProperties;
+
+/**
+ * Creates the PersistenceContext implementation.
+ * <p>
+ * This is a DefaultPersistenceContext unless the ebean.persistenceContext.indexed
+ * property is set to true in which case it is an IndexedPersistenceContext.
+ * The property is read once rather than each time a PersistenceContext is
+ * created.
+ * </p>
+ */
+public class PersistenceContextFactory {
+
+    private static volatile boolean indexed = GlobalProperties.getBoolean("ebean.persistenceContext.indexed", false);
+
+    /**
+     * Set whether IndexedPersistenceContext is used (overriding the
+     * ebean.persistenceContext.indexed property).
+     */
+    public static void setIndexed(boolean useIndexed) {
+        indexed = useIndexed;
+    }
+
+    /**
+     * Return true if IndexedPersistenceContext is used.
+     */
+    public static boolean isIndexed() {
+        return indexed;
+    }
+
+    /**
+     * Create a new PersistenceContext.
+     */
+    public static PersistenceContext create() {
+        if (indexed) {
+            return new IndexedPersistenceContext();
+        }
+        return new DefaultPersistenceContext();
+    }
+}
@@ -55,8 +55,6 @@ public final class PostCommitProcessing {
 
   private final BeanPersistIdMap beanPersistIdMap;
 
-//  private final BeanDeltaMap beanDeltaMap;
-
   private final RemoteTransactionEvent remoteTransactionEvent;
 
   private final DeleteByIdMap deleteByIdMap;
@@ -74,7 +72,6 @@ public final class PostCommitProcessing {
     this.persistBeanRequests = createPersistBeanRequests();
 
     this.beanPersistIdMap = createBeanPersistIdMap();
-    //this.beanDeltaMap = new BeanDeltaMap(event.getBeanDeltas());
 
     this.remoteTransactionEvent = createRemoteTransactionEvent();
   }
@@ -166,11 +163,14 @@ public final class PostCommitProcessing {
 
     RemoteTransactionEvent remoteTransactionEvent = new RemoteTransactionEvent(serverName);
 
-//    if (beanDeltaMap != null) {
-//      for (BeanDeltaList deltaList : beanDeltaMap.deltaLists()) {
-//        remoteTransactionEvent.addBeanDeltaList(deltaList);
-//      }
-//    }
+    List<BeanDelta> beanDeltas = event.getBeanDeltas();
+    if (beanDeltas != null) {
+      // changed property values of updated beans in the bean cache
+      BeanDeltaMap beanDeltaMap = new BeanDeltaMap(beanDeltas);
+      for (BeanDeltaList deltaList : beanDeltaMap.deltaLists()) {
+        remoteTransactionEvent.addBeanDeltaList(deltaList);
+      }
+    }
 
     if (beanPersistIdMap != null) {
       for (BeanPersistIds beanPersist : beanPersistIdMap.values()) {
@@ -20,12 +20,16 @@
 package com.avaje.ebeaninternal.server.transaction;
 
 import java.io.IOException;
+import java.io.Serializable;
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
 
 import com.avaje.ebeaninternal.api.SpiEbeanServer;
+import com.avaje.ebeaninternal.api.TransactionEventTable;
 import com.avaje.ebeaninternal.api.TransactionEventTable.TableIUD;
 import com.avaje.ebeaninternal.server.cluster.BinaryMessageList;
 
@@ -63,6 +67,9 @@ public class RemoteTransactionEvent implements Runnable {
     
     public String toString() {
         StringBuilder sb = new StringBuilder();
+        if (beanDeltaLists != null){
+            sb.append(beanDeltaLists);
+        }
         if (beanDeltaMap != null){
             sb.append(beanDeltaMap);
         }
@@ -100,8 +107,13 @@ public class RemoteTransactionEvent implements Runnable {
         }
         
         if (beanDeltaLists != null){
+            // the beans also updated without a delta must be removed rather
+            // than patched so their deltas are not sent
+            Map<String, Set<Object>> noDeltaIdMap = getUpdateNoDeltaIdMap();
             for (int i = 0; i < beanDeltaLists.size(); i++) {
-                beanDeltaLists.get(i).writeBinaryMessage(msgList);
+                BeanDeltaList deltaList = beanDeltaLists.get(i);
+                String descriptorId = deltaList.getBeanDescriptor().getDescriptorId();
+                deltaList.writeBinaryMessage(msgList, noDeltaIdMap.get(descriptorId));
             }
         }
         
@@ -112,9 +124,140 @@ public class RemoteTransactionEvent implements Runnable {
         }
     }
     
+    /**
+     * Return the ids of cached beans updated without a BeanDelta keyed by
+     * descriptorId.
+     */
+    private Map<String, Set<Object>> getUpdateNoDeltaIdMap() {
+        Map<String, Set<Object>> map = new HashMap<String, Set<Object>>();
+        for (int i = 0; i < beanPersistList.size(); i++) {
+            BeanPersistIds ids = beanPersistList.get(i);
+            List<Serializable> noDeltaIds = ids.getUpdateNoDeltaIds();
+            if (noDeltaIds != null) {
+                Set<Object> set = map.get(ids.getDescriptorId());
+                if (set == null) {
+                    set = new HashSet<Object>();
+                    map.put(ids.getDescriptorId(), set);
+                }
+                set.addAll(noDeltaIds);
+            }
+        }
+        return map;
+    }
+
     public boolean isEmpty() {
         return beanPersistList.isEmpty() && (tableList == null || tableList.isEmpty());
     }
+
+    /**
+     * Merge another event for the same server into this one.
+     * <p>
+     * The table and bean id invalidations are de-duplicated. The bean deltas
+     * and index events are appended in order. The other event is not modified.
+     * </p>
+     */
+    public void merge(RemoteTransactionEvent other) {
+
+        for (int i = 0; i < other.beanPersistList.size(); i++) {
+            mergeBeanPersistIds(other.beanPersistList.get(i));
+        }
+        if (other.deleteByIdMap != null){
+            // sent as BeanPersistIds so merge them as such
+            for (BeanPersistIds deleteIds : other.deleteByIdMap.values()) {
+                mergeBeanPersistIds(deleteIds);
+            }
+        }
+        if (other.tableList != null){
+            TransactionEventTable tables = new TransactionEventTable();
+            if (tableList != null){
+                for (int i = 0; i < tableList.size(); i++) {
+                    addTable(tables, tableList.get(i));
+                }
+            }
+            for (int i = 0; i < other.tableList.size(); i++) {
+                addTable(tables, other.tableList.get(i));
+            }
+            tableList = new ArrayList<TableIUD>(tables.values());
+        }
+        if (other.indexInvalidations != null){
+            for (IndexInvalidate indexInvalidate : other.indexInvalidations) {
+                addIndexInvalidate(indexInvalidate);
+            }
+        }
+        if (other.beanDeltaLists != null){
+            for (int i = 0; i < other.beanDeltaLists.size(); i++) {
+                addBeanDeltaList(other.beanDeltaLists.get(i));
+            }
+        }
+        if (other.beanDeltaMap != null){
+            for (BeanDeltaList deltaList : other.beanDeltaMap.deltaLists()) {
+                addBeanDeltaList(deltaList);
+            }
+        }
+        if (other.indexEventList != null){
+            for (int i = 0; i < other.indexEventList.size(); i++) {
+                addIndexEvent(other.indexEventList.get(i));
+            }
+        }
+    }
+
+    /**
+     * Return false if merging the other event into this one would lose the
+     * order of the changes to a bean (such as a delete followed by an insert
+     * of the same id). Such events must be sent separately.
+     */
+    public boolean isMergeable(RemoteTransactionEvent other) {
+
+        for (int i = 0; i < other.beanPersistList.size(); i++) {
+            if (isOrderConflict(other.beanPersistList.get(i))) {
+                return false;
+            }
+        }
+        if (other.deleteByIdMap != null){
+            for (BeanPersistIds deleteIds : other.deleteByIdMap.values()) {
+                if (isOrderConflict(deleteIds)) {
+                    return false;
+                }
+            }
+        }
+        return true;
+    }
+
+    private boolean isOrderConflict(BeanPersistIds otherIds) {
+
+        for (int i = 0; i < beanPersistList.size(); i++) {
+            BeanPersistIds ids = beanPersistList.get(i);
+            if (ids.getDescriptorId().equals(otherIds.getDescriptorId()) && ids.isOrderConflict(otherIds)){
+                return true;
+            }
+        }
+        if (deleteByIdMap != null){
+            for (BeanPersistIds ids : deleteByIdMap.values()) {
+                if (ids.getDescriptorId().equals(otherIds.getDescriptorId()) && ids.isOrderConflict(otherIds)){
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    private void mergeBeanPersistIds(BeanPersistIds otherIds) {
+        
+        for (int i = 0; i < beanPersistList.size(); i++) {
+            BeanPersistIds ids = beanPersistList.get(i);
+            if (ids.getDescriptorId().equals(otherIds.getDescriptorId())){
+                ids.addAll(otherIds);
+                return;
+            }
+        }
+        BeanPersistIds ids = new BeanPersistIds(otherIds.getBeanDescriptor());
+        ids.addAll(otherIds);
+        beanPersistList.add(ids);
+    }
+    
+    private void addTable(TransactionEventTable tables, TableIUD tableIud) {
+        tables.add(tableIud.getTableName(), tableIud.isInsert(), tableIud.isUpdate(), tableIud.isDelete());
+    }
     
     public void addBeanPersistIds(BeanPersistIds beanPersist){
         beanPersistList.add(beanPersist);
@@ -191,10 +334,18 @@ public class RemoteTransactionEvent implements Runnable {
         return beanPersistList;
     }
 
+    /**
+     * Return the bean deltas added as lists or read individually.
+     */
     public List<BeanDeltaList> getBeanDeltaLists() {
-        if (beanDeltaMap != null){
-            beanDeltaLists.addAll(beanDeltaMap.deltaLists());
+        if (beanDeltaMap == null){
+            return beanDeltaLists;
+        }
+        List<BeanDeltaList> lists = new ArrayList<BeanDeltaList>();
+        if (beanDeltaLists != null){
+            lists.addAll(beanDeltaLists);
         }
-        return beanDeltaLists;
+        lists.addAll(beanDeltaMap.deltaLists());
+        return lists;
     }
 }
@@ -21,7 +21,10 @@ package com.avaje.ebeaninternal.server.transaction;
 
 import java.sql.Connection;
 import java.sql.SQLException;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 import java.util.concurrent.atomic.AtomicLong;
 import java.util.logging.Level;
 import java.util.logging.Logger;
@@ -546,11 +549,28 @@ public class TransactionManager {
             }
         }
         
+        // update the cached beans with the changed property values
+        Map<String, Set<Object>> deltaIdMap = new HashMap<String, Set<Object>>();
+        List<BeanDeltaList> beanDeltaLists = remoteEvent.getBeanDeltaLists();
+        if (beanDeltaLists != null){
+            for (int i = 0; i < beanDeltaLists.size(); i++) {
+                BeanDeltaList deltaList = beanDeltaLists.get(i);
+                String descriptorId = deltaList.getBeanDescriptor().getDescriptorId();
+                Set<Object> ids = deltaList.notifyCache();
+                Set<Object> existing = deltaIdMap.get(descriptorId);
+                if (existing != null){
+                    existing.addAll(ids);
+                } else {
+                    deltaIdMap.put(descriptorId, ids);
+                }
+            }
+        }
+        
         List<BeanPersistIds> beanPersistList = remoteEvent.getBeanPersistList();
         if (beanPersistList != null){
             for (int i = 0; i < beanPersistList.size(); i++) {
                 BeanPersistIds beanPersist = beanPersistList.get(i);
-                beanPersist.notifyCacheAndListener();
+                beanPersist.notifyCacheAndListener(deltaIdMap.get(beanPersist.getDescriptorId()));
             }
         }
         
@@ -0,0 +1,229 @@
+/**
+ * Copyright (C) 2009 Authors
+ * 
+ * This file is part of Ebean.
+ * 
+ * Ebean is free software; you can redistribute it and/or modify it 
+ * under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation; either version 2.1 of the License, or
+ * (at your option) any later version.
+ *  
+ * Ebean is distributed in the hope that it will be useful, but 
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with Ebean; if not, write to the Free Software Foundation, Inc.,
+ * 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA  
+ */
+package com.avaje.ebeaninternal.server.transaction;
+
+import java.lang.ref.Reference;
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
+
+/**
+ * A Weak value map with primitive long keys designed for use with
+ * IndexedPersistenceContext.
+ * <p>
+ * Uses open addressing with linear probing so no entry objects are created and
+ * the keys are not boxed. As per WeakValueMap entries are automatically removed
+ * when the values are not referenced externally.
+ * </p>
+ * <p>
+ * This is not thread safe.
+ * </p>
+ */
+public class WeakLongValueMap<V> {
+
+    private static final int INITIAL_CAPACITY = 16;
+
+    private final ReferenceQueue<V> refQueue = new ReferenceQueue<V>();
+
+    private long[] keys;
+
+    private WeakLongReference<V>[] values;
+
+    private int mask;
+
+    private int resizeAt;
+
+    private int size;
+
+    /**
+     * Hold the key with the value for expunge purposes.
+     */
+    private static class WeakLongReference<V> extends WeakReference<V> {
+
+        private final long key;
+
+        public WeakLongReference(long key, V referent, ReferenceQueue<? super V> q) {
+            super(referent, q);
+            this.key = key;
+        }
+    }
+
+    public WeakLongValueMap() {
+        allocate(INITIAL_CAPACITY);
+    }
+
+    @SuppressWarnings("unchecked")
+    private void allocate(int capacity) {
+        this.keys = new long[capacity];
+        this.values = (WeakLongReference<V>[]) new WeakLongReference<?>[capacity];
+        this.mask = capacity - 1;
+        this.resizeAt = capacity / 2;
+    }
+
+    private static int hash(long key) {
+        long h = key * 0x9E3779B97F4A7C15L;
+        return (int) (h ^ (h >>> 32));
+    }
+
+    /**
+     * Return the slot of the key or -(slot + 1) of the empty slot it would go
+     * into.
+     */
+    private int indexOf(long key) {
+        int i = hash(key) & mask;
+        while (values[i] != null) {
+            if (keys[i] == key) {
+                return i;
+            }
+            i = (i + 1) & mask;
+        }
+        return -(i + 1);
+    }
+
+    private void expunge() {
+
+        Reference<? extends V> ref;
+        while ((ref = refQueue.poll()) != null) {
+            WeakLongReference<?> weakRef = (WeakLongReference<?>) ref;
+            int i = indexOf(weakRef.key);
+            if (i >= 0 && values[i] == weakRef) {
+                // not replaced by a later put
+                removeAt(i);
+            }
+        }
+    }
+
+    /**
+     * Put the key value pair if there is not already a matching entry. If there
+     * is an existing entry then return that instead.
+     */
+    public V putIfAbsent(long key, V value) {
+        expunge();
+
+        int i = indexOf(key);
+        if (i >= 0) {
+            V existingValue = values[i].get();
+            if (existingValue != null) {
+                // it is not absent
+                return existingValue;
+            }
+            values[i] = new WeakLongReference<V>(key, value, refQueue);
+        } else {
+            insertAt(-(i + 1), key, value);
+        }
+        return null;
+    }
+
+    public void put(long key, V value) {
+        expunge();
+
+        int i = indexOf(key);
+        if (i >= 0) {
+            values[i] = new WeakLongReference<V>(key, value, refQueue);
+        } else {
+            insertAt(-(i + 1), key, value);
+        }
+    }
+
+    public V get(long key) {
+        expunge();
+
+        int i = indexOf(key);
+        return i < 0 ? null : values[i].get();
+    }
+
+    public V remove(long key) {
+        expunge();
+
+        int i = indexOf(key);
+        if (i < 0) {
+            return null;
+        }
+        V value = values[i].get();
+        removeAt(i);
+        return value;
+    }
+
+    public int size() {
+        expunge();
+
+        return size;
+    }
+
+    public void clear() {
+        allocate(INITIAL_CAPACITY);
+        size = 0;
+    }
+
+    private void insertAt(int slot, long key, V value) {
+        keys[slot] = key;
+        values[slot] = new WeakLongReference<V>(key, value, refQueue);
+        if (++size > resizeAt) {
+            resize();
+        }
+    }
+
+    private void resize() {
+
+        long[] oldKeys = keys;
+        WeakLongReference<V>[] oldValues = values;
+
+        allocate(oldKeys.length * 2);
+        size = 0;
+        for (int i = 0; i < oldValues.length; i++) {
+            WeakLongReference<V> ref = oldValues[i];
+            if (ref != null && ref.get() != null) {
+                int slot = -(indexOf(oldKeys[i]) + 1);
+                keys[slot] = oldKeys[i];
+                values[slot] = ref;
+                size++;
+            }
+        }
+    }
+
+    /**
+     * Remove the entry at the slot shifting back following entries of the
+     * probe sequence into the gap.
+     */
+    private void removeAt(int i) {
+
+        values[i] = null;
+        size--;
+
+        int j = i;
+        while (true) {
+            j = (j + 1) & mask;
+            if (values[j] == null) {
+                return;
+            }
+            int home = hash(keys[j]) & mask;
+            boolean move = (i <= j) ? (home <= i || home > j) : (home <= i && home > j);
+            if (move) {
+                keys[i] = keys[j];
+                values[i] = values[j];
+                values[j] = null;
+                i = j;
+            }
+        }
+    }
+
+    public String toString() {
+        return "size:" + size();
+    }
+}
@@ -0,0 +1,165 @@
+/**
+ * Copyright (C) 2009 Authors
+ * 
+ * This file is part of Ebean.
+ * 
+ * Ebean is free software; you can redistribute it and/or modify it 
+ * under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation; either version 2.1 of the License, or
+ * (at your option) any later version.
+ *  
+ * Ebean is distributed in the hope that it will be useful, but 
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with Ebean; if not, write to the Free Software Foundation, Inc.,
+ * 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA  
+ */
+package com.avaje.ebeaninternal.server.transaction.log;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.text.SimpleDateFormat;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Date;
+import java.util.List;
+
+/**
+ * Reads the files written by the {@link BinaryTransactionLogger} rendering them
+ * as text.
+ * <p>
+ * The files are read in sequence order so the oldest records are rendered
+ * first. This is intended to be run offline with the directory and the prefix
+ * of the file names as arguments.
+ * </p>
+ *
+ * <pre class="code">
+ * java com.avaje.ebeaninternal.server.transaction.log.BinaryTransactionLogReader logs h2_txn_
+ * </pre>
+ */
+public class BinaryTransactionLogReader {
+
+  private static final String deliminator = ", ";
+
+  private final File dir;
+
+  private final String logFileName;
+
+  private final SimpleDateFormat dateFormat = new SimpleDateFormat("yyyy-MM-dd HH:mm:ss.SSS");
+
+  public BinaryTransactionLogReader(File dir, String logFileName) {
+    this.dir = dir;
+    this.logFileName = logFileName;
+  }
+
+  public static void main(String[] args) throws IOException {
+    if (args.length != 2) {
+      System.err.println("Usage: BinaryTransactionLogReader <directory> <file name prefix>");
+      return;
+    }
+    BinaryTransactionLogReader reader = new BinaryTransactionLogReader(new File(args[0]), args[1]);
+    reader.render(System.out);
+    System.out.flush();
+  }
+
+  /**
+   * Render all the records as text to the stream.
+   */
+  public void render(PrintStream out) throws IOException {
+
+    List<LogFile> files = findFiles();
+    for (int i = 0; i < files.size(); i++) {
+      render(files.get(i).file, out);
+    }
+  }
+
+  /**
+   * Return the binary log files in sequence order.
+   */
+  private List<LogFile> findFiles() throws IOException {
+
+    List<LogFile> files = new ArrayList<LogFile>();
+    for (int i = 0;; i++) {
+      File file = BinaryTransactionLogger.getFile(dir, logFileName, i);
+      if (!file.exists()) {
+        break;
+      }
+      long sequence = BinaryTransactionLogger.readSequence(file);
+      if (sequence > 0) {
+        files.add(new LogFile(file, sequence));
+      }
+    }
+    Collections.sort(files, new Comparator<LogFile>() {
+      public int compare(LogFile o1, LogFile o2) {
+        return o1.sequence < o2.sequence ? -1 : (o1.sequence == o2.sequence ? 0 : 1);
+      }
+    });
+    return files;
+  }
+
+  private void render(File file, PrintStream out) throws IOException {
+
+    ByteBuffer buffer;
+    RandomAccessFile raf = new RandomAccessFile(file, "r");
+    try {
+      buffer = raf.getChannel().map(FileChannel.MapMode.READ_ONLY, 0, raf.length());
+    } finally {
+      raf.close();
+    }
+
+    buffer.position(BinaryTransactionLogger.HEADER_SIZE);
+    while (buffer.remaining() >= 4) {
+      int length = buffer.getInt();
+      if (length <= 0 || length > buffer.remaining()) {
+        // the end of the records
+        break;
+      }
+      int end = buffer.position() + length;
+
+      long timestamp = buffer.getLong();
+      String txnId = getString(buffer);
+      int count = buffer.getInt();
+      for (int i = 0; i < count; i++) {
+        long entryTime = timestamp + buffer.getInt();
+        String msg = getString(buffer);
+        if (txnId != null) {
+          out.append("txn[").append(txnId).append("]").append(deliminator);
+        }
+        out.append(dateFormat.format(new Date(entryTime))).append(deliminator);
+        out.append(msg).append(" ");
+        out.append("\n");
+      }
+      buffer.position(end);
+    }
+  }
+
+  private String getString(ByteBuffer buffer) throws IOException {
+    int length = buffer.getInt();
+    if (length < 0) {
+      return null;
+    }
+    byte[] bytes = new byte[length];
+    buffer.get(bytes);
+    return new String(bytes, "UTF-8");
+  }
+
+  private static class LogFile {
+
+    private final File file;
+
+    private final long sequence;
+
+    private LogFile(File file, long sequence) {
+      this.file = file;
+      this.sequence = sequence;
+    }
+  }
+}
@@ -0,0 +1,357 @@
+/**
+ * Copyright (C) 2009 Authors
+ * 
+ * This file is part of Ebean.
+ * 
+ * Ebean is free software; you can redistribute it and/or modify it 
+ * under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation; either version 2.1 of the License, or
+ * (at your option) any later version.
+ *  
+ * Ebean is distributed in the hope that it will be useful, but 
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with Ebean; if not, write to the Free Software Foundation, Inc.,
+ * 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA  
+ */
+package com.avaje.ebeaninternal.server.transaction.log;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.BufferOverflowException;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.charset.CharsetEncoder;
+import java.nio.charset.CoderResult;
+import java.util.List;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.locks.LockSupport;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import com.avaje.ebeaninternal.server.transaction.TransactionLogBuffer;
+import com.avaje.ebeaninternal.server.transaction.TransactionLogWriter;
+import com.avaje.ebeaninternal.server.transaction.TransactionLogBuffer.LogEntry;
+
+/**
+ * Transaction logger that writes a compact binary format into a ring of
+ * memory mapped files.
+ * <p>
+ * The messages are not formatted as text. Each TransactionLogBuffer is written
+ * as a single record with the timestamps stored as offsets from the first
+ * entry. Use {@link BinaryTransactionLogReader} to render the files as text.
+ * </p>
+ * <p>
+ * The writer thread drains all the queued buffers and writes them as a group.
+ * When force is true the group is then forced to disk with a single sync.
+ * Otherwise the operating system writes the mapped pages and they survive the
+ * process stopping.
+ * </p>
+ * <p>
+ * When a file is full the writer moves to the next file in the ring,
+ * overwriting the oldest. Each file has a header with a sequence number used
+ * to order the files when reading.
+ * </p>
+ */
+public class BinaryTransactionLogger implements Runnable, TransactionLogWriter {
+
+  private static final Logger logger = Logger.getLogger(BinaryTransactionLogger.class.getName());
+
+  static final int MAGIC = 0x45544C31;
+
+  static final int VERSION = 1;
+
+  /**
+   * The magic, version and sequence number.
+   */
+  static final int HEADER_SIZE = 16;
+
+  static final String SUFFIX = ".tlog";
+
+  /**
+   * Time the writer waits for more buffers when the queue is empty.
+   */
+  private static final long PARK_NANOS = 50 * 1000 * 1000L;
+
+  private final ConcurrentLinkedQueue<TransactionLogBuffer> logBufferQueue = new ConcurrentLinkedQueue<TransactionLogBuffer>();
+
+  private final Thread logWriterThread;
+
+  private final String threadName;
+
+  private final File dir;
+
+  private final String logFileName;
+
+  private final int fileSize;
+
+  private final int fileCount;
+
+  private final boolean force;
+
+  private final CharsetEncoder encoder = Charset.forName("UTF-8").newEncoder();
+
+  private volatile boolean shutdown;
+
+  private ByteBuffer encodeBuffer = ByteBuffer.allocate(8192);
+
+  private MappedByteBuffer mapped;
+
+  private int fileIndex;
+
+  private long sequence;
+
+  private volatile long recordCount;
+
+  /**
+   * Create the logger.
+   *
+   * @param threadName
+   *          the name of the writer thread
+   * @param dir
+   *          the directory holding the files
+   * @param logFileName
+   *          the prefix of the file names
+   * @param fileSize
+   *          the size of each file in the ring
+   * @param fileCount
+   *          the number of files in the ring
+   * @param force
+   *          if true each group of buffers is forced to disk
+   */
+  public BinaryTransactionLogger(String threadName, String dir, String logFileName, int fileSize, int fileCount, boolean force) {
+    this.threadName = threadName;
+    this.dir = new File(dir);
+    this.logFileName = logFileName;
+    this.fileSize = fileSize;
+    this.fileCount = Math.max(2, fileCount);
+    this.force = force;
+
+    if (!this.dir.exists() && !this.dir.mkdirs()) {
+      logger.log(Level.SEVERE, "Failed to create transaction logs directory " + dir);
+    }
+    try {
+      findLastFile();
+      nextFile();
+
+    } catch (IOException e) {
+      throw new RuntimeException("Error initialising binary transaction log in " + dir, e);
+    }
+
+    logWriterThread = new Thread(this, threadName);
+    logWriterThread.setDaemon(true);
+  }
+
+  /**
+   * Return the file in the ring for the given index.
+   */
+  static File getFile(File dir, String logFileName, int index) {
+    return new File(dir, logFileName + index + SUFFIX);
+  }
+
+  public void start() {
+    logWriterThread.start();
+  }
+
+  public void shutdown() {
+    shutdown = true;
+    LockSupport.unpark(logWriterThread);
+    try {
+      // wait max 20 seconds
+      logWriterThread.join(20000);
+    } catch (InterruptedException e) {
+      logger.fine("InterruptedException:" + e);
+    }
+    if (logWriterThread.isAlive()) {
+      String m = "WARNING: Shutdown of LogBufferWriter " + threadName + " not completed.";
+      System.err.println(m);
+      logger.warning(m);
+    }
+  }
+
+  public void log(TransactionLogBuffer logBuffer) {
+    logBufferQueue.add(logBuffer);
+    LockSupport.unpark(logWriterThread);
+  }
+
+  /**
+   * Return the number of records written.
+   */
+  public long getRecordCount() {
+    return recordCount;
+  }
+
+  public void run() {
+
+    while (true) {
+      boolean wrote = false;
+      TransactionLogBuffer logBuffer;
+      while ((logBuffer = logBufferQueue.poll()) != null) {
+        try {
+          write(logBuffer);
+          wrote = true;
+        } catch (Exception e) {
+          logger.log(Level.SEVERE, "Error writing transaction log", e);
+        }
+      }
+      if (wrote) {
+        // group commit of all the buffers written
+        if (force) {
+          mapped.force();
+        }
+      } else if (shutdown) {
+        break;
+      } else {
+        LockSupport.parkNanos(PARK_NANOS);
+      }
+    }
+
+    mapped.force();
+  }
+
+  private void write(TransactionLogBuffer logBuffer) throws IOException {
+
+    List<LogEntry> messages = logBuffer.messages();
+    if (messages.isEmpty()) {
+      return;
+    }
+
+    ByteBuffer record = encode(logBuffer.getTransactionId(), messages);
+    int length = record.remaining();
+
+    // the record length and the terminator after the record
+    int required = 4 + length + 4;
+    if (required > fileSize - HEADER_SIZE) {
+      logger.warning("Transaction log record of " + length + " bytes too large for the log files");
+      return;
+    }
+    if (mapped.remaining() < required) {
+      nextFile();
+    }
+
+    mapped.putInt(length);
+    mapped.put(record);
+    // terminate so that old records in a reused file are not read
+    mapped.putInt(mapped.position(), 0);
+    recordCount++;
+  }
+
+  /**
+   * Encode the record as the timestamp of the first entry, the transaction id,
+   * the number of entries and then the time offset and message of each entry.
+   */
+  private ByteBuffer encode(String txnId, List<LogEntry> messages) {
+
+    while (true) {
+      encodeBuffer.clear();
+      try {
+        long timestamp = messages.get(0).getTimestamp();
+        encodeBuffer.putLong(timestamp);
+        if (putString(txnId)) {
+          encodeBuffer.putInt(messages.size());
+          boolean complete = true;
+          for (int i = 0; i < messages.size() && complete; i++) {
+            LogEntry entry = messages.get(i);
+            encodeBuffer.putInt((int) (entry.getTimestamp() - timestamp));
+            complete = putString(entry.getMsg());
+          }
+          if (complete) {
+            encodeBuffer.flip();
+            return encodeBuffer;
+          }
+        }
+      } catch (BufferOverflowException e) {
+        // grow and try again
+      }
+      encodeBuffer = ByteBuffer.allocate(encodeBuffer.capacity() * 2);
+    }
+  }
+
+  /**
+   * Put the length and UTF-8 bytes returning false if the buffer is full.
+   */
+  private boolean putString(String value) {
+    if (value == null) {
+      encodeBuffer.putInt(-1);
+      return true;
+    }
+    int lengthPos = encodeBuffer.position();
+    encodeBuffer.putInt(0);
+    encoder.reset();
+    CoderResult result = encoder.encode(CharBuffer.wrap(value), encodeBuffer, true);
+    if (result.isOverflow()) {
+      return false;
+    }
+    encodeBuffer.putInt(lengthPos, encodeBuffer.position() - lengthPos - 4);
+    return true;
+  }
+
+  /**
+   * Find the file in the ring with the highest sequence number.
+   */
+  private void findLastFile() throws IOException {
+    fileIndex = -1;
+    sequence = 0;
+    for (int i = 0; i < fileCount; i++) {
+      long fileSequence = readSequence(getFile(dir, logFileName, i));
+      if (fileSequence > sequence) {
+        sequence = fileSequence;
+        fileIndex = i;
+      }
+    }
+  }
+
+  /**
+   * Return the sequence number in the header of the file or 0 if it is not a
+   * binary transaction log.
+   */
+  static long readSequence(File file) throws IOException {
+    if (!file.exists() || file.length() < HEADER_SIZE) {
+      return 0;
+    }
+    RandomAccessFile raf = new RandomAccessFile(file, "r");
+    try {
+      if (raf.readInt() != MAGIC) {
+        return 0;
+      }
+      raf.readInt();
+      return raf.readLong();
+    } finally {
+      raf.close();
+    }
+  }
+
+  /**
+   * Move to the next file in the ring overwriting the oldest.
+   */
+  private void nextFile() throws IOException {
+
+    if (mapped != null) {
+      mapped.force();
+    }
+    fileIndex = (fileIndex + 1) % fileCount;
+    sequence++;
+
+    File file = getFile(dir, logFileName, fileIndex);
+    RandomAccessFile raf = new RandomAccessFile(file, "rw");
+    try {
+      raf.setLength(fileSize);
+      mapped = raf.getChannel().map(FileChannel.MapMode.READ_WRITE, 0, fileSize);
+    } finally {
+      // the mapping remains valid after the file is closed
+      raf.close();
+    }
+
+    mapped.putInt(MAGIC);
+    mapped.putInt(VERSION);
+    mapped.putLong(sequence);
+    mapped.putInt(mapped.position(), 0);
+  }
+}
@@ -46,7 +46,7 @@ public class FileTransactionLoggerWrapper implements TransactionLogWriter {
     private final String dir;
     private final int maxFileSize;
 
-    private volatile FileTransactionLogger logWriter;
+    private volatile TransactionLogWriter logWriter;
 
     public FileTransactionLoggerWrapper(ServerConfig serverConfig) {
 
@@ -56,11 +56,11 @@ public class FileTransactionLoggerWrapper implements TransactionLogWriter {
         this.serverName = serverConfig.getName();
     }
 
-    private FileTransactionLogger initialiseLogger() {
+    private TransactionLogWriter initialiseLogger() {
 
         synchronized (this) {
             // double check locking here so logWriter NEEDS to be volatile!!
-            FileTransactionLogger writer = this.logWriter;
+            TransactionLogWriter writer = this.logWriter;
             if (writer != null) {
                 return writer;
             }
@@ -69,22 +69,32 @@ public class FileTransactionLoggerWrapper implements TransactionLogWriter {
             String logPrefix = serverName + middleName;
             String threadName = "Ebean-" + serverName + "-TxnLogWriter";
 
-            // create the real logger and start it
-            FileTransactionLogger newLogWriter = new FileTransactionLogger(threadName, dir, logPrefix, maxFileSize);
+            if (GlobalProperties.getBoolean("ebean.logging.binary", false)) {
+                // compact binary format in a ring of memory mapped files
+                int fileCount = GlobalProperties.getInt("ebean.logging.binary.files", 4);
+                boolean force = GlobalProperties.getBoolean("ebean.logging.binary.force", false);
+                BinaryTransactionLogger newLogWriter = new BinaryTransactionLogger(threadName, dir, logPrefix, maxFileSize, fileCount, force);
+                newLogWriter.start();
+                this.logWriter = newLogWriter;
 
-            // assignment of volatile field
-            this.logWriter = newLogWriter;
+            } else {
+                // create the real logger and start it
+                FileTransactionLogger newLogWriter = new FileTransactionLogger(threadName, dir, logPrefix, maxFileSize);
 
-            // start background thread for the writer
-            newLogWriter.start();
+                // assignment of volatile field
+                this.logWriter = newLogWriter;
+
+                // start background thread for the writer
+                newLogWriter.start();
+            }
             logger.info("Transaction logs in: " + dir);
-            return newLogWriter;
+            return this.logWriter;
         }
     }
 
     public void log(TransactionLogBuffer logBuffer) {
         // volatile read
-        FileTransactionLogger writer = this.logWriter;
+        TransactionLogWriter writer = this.logWriter;
         if (writer == null) {
             writer = initialiseLogger();
         }
@@ -74,6 +74,13 @@ public class DataBind {
         return pstmt.executeUpdate();
     }
 
+    /**
+     * Add the bound values as a batch of the statement.
+     */
+    public void addBatch() throws SQLException {
+        pstmt.addBatch();
+    }
+
     public PreparedStatement getPstmt() {
         return pstmt;
     }
@@ -144,4 +151,4 @@ public class DataBind {
         pstmt.setCharacterStream(++pos, reader, content.length());
     }
 
-}
\ No newline at end of file
+}
\ No newline at end of file
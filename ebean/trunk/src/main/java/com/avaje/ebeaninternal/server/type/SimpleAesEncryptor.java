@@ -20,6 +20,9 @@
 package com.avaje.ebeaninternal.server.type;
 
 import java.io.UnsupportedEncodingException;
+import java.security.GeneralSecurityException;
+import java.util.HashMap;
+import java.util.Map;
 
 import javax.crypto.Cipher;
 import javax.crypto.spec.IvParameterSpec;
@@ -30,6 +33,10 @@ import com.avaje.ebean.config.Encryptor;
 
 /**
  * Simple AES based encryption and decryption.
+ * <p>
+ * Initialised Ciphers are cached per thread and per key so that a Cipher is
+ * not created for each value encrypted or decrypted.
+ * </p>
  * 
  * @author rbygrave
  */
@@ -39,6 +46,17 @@ public class SimpleAesEncryptor implements Encryptor {
 
     private static final String padding = "asldkalsdkadsdfkjsldfjl";
 
+    /**
+     * The max number of keys a thread caches Ciphers for.
+     */
+    private static final int MAX_KEYS = 100;
+
+    private final ThreadLocal<Map<String, AesCiphers>> threadCiphers = new ThreadLocal<Map<String, AesCiphers>>() {
+        protected Map<String, AesCiphers> initialValue() {
+            return new HashMap<String, AesCiphers>();
+        }
+    };
+
     public SimpleAesEncryptor() {
     }
 
@@ -67,27 +85,43 @@ public class SimpleAesEncryptor implements Encryptor {
         return new IvParameterSpec(initialVector.getBytes());
     }
 
+    /**
+     * Return the Ciphers for the key cached for this thread.
+     */
+    private AesCiphers getCiphers(EncryptKey encryptKey) {
+
+        String key = paddKey(encryptKey);
+        Map<String, AesCiphers> map = threadCiphers.get();
+        AesCiphers ciphers = map.get(key);
+        if (ciphers == null) {
+            if (map.size() >= MAX_KEYS) {
+                map.clear();
+            }
+            ciphers = new AesCiphers(key);
+            map.put(key, ciphers);
+        }
+        return ciphers;
+    }
+
+    /**
+     * Remove the Ciphers after an error as their state is unknown.
+     */
+    private void removeCiphers(AesCiphers ciphers) {
+        threadCiphers.get().remove(ciphers.key);
+    }
+
     public byte[] decrypt(byte[] data, EncryptKey encryptKey) {
 
         if (data == null) {
             return null;
         }
 
-        String key = paddKey(encryptKey);
-
+        AesCiphers ciphers = getCiphers(encryptKey);
         try {
-
-            byte[] keyBytes = getKeyBytes(key);
-            IvParameterSpec iv = getIvParameterSpec(key);
-
-            SecretKeySpec sks = new SecretKeySpec(keyBytes, "AES");
-            Cipher c = Cipher.getInstance(AES_CIPHER);
-
-            c.init(Cipher.DECRYPT_MODE, sks, iv);
-
-            return c.doFinal(data);
+            return ciphers.getDecrypt().doFinal(data);
 
         } catch (Exception e) {
+            removeCiphers(ciphers);
             throw new RuntimeException(e);
         }
     }
@@ -98,20 +132,12 @@ public class SimpleAesEncryptor implements Encryptor {
             return null;
         }
 
-        String key = paddKey(encryptKey);
-
+        AesCiphers ciphers = getCiphers(encryptKey);
         try {
-            byte[] keyBytes = getKeyBytes(key);
-            IvParameterSpec iv = getIvParameterSpec(key);
-
-            SecretKeySpec sks = new SecretKeySpec(keyBytes, "AES");
-            Cipher c = Cipher.getInstance(AES_CIPHER);
-
-            c.init(Cipher.ENCRYPT_MODE, sks, iv);
-
-            return c.doFinal(data);
+            return ciphers.getEncrypt().doFinal(data);
 
         } catch (Exception e) {
+            removeCiphers(ciphers);
             throw new RuntimeException(e);
         }
     }
@@ -144,4 +170,47 @@ public class SimpleAesEncryptor implements Encryptor {
         }
     }
 
+    /**
+     * The encrypt and decrypt Ciphers for a key. These are created when first
+     * used and reused as doFinal() resets a Cipher to its initialised state.
+     */
+    private class AesCiphers {
+
+        private final String key;
+
+        private Cipher encrypt;
+
+        private Cipher decrypt;
+
+        private AesCiphers(String key) {
+            this.key = key;
+        }
+
+        private Cipher getEncrypt() throws GeneralSecurityException {
+            if (encrypt == null) {
+                encrypt = createCipher(Cipher.ENCRYPT_MODE);
+            }
+            return encrypt;
+        }
+
+        private Cipher getDecrypt() throws GeneralSecurityException {
+            if (decrypt == null) {
+                decrypt = createCipher(Cipher.DECRYPT_MODE);
+            }
+            return decrypt;
+        }
+
+        private Cipher createCipher(int mode) throws GeneralSecurityException {
+
+            byte[] keyBytes = getKeyBytes(key);
+            IvParameterSpec iv = getIvParameterSpec(key);
+
+            SecretKeySpec sks = new SecretKeySpec(keyBytes, "AES");
+            Cipher c = Cipher.getInstance(AES_CIPHER);
+
+            c.init(mode, sks, iv);
+            return c;
+        }
+    }
+
 }
@@ -20,7 +20,9 @@
 package com.avaje.ebeaninternal.server.util;
 
 import java.io.File;
+import java.io.FileInputStream;
 import java.io.IOException;
+import java.io.InputStream;
 import java.io.UnsupportedEncodingException;
 import java.net.MalformedURLException;
 import java.net.URL;
@@ -34,11 +36,18 @@ import java.util.HashSet;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.jar.JarEntry;
 import java.util.jar.JarFile;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
 import com.avaje.ebean.config.GlobalProperties;
+import com.avaje.ebean.enhance.agent.BootupClassIndex;
 import com.avaje.ebeaninternal.api.ClassUtil;
 
 /**
@@ -48,6 +57,10 @@ import com.avaje.ebeaninternal.api.ClassUtil;
  * <p>
  * For example, used to find all the Entity beans and ScalarTypes for Ebean.
  * </p>
+ * <p>
+ * Internally the classpath entries are read in parallel but the classes are
+ * loaded and matched by the calling thread.
+ * </p>
  */
 public class ClassPathSearch {
 
@@ -140,6 +153,14 @@ public class ClassPathSearch {
 
 	/**
 	 * Searches the class path for all matching classes.
+	 * <p>
+	 * By default the class bytes of each classpath entry are read in parallel
+	 * (or for a jar the candidates read from the index written by the enhancer)
+	 * and only the candidate classes are loaded. Classes whose bytes can not be
+	 * read are always loaded. Set
+	 * <code>ebean.classpath.readClassBytes=false</code> to load every class
+	 * in the searched packages instead.
+	 * </p>
 	 */
 	public List<Class<?>> findClasses() throws ClassNotFoundException {
 
@@ -148,6 +169,83 @@ public class ClassPathSearch {
 			return matchList;
 		}
 		
+		boolean readClassBytes = GlobalProperties.getBoolean("ebean.classpath.readClassBytes", true);
+		if (readClassBytes) {
+			searchClassBytes();
+		} else {
+			searchClasses();
+		}
+		
+		if (matchList.isEmpty()){
+			String msg = "No Entities found in ClassPath using ClassPathReader ["
+				+classPathReader+"] Classpath Searched[" + Arrays.toString(classPaths)+"]";
+			logger.warning(msg);
+		}
+
+		return matchList;
+	}
+
+	/**
+	 * Return the classpath entry as a File.
+	 */
+	private File getClassPathFile(int index, String charsetName) {
+		
+		File classPath;
+		if (URL.class.isInstance(classPaths[index])){
+			classPath = new File(((URL)classPaths[index]).getFile());
+		} else {
+			classPath = new File(classPaths[index].toString());
+		}
+		
+		try {
+			// URL Decode the path replacing %20 to space characters.
+			String path = URLDecoder.decode(classPath.getAbsolutePath(), charsetName);
+			return new File(path);
+			
+		} catch (UnsupportedEncodingException e) {
+			throw new RuntimeException(e);
+		}
+	}
+
+	private JarFile openJar(File classPath) throws ClassNotFoundException {
+		try {
+			// our resource is a jar
+			return new JarFile(classPath);
+
+		} catch (MalformedURLException ex) {
+			throw new ClassNotFoundException("Bad classpath. Error: ", ex);
+
+		} catch (IOException ex) {
+			String msg = "jar file '" + classPath.getAbsolutePath()
+					+ "' could not be instantiate from file path. Error: ";
+			throw new ClassNotFoundException(msg, ex);
+		}
+	}
+
+	private void closeJar(JarFile module) throws ClassNotFoundException {
+		if (module != null) {
+			try {
+				// close the jar if it was used
+				module.close();
+			} catch (IOException e) {
+				String msg = "Error closing jar";
+				throw new ClassNotFoundException(msg, e);
+			}
+		}
+	}
+
+	private void logUnexpectedEntry(File classPath) {
+		// this is not expected
+		String msg = "Error: expected classPath entry ["+classPath.getAbsolutePath()
+		+"] to be a directory or a .jar file but it is not either of those?";
+		logger.log(Level.SEVERE, msg);
+	}
+
+	/**
+	 * Load each class in the searched packages checking it with the matcher.
+	 */
+	private void searchClasses() throws ClassNotFoundException {
+		
 		String charsetName = Charset.defaultCharset().name();
 
 		for (int h = 0; h < classPaths.length; h++) {
@@ -157,21 +255,7 @@ public class ClassPathSearch {
 			JarFile module = null;
 
 			// for each class path ...
-			File classPath;
-			if (URL.class.isInstance(classPaths[h])){
-				classPath = new File(((URL)classPaths[h]).getFile());
-			} else {
-				classPath = new File(classPaths[h].toString());
-			}
-			
-			try {
-				// URL Decode the path replacing %20 to space characters.
-				String path = URLDecoder.decode(classPath.getAbsolutePath(), charsetName);
-				classPath = new File(path);
-				
-			} catch (UnsupportedEncodingException e) {
-				throw new RuntimeException(e);
-			}
+			File classPath = getClassPathFile(h, charsetName);
 
 			if (classPath.isDirectory()) {
 				files = getDirectoryEnumeration(classPath);
@@ -182,46 +266,102 @@ public class ClassPathSearch {
 					// skip any jars not list in the filter
 					continue;
 				}
-				try {
-					// our resource is a jar
-					module = new JarFile(classPath);
-					files = module.entries();
-
-				} catch (MalformedURLException ex) {
-					throw new ClassNotFoundException("Bad classpath. Error: ", ex);
-
-				} catch (IOException ex) {
-					String msg = "jar file '" + classPath.getAbsolutePath()
-							+ "' could not be instantiate from file path. Error: ";
-					throw new ClassNotFoundException(msg, ex);
-				}
+				module = openJar(classPath);
+				files = module.entries();
+
 			} else {
-				// this is not expected
-				String msg = "Error: expected classPath entry ["+classPath.getAbsolutePath()
-				+"] to be a directory or a .jar file but it is not either of those?";
-				logger.log(Level.SEVERE, msg);
+				logUnexpectedEntry(classPath);
 			}
 
 			searchFiles(files, jarFileName);
+			closeJar(module);
+		}
+	}
 
-			if (module != null) {
-				try {
-					// close the jar if it was used
-					module.close();
-				} catch (IOException e) {
-					String msg = "Error closing jar";
-					throw new ClassNotFoundException(msg, e);
+	/**
+	 * Read the class bytes of each classpath entry in parallel and then load
+	 * just the candidate classes checking them with the matcher.
+	 * <p>
+	 * The candidates are determined after all the entries are read so that a
+	 * class extending a class in another jar is still found. The classes are
+	 * loaded in classpath order by this thread.
+	 * </p>
+	 */
+	private void searchClassBytes() throws ClassNotFoundException {
+
+		String charsetName = Charset.defaultCharset().name();
+
+		List<EntryReader> readers = new ArrayList<EntryReader>(classPaths.length);
+		for (int h = 0; h < classPaths.length; h++) {
+			File classPath = getClassPathFile(h, charsetName);
+			if (classPath.isDirectory()) {
+				readers.add(new EntryReader(classPath, null));
+
+			} else if (classPath.getName().endsWith(".jar")) {
+				String jarFileName = classPath.getName();
+				if (filter.isSearchJar(jarFileName)) {
+					readers.add(new EntryReader(classPath, jarFileName));
 				}
+			} else {
+				logUnexpectedEntry(classPath);
 			}
 		}
-		
-		if (matchList.isEmpty()){
-			String msg = "No Entities found in ClassPath using ClassPathReader ["
-				+classPathReader+"] Classpath Searched[" + Arrays.toString(classPaths)+"]";
-			logger.warning(msg);
+		if (readers.isEmpty()) {
+			return;
 		}
 
-		return matchList;
+		int threads = Math.min(readers.size(), Runtime.getRuntime().availableProcessors());
+		ExecutorService executor = Executors.newFixedThreadPool(Math.max(1, threads));
+		try {
+			List<Future<EntryReader>> futures = executor.invokeAll(readers);
+			for (int i = 0; i < futures.size(); i++) {
+				futures.get(i).get();
+			}
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new RuntimeException("Interrupted searching the classpath", e);
+
+		} catch (ExecutionException e) {
+			Throwable cause = e.getCause();
+			if (cause instanceof ClassNotFoundException) {
+				throw (ClassNotFoundException) cause;
+			}
+			throw new RuntimeException("Error searching the classpath", cause);
+
+		} finally {
+			executor.shutdown();
+		}
+
+		// determine the candidates across all the entries read
+		BootupClassIndex allClasses = new BootupClassIndex();
+		for (int i = 0; i < readers.size(); i++) {
+			BootupClassIndex index = readers.get(i).classIndex;
+			if (index != null) {
+				allClasses.addAll(index);
+			}
+		}
+		Set<String> candidates = new HashSet<String>(allClasses.getCandidates());
+
+		for (int i = 0; i < readers.size(); i++) {
+			EntryReader reader = readers.get(i);
+			List<String> classNames;
+			if (reader.indexedCandidates != null) {
+				classNames = reader.indexedCandidates;
+			} else {
+				classNames = reader.classIndex.getClassNames();
+			}
+			for (int j = 0; j < classNames.size(); j++) {
+				String className = classNames.get(j);
+				if (reader.indexedCandidates != null) {
+					if (!filter.isSearchPackage(getPackageName(className))) {
+						continue;
+					}
+				} else if (!candidates.contains(className)) {
+					continue;
+				}
+				matchClass(className, reader.jarFileName);
+			}
+		}
 	}
 
 	private Enumeration<?> getDirectoryEnumeration(File classPath) {
@@ -261,40 +401,43 @@ public class ClassPathSearch {
 			if (fileName.endsWith(".class")) {
 
 				String className = fileName.replace('/', '.').substring(0, fileName.length() - 6);
-				int lastPeriod = className.lastIndexOf(".");
-				
-				String pckgName;
-				if (lastPeriod > 0){
-					pckgName = className.substring(0, lastPeriod);
-				} else {
-					pckgName = "";
+				if (filter.isSearchPackage(getPackageName(className))) {
+					matchClass(className, jarFileName);
 				}
+			}
+		}
+	}
 
-				if (!filter.isSearchPackage(pckgName)) {
-					continue;
-				}
+	private String getPackageName(String className) {
+		int lastPeriod = className.lastIndexOf(".");
+		if (lastPeriod > 0){
+			return className.substring(0, lastPeriod);
+		} else {
+			return "";
+		}
+	}
 
-				// get the class for our class name
-				Class<?> theClass = null;
-				try {
-					theClass = Class.forName(className, false, classLoader);
+	/**
+	 * Load the class and add it to the matchList if it matches.
+	 */
+	private void matchClass(String className, String jarFileName) {
+		
+		try {
+			// get the class for our class name
+			Class<?> theClass = Class.forName(className, false, classLoader);
 
-					if (matcher.isMatch(theClass)) {
-						matchList.add(theClass);
-						registerHit(jarFileName, theClass);
-					}
+			if (matcher.isMatch(theClass)) {
+				matchList.add(theClass);
+				registerHit(jarFileName, theClass);
+			}
 
-				} catch (ClassNotFoundException e) {
-					// expected to get this hence finer
-					logger.finer("Error searching classpath" + e.getMessage());
-					continue;
+		} catch (ClassNotFoundException e) {
+			// expected to get this hence finer
+			logger.finer("Error searching classpath" + e.getMessage());
 
-				} catch (NoClassDefFoundError e) {
-					// expected to get this hence finer
-					logger.finer("Error searching classpath: " + e.getMessage());
-					continue;
-				}
-			}
+		} catch (NoClassDefFoundError e) {
+			// expected to get this hence finer
+			logger.finer("Error searching classpath: " + e.getMessage());
 		}
 	}
 
@@ -320,4 +463,104 @@ public class ClassPathSearch {
 			fileNameList.add(relativePath.toString());
 		}
 	}
+
+	/**
+	 * Reads the classes of a classpath entry. If the entry has an index written
+	 * by the enhancer just the candidates in the index are read.
+	 */
+	private class EntryReader implements Callable<EntryReader> {
+
+		private final File classPath;
+
+		private final String jarFileName;
+
+		private List<String> indexedCandidates;
+
+		private BootupClassIndex classIndex;
+
+		private EntryReader(File classPath, String jarFileName) {
+			this.classPath = classPath;
+			this.jarFileName = jarFileName;
+		}
+
+		public EntryReader call() throws Exception {
+			if (jarFileName == null) {
+				readDirectory();
+			} else {
+				readJar();
+			}
+			return this;
+		}
+
+		/**
+		 * Read the classes in a directory.
+		 * <p>
+		 * Any bootup index is ignored as classes are added to a directory (by an
+		 * IDE for example) without it being rewritten.
+		 * </p>
+		 */
+		private void readDirectory() throws IOException {
+
+			classIndex = new BootupClassIndex();
+			Enumeration<?> files = getDirectoryEnumeration(classPath);
+			while (files.hasMoreElements()) {
+				String fileName = files.nextElement().toString();
+				if (isSearchClassFile(fileName)) {
+					InputStream is = new FileInputStream(new File(classPath, fileName));
+					try {
+						addClass(is, fileName);
+					} finally {
+						is.close();
+					}
+				}
+			}
+		}
+
+		private void readJar() throws ClassNotFoundException, IOException {
+
+			JarFile module = openJar(classPath);
+			try {
+				JarEntry indexEntry = module.getJarEntry(BootupClassIndex.RESOURCE);
+				if (indexEntry != null) {
+					indexedCandidates = BootupClassIndex.read(module.getInputStream(indexEntry));
+					return;
+				}
+
+				classIndex = new BootupClassIndex();
+				Enumeration<JarEntry> entries = module.entries();
+				while (entries.hasMoreElements()) {
+					JarEntry entry = entries.nextElement();
+					if (isSearchClassFile(entry.getName())) {
+						InputStream is = module.getInputStream(entry);
+						try {
+							addClass(is, entry.getName());
+						} finally {
+							is.close();
+						}
+					}
+				}
+			} finally {
+				closeJar(module);
+			}
+		}
+
+		private boolean isSearchClassFile(String fileName) {
+			if (!fileName.endsWith(".class")) {
+				return false;
+			}
+			String className = fileName.replace('/', '.').substring(0, fileName.length() - 6);
+			return filter.isSearchPackage(getPackageName(className));
+		}
+
+		private void addClass(InputStream is, String fileName) {
+			try {
+				classIndex.add(is);
+			} catch (Exception e) {
+				// can not read the bytes so load and check it instead
+				String className = fileName.substring(0, fileName.length() - 6);
+				logger.fine("Unable to read class bytes of " + fileName + " " + e);
+				classIndex.addUnreadable(className);
+			}
+		}
+	}
 }
@@ -1,5 +1,6 @@
 package com.avaje.ebeaninternal.util;
 
+import java.io.Writer;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.List;
@@ -157,6 +158,10 @@ public class DefaultExpressionList<T> implements SpiExpressionList<T> {
     return query.findPagingList(pageSize);
   }
 
+  public PagingList<T> findKeysetPagingList(int pageSize) {
+    return query.findKeysetPagingList(pageSize);
+  }
+
   public int findRowCount() {
     return query.findRowCount();
   }
@@ -169,10 +174,22 @@ public class DefaultExpressionList<T> implements SpiExpressionList<T> {
     query.findVisit(visitor);
   }
 
+  public void findVisitParallel(int partitions, QueryResultVisitor<T> visitor) {
+    query.findVisitParallel(partitions, visitor);
+  }
+
+  public void findVisitParallel(List<Expression> partitions, QueryResultVisitor<T> visitor) {
+    query.findVisitParallel(partitions, visitor);
+  }
+
   public QueryIterator<T> findIterate() {
     return query.findIterate();
   }
 
+  public void findJson(Writer writer) {
+    query.findJson(writer);
+  }
+
   public List<T> findList() {
     return query.findList();
   }
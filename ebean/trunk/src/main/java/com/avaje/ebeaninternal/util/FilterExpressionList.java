@@ -88,6 +88,10 @@ public class FilterExpressionList<T> extends DefaultExpressionList<T> {
         return rootQuery.findPagingList(pageSize);
     }
 
+    public PagingList<T> findKeysetPagingList(int pageSize) {
+        return rootQuery.findKeysetPagingList(pageSize);
+    }
+
     public int findRowCount() {
         return rootQuery.findRowCount();
     }
@@ -0,0 +1,49 @@
+package com.avaje.ebeaninternal.server.cache;
+
+import java.util.Arrays;
+
+import junit.framework.TestCase;
+
+import org.junit.Assert;
+
+public class TestOffHeapSlabStore extends TestCase {
+
+    public void testWriteRead() {
+
+        OffHeapSlabStore store = new OffHeapSlabStore(1024);
+        Assert.assertEquals(1024, store.getCapacity());
+
+        byte[] one = "one".getBytes();
+        byte[] two = "two two".getBytes();
+
+        long loc1 = store.write(one);
+        long loc2 = store.write(two);
+
+        Assert.assertTrue(Arrays.equals(one, store.read(loc1)));
+        Assert.assertTrue(Arrays.equals(two, store.read(loc2)));
+    }
+
+    public void testTooLarge() {
+
+        OffHeapSlabStore store = new OffHeapSlabStore(1024);
+        Assert.assertEquals(-1, store.write(new byte[600]));
+    }
+
+    public void testSlabReuseEvicts() {
+
+        // 2 slabs of 512 bytes
+        OffHeapSlabStore store = new OffHeapSlabStore(1024);
+
+        long first = store.write(new byte[300]);
+        store.write(new byte[300]);
+        Assert.assertEquals(0, store.getRecycleCount());
+        Assert.assertTrue(store.isValid(first));
+
+        // wraps back into the first slab
+        long third = store.write(new byte[300]);
+        Assert.assertEquals(1, store.getRecycleCount());
+        Assert.assertFalse(store.isValid(first));
+        Assert.assertNull(store.read(first));
+        Assert.assertEquals(300, store.read(third).length);
+    }
+}
@@ -0,0 +1,86 @@
+package com.avaje.ebeaninternal.server.cache;
+
+import junit.framework.TestCase;
+
+import org.junit.Assert;
+
+import com.avaje.ebean.cache.ServerCacheStatistics;
+
+public class TestTinyLfuServerCache extends TestCase {
+
+    public void testMaxSizeOnEveryPut() {
+
+        TinyLfuServerCache cache = new TinyLfuServerCache("test", 100, 0, 0);
+        for (int i = 0; i < 1000; i++) {
+            cache.put(Integer.valueOf(i), "v" + i);
+            Assert.assertTrue(cache.size() <= 100);
+        }
+        Assert.assertEquals(100, cache.size());
+        Assert.assertEquals(900, cache.getEvictCount());
+    }
+
+    public void testFrequentKeysRetained() {
+
+        TinyLfuServerCache cache = new TinyLfuServerCache("test", 100, 0, 0);
+        for (int i = 0; i < 50; i++) {
+            cache.put("hot" + i, "v");
+        }
+        for (int round = 0; round < 5; round++) {
+            for (int i = 0; i < 50; i++) {
+                Assert.assertNotNull(cache.get("hot" + i));
+            }
+        }
+
+        // a scan of one hit wonders should not flush the hot entries
+        for (int i = 0; i < 500; i++) {
+            cache.put("scan" + i, "v");
+        }
+
+        int retained = 0;
+        for (int i = 0; i < 50; i++) {
+            if (cache.get("hot" + i) != null) {
+                retained++;
+            }
+        }
+        Assert.assertEquals(50, retained);
+    }
+
+    public void testStatistics() {
+
+        TinyLfuServerCache cache = new TinyLfuServerCache("test", 10, 0, 0);
+        cache.put("a", "A");
+        Assert.assertEquals("A", cache.get("a"));
+        Assert.assertNull(cache.get("b"));
+
+        Assert.assertEquals(50, cache.getHitRatio());
+
+        ServerCacheStatistics statistics = cache.getStatistics(true);
+        Assert.assertEquals(1, statistics.getHitCount());
+        Assert.assertEquals(1, statistics.getMissCount());
+        Assert.assertEquals(1, statistics.getSize());
+
+        statistics = cache.getStatistics(false);
+        Assert.assertEquals(0, statistics.getHitCount());
+    }
+
+    public void testRemoveAndPutIfAbsent() {
+
+        TinyLfuServerCache cache = new TinyLfuServerCache("test", 10, 0, 0);
+        Assert.assertNull(cache.putIfAbsent("a", "A"));
+        Assert.assertEquals("A", cache.putIfAbsent("a", "B"));
+        Assert.assertEquals("A", cache.put("a", "C"));
+        Assert.assertEquals("C", cache.remove("a"));
+        Assert.assertNull(cache.get("a"));
+        Assert.assertEquals(0, cache.size());
+    }
+
+    public void testTimeToLive() throws InterruptedException {
+
+        TinyLfuServerCache cache = new TinyLfuServerCache("test", 10, 0, 1);
+        cache.put("a", "A");
+        Assert.assertEquals("A", cache.get("a"));
+        Thread.sleep(1100);
+        Assert.assertNull(cache.get("a"));
+        Assert.assertEquals(0, cache.size());
+    }
+}
@@ -0,0 +1,123 @@
+package com.avaje.ebeaninternal.server.lib.sql;
+
+import java.sql.Connection;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import junit.framework.TestCase;
+
+import org.junit.Assert;
+
+import com.avaje.ebean.config.DataSourceConfig;
+import com.avaje.ebeaninternal.server.lib.sql.DataSourcePool.Status;
+
+/**
+ * Contention test of the locking and lock free connection queues.
+ * <p>
+ * Checks that a connection is never handed out to two threads at the same
+ * time and that all the connections are returned.
+ * </p>
+ */
+public class TestDataSourceContention extends TestCase {
+
+    private static final int THREADS = 40;
+
+    private static final int LOOPS = 500;
+
+    public void testLocking() throws InterruptedException {
+        runContention(false, THREADS, LOOPS);
+    }
+
+    public void testLockFree() throws InterruptedException {
+        runContention(true, THREADS, LOOPS);
+    }
+
+    private void runContention(boolean lockFree, int threads, int loops) throws InterruptedException {
+
+        String name = "h2";
+
+        DataSourceConfig dsConfig = new DataSourceConfig();
+        dsConfig.loadSettings(name);
+        dsConfig.setPoolListener(null);
+        dsConfig.setCaptureStackTrace(false);
+        dsConfig.setMinConnections(2);
+        dsConfig.setMaxConnections(10);
+        dsConfig.setWaitTimeoutMillis(30000);
+        dsConfig.setLockFreeQueue(lockFree);
+
+        DataSourcePool pool = new DataSourcePool(null, name, dsConfig);
+
+        CountDownLatch startLatch = new CountDownLatch(1);
+        CountDownLatch doneLatch = new CountDownLatch(threads);
+        AtomicInteger errors = new AtomicInteger();
+        AtomicInteger doubleClaims = new AtomicInteger();
+        ConcurrentHashMap<Connection, Thread> inUse = new ConcurrentHashMap<Connection, Thread>();
+
+        for (int i = 0; i < threads; i++) {
+            new Thread(new BorrowRunner(pool, loops, startLatch, doneLatch, errors, doubleClaims, inUse)).start();
+        }
+
+        startLatch.countDown();
+        doneLatch.await();
+
+        Status status = pool.getStatus(false);
+        try {
+            Assert.assertEquals(0, errors.get());
+            Assert.assertEquals(0, doubleClaims.get());
+            Assert.assertTrue(inUse.isEmpty());
+
+            // all the connections are returned
+            Assert.assertEquals(0, status.getBusy());
+            Assert.assertTrue(status.getFree() >= 2);
+            Assert.assertTrue(status.getFree() <= 10);
+
+            Assert.assertEquals(threads * loops, status.getHitCount());
+            Assert.assertTrue(status.getHighWaterMark() <= 10);
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    private static class BorrowRunner implements Runnable {
+
+        final DataSourcePool pool;
+        final int loops;
+        final CountDownLatch startLatch;
+        final CountDownLatch doneLatch;
+        final AtomicInteger errors;
+        final AtomicInteger doubleClaims;
+        final ConcurrentHashMap<Connection, Thread> inUse;
+
+        BorrowRunner(DataSourcePool pool, int loops, CountDownLatch startLatch, CountDownLatch doneLatch, AtomicInteger errors,
+                AtomicInteger doubleClaims, ConcurrentHashMap<Connection, Thread> inUse) {
+            this.pool = pool;
+            this.loops = loops;
+            this.startLatch = startLatch;
+            this.doneLatch = doneLatch;
+            this.errors = errors;
+            this.doubleClaims = doubleClaims;
+            this.inUse = inUse;
+        }
+
+        public void run() {
+            try {
+                startLatch.await();
+                for (int i = 0; i < loops; i++) {
+                    Connection connection = pool.getConnection();
+                    if (inUse.putIfAbsent(connection, Thread.currentThread()) != null) {
+                        // handed out to another thread as well
+                        doubleClaims.incrementAndGet();
+                    }
+                    Thread.yield();
+                    inUse.remove(connection, Thread.currentThread());
+                    connection.close();
+                }
+            } catch (Exception e) {
+                errors.incrementAndGet();
+            } finally {
+                doneLatch.countDown();
+            }
+        }
+    }
+}
@@ -0,0 +1,129 @@
+package com.avaje.ebeaninternal.server.lib.sql;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.List;
+
+import junit.framework.TestCase;
+
+import org.junit.Assert;
+
+import com.avaje.ebean.config.DataSourceConfig;
+
+public class TestPstmtStatistics extends TestCase {
+
+    public void testKeyEquality() {
+
+        String sql = "select 1";
+        PstmtKey k0 = new PstmtKey(sql, -1);
+        PstmtKey k1 = new PstmtKey(new String(sql), -1);
+        Assert.assertEquals(k0, k1);
+        Assert.assertEquals(k0.hashCode(), k1.hashCode());
+        Assert.assertFalse(k0.equals(new PstmtKey(sql, 1)));
+
+        // colliding plan hashes still compare the sql
+        PstmtKey p0 = new PstmtKey(42, "select 1", -1);
+        PstmtKey p1 = new PstmtKey(42, "select 2", -1);
+        Assert.assertEquals(p0.hashCode(), p1.hashCode());
+        Assert.assertFalse(p0.equals(p1));
+        Assert.assertEquals(p0, new PstmtKey(42, "select 1", -1));
+    }
+
+    public void testMaxShapes() {
+
+        PstmtStatistics stats = new PstmtStatistics(2);
+        Assert.assertNotNull(stats.getShape(new PstmtKey("a", -1)));
+        Assert.assertNotNull(stats.getShape(new PstmtKey("b", -1)));
+        Assert.assertNull(stats.getShape(new PstmtKey("c", -1)));
+        Assert.assertNotNull(stats.getShape(new PstmtKey("a", -1)));
+        Assert.assertEquals(2, stats.getShapeCount());
+        Assert.assertEquals(1, stats.getUntrackedCount());
+    }
+
+    public void testExecuteAndEvict() throws SQLException {
+
+        String name = "h2";
+
+        DataSourceConfig dsConfig = new DataSourceConfig();
+        dsConfig.loadSettings(name);
+        dsConfig.setPoolListener(null);
+        dsConfig.setMinConnections(1);
+        dsConfig.setMaxConnections(1);
+        dsConfig.setPstmtCacheSize(2);
+
+        DataSourcePool pool = new DataSourcePool(null, name, dsConfig);
+        try {
+            Connection conn = pool.getConnection();
+            try {
+                for (int i = 0; i < 3; i++) {
+                    execute(conn, "select 1");
+                }
+                // with a cache size of 2 this evicts "select 1"
+                execute(conn, "select 2");
+                execute(conn, "select 3");
+                execute(conn, "select 1");
+            } finally {
+                conn.close();
+            }
+
+            PstmtStatistics stats = pool.getPstmtStatistics();
+            List<PstmtStatistics.Shape> shapes = stats.getShapes(1);
+            Assert.assertEquals(1, shapes.size());
+
+            PstmtStatistics.Shape top = shapes.get(0);
+            Assert.assertEquals("select 1", top.getSql());
+            Assert.assertEquals(4, top.getExecuteCount());
+            Assert.assertEquals(2, top.getPrepareCount());
+            Assert.assertEquals(1, top.getEvictCount());
+            Assert.assertTrue(stats.getEvictCount() >= 1);
+
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    public void testNoPlanHash() throws SQLException {
+
+        String name = "h2";
+
+        DataSourceConfig dsConfig = new DataSourceConfig();
+        dsConfig.loadSettings(name);
+        dsConfig.setPoolListener(null);
+        dsConfig.setMinConnections(1);
+        dsConfig.setMaxConnections(1);
+
+        DataSourcePool pool = new DataSourcePool(null, name, dsConfig);
+        try {
+            PooledConnection conn = (PooledConnection) pool.getConnection();
+            try {
+                // plans without a hash are keyed by the sql
+                execute(conn.preparePlanStatement(0, "select 1"));
+                execute(conn.preparePlanStatement(0, "select 2"));
+                execute(conn.prepareStatement("select 1"));
+            } finally {
+                conn.close();
+            }
+
+            List<PstmtStatistics.Shape> shapes = pool.getPstmtStatistics().getShapes(0);
+            Assert.assertEquals(2, shapes.size());
+            Assert.assertEquals("select 1", shapes.get(0).getSql());
+            Assert.assertEquals(2, shapes.get(0).getExecuteCount());
+            Assert.assertEquals(1, shapes.get(0).getPrepareCount());
+
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    private void execute(Connection conn, String sql) throws SQLException {
+        execute(conn.prepareStatement(sql));
+    }
+
+    private void execute(PreparedStatement pstmt) throws SQLException {
+        ResultSet rset = pstmt.executeQuery();
+        rset.close();
+        pstmt.close();
+    }
+}
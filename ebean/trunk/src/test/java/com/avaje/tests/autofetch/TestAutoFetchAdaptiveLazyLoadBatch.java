@@ -0,0 +1,75 @@
+package com.avaje.tests.autofetch;
+
+import junit.framework.TestCase;
+
+import org.junit.Assert;
+
+import com.avaje.ebean.Ebean;
+import com.avaje.ebean.bean.CallStack;
+import com.avaje.ebean.bean.NodeUsageCollector;
+import com.avaje.ebean.bean.ObjectGraphNode;
+import com.avaje.ebean.bean.ObjectGraphOrigin;
+import com.avaje.ebeaninternal.api.SpiEbeanServer;
+import com.avaje.ebeaninternal.server.autofetch.AutoFetchManager;
+import com.avaje.tests.model.basic.Order;
+
+public class TestAutoFetchAdaptiveLazyLoadBatch extends TestCase {
+
+    public void testBatchSize() {
+
+        SpiEbeanServer server = (SpiEbeanServer) Ebean.getServer(null);
+        AutoFetchManager manager = server.getAutoFetchManager();
+
+        CallStack callStack = new CallStack(new Throwable().getStackTrace());
+        ObjectGraphOrigin origin = new ObjectGraphOrigin(42, callStack, Order.class.getName());
+        ObjectGraphNode rootNode = new ObjectGraphNode(origin, null);
+        ObjectGraphNode customerNode = new ObjectGraphNode(origin, "customer");
+
+        boolean adaptive = manager.isLazyLoadBatchAdaptive();
+        try {
+            manager.setLazyLoadBatchAdaptive(true);
+
+            // not enough profiling yet
+            Assert.assertEquals(20, manager.getLazyLoadBatchSize(customerNode, null, 20, 40));
+
+            for (int i = 0; i < 20; i++) {
+                NodeUsageCollector customerUsage = new NodeUsageCollector(customerNode, null);
+                if (i % 4 == 0) {
+                    customerUsage.addUsed("name");
+                }
+                manager.collectNodeUsage(customerUsage);
+
+                NodeUsageCollector orderUsage = new NodeUsageCollector(rootNode, null);
+                orderUsage.addUsed("status");
+                if (i % 2 == 0) {
+                    orderUsage.addUsed("details");
+                }
+                manager.collectNodeUsage(orderUsage);
+            }
+            manager.mergeStatistics();
+
+            // a quarter of the customers were used
+            Assert.assertEquals(10, manager.getLazyLoadBatchSize(customerNode, null, 20, 40));
+            Assert.assertEquals(1, manager.getLazyLoadBatchSize(customerNode, null, 20, 1));
+
+            // a quarter of 80 rounded up to the next batch size
+            Assert.assertEquals(20, manager.getLazyLoadBatchSize(customerNode, null, 20, 80));
+            Assert.assertEquals(50, manager.getLazyLoadBatchSize(customerNode, null, 20, 100));
+            Assert.assertEquals(50, manager.getLazyLoadBatchSize(customerNode, null, 20, 200));
+            Assert.assertEquals(100, manager.getLazyLoadBatchSize(customerNode, null, 20, 1000));
+
+            // half of the orders used their details (4 rounded up to 5)
+            Assert.assertEquals(5, manager.getLazyLoadBatchSize(rootNode, "details", 20, 8));
+            Assert.assertEquals(5, manager.getLazyLoadBatchSize(rootNode, "details", 20, 6));
+
+            String sizes = manager.getLazyLoadBatchSizes();
+            Assert.assertTrue(sizes.contains("path[details] batch[5]"));
+
+            manager.setLazyLoadBatchAdaptive(false);
+            Assert.assertEquals(20, manager.getLazyLoadBatchSize(customerNode, null, 20, 40));
+
+        } finally {
+            manager.setLazyLoadBatchAdaptive(adaptive);
+        }
+    }
+}
@@ -0,0 +1,63 @@
+package com.avaje.tests.autofetch;
+
+import java.util.List;
+
+import junit.framework.TestCase;
+
+import org.junit.Assert;
+
+import com.avaje.ebean.Ebean;
+import com.avaje.ebean.bean.CallStack;
+import com.avaje.ebean.bean.NodeUsageCollector;
+import com.avaje.ebean.bean.ObjectGraphNode;
+import com.avaje.ebean.bean.ObjectGraphOrigin;
+import com.avaje.ebean.meta.MetaAutoFetchStatistic;
+import com.avaje.ebean.meta.MetaAutoFetchStatistic.NodeUsageStats;
+import com.avaje.ebean.meta.MetaAutoFetchStatistic.QueryStats;
+import com.avaje.ebeaninternal.api.SpiEbeanServer;
+import com.avaje.ebeaninternal.server.autofetch.AutoFetchManager;
+import com.avaje.tests.model.basic.Order;
+
+public class TestAutoFetchConcurrentCollect extends TestCase {
+
+    public void testCollect() throws InterruptedException {
+
+        SpiEbeanServer server = (SpiEbeanServer) Ebean.getServer(null);
+        final AutoFetchManager manager = server.getAutoFetchManager();
+
+        CallStack callStack = new CallStack(new Throwable().getStackTrace());
+        ObjectGraphOrigin origin = new ObjectGraphOrigin(43, callStack, Order.class.getName());
+        final ObjectGraphNode rootNode = new ObjectGraphNode(origin, null);
+
+        Thread[] threads = new Thread[8];
+        for (int t = 0; t < threads.length; t++) {
+            threads[t] = new Thread() {
+                public void run() {
+                    for (int i = 0; i < 1000; i++) {
+                        manager.collectQueryInfo(rootNode, 10, 5);
+                        NodeUsageCollector usage = new NodeUsageCollector(rootNode, null);
+                        usage.addUsed("status");
+                        manager.collectNodeUsage(usage);
+                    }
+                }
+            };
+            threads[t].start();
+        }
+        for (int t = 0; t < threads.length; t++) {
+            threads[t].join();
+        }
+
+        // merges the buffered profiling information
+        MetaAutoFetchStatistic stats = manager.getStatistics(origin.getKey()).createPublicMeta();
+
+        List<NodeUsageStats> nodeUsage = stats.getNodeUsageStats();
+        Assert.assertEquals(1, nodeUsage.size());
+        Assert.assertEquals(8000, nodeUsage.get(0).getProfileCount());
+        Assert.assertEquals(8000, nodeUsage.get(0).getProfileUsedCount());
+
+        List<QueryStats> queryStats = stats.getQueryStats();
+        Assert.assertEquals(1, queryStats.size());
+        Assert.assertEquals(8000, queryStats.get(0).getExeCount());
+        Assert.assertEquals(80000, queryStats.get(0).getTotalBeanLoaded());
+    }
+}
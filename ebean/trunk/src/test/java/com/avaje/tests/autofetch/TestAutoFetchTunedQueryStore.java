@@ -0,0 +1,120 @@
+package com.avaje.tests.autofetch;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+
+import junit.framework.TestCase;
+
+import org.junit.Assert;
+
+import com.avaje.ebean.bean.CallStack;
+import com.avaje.ebean.bean.ObjectGraphOrigin;
+import com.avaje.ebeaninternal.server.autofetch.TunedQueryInfo;
+import com.avaje.ebeaninternal.server.autofetch.TunedQueryStore;
+import com.avaje.ebeaninternal.server.querydefn.OrmQueryDetail;
+import com.avaje.tests.model.basic.Order;
+
+public class TestAutoFetchTunedQueryStore extends TestCase {
+
+    private final CallStack callStack = new CallStack(new Throwable().getStackTrace());
+
+    public void testAppendAndLoad() throws IOException {
+
+        File file = File.createTempFile("ebean-autofetch", ".tuned");
+        file.delete();
+        try {
+            TunedQueryInfo first = createTunedQuery(1, "status");
+            TunedQueryInfo second = createTunedQuery(2, "status, orderDate");
+
+            TunedQueryStore store = new TunedQueryStore(file);
+            store.append(first);
+            store.append(second);
+            TunedQueryInfo firstChanged = createTunedQuery(1, "orderDate");
+            store.append(firstChanged);
+            store.close();
+
+            // the file is appended to as it changes
+            store = new TunedQueryStore(file);
+            Assert.assertEquals(2, store.size());
+            Assert.assertEquals(2, store.keys().size());
+            Assert.assertTrue(store.keys().contains(first.getOrigin().getKey()));
+            Assert.assertNull(store.load("notThere"));
+
+            TunedQueryInfo loaded = store.load(first.getOrigin().getKey());
+            Assert.assertNotNull(loaded);
+            Assert.assertEquals(firstChanged.getTunedDetail().toString(), loaded.getTunedDetail().toString());
+            Assert.assertEquals(5, loaded.getProfileCount());
+
+            // only loaded once
+            Assert.assertNull(store.load(first.getOrigin().getKey()));
+            Assert.assertEquals(1, store.size());
+            store.close();
+
+            // partially written last record
+            RandomAccessFile raf = new RandomAccessFile(file, "rw");
+            raf.setLength(raf.length() - 10);
+            raf.close();
+
+            store = new TunedQueryStore(file);
+            Assert.assertEquals(2, store.size());
+            loaded = store.load(second.getOrigin().getKey());
+            Assert.assertEquals(second.getTunedDetail().toString(), loaded.getTunedDetail().toString());
+            store.close();
+
+        } finally {
+            file.delete();
+        }
+    }
+
+    public void testCompactAndClear() throws IOException {
+
+        File file = File.createTempFile("ebean-autofetch", ".tuned");
+        file.delete();
+        try {
+            TunedQueryInfo first = createTunedQuery(1, "status");
+            TunedQueryInfo second = createTunedQuery(2, "orderDate");
+
+            TunedQueryStore store = new TunedQueryStore(file);
+            store.append(first);
+            long oneRecord = file.length();
+            for (int i = 0; i < 1500; i++) {
+                store.append(second);
+            }
+
+            // compacted as records are appended
+            Assert.assertTrue(file.length() < 1000 * oneRecord);
+            store.append(first);
+            store.close();
+
+            store = new TunedQueryStore(file);
+            Assert.assertEquals(2, store.size());
+            TunedQueryInfo loaded = store.load(second.getOrigin().getKey());
+            Assert.assertEquals(second.getTunedDetail().toString(), loaded.getTunedDetail().toString());
+
+            // cleared and still usable
+            store.clear();
+            Assert.assertEquals(0, store.size());
+            Assert.assertEquals(0, file.length());
+            store.append(first);
+            store.close();
+
+            store = new TunedQueryStore(file);
+            Assert.assertEquals(1, store.size());
+            Assert.assertNotNull(store.load(first.getOrigin().getKey()));
+            store.close();
+
+        } finally {
+            file.delete();
+        }
+    }
+
+    private TunedQueryInfo createTunedQuery(int queryHash, String select) {
+
+        ObjectGraphOrigin origin = new ObjectGraphOrigin(queryHash, callStack, Order.class.getName());
+
+        OrmQueryDetail detail = new OrmQueryDetail();
+        detail.select(select);
+        return new TunedQueryInfo(origin, detail, 5);
+    }
+}
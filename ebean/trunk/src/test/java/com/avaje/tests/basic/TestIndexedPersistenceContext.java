@@ -0,0 +1,104 @@
+package com.avaje.tests.basic;
+
+import java.util.List;
+
+import junit.framework.Assert;
+import junit.framework.TestCase;
+
+import com.avaje.ebean.Ebean;
+import com.avaje.ebean.Transaction;
+import com.avaje.ebean.bean.PersistenceContext;
+import com.avaje.ebeaninternal.api.SpiTransaction;
+import com.avaje.ebeaninternal.server.transaction.IndexedPersistenceContext;
+import com.avaje.ebeaninternal.server.transaction.PersistenceContextFactory;
+import com.avaje.tests.model.basic.Customer;
+import com.avaje.tests.model.basic.Order;
+import com.avaje.tests.model.basic.ResetBasicData;
+
+public class TestIndexedPersistenceContext extends TestCase {
+
+	public void testIds() {
+
+		IndexedPersistenceContext ctx = new IndexedPersistenceContext();
+
+		Order[] orders = new Order[1000];
+		for (int i = 0; i < orders.length; i++) {
+			orders[i] = new Order();
+			Assert.assertNull(ctx.putIfAbsent(Integer.valueOf(i), orders[i]));
+		}
+		Assert.assertEquals(1000, ctx.size(Order.class));
+
+		// Integer and Long ids are distinct
+		Assert.assertSame(orders[7], ctx.get(Order.class, Integer.valueOf(7)));
+		Assert.assertNull(ctx.get(Order.class, Long.valueOf(7)));
+		Assert.assertNull(ctx.get(Customer.class, Integer.valueOf(7)));
+
+		Assert.assertSame(orders[7], ctx.putIfAbsent(Integer.valueOf(7), new Order()));
+
+		Customer customer = new Customer();
+		ctx.put("a", customer);
+		Assert.assertSame(customer, ctx.get(Customer.class, "a"));
+
+		for (int i = 0; i < orders.length; i += 2) {
+			ctx.clear(Order.class, Integer.valueOf(i));
+		}
+		Assert.assertEquals(500, ctx.size(Order.class));
+		for (int i = 0; i < orders.length; i++) {
+			Object expected = (i % 2 == 0) ? null : orders[i];
+			Assert.assertSame(expected, ctx.get(Order.class, Integer.valueOf(i)));
+		}
+
+		ctx.clear(Order.class);
+		Assert.assertEquals(0, ctx.size(Order.class));
+		Assert.assertSame(customer, ctx.get(Customer.class, "a"));
+
+		ctx.clear();
+		Assert.assertNull(ctx.get(Customer.class, "a"));
+	}
+
+	public void testOtherThread() throws InterruptedException {
+
+		final IndexedPersistenceContext ctx = new IndexedPersistenceContext();
+		final Order order = new Order();
+		ctx.put(Long.valueOf(1), order);
+
+		final Object[] found = new Object[1];
+		Thread thread = new Thread() {
+			public void run() {
+				found[0] = ctx.get(Order.class, Long.valueOf(1));
+			}
+		};
+		thread.start();
+		thread.join();
+
+		Assert.assertSame(order, found[0]);
+		Assert.assertSame(order, ctx.get(Order.class, Long.valueOf(1)));
+	}
+
+	public void testTransaction() {
+
+		ResetBasicData.reset();
+
+		boolean indexed = PersistenceContextFactory.isIndexed();
+		PersistenceContextFactory.setIndexed(true);
+		try {
+			Transaction transaction = Ebean.beginTransaction();
+			try {
+				PersistenceContext ctx = ((SpiTransaction) transaction).getPersistenceContext();
+				Assert.assertTrue(ctx instanceof IndexedPersistenceContext);
+
+				List<Order> list = Ebean.find(Order.class).findList();
+				Assert.assertTrue(list.size() > 0);
+
+				Order order = list.get(0);
+				Assert.assertSame(order, Ebean.find(Order.class, order.getId()));
+				Assert.assertSame(order.getCustomer(), ctx.get(Customer.class, order.getCustomer().getId()));
+
+			} finally {
+				Ebean.endTransaction();
+			}
+		} finally {
+			PersistenceContextFactory.setIndexed(indexed);
+		}
+	}
+}
@@ -0,0 +1,49 @@
+package com.avaje.tests.basic;
+
+import java.util.UUID;
+
+import junit.framework.Assert;
+import junit.framework.TestCase;
+
+import com.avaje.ebean.Ebean;
+import com.avaje.ebeaninternal.server.idgen.TimeUuidIdGenerator;
+import com.avaje.tests.model.basic.TUuidTimeEntity;
+
+public class TestTimeUuidInsert extends TestCase {
+
+	public void test() {
+
+		TUuidTimeEntity e = new TUuidTimeEntity();
+		e.setName("bana");
+		Ebean.save(e);
+		Assert.assertNotNull(e.getId());
+		Assert.assertEquals(7, e.getId().version());
+
+		TUuidTimeEntity e2 = Ebean.find(TUuidTimeEntity.class, e.getId());
+		Assert.assertEquals("bana", e2.getName());
+		e2.setName("apple");
+		Ebean.save(e2);
+
+		Ebean.delete(e2);
+	}
+
+	public void testOrdered() {
+
+		TimeUuidIdGenerator idGen = new TimeUuidIdGenerator();
+		long start = System.currentTimeMillis();
+
+		UUID previous = (UUID) idGen.nextId(null);
+		for (int i = 0; i < 10000; i++) {
+			UUID id = (UUID) idGen.nextId(null);
+			Assert.assertEquals(7, id.version());
+			Assert.assertEquals(2, id.variant());
+			// ordered as the string form stored in the DB
+			Assert.assertTrue(id.toString().compareTo(previous.toString()) > 0);
+			previous = id;
+		}
+
+		long millis = previous.getMostSignificantBits() >>> 16;
+		Assert.assertTrue(millis >= start);
+		Assert.assertTrue(millis <= System.currentTimeMillis() + 10);
+	}
+}
@@ -0,0 +1,145 @@
+package com.avaje.tests.batchinsert;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import junit.framework.TestCase;
+
+import org.junit.Assert;
+
+import com.avaje.ebean.Ebean;
+import com.avaje.ebean.EbeanServer;
+import com.avaje.ebean.EbeanServerFactory;
+import com.avaje.ebean.Transaction;
+import com.avaje.ebean.config.DataSourceConfig;
+import com.avaje.ebean.config.ServerConfig;
+import com.avaje.ebean.config.dbplatform.H2Platform;
+import com.avaje.ebean.config.dbplatform.IdType;
+import com.avaje.ebeaninternal.api.SpiTransaction;
+import com.avaje.ebeaninternal.server.persist.BatchedPstmtHolder;
+import com.avaje.ebeaninternal.server.persist.BatchedPstmtHolder.DepthTiming;
+import com.avaje.tests.model.basic.Customer;
+import com.avaje.tests.model.basic.Order;
+import com.avaje.tests.model.basic.OrderDetail;
+import com.avaje.tests.model.basic.OrderShipment;
+import com.avaje.tests.model.basic.Product;
+import com.avaje.tests.model.basic.ResetBasicData;
+import com.avaje.tests.model.basic.UTDetail;
+import com.avaje.tests.model.basic.UTMaster;
+
+public class TestBatchFlushByDepth extends TestCase {
+
+  public void testDepthTimings() {
+
+    ResetBasicData.reset();
+
+    Customer customer = Ebean.find(Customer.class).setMaxRows(1).findUnique();
+    Product product = Ebean.find(Product.class).setMaxRows(1).findUnique();
+
+    List<Order> orders = new ArrayList<Order>();
+
+    Transaction transaction = Ebean.beginTransaction();
+    try {
+      transaction.setBatchMode(true);
+      transaction.setBatchSize(100);
+
+      for (int i = 0; i < 10; i++) {
+        // details and shipments are at the same depth
+        Order order = new Order();
+        order.setCustomer(customer);
+        for (int j = 0; j < 3; j++) {
+          order.addDetail(new OrderDetail(product, Integer.valueOf(j + 1), Double.valueOf(10)));
+          order.addShipment(new OrderShipment());
+        }
+        Ebean.save(order);
+        orders.add(order);
+      }
+      transaction.flushBatch();
+
+      BatchedPstmtHolder holder = ((SpiTransaction) transaction).getBatchControl().getPstmtHolder();
+      List<DepthTiming> timings = holder.getDepthTimings();
+
+      int rows = 0;
+      for (int i = 0; i < timings.size(); i++) {
+        rows += timings.get(i).getRowCount();
+      }
+      Assert.assertEquals(70, rows);
+
+      transaction.commit();
+
+    } finally {
+      Ebean.endTransaction();
+    }
+
+    for (int i = 0; i < orders.size(); i++) {
+      Order order = Ebean.find(Order.class, orders.get(i).getId());
+      Assert.assertEquals(3, order.getDetails().size());
+      Assert.assertEquals(3, order.getShipments().size());
+    }
+  }
+
+  public void testIdentityParentChild() {
+
+    H2Platform platform = new H2Platform();
+    platform.getDbIdentity().setIdType(IdType.IDENTITY);
+
+    DataSourceConfig dsConfig = new DataSourceConfig();
+    dsConfig.setDriver("org.h2.Driver");
+    dsConfig.setUrl("jdbc:h2:mem:batchidentity;DB_CLOSE_DELAY=-1");
+    dsConfig.setUsername("sa");
+    dsConfig.setPassword("");
+
+    ServerConfig config = new ServerConfig();
+    config.setName("h2batchidentity");
+    config.setDataSourceConfig(dsConfig);
+    config.setDatabasePlatform(platform);
+    config.setDdlGenerate(true);
+    config.setDdlRun(true);
+    config.setRegister(false);
+    config.setDefaultServer(false);
+    config.addClass(UTMaster.class);
+    config.addClass(UTDetail.class);
+
+    EbeanServer server = EbeanServerFactory.create(config);
+
+    List<UTMaster> masters = new ArrayList<UTMaster>();
+    for (int i = 0; i < 3; i++) {
+      UTMaster master = new UTMaster();
+      master.setName("identity-master" + i);
+      List<UTDetail> details = new ArrayList<UTDetail>();
+      for (int j = 0; j < 3; j++) {
+        details.add(new UTDetail("identity-detail-" + i + "-" + j, Integer.valueOf(j), Double.valueOf(j)));
+      }
+      master.setDetails(details);
+      masters.add(master);
+
+      // one master per batch as this H2 version only returns the last
+      // generated key of a batch
+      Transaction transaction = server.beginTransaction();
+      try {
+        transaction.setBatchMode(true);
+        transaction.setBatchSize(100);
+        server.save(master, transaction);
+        Assert.assertNull(master.getId());
+        transaction.commit();
+
+      } finally {
+        transaction.end();
+      }
+    }
+
+    // the children reference the generated keys of their parent
+    for (int i = 0; i < masters.size(); i++) {
+      UTMaster master = masters.get(i);
+      Assert.assertNotNull(master.getId());
+
+      UTMaster found = server.find(UTMaster.class, master.getId());
+      Assert.assertEquals(master.getName(), found.getName());
+      Assert.assertEquals(3, found.getDetails().size());
+      for (int j = 0; j < found.getDetails().size(); j++) {
+        Assert.assertTrue(found.getDetails().get(j).getName().startsWith("identity-detail-" + i + "-"));
+      }
+    }
+  }
+
+}
@@ -0,0 +1,161 @@
+package com.avaje.tests.batchinsert;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import javax.sql.DataSource;
+
+import junit.framework.TestCase;
+
+import org.junit.Assert;
+
+import com.avaje.ebean.Ebean;
+import com.avaje.ebean.EbeanServer;
+import com.avaje.ebean.EbeanServerFactory;
+import com.avaje.ebean.Transaction;
+import com.avaje.ebean.config.DataSourceConfig;
+import com.avaje.ebean.config.ServerConfig;
+import com.avaje.ebeaninternal.server.lib.sql.DataSourcePool;
+import com.avaje.tests.model.basic.UTDetail;
+import com.avaje.tests.model.basic.UTMaster;
+
+public class TestBatchMultiRowInsert extends TestCase {
+
+  public void testMultiRowInsert() {
+
+    // make sure the tables exist
+    Ebean.getServer(null);
+
+    ServerConfig config = new ServerConfig();
+    config.setName("h2");
+    config.loadFromProperties();
+    config.setName("h2multirow");
+    config.setDdlGenerate(false);
+    config.setDdlRun(false);
+    config.setRegister(false);
+    config.setDefaultServer(false);
+    config.setPersistBatchMultiRowInsert(true);
+
+    // record the statements prepared
+    DataSourceConfig dsConfig = new DataSourceConfig();
+    dsConfig.loadSettings("h2");
+    DataSourcePool pool = new DataSourcePool(null, "h2multirow", dsConfig);
+    List<String> preparedSql = Collections.synchronizedList(new ArrayList<String>());
+    config.setDataSource(proxy(DataSource.class, pool, preparedSql));
+    config.addClass(UTMaster.class);
+    config.addClass(UTDetail.class);
+
+    EbeanServer server = EbeanServerFactory.create(config);
+
+    List<UTMaster> masters = new ArrayList<UTMaster>();
+    for (int i = 0; i < 5; i++) {
+      UTMaster master = new UTMaster();
+      master.setName("multiRow-master" + i);
+      List<UTDetail> details = new ArrayList<UTDetail>();
+      for (int j = 0; j < 7; j++) {
+        UTDetail detail = new UTDetail();
+        detail.setName("multiRow-detail-" + i + "-" + j);
+        detail.setQty(Integer.valueOf(j));
+        detail.setAmount(Double.valueOf(j * 1.5));
+        details.add(detail);
+      }
+      master.setDetails(details);
+      masters.add(master);
+    }
+
+    preparedSql.clear();
+    Transaction transaction = server.beginTransaction();
+    try {
+      transaction.setBatchMode(true);
+      transaction.setBatchSize(100);
+
+      server.save(masters.iterator(), transaction);
+      transaction.commit();
+
+    } finally {
+      transaction.end();
+    }
+
+    // the ids are from a sequence so the rows are inserted by multi row statements
+    Assert.assertEquals(1, count(preparedSql, "insert into ut_master "));
+    Assert.assertEquals(1, count(preparedSql, "insert into ut_detail "));
+    for (int i = 0; i < preparedSql.size(); i++) {
+      if (preparedSql.get(i).startsWith("insert into ut_detail ")) {
+        Assert.assertEquals(35, count(preparedSql.get(i), "(?"));
+      }
+    }
+
+    for (int i = 0; i < masters.size(); i++) {
+      UTMaster master = masters.get(i);
+      Assert.assertNotNull(master.getId());
+
+      UTMaster found = server.find(UTMaster.class, master.getId());
+      Assert.assertEquals(master.getName(), found.getName());
+      Assert.assertEquals(7, found.getDetails().size());
+    }
+
+    int count = server.find(UTDetail.class).where().like("name", "multiRow-detail-%").findRowCount();
+    Assert.assertEquals(35, count);
+  }
+
+  private int count(List<String> sqlList, String prefix) {
+    int count = 0;
+    for (int i = 0; i < sqlList.size(); i++) {
+      if (sqlList.get(i).startsWith(prefix)) {
+        count++;
+      }
+    }
+    return count;
+  }
+
+  private int count(String sql, String match) {
+    int count = 0;
+    int pos = sql.indexOf(match);
+    while (pos > -1) {
+      count++;
+      pos = sql.indexOf(match, pos + match.length());
+    }
+    return count;
+  }
+
+  private static <T> T proxy(Class<T> type, Object target, List<String> preparedSql) {
+    return type.cast(Proxy.newProxyInstance(type.getClassLoader(), new Class<?>[] { type }, new RecordPrepare(target, preparedSql)));
+  }
+
+  /**
+   * Records the sql of the statements prepared on the connections.
+   */
+  private static class RecordPrepare implements InvocationHandler {
+
+    private final Object target;
+    private final List<String> preparedSql;
+
+    RecordPrepare(Object target, List<String> preparedSql) {
+      this.target = target;
+      this.preparedSql = preparedSql;
+    }
+
+    public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+      if (method.getName().equals("prepareStatement")) {
+        preparedSql.add((String) args[0]);
+      }
+      try {
+        Object result = method.invoke(target, args);
+        if (result instanceof Connection) {
+          return proxy(Connection.class, result, preparedSql);
+        }
+        return result;
+
+      } catch (InvocationTargetException e) {
+        throw e.getCause();
+      }
+    }
+  }
+
+}
@@ -0,0 +1,210 @@
+package com.avaje.tests.cache;
+
+import java.io.ByteArrayInputStream;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.sql.Timestamp;
+
+import junit.framework.Assert;
+import junit.framework.TestCase;
+
+import com.avaje.ebean.Ebean;
+import com.avaje.ebean.Transaction;
+import com.avaje.ebean.cache.ServerCache;
+import com.avaje.ebeaninternal.api.SpiEbeanServer;
+import com.avaje.ebeaninternal.api.SpiTransaction;
+import com.avaje.ebeaninternal.server.cache.CachedBeanData;
+import com.avaje.ebeaninternal.server.cluster.BinaryMessage;
+import com.avaje.ebeaninternal.server.cluster.BinaryMessageList;
+import com.avaje.ebeaninternal.server.core.PersistRequest;
+import com.avaje.ebeaninternal.server.deploy.BeanDescriptor;
+import com.avaje.ebeaninternal.server.deploy.BeanProperty;
+import com.avaje.ebeaninternal.server.transaction.BeanDelta;
+import com.avaje.ebeaninternal.server.transaction.BeanDeltaList;
+import com.avaje.ebeaninternal.server.transaction.BeanPersistIds;
+import com.avaje.ebeaninternal.server.transaction.RemoteTransactionEvent;
+import com.avaje.tests.model.basic.Country;
+import com.avaje.tests.model.basic.Product;
+import com.avaje.tests.model.basic.ResetBasicData;
+
+public class TestCacheBeanDelta extends TestCase {
+
+	public void test() throws IOException {
+
+		ResetBasicData.reset();
+
+		SpiEbeanServer server = (SpiEbeanServer) Ebean.getServer(null);
+		BeanDescriptor<Product> desc = server.getBeanDescriptor(Product.class);
+		int nameIndex = indexOf(desc, "name");
+		int versionIndex = indexOf(desc, "updtime");
+
+		Product product = Ebean.find(Product.class, Integer.valueOf(1));
+		String originalName = product.getName();
+
+		Ebean.getServerCacheManager().clear(Product.class);
+		ServerCache productCache = Ebean.getServerCacheManager().getBeanCache(Product.class);
+		Ebean.runCacheWarming(Product.class);
+		Assert.assertNotNull(productCache.get(Integer.valueOf(1)));
+		Assert.assertNotNull(productCache.get(Integer.valueOf(2)));
+
+		// not clustering so the bound update values are not collected as a delta
+		Transaction txn = Ebean.beginTransaction();
+		try {
+			Product p = Ebean.find(Product.class).setUseCache(false).setReadOnly(false)
+				.where().idEq(Integer.valueOf(1)).findUnique();
+			p.setName("Delta Chair");
+			Ebean.save(p);
+
+			Assert.assertNull(((SpiTransaction) txn).getEvent().getBeanDeltas());
+
+			Ebean.commitTransaction();
+		} finally {
+			Ebean.endTransaction();
+		}
+
+		// the local cached bean is updated in place
+		CachedBeanData cached = (CachedBeanData) productCache.get(Integer.valueOf(1));
+		Assert.assertNotNull(cached);
+		Assert.assertEquals("Delta Chair", cached.getData(nameIndex));
+		Timestamp version = (Timestamp) cached.getData(versionIndex);
+
+		// a newer delta from another server in the cluster
+		Timestamp newVersion = new Timestamp(version.getTime() + 1000);
+		BeanDelta sent = new BeanDelta(desc, Integer.valueOf(1));
+		sent.add(desc.getBeanProperty("name"), originalName);
+		sent.add(desc.getBeanProperty("updtime"), newVersion);
+
+		BeanPersistIds ids = new BeanPersistIds(desc);
+		ids.addId(PersistRequest.Type.UPDATE, Integer.valueOf(1));
+		ids.addId(PersistRequest.Type.UPDATE, Integer.valueOf(2));
+
+		RemoteTransactionEvent event = new RemoteTransactionEvent(server);
+		event.addBeanDelta(roundTrip(server, sent));
+		event.addBeanPersistIds(ids);
+		server.remoteTransactionEvent(event);
+
+		// patched rather than removed
+		cached = (CachedBeanData) productCache.get(Integer.valueOf(1));
+		Assert.assertNotNull(cached);
+		Assert.assertEquals(originalName, cached.getData(nameIndex));
+		Assert.assertEquals(newVersion, cached.getData(versionIndex));
+
+		// updated without a delta so removed
+		Assert.assertNull(productCache.get(Integer.valueOf(2)));
+
+		// an older delta arriving late is not applied
+		BeanDelta stale = new BeanDelta(desc, Integer.valueOf(1));
+		stale.add(desc.getBeanProperty("name"), "Stale Chair");
+		stale.add(desc.getBeanProperty("updtime"), version);
+
+		ids = new BeanPersistIds(desc);
+		ids.addId(PersistRequest.Type.UPDATE, Integer.valueOf(1));
+		event = new RemoteTransactionEvent(server);
+		event.addBeanDelta(roundTrip(server, stale));
+		event.addBeanPersistIds(ids);
+		server.remoteTransactionEvent(event);
+
+		Assert.assertNull(productCache.get(Integer.valueOf(1)));
+
+		// put the database back in line with the cache
+		Ebean.createSqlUpdate("update o_product set name = :name where id = 1").setParameter("name", originalName).execute();
+	}
+
+	public void testNoVersionProperty() throws IOException {
+
+		ResetBasicData.reset();
+
+		SpiEbeanServer server = (SpiEbeanServer) Ebean.getServer(null);
+		BeanDescriptor<Country> desc = server.getBeanDescriptor(Country.class);
+
+		Ebean.getServerCacheManager().clear(Country.class);
+		ServerCache countryCache = Ebean.getServerCacheManager().getBeanCache(Country.class);
+		Ebean.runCacheWarming(Country.class);
+		Assert.assertNotNull(countryCache.get("NZ"));
+
+		BeanDelta sent = new BeanDelta(desc, "NZ");
+		sent.add(desc.getBeanProperty("name"), "Aotearoa");
+
+		BeanPersistIds ids = new BeanPersistIds(desc);
+		ids.addId(PersistRequest.Type.UPDATE, "NZ");
+
+		RemoteTransactionEvent event = new RemoteTransactionEvent(server);
+		event.addBeanDelta(roundTrip(server, sent));
+		event.addBeanPersistIds(ids);
+		server.remoteTransactionEvent(event);
+
+		// the order of changes is not known so removed
+		Assert.assertNull(countryCache.get("NZ"));
+	}
+
+	public void testUpdatedWithAndWithoutDelta() throws IOException {
+
+		ResetBasicData.reset();
+
+		SpiEbeanServer server = (SpiEbeanServer) Ebean.getServer(null);
+		BeanDescriptor<Product> desc = server.getBeanDescriptor(Product.class);
+
+		Ebean.getServerCacheManager().clear(Product.class);
+		ServerCache productCache = Ebean.getServerCacheManager().getBeanCache(Product.class);
+		Ebean.runCacheWarming(Product.class);
+		CachedBeanData cached = (CachedBeanData) productCache.get(Integer.valueOf(1));
+		Assert.assertNotNull(cached);
+		Timestamp version = (Timestamp) cached.getData(indexOf(desc, "updtime"));
+
+		BeanDelta sent = new BeanDelta(desc, Integer.valueOf(1));
+		sent.add(desc.getBeanProperty("name"), "Delta Chair");
+		sent.add(desc.getBeanProperty("updtime"), new Timestamp(version.getTime() + 1000));
+
+		// also updated without a delta (in a merged event say)
+		BeanPersistIds withDelta = new BeanPersistIds(desc);
+		withDelta.addId(PersistRequest.Type.UPDATE, Integer.valueOf(1));
+		BeanPersistIds withoutDelta = new BeanPersistIds(desc);
+		withoutDelta.addId(PersistRequest.Type.UPDATE, Integer.valueOf(1));
+		withoutDelta.addUpdateNoDeltaId(Integer.valueOf(1));
+		withDelta.addAll(withoutDelta);
+
+		BeanDeltaList deltaList = new BeanDeltaList(desc);
+		deltaList.add(sent);
+		RemoteTransactionEvent sending = new RemoteTransactionEvent(server);
+		sending.addBeanPersistIds(withDelta);
+		sending.addBeanDeltaList(deltaList);
+
+		// round trip the event as messages
+		BinaryMessageList msgList = new BinaryMessageList();
+		sending.writeBinaryMessage(msgList);
+		RemoteTransactionEvent event = new RemoteTransactionEvent(server);
+		for (BinaryMessage msg : msgList.getList()) {
+			DataInputStream in = new DataInputStream(new ByteArrayInputStream(msg.getByteArray()));
+			// the delta is not sent and the id is sent as a plain update
+			Assert.assertEquals(BinaryMessage.TYPE_BEANIUD, in.readInt());
+			BeanPersistIds ids = BeanPersistIds.readBinaryMessage(server, in);
+			Assert.assertNull(ids.getUpdateNoDeltaIds());
+			Assert.assertEquals(1, ids.getUpdateIds().size());
+			event.addBeanPersistIds(ids);
+		}
+		server.remoteTransactionEvent(event);
+
+		// the delta alone does not reflect the other update so removed
+		Assert.assertNull(productCache.get(Integer.valueOf(1)));
+	}
+
+	private BeanDelta roundTrip(SpiEbeanServer server, BeanDelta delta) throws IOException {
+
+		BinaryMessageList msgList = new BinaryMessageList();
+		delta.writeBinaryMessage(msgList);
+		BinaryMessage msg = msgList.getList().get(0);
+		DataInputStream in = new DataInputStream(new ByteArrayInputStream(msg.getByteArray()));
+		Assert.assertEquals(BinaryMessage.TYPE_BEANDELTA, in.readInt());
+		return BeanDelta.readBinaryMessage(server, in);
+	}
+
+	private int indexOf(BeanDescriptor<?> desc, String propName) {
+		BeanProperty[] props = desc.propertiesNonMany();
+		for (int i = 0; i < props.length; i++) {
+			if (props[i].getName().equals(propName)) {
+				return i;
+			}
+		}
+		return -1;
+	}
+}
@@ -0,0 +1,83 @@
+package com.avaje.tests.cache;
+
+import java.io.IOException;
+
+import junit.framework.Assert;
+import junit.framework.TestCase;
+
+import com.avaje.ebean.Ebean;
+import com.avaje.ebeaninternal.api.SpiEbeanServer;
+import com.avaje.ebeaninternal.server.cache.CachedBeanData;
+import com.avaje.ebeaninternal.server.cache.CachedBeanDataCodec;
+import com.avaje.ebeaninternal.server.cache.CachedBeanDataFromBean;
+import com.avaje.ebeaninternal.server.deploy.BeanDescriptor;
+import com.avaje.tests.model.basic.Customer;
+import com.avaje.tests.model.basic.Order;
+import com.avaje.tests.model.basic.ResetBasicData;
+
+public class TestCachedBeanDataCodec extends TestCase {
+
+	public void testAllLoaded() throws IOException {
+
+		ResetBasicData.reset();
+
+		SpiEbeanServer server = (SpiEbeanServer) Ebean.getServer(null);
+		BeanDescriptor<Order> desc = server.getBeanDescriptor(Order.class);
+
+		Order order = Ebean.find(Order.class).setUseCache(false)
+			.where().idEq(Integer.valueOf(1)).findUnique();
+
+		CachedBeanData data = CachedBeanDataFromBean.extract(desc, order);
+		Assert.assertNull(data.getLoadedProperties());
+		Assert.assertNotNull(data.getData(indexOf(desc, "customer")));
+
+		CachedBeanData decoded = roundTrip(desc, data);
+		Assert.assertNull(decoded.getLoadedProperties());
+		assertSameData(desc, data, decoded);
+	}
+
+	public void testPartiallyLoaded() throws IOException {
+
+		ResetBasicData.reset();
+
+		SpiEbeanServer server = (SpiEbeanServer) Ebean.getServer(null);
+		BeanDescriptor<Customer> desc = server.getBeanDescriptor(Customer.class);
+
+		Customer customer = Ebean.find(Customer.class).setUseCache(false)
+			.select("name")
+			.where().eq("name", "Rob").findUnique();
+
+		CachedBeanData data = CachedBeanDataFromBean.extract(desc, customer);
+		Assert.assertNotNull(data.getLoadedProperties());
+
+		CachedBeanData decoded = roundTrip(desc, data);
+		Assert.assertEquals(data.getLoadedProperties(), decoded.getLoadedProperties());
+		Assert.assertEquals("Rob", decoded.getData(indexOf(desc, "name")));
+		assertSameData(desc, data, decoded);
+	}
+
+	private CachedBeanData roundTrip(BeanDescriptor<?> desc, CachedBeanData data) throws IOException {
+
+		CachedBeanDataCodec codec = new CachedBeanDataCodec(desc);
+		byte[] bytes = codec.encode(data);
+		Assert.assertNotNull(bytes);
+		return codec.decode(bytes);
+	}
+
+	private void assertSameData(BeanDescriptor<?> desc, CachedBeanData data, CachedBeanData decoded) {
+
+		Assert.assertEquals(data.getNaturalKeyIndex(), decoded.getNaturalKeyIndex());
+		for (int i = 0; i < desc.propertiesNonMany().length; i++) {
+			Assert.assertEquals(desc.propertiesNonMany()[i].getName(), data.getData(i), decoded.getData(i));
+		}
+	}
+
+	private int indexOf(BeanDescriptor<?> desc, String propName) {
+		for (int i = 0; i < desc.propertiesNonMany().length; i++) {
+			if (desc.propertiesNonMany()[i].getName().equals(propName)) {
+				return i;
+			}
+		}
+		return -1;
+	}
+}
@@ -0,0 +1,185 @@
+package com.avaje.tests.cache;
+
+import java.io.IOException;
+import java.net.ServerSocket;
+import java.util.ArrayList;
+import java.util.List;
+
+import junit.framework.Assert;
+import junit.framework.TestCase;
+
+import com.avaje.ebean.Ebean;
+import com.avaje.ebean.cache.ServerCache;
+import com.avaje.ebean.config.GlobalProperties;
+import com.avaje.ebeaninternal.api.SpiEbeanServer;
+import com.avaje.ebeaninternal.api.TransactionEventTable;
+import com.avaje.ebeaninternal.api.TransactionEventTable.TableIUD;
+import com.avaje.ebeaninternal.server.cluster.ClusterBroadcast;
+import com.avaje.ebeaninternal.server.cluster.ClusterManager;
+import com.avaje.ebeaninternal.server.cluster.CoalescingClusterBroadcast;
+import com.avaje.ebeaninternal.server.cluster.socket.SocketClusterBroadcast;
+import com.avaje.ebeaninternal.server.core.PersistRequest;
+import com.avaje.ebeaninternal.server.deploy.BeanDescriptor;
+import com.avaje.ebeaninternal.server.transaction.BeanPersistIds;
+import com.avaje.ebeaninternal.server.transaction.RemoteTransactionEvent;
+import com.avaje.tests.model.basic.Country;
+import com.avaje.tests.model.basic.ResetBasicData;
+
+public class TestClusterCoalescingBroadcast extends TestCase {
+
+	public void testMerge() {
+
+		SpiEbeanServer server = (SpiEbeanServer) Ebean.getServer(null);
+		BeanDescriptor<Country> desc = server.getBeanDescriptor(Country.class);
+
+		RemoteTransactionEvent merged = new RemoteTransactionEvent(server.getName());
+		merged.merge(createEvent(desc, "NZ", true));
+		merged.merge(createEvent(desc, "NZ", false));
+		merged.merge(createEvent(desc, "AU", true));
+
+		Assert.assertEquals(1, merged.getBeanPersistList().size());
+		Assert.assertEquals(2, merged.getBeanPersistList().get(0).getUpdateIds().size());
+
+		Assert.assertEquals(1, merged.getTableIUDList().size());
+		TableIUD tableIUD = merged.getTableIUDList().get(0);
+		Assert.assertTrue(tableIUD.isInsert());
+		Assert.assertTrue(tableIUD.isUpdate());
+	}
+
+	public void testDeleteThenInsertNotMerged() {
+
+		SpiEbeanServer server = (SpiEbeanServer) Ebean.getServer(null);
+		BeanDescriptor<Country> desc = server.getBeanDescriptor(Country.class);
+
+		RemoteTransactionEvent deleted = createEvent(desc, PersistRequest.Type.DELETE, "NZ");
+		RemoteTransactionEvent inserted = createEvent(desc, PersistRequest.Type.INSERT, "NZ");
+		RemoteTransactionEvent updated = createEvent(desc, PersistRequest.Type.UPDATE, "AU");
+
+		RemoteTransactionEvent merged = new RemoteTransactionEvent(server.getName());
+		merged.merge(deleted);
+		Assert.assertFalse(merged.isMergeable(inserted));
+		Assert.assertTrue(merged.isMergeable(updated));
+
+		RecordingBroadcast recorder = new RecordingBroadcast();
+		CoalescingClusterBroadcast sender = new CoalescingClusterBroadcast(recorder, 10000, 1000);
+		sender.broadcast(deleted);
+		sender.broadcast(updated);
+		Assert.assertEquals(0, recorder.events.size());
+
+		// the pending delete is sent before the insert
+		sender.broadcast(inserted);
+		Assert.assertEquals(1, recorder.events.size());
+		BeanPersistIds first = recorder.events.get(0).getBeanPersistList().get(0);
+		Assert.assertEquals("NZ", first.getDeleteIds().get(0));
+		Assert.assertEquals("AU", first.getUpdateIds().get(0));
+		Assert.assertNull(first.getInsertIds());
+
+		sender.flush();
+		Assert.assertEquals(2, recorder.events.size());
+		BeanPersistIds second = recorder.events.get(1).getBeanPersistList().get(0);
+		Assert.assertEquals("NZ", second.getInsertIds().get(0));
+		Assert.assertNull(second.getDeleteIds());
+		Assert.assertEquals(3, sender.getEventCount());
+		Assert.assertEquals(2, sender.getSendCount());
+	}
+
+	public void testLoopbackSocket() throws Exception {
+
+		ResetBasicData.reset();
+
+		SpiEbeanServer server = (SpiEbeanServer) Ebean.getServer(null);
+		BeanDescriptor<Country> desc = server.getBeanDescriptor(Country.class);
+
+		Ebean.getServerCacheManager().clear(Country.class);
+		ServerCache countryCache = Ebean.getServerCacheManager().getBeanCache(Country.class);
+		Ebean.runCacheWarming(Country.class);
+		Assert.assertNotNull(countryCache.get("NZ"));
+
+		String receiverHost = "127.0.0.1:" + freePort();
+		String senderHost = "127.0.0.1:" + freePort();
+
+		GlobalProperties.put("ebean.cluster.compress", "true");
+		GlobalProperties.put("ebean.cluster.members", receiverHost + "," + senderHost);
+		GlobalProperties.put("ebean.cluster.local", receiverHost);
+		SocketClusterBroadcast receiver = new SocketClusterBroadcast();
+		GlobalProperties.put("ebean.cluster.local", senderHost);
+		SocketClusterBroadcast senderSocket = new SocketClusterBroadcast();
+		GlobalProperties.put("ebean.cluster.compress", "false");
+
+		ClusterManager clusterManager = new ClusterManager();
+		clusterManager.registerServer(server);
+
+		CoalescingClusterBroadcast sender = new CoalescingClusterBroadcast(senderSocket, 200, 1000);
+		receiver.startup(clusterManager);
+		sender.startup(clusterManager);
+		try {
+			for (int i = 0; i < 20; i++) {
+				sender.broadcast(createEvent(desc, "NZ", false));
+			}
+
+			long until = System.currentTimeMillis() + 5000;
+			while (countryCache.get("NZ") != null && System.currentTimeMillis() < until) {
+				Thread.sleep(50);
+			}
+			Assert.assertNull(countryCache.get("NZ"));
+
+			Assert.assertEquals(20, sender.getEventCount());
+			Assert.assertTrue(sender.getSendCount() < 20);
+			Assert.assertEquals(sender.getSendCount(), receiver.getStatus().getTxnIncoming());
+
+		} finally {
+			sender.shutdown();
+			receiver.shutdown();
+		}
+	}
+
+	private RemoteTransactionEvent createEvent(BeanDescriptor<Country> desc, String id, boolean insert) {
+
+		BeanPersistIds ids = new BeanPersistIds(desc);
+		ids.addId(PersistRequest.Type.UPDATE, id);
+
+		TransactionEventTable table = new TransactionEventTable();
+		table.add("o_country", insert, !insert, false);
+
+		RemoteTransactionEvent event = new RemoteTransactionEvent(Ebean.getServer(null).getName());
+		event.addBeanPersistIds(ids);
+		for (TableIUD tableIUD : table.values()) {
+			event.addTableIUD(tableIUD);
+		}
+		return event;
+	}
+
+	private RemoteTransactionEvent createEvent(BeanDescriptor<Country> desc, PersistRequest.Type type, String id) {
+
+		BeanPersistIds ids = new BeanPersistIds(desc);
+		ids.addId(type, id);
+
+		RemoteTransactionEvent event = new RemoteTransactionEvent(Ebean.getServer(null).getName());
+		event.addBeanPersistIds(ids);
+		return event;
+	}
+
+	private int freePort() throws IOException {
+		ServerSocket socket = new ServerSocket(0);
+		try {
+			return socket.getLocalPort();
+		} finally {
+			socket.close();
+		}
+	}
+
+	private static class RecordingBroadcast implements ClusterBroadcast {
+
+		private final List<RemoteTransactionEvent> events = new ArrayList<RemoteTransactionEvent>();
+
+		public void startup(ClusterManager clusterManager) {
+		}
+
+		public void shutdown() {
+		}
+
+		public void broadcast(RemoteTransactionEvent remoteTransEvent) {
+			events.add(remoteTransEvent);
+		}
+	}
+}
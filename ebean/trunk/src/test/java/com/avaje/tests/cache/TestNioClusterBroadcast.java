@@ -0,0 +1,90 @@
+package com.avaje.tests.cache;
+
+import java.io.IOException;
+import java.net.ServerSocket;
+
+import junit.framework.Assert;
+import junit.framework.TestCase;
+
+import com.avaje.ebean.Ebean;
+import com.avaje.ebean.cache.ServerCache;
+import com.avaje.ebean.config.GlobalProperties;
+import com.avaje.ebeaninternal.api.SpiEbeanServer;
+import com.avaje.ebeaninternal.server.cluster.ClusterManager;
+import com.avaje.ebeaninternal.server.cluster.nio.NioClusterBroadcast;
+import com.avaje.ebeaninternal.server.core.PersistRequest;
+import com.avaje.ebeaninternal.server.transaction.BeanPersistIds;
+import com.avaje.ebeaninternal.server.transaction.RemoteTransactionEvent;
+import com.avaje.tests.model.basic.Country;
+import com.avaje.tests.model.basic.ResetBasicData;
+
+public class TestNioClusterBroadcast extends TestCase {
+
+	public void testLoopback() throws Exception {
+
+		ResetBasicData.reset();
+
+		SpiEbeanServer server = (SpiEbeanServer) Ebean.getServer(null);
+
+		Ebean.getServerCacheManager().clear(Country.class);
+		ServerCache countryCache = Ebean.getServerCacheManager().getBeanCache(Country.class);
+		Ebean.runCacheWarming(Country.class);
+		Assert.assertNotNull(countryCache.get("NZ"));
+
+		String[] hosts = new String[3];
+		for (int i = 0; i < hosts.length; i++) {
+			hosts[i] = "127.0.0.1:" + freePort();
+		}
+		GlobalProperties.put("ebean.cluster.members", hosts[0] + "," + hosts[1] + "," + hosts[2]);
+
+		NioClusterBroadcast[] nodes = new NioClusterBroadcast[hosts.length];
+		for (int i = 0; i < nodes.length; i++) {
+			GlobalProperties.put("ebean.cluster.local", hosts[i]);
+			nodes[i] = new NioClusterBroadcast();
+		}
+
+		ClusterManager clusterManager = new ClusterManager();
+		clusterManager.registerServer(server);
+		for (int i = 0; i < nodes.length; i++) {
+			nodes[i].startup(clusterManager);
+		}
+		try {
+			long until = System.currentTimeMillis() + 5000;
+			while (nodes[0].getStatus().getCurrentGroupSize() < 2 && System.currentTimeMillis() < until) {
+				Thread.sleep(20);
+			}
+			Assert.assertEquals(2, nodes[0].getStatus().getCurrentGroupSize());
+
+			BeanPersistIds ids = new BeanPersistIds(server.getBeanDescriptor(Country.class));
+			ids.addId(PersistRequest.Type.UPDATE, "NZ");
+			RemoteTransactionEvent event = new RemoteTransactionEvent(server.getName());
+			event.addBeanPersistIds(ids);
+			nodes[0].broadcast(event);
+
+			// the events are applied in the background
+			until = System.currentTimeMillis() + 5000;
+			while ((nodes[1].getStatus().getTxnIncoming() + nodes[2].getStatus().getTxnIncoming() < 2 || countryCache.get("NZ") != null)
+					&& System.currentTimeMillis() < until) {
+				Thread.sleep(20);
+			}
+			Assert.assertEquals(1, nodes[0].getStatus().getTxtOutgoing());
+			Assert.assertEquals(1, nodes[1].getStatus().getTxnIncoming());
+			Assert.assertEquals(1, nodes[2].getStatus().getTxnIncoming());
+			Assert.assertNull(countryCache.get("NZ"));
+
+		} finally {
+			for (int i = 0; i < nodes.length; i++) {
+				nodes[i].shutdown();
+			}
+		}
+	}
+
+	private int freePort() throws IOException {
+		ServerSocket socket = new ServerSocket(0);
+		try {
+			return socket.getLocalPort();
+		} finally {
+			socket.close();
+		}
+	}
+}
@@ -0,0 +1,121 @@
+package com.avaje.tests.cache;
+
+import junit.framework.Assert;
+import junit.framework.TestCase;
+
+import com.avaje.ebean.Ebean;
+import com.avaje.ebean.cache.ServerCacheOptions;
+import com.avaje.ebeaninternal.api.SpiEbeanServer;
+import com.avaje.ebeaninternal.server.cache.CachedBeanData;
+import com.avaje.ebeaninternal.server.cache.CachedBeanDataFromBean;
+import com.avaje.ebeaninternal.server.cache.DefaultServerCache;
+import com.avaje.ebeaninternal.server.cache.OffHeapBeanCache;
+import com.avaje.ebeaninternal.server.cache.OffHeapSlabStore;
+import com.avaje.ebeaninternal.server.deploy.BeanDescriptor;
+import com.avaje.tests.model.basic.Product;
+import com.avaje.tests.model.basic.ResetBasicData;
+
+public class TestOffHeapBeanCache extends TestCase {
+
+	public void testGetPut() {
+
+		OffHeapBeanCache cache = createCache(1024 * 1024, new ServerCacheOptions());
+		CachedBeanData data = productData();
+
+		// only held off heap until used
+		cache.put(Integer.valueOf(1), data);
+		Assert.assertEquals(1, cache.size());
+		Assert.assertEquals(0, cache.getHeapSize());
+
+		CachedBeanData found = (CachedBeanData) cache.get(Integer.valueOf(1));
+		Assert.assertNotNull(found);
+		Assert.assertNotSame(data, found);
+		Assert.assertEquals(data.getData(1), found.getData(1));
+		Assert.assertEquals(1, cache.getOffHeapHitCount());
+		Assert.assertEquals(1, cache.getHeapSize());
+
+		// now served by the on heap tier
+		Assert.assertSame(found, cache.get(Integer.valueOf(1)));
+		Assert.assertEquals(1, cache.getOffHeapHitCount());
+
+		// a put replaces the on heap copy
+		cache.put(Integer.valueOf(1), data);
+		Assert.assertEquals(0, cache.getHeapSize());
+		Assert.assertNotSame(found, cache.get(Integer.valueOf(1)));
+
+		cache.remove(Integer.valueOf(1));
+		Assert.assertNull(cache.get(Integer.valueOf(1)));
+		Assert.assertEquals(0, cache.size());
+	}
+
+	public void testTimeToLive() throws InterruptedException {
+
+		ServerCacheOptions options = new ServerCacheOptions();
+		options.setMaxSecsToLive(1);
+		OffHeapBeanCache cache = createCache(1024 * 1024, options);
+		CachedBeanData data = productData();
+
+		cache.put(Integer.valueOf(1), data);
+		cache.put(Integer.valueOf(2), data);
+		// in the on heap tier as well
+		Assert.assertNotNull(cache.get(Integer.valueOf(2)));
+
+		Thread.sleep(1100);
+		Assert.assertNull(cache.get(Integer.valueOf(1)));
+		Assert.assertNull(cache.get(Integer.valueOf(2)));
+		Assert.assertEquals(0, cache.size());
+	}
+
+	public void testMaxIdle() throws InterruptedException {
+
+		ServerCacheOptions options = new ServerCacheOptions();
+		options.setMaxIdleSecs(1);
+		OffHeapBeanCache cache = createCache(1024 * 1024, options);
+		CachedBeanData data = productData();
+
+		cache.put(Integer.valueOf(1), data);
+		cache.put(Integer.valueOf(2), data);
+		for (int i = 0; i < 3; i++) {
+			Thread.sleep(400);
+			Assert.assertNotNull(cache.get(Integer.valueOf(1)));
+		}
+		Assert.assertNull(cache.get(Integer.valueOf(2)));
+		Assert.assertNotNull(cache.get(Integer.valueOf(1)));
+	}
+
+	public void testSlabReuseRemovesEntries() {
+
+		// 2 slabs of 512 bytes
+		OffHeapBeanCache cache = createCache(1024, new ServerCacheOptions());
+		CachedBeanData data = productData();
+
+		int count = 100;
+		for (int i = 0; i < count; i++) {
+			cache.put(Integer.valueOf(i), data);
+		}
+		Assert.assertTrue(cache.size() < count);
+		Assert.assertNull(cache.get(Integer.valueOf(0)));
+		Assert.assertNotNull(cache.get(Integer.valueOf(count - 1)));
+	}
+
+	private OffHeapBeanCache createCache(long maxBytes, ServerCacheOptions options) {
+
+		SpiEbeanServer server = (SpiEbeanServer) Ebean.getServer(null);
+		BeanDescriptor<Product> desc = server.getBeanDescriptor(Product.class);
+
+		DefaultServerCache heapCache = new DefaultServerCache("offHeapTest", options);
+		return new OffHeapBeanCache(heapCache, new OffHeapSlabStore(maxBytes), desc);
+	}
+
+	private CachedBeanData productData() {
+
+		ResetBasicData.reset();
+
+		SpiEbeanServer server = (SpiEbeanServer) Ebean.getServer(null);
+		BeanDescriptor<Product> desc = server.getBeanDescriptor(Product.class);
+
+		Product product = Ebean.find(Product.class).setUseCache(false)
+			.where().idEq(Integer.valueOf(1)).findUnique();
+		return CachedBeanDataFromBean.extract(desc, product);
+	}
+}
@@ -0,0 +1,164 @@
+package com.avaje.tests.cache;
+
+import java.sql.Date;
+import java.util.List;
+
+import junit.framework.Assert;
+import junit.framework.TestCase;
+
+import com.avaje.ebean.Ebean;
+import com.avaje.ebean.SqlUpdate;
+import com.avaje.ebean.Transaction;
+import com.avaje.tests.model.basic.Country;
+import com.avaje.tests.model.basic.EBasicVer;
+import com.avaje.tests.model.basic.Order;
+import com.avaje.tests.model.basic.Product;
+import com.avaje.tests.model.basic.ResetBasicData;
+
+public class TestQueryCacheTableDependency extends TestCase {
+
+	public void test() {
+
+		ResetBasicData.reset();
+
+		// a read only copy is put into the query cache
+		Assert.assertFalse(findRobsOrders().isEmpty());
+		List<Order> list = findRobsOrders();
+		Assert.assertSame(list, findRobsOrders());
+
+		// a table the query does not use
+		EBasicVer basic = new EBasicVer();
+		basic.setName("notUsed");
+		Ebean.save(basic);
+		Assert.assertSame(list, findRobsOrders());
+
+		// the joined table
+		SqlUpdate update = Ebean.createSqlUpdate("update o_customer set name = name where name = :name");
+		update.setParameter("name", "Rob");
+		Ebean.execute(update);
+
+		findRobsOrders();
+		List<Order> list2 = findRobsOrders();
+		Assert.assertNotSame(list, list2);
+		Assert.assertSame(list2, findRobsOrders());
+
+		// the base table
+		Order order = Ebean.find(Order.class, list2.get(0).getId());
+		order.setShipDate(new Date(System.currentTimeMillis()));
+		Ebean.save(order);
+
+		findRobsOrders();
+		List<Order> list3 = findRobsOrders();
+		Assert.assertNotSame(list2, list3);
+		Assert.assertSame(list3, findRobsOrders());
+
+		// explicitly not read only does not use the query cache
+		List<Order> notReadOnly = Ebean.find(Order.class)
+			.setUseQueryCache(true)
+			.setReadOnly(false)
+			.where().eq("customer.name", "Rob")
+			.findList();
+		Assert.assertNotSame(list3, notReadOnly);
+		Assert.assertSame(list3, findRobsOrders());
+
+		// the shared result and its beans are read only
+		try {
+			list3.remove(0);
+			Assert.fail("collection is read only");
+		} catch (IllegalStateException e) {
+			// expected
+		}
+		try {
+			list3.get(0).setShipDate(new Date(System.currentTimeMillis()));
+			Assert.fail("bean is read only");
+		} catch (IllegalStateException e) {
+			// expected
+		}
+	}
+
+	public void testNotPutWithUncommittedChanges() {
+
+		ResetBasicData.reset();
+
+		Transaction txn = Ebean.beginTransaction();
+		try {
+			SqlUpdate update = Ebean.createSqlUpdate("update o_customer set name = name where name = :name");
+			update.setParameter("name", "Rob");
+			Ebean.execute(update);
+
+			// uses the modified table so not put into the query cache
+			List<Order> inTxn = findRobsOrdersById();
+			Assert.assertFalse(inTxn.isEmpty());
+			Assert.assertNotSame(inTxn, findRobsOrdersById());
+
+			// a table not modified in the transaction
+			findProducts();
+			List<Product> products = findProducts();
+			Assert.assertSame(products, findProducts());
+
+		} finally {
+			Ebean.endTransaction();
+		}
+
+		findRobsOrdersById();
+		List<Order> list = findRobsOrdersById();
+		Assert.assertSame(list, findRobsOrdersById());
+	}
+
+	public void testSeesOwnUncommittedChanges() {
+
+		ResetBasicData.reset();
+
+		findCountries();
+		List<Country> countries = findCountries();
+		Assert.assertSame(countries, findCountries());
+
+		Transaction txn = Ebean.beginTransaction();
+		try {
+			Country country = new Country();
+			country.setCode("QC");
+			country.setName("Query Cache");
+			Ebean.save(country);
+
+			// the cached result does not include the insert so is not used
+			List<Country> inTxn = findCountries();
+			Assert.assertNotSame(countries, inTxn);
+			Assert.assertEquals(countries.size() + 1, inTxn.size());
+
+		} finally {
+			Ebean.endTransaction();
+		}
+
+		// rolled back so the cached result is still valid
+		Assert.assertSame(countries, findCountries());
+	}
+
+	private List<Country> findCountries() {
+		return Ebean.find(Country.class)
+			.setUseQueryCache(true)
+			.where().like("name", "%")
+			.findList();
+	}
+
+	private List<Product> findProducts() {
+		return Ebean.find(Product.class)
+			.setUseQueryCache(true)
+			.where().gt("id", Integer.valueOf(0))
+			.findList();
+	}
+
+	private List<Order> findRobsOrdersById() {
+		return Ebean.find(Order.class)
+			.setUseQueryCache(true)
+			.where().eq("customer.name", "Rob")
+			.orderBy("id desc")
+			.findList();
+	}
+
+	private List<Order> findRobsOrders() {
+		return Ebean.find(Order.class)
+			.setUseQueryCache(true)
+			.where().eq("customer.name", "Rob")
+			.findList();
+	}
+}
@@ -0,0 +1,128 @@
+package com.avaje.tests.config;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URL;
+import java.util.ArrayList;
+import java.util.List;
+
+import junit.framework.Assert;
+import junit.framework.TestCase;
+
+import com.avaje.ebean.enhance.agent.BootupClassIndex;
+import com.avaje.ebeaninternal.server.core.BootupClassPathSearch;
+import com.avaje.ebeaninternal.server.core.BootupClasses;
+import com.avaje.tests.model.basic.Customer;
+import com.avaje.tests.model.ivo.Money;
+import com.avaje.tests.model.ivo.converter.ExhangeCompoundType;
+import com.avaje.tests.model.ivo.converter.RateTypeConverter;
+import com.avaje.tests.model.ivo.converter.SysTimeConverter;
+
+public class TestBootupClassIndex extends TestCase {
+
+	public void testCandidates() throws IOException {
+
+		BootupClassIndex index = new BootupClassIndex();
+		index.add(classBytes(Customer.class));
+		index.add(classBytes(Money.class));
+		index.add(classBytes(RateTypeConverter.class));
+		index.add(classBytes(SysTimeConverter.class));
+		index.add(classBytes(TestTableName.class));
+
+		Assert.assertEquals(5, index.getClassNames().size());
+
+		List<String> candidates = index.getCandidates();
+		Assert.assertTrue(candidates.contains(Customer.class.getName()));
+		Assert.assertTrue(candidates.contains(SysTimeConverter.class.getName()));
+		Assert.assertFalse(candidates.contains(Money.class.getName()));
+		Assert.assertFalse(candidates.contains(RateTypeConverter.class.getName()));
+		// extends TestCase which is not read so could be interesting
+		Assert.assertTrue(candidates.contains(TestTableName.class.getName()));
+	}
+
+	public void testUnreadable() throws IOException {
+
+		BootupClassIndex index = new BootupClassIndex();
+		index.add(classBytes(Money.class));
+		index.addUnreadable("com/acme/NewerClassFormat");
+
+		List<String> candidates = index.getCandidates();
+		Assert.assertEquals(1, candidates.size());
+		Assert.assertEquals("com.acme.NewerClassFormat", candidates.get(0));
+	}
+
+	public void testReadIndex() throws IOException {
+
+		String content = "a.B\n\n c.D \n";
+		List<String> names = BootupClassIndex.read(new ByteArrayInputStream(content.getBytes("UTF-8")));
+		Assert.assertEquals(2, names.size());
+		Assert.assertEquals("a.B", names.get(0));
+		Assert.assertEquals("c.D", names.get(1));
+	}
+
+	public void testSearch() {
+
+		List<String> packages = new ArrayList<String>();
+		packages.add("com.avaje.tests.model.ivo");
+		packages.add("com.avaje.tests.model.basic");
+
+		BootupClassPathSearch search = new BootupClassPathSearch(null, packages, null);
+		BootupClasses bootupClasses = search.getBootupClasses();
+
+		Assert.assertTrue(bootupClasses.getScalarConverters().contains(SysTimeConverter.class));
+		Assert.assertTrue(bootupClasses.getCompoundTypes().contains(ExhangeCompoundType.class));
+		Assert.assertTrue(bootupClasses.getEntities().contains(Customer.class));
+		Assert.assertFalse(bootupClasses.getEntities().contains(Money.class));
+	}
+
+	public void testSearchIgnoresDirectoryIndex() throws IOException {
+
+		URL url = Customer.class.getResource("Customer.class");
+		if (!"file".equals(url.getProtocol())) {
+			return;
+		}
+		File classesDir = new File(url.getPath());
+		String[] parts = Customer.class.getName().split("\\.");
+		for (int i = 0; i < parts.length; i++) {
+			classesDir = classesDir.getParentFile();
+		}
+
+		// a stale index that does not include the converters
+		File indexFile = new File(classesDir, BootupClassIndex.RESOURCE);
+		Assert.assertFalse(indexFile.exists());
+		BootupClassIndex index = new BootupClassIndex();
+		index.add(classBytes(Customer.class));
+		index.write(classesDir);
+		try {
+			List<String> packages = new ArrayList<String>();
+			packages.add("com.avaje.tests.model.ivo");
+			packages.add("com.avaje.tests.model.basic");
+
+			BootupClassPathSearch search = new BootupClassPathSearch(null, packages, null);
+			BootupClasses bootupClasses = search.getBootupClasses();
+			Assert.assertTrue(bootupClasses.getScalarConverters().contains(SysTimeConverter.class));
+			Assert.assertTrue(bootupClasses.getEntities().contains(Customer.class));
+		} finally {
+			indexFile.delete();
+		}
+	}
+
+	private byte[] classBytes(Class<?> cls) throws IOException {
+		String resource = cls.getName().replace('.', '/') + ".class";
+		InputStream is = cls.getClassLoader().getResourceAsStream(resource);
+		try {
+			ByteArrayOutputStream out = new ByteArrayOutputStream();
+			byte[] buf = new byte[4096];
+			int len;
+			while ((len = is.read(buf)) > 0) {
+				out.write(buf, 0, len);
+			}
+			return out.toByteArray();
+		} finally {
+			is.close();
+		}
+	}
+}
@@ -0,0 +1,101 @@
+package com.avaje.tests.idkeys;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import junit.framework.Assert;
+import junit.framework.TestCase;
+
+import com.avaje.ebean.BackgroundExecutor;
+import com.avaje.ebean.Transaction;
+import com.avaje.ebean.config.dbplatform.PrefetchSequenceIdGenerator;
+import com.avaje.ebean.config.dbplatform.SequenceIdGenerator;
+
+public class TestPrefetchSequenceIdGenerator extends TestCase {
+
+	public void test() throws InterruptedException {
+
+		StubSequence sequence = new StubSequence();
+		final PrefetchSequenceIdGenerator idGen = new PrefetchSequenceIdGenerator(sequence, new ThreadExecutor(), 10, 200);
+		Assert.assertEquals("seq_test", idGen.getName());
+		Assert.assertEquals(10, idGen.getBlockSize());
+
+		final Set<Object> ids = Collections.synchronizedSet(new HashSet<Object>());
+		Thread[] threads = new Thread[4];
+		for (int i = 0; i < threads.length; i++) {
+			threads[i] = new Thread() {
+				public void run() {
+					for (int j = 0; j < 5000; j++) {
+						ids.add(idGen.nextId(null));
+					}
+				}
+			};
+			threads[i].start();
+		}
+		for (int i = 0; i < threads.length; i++) {
+			threads[i].join();
+		}
+
+		// every id handed out is unique
+		Assert.assertEquals(20000, ids.size());
+		Assert.assertEquals(20000, idGen.getAllocatedCount());
+
+		// ids used quickly grow the block size
+		Assert.assertEquals(200, idGen.getBlockSize());
+		Assert.assertTrue(idGen.getLoadCount() <= sequence.loads.get());
+		Assert.assertTrue(idGen.getLoadCount() < 2000);
+		Assert.assertTrue(idGen.getPrefetchCount() > 0);
+		Assert.assertTrue(idGen.getWaitCount() >= 1);
+	}
+
+	public void testPreAllocate() {
+
+		StubSequence sequence = new StubSequence();
+		PrefetchSequenceIdGenerator idGen = new PrefetchSequenceIdGenerator(sequence, new ThreadExecutor(), 10, 50);
+		idGen.preAllocateIds(100);
+		Assert.assertEquals(50, idGen.getBlockSize());
+		Assert.assertNotNull(idGen.nextId(null));
+		Assert.assertEquals(1, idGen.getAllocatedCount());
+	}
+
+	private static class StubSequence extends SequenceIdGenerator {
+
+		private final AtomicInteger counter = new AtomicInteger();
+
+		private final AtomicInteger loads = new AtomicInteger();
+
+		StubSequence() {
+			super(null, null, "seq_test", 10);
+		}
+
+		@Override
+		public String getSql(int batchSize) {
+			return null;
+		}
+
+		@Override
+		protected ArrayList<Integer> getMoreIds(int loadSize, Transaction t) {
+			loads.incrementAndGet();
+			ArrayList<Integer> ids = new ArrayList<Integer>(loadSize);
+			for (int i = 0; i < loadSize; i++) {
+				ids.add(Integer.valueOf(counter.incrementAndGet()));
+			}
+			return ids;
+		}
+	}
+
+	private static class ThreadExecutor implements BackgroundExecutor {
+
+		public void execute(Runnable r) {
+			new Thread(r).start();
+		}
+
+		public void executePeriodically(Runnable r, long delay, TimeUnit unit) {
+			throw new UnsupportedOperationException();
+		}
+	}
+}
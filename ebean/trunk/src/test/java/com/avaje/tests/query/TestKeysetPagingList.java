@@ -0,0 +1,138 @@
+package com.avaje.tests.query;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import junit.framework.TestCase;
+
+import org.junit.Assert;
+
+import com.avaje.ebean.Ebean;
+import com.avaje.ebean.Page;
+import com.avaje.ebean.PagingList;
+import com.avaje.ebeaninternal.server.query.KeysetPagingQuery;
+import com.avaje.tests.model.basic.Customer;
+import com.avaje.tests.model.basic.Order;
+import com.avaje.tests.model.basic.ResetBasicData;
+
+public class TestKeysetPagingList extends TestCase {
+
+    public void testPagesMatchList() {
+
+        ResetBasicData.reset();
+
+        List<Customer> customers = Ebean.find(Customer.class)
+            .order("name desc, id")
+            .findList();
+
+        // name is not null so keyset paging is used
+        PagingList<Customer> pagingList = Ebean.find(Customer.class)
+            .order().desc("name")
+            .findKeysetPagingList(2);
+
+        Assert.assertTrue(((KeysetPagingQuery<Customer>) pagingList).isKeyset());
+
+        List<Integer> pagedIds = new ArrayList<Integer>();
+        Page<Customer> page = pagingList.getPage(0);
+        while (true) {
+            List<Customer> list = page.getList();
+            for (Customer customer : list) {
+                pagedIds.add(customer.getId());
+            }
+            if (!page.hasNext()) {
+                break;
+            }
+            page = page.next();
+        }
+
+        Assert.assertEquals(customers.size(), pagedIds.size());
+        for (int i = 0; i < customers.size(); i++) {
+            Assert.assertEquals(customers.get(i).getId(), pagedIds.get(i));
+        }
+    }
+
+    public void testConcurrentPages() throws InterruptedException {
+
+        ResetBasicData.reset();
+
+        int count = Ebean.find(Customer.class).findRowCount();
+
+        // fetch ahead and other threads get the same pages concurrently
+        final PagingList<Customer> pagingList = Ebean.find(Customer.class)
+            .order().desc("name")
+            .findKeysetPagingList(1);
+
+        final List<Integer> sizes = Collections.synchronizedList(new ArrayList<Integer>());
+        Thread[] threads = new Thread[4];
+        for (int i = 0; i < threads.length; i++) {
+            threads[i] = new Thread() {
+                public void run() {
+                    int size = 0;
+                    Page<Customer> page = pagingList.getPage(0);
+                    while (true) {
+                        size += page.getList().size();
+                        if (!page.hasNext()) {
+                            break;
+                        }
+                        page = page.next();
+                    }
+                    sizes.add(Integer.valueOf(size));
+                }
+            };
+            threads[i].setDaemon(true);
+            threads[i].start();
+        }
+        for (int i = 0; i < threads.length; i++) {
+            threads[i].join(30000);
+            Assert.assertFalse(threads[i].isAlive());
+        }
+
+        Assert.assertEquals(threads.length, sizes.size());
+        for (Integer size : sizes) {
+            Assert.assertEquals(count, size.intValue());
+        }
+    }
+
+    public void testNullableOrderByUsesOffset() {
+
+        ResetBasicData.reset();
+
+        List<Order> orders = Ebean.find(Order.class)
+            .order("shipDate, id")
+            .findList();
+
+        // shipDate is nullable so rows could be skipped with keyset paging
+        PagingList<Order> pagingList = Ebean.find(Order.class)
+            .order().asc("shipDate")
+            .findKeysetPagingList(2);
+
+        Assert.assertFalse(((KeysetPagingQuery<Order>) pagingList).isKeyset());
+
+        List<Order> all = pagingList.setFetchAhead(false).getAsList();
+        Assert.assertEquals(orders.size(), all.size());
+        for (int i = 0; i < orders.size(); i++) {
+            Assert.assertEquals(orders.get(i).getId(), all.get(i).getId());
+        }
+    }
+
+    public void testGetAsList() {
+
+        ResetBasicData.reset();
+
+        List<Order> orders = Ebean.find(Order.class)
+            .order().asc("id")
+            .findList();
+
+        List<Order> all = Ebean.find(Order.class)
+            .where().gt("id", 0)
+            .findKeysetPagingList(3)
+            .setFetchAhead(false)
+            .getAsList();
+
+        Assert.assertEquals(orders.size(), all.size());
+        for (int i = 0; i < orders.size(); i++) {
+            Assert.assertEquals(orders.get(i).getId(), all.get(i).getId());
+        }
+    }
+}
@@ -0,0 +1,76 @@
+package com.avaje.tests.query;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import junit.framework.TestCase;
+
+import org.junit.Assert;
+
+import com.avaje.ebean.Ebean;
+import com.avaje.ebean.Expr;
+import com.avaje.ebean.Expression;
+import com.avaje.ebean.QueryResultVisitor;
+import com.avaje.tests.model.basic.Order;
+import com.avaje.tests.model.basic.ResetBasicData;
+
+public class TestQueryFindVisitParallel extends TestCase {
+
+    public void testIdPartitions() {
+
+        ResetBasicData.reset();
+
+        List<Order> orders = Ebean.find(Order.class).findList();
+
+        final Set<Integer> visitedIds = Collections.synchronizedSet(new TreeSet<Integer>());
+        final AtomicInteger visitCount = new AtomicInteger();
+
+        Ebean.find(Order.class)
+            .fetch("customer")
+            .findVisitParallel(3, new QueryResultVisitor<Order>() {
+                public boolean accept(Order order) {
+                    visitCount.incrementAndGet();
+                    visitedIds.add(order.getId());
+                    return true;
+                }
+            });
+
+        // each row visited exactly once (partitions do not overlap)
+        Assert.assertEquals(orders.size(), visitCount.get());
+        Assert.assertEquals(orders.size(), visitedIds.size());
+        for (Order order : orders) {
+            Assert.assertTrue(visitedIds.contains(order.getId()));
+        }
+    }
+
+    public void testExpressionPartitions() {
+
+        ResetBasicData.reset();
+
+        int count = Ebean.find(Order.class).findRowCount();
+
+        List<Expression> partitions = new ArrayList<Expression>();
+        partitions.add(Expr.lt("id", 3));
+        partitions.add(Expr.ge("id", 3));
+
+        final Set<Integer> visitedIds = Collections.synchronizedSet(new TreeSet<Integer>());
+        final AtomicInteger visitCount = new AtomicInteger();
+
+        Ebean.find(Order.class)
+            .where().isNotNull("status")
+            .findVisitParallel(partitions, new QueryResultVisitor<Order>() {
+                public boolean accept(Order order) {
+                    visitCount.incrementAndGet();
+                    visitedIds.add(order.getId());
+                    return true;
+                }
+            });
+
+        Assert.assertEquals(count, visitCount.get());
+        Assert.assertEquals(count, visitedIds.size());
+    }
+}
@@ -0,0 +1,83 @@
+package com.avaje.tests.query;
+
+import java.util.List;
+
+import junit.framework.TestCase;
+
+import org.junit.Assert;
+
+import com.avaje.ebean.Ebean;
+import com.avaje.ebean.EbeanServer;
+import com.avaje.ebean.EbeanServerFactory;
+import com.avaje.ebean.FetchConfig;
+import com.avaje.ebean.config.ServerConfig;
+import com.avaje.tests.model.basic.Address;
+import com.avaje.tests.model.basic.Contact;
+import com.avaje.tests.model.basic.ContactGroup;
+import com.avaje.tests.model.basic.ContactNote;
+import com.avaje.tests.model.basic.Country;
+import com.avaje.tests.model.basic.Customer;
+import com.avaje.tests.model.basic.Order;
+import com.avaje.tests.model.basic.OrderDetail;
+import com.avaje.tests.model.basic.OrderShipment;
+import com.avaje.tests.model.basic.Product;
+import com.avaje.tests.model.basic.ResetBasicData;
+
+public class TestQueryParallelSecondaryQueries extends TestCase {
+
+  public void testSiblingQueryJoins() {
+
+    ResetBasicData.reset();
+
+    ServerConfig config = new ServerConfig();
+    config.setName("h2");
+    config.loadFromProperties();
+    config.setName("h2parallelsecondary");
+    config.setDdlGenerate(false);
+    config.setDdlRun(false);
+    config.setRegister(false);
+    config.setDefaultServer(false);
+    config.setParallelSecondaryQueries(true);
+
+    // explicitly registered so this does not depend on ebean.search.packages
+    config.addClass(Order.class);
+    config.addClass(OrderDetail.class);
+    config.addClass(OrderShipment.class);
+    config.addClass(Customer.class);
+    config.addClass(Contact.class);
+    config.addClass(ContactGroup.class);
+    config.addClass(ContactNote.class);
+    config.addClass(Address.class);
+    config.addClass(Country.class);
+    config.addClass(Product.class);
+
+    EbeanServer server = EbeanServerFactory.create(config);
+
+    // executed sequentially by the default server
+    List<Order> expected = Ebean.find(Order.class)
+        .fetch("customer", new FetchConfig().query())
+        .fetch("details", new FetchConfig().query())
+        .order().asc("id")
+        .findList();
+
+    List<Order> orders = server.find(Order.class)
+        .fetch("customer", new FetchConfig().query())
+        .fetch("details", new FetchConfig().query())
+        .fetch("details.product", new FetchConfig().query())
+        .order().asc("id")
+        .findList();
+
+    Assert.assertEquals(expected.size(), orders.size());
+    for (int i = 0; i < orders.size(); i++) {
+      Order order = orders.get(i);
+      Order expectedOrder = expected.get(i);
+      Assert.assertEquals(expectedOrder.getId(), order.getId());
+      Assert.assertEquals(expectedOrder.getCustomer().getName(), order.getCustomer().getName());
+      Assert.assertEquals(expectedOrder.getDetails().size(), order.getDetails().size());
+      for (int j = 0; j < order.getDetails().size(); j++) {
+        Assert.assertNotNull(order.getDetails().get(j).getProduct().getName());
+      }
+    }
+  }
+
+}
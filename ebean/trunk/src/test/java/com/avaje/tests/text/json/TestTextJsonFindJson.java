@@ -0,0 +1,102 @@
+package com.avaje.tests.text.json;
+
+import java.io.StringWriter;
+import java.util.List;
+
+import junit.framework.TestCase;
+
+import org.junit.Assert;
+
+import com.avaje.ebean.Ebean;
+import com.avaje.ebean.text.json.JsonContext;
+import com.avaje.ebean.text.json.JsonElement;
+import com.avaje.ebean.text.json.JsonElementArray;
+import com.avaje.ebean.text.json.JsonElementObject;
+import com.avaje.ebean.text.json.JsonWriteOptions;
+import com.avaje.ebeaninternal.server.text.json.InternalJsonParser;
+import com.avaje.tests.model.basic.Order;
+import com.avaje.tests.model.basic.ResetBasicData;
+
+public class TestTextJsonFindJson extends TestCase {
+
+    public void testFetchJoins() {
+
+        ResetBasicData.reset();
+
+        List<Order> orders = Ebean.find(Order.class)
+            .fetch("customer", "name")
+            .fetch("details")
+            .order().asc("id")
+            .findList();
+
+        StringWriter writer = new StringWriter();
+        Ebean.find(Order.class)
+            .fetch("customer", "name")
+            .fetch("details")
+            .order().asc("id")
+            .findJson(writer);
+
+        String json = writer.toString();
+        Assert.assertTrue(json.startsWith("[{"));
+        Assert.assertTrue(json.endsWith("}]"));
+        Assert.assertTrue(json.contains("\"customer\":{"));
+        Assert.assertTrue(json.contains("\"details\":["));
+
+        JsonContext jsonContext = Ebean.createJsonContext();
+        List<Order> jsonOrders = jsonContext.toList(Order.class, json);
+
+        Assert.assertEquals(orders.size(), jsonOrders.size());
+        for (int i = 0; i < orders.size(); i++) {
+            Order order = orders.get(i);
+            Order jsonOrder = jsonOrders.get(i);
+            Assert.assertEquals(order.getId(), jsonOrder.getId());
+            Assert.assertEquals(order.getStatus(), jsonOrder.getStatus());
+            Assert.assertEquals(order.getCustomer().getId(), jsonOrder.getCustomer().getId());
+            Assert.assertEquals(order.getCustomer().getName(), jsonOrder.getCustomer().getName());
+            Assert.assertEquals(order.getDetails().size(), jsonOrder.getDetails().size());
+        }
+    }
+
+    public void testPathProperties() {
+
+        ResetBasicData.reset();
+
+        JsonWriteOptions options = new JsonWriteOptions();
+        options.setRootPathProperties("status, customer");
+        options.setPathProperties("customer", "name");
+
+        StringWriter writer = new StringWriter();
+        Ebean.find(Order.class)
+            .order().asc("id")
+            .findJson(writer, options);
+
+        String json = writer.toString();
+        Assert.assertTrue(json.contains("\"status\":"));
+        Assert.assertTrue(json.contains("\"customer\":{"));
+        Assert.assertFalse(json.contains("\"orderDate\":"));
+        Assert.assertFalse(json.contains("\"details\":"));
+
+        JsonElement el = InternalJsonParser.parse(json);
+        Assert.assertTrue(el instanceof JsonElementArray);
+
+        List<JsonElement> values = ((JsonElementArray) el).getValues();
+        Assert.assertTrue(values.size() > 0);
+
+        JsonElementObject first = (JsonElementObject) values.get(0);
+        Assert.assertNotNull(first.get("status"));
+        Assert.assertNull(first.get("orderDate"));
+        Assert.assertNull(first.get("id"));
+        Order order = Ebean.find(Order.class).order().asc("id").setMaxRows(1).findUnique();
+        Assert.assertEquals(order.getCustomer().getName(), first.evalString("customer.name"));
+    }
+
+    public void testEmpty() {
+
+        StringWriter writer = new StringWriter();
+        Ebean.find(Order.class)
+            .where().eq("id", -1)
+            .findJson(writer);
+
+        Assert.assertEquals("[]", writer.toString());
+    }
+}
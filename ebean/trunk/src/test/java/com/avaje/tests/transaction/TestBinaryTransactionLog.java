@@ -0,0 +1,85 @@
+package com.avaje.tests.transaction;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintStream;
+
+import junit.framework.Assert;
+import junit.framework.TestCase;
+
+import com.avaje.ebeaninternal.server.transaction.TransactionLogBuffer;
+import com.avaje.ebeaninternal.server.transaction.log.BinaryTransactionLogReader;
+import com.avaje.ebeaninternal.server.transaction.log.BinaryTransactionLogger;
+
+public class TestBinaryTransactionLog extends TestCase {
+
+	public void testRing() throws IOException {
+
+		File dir = File.createTempFile("ebean-txnlog", "");
+		dir.delete();
+		try {
+			BinaryTransactionLogger writer = new BinaryTransactionLogger("TestTxnLog", dir.getPath(), "test_txn_", 4096, 3, true);
+			writer.start();
+			for (int i = 0; i < 500; i++) {
+				TransactionLogBuffer buffer = new TransactionLogBuffer(10, String.valueOf(i));
+				buffer.add("insert into o_customer " + i);
+				buffer.add("Commit");
+				writer.log(buffer);
+			}
+			TransactionLogBuffer noTxn = new TransactionLogBuffer(10, null);
+			noTxn.add("last \u00e9");
+			writer.log(noTxn);
+			writer.shutdown();
+			Assert.assertEquals(501, writer.getRecordCount());
+
+			String text = render(dir);
+			String[] lines = text.split("\n");
+
+			// the oldest records have been overwritten
+			Assert.assertTrue(lines.length < 1000);
+			Assert.assertFalse(text.contains("txn[0], "));
+			Assert.assertTrue(lines[lines.length - 3].startsWith("txn[499], "));
+			Assert.assertTrue(lines[lines.length - 3].endsWith(", insert into o_customer 499 "));
+			Assert.assertTrue(lines[lines.length - 2].endsWith(", Commit "));
+			Assert.assertTrue(lines[lines.length - 1].endsWith(", last \u00e9 "));
+
+			// records are in order across the files
+			int previous = -1;
+			for (int i = 0; i < lines.length - 1; i += 2) {
+				String txnId = lines[i].substring(4, lines[i].indexOf(']'));
+				int id = Integer.parseInt(txnId);
+				Assert.assertEquals(previous == -1 ? id : previous + 1, id);
+				previous = id;
+			}
+
+			// restarting continues in the next file
+			writer = new BinaryTransactionLogger("TestTxnLog", dir.getPath(), "test_txn_", 4096, 3, false);
+			writer.start();
+			TransactionLogBuffer buffer = new TransactionLogBuffer(10, "restart");
+			buffer.add("Commit");
+			writer.log(buffer);
+			writer.shutdown();
+
+			lines = render(dir).split("\n");
+			Assert.assertTrue(lines[lines.length - 1].startsWith("txn[restart], "));
+
+		} finally {
+			File[] files = dir.listFiles();
+			if (files != null) {
+				for (int i = 0; i < files.length; i++) {
+					files[i].delete();
+				}
+			}
+			dir.delete();
+		}
+	}
+
+	private String render(File dir) throws IOException {
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		PrintStream out = new PrintStream(bytes, true, "UTF-8");
+		new BinaryTransactionLogReader(dir, "test_txn_").render(out);
+		out.close();
+		return bytes.toString("UTF-8");
+	}
+}
@@ -3,6 +3,10 @@ package com.avaje.tests.unitinternal;
 import java.sql.Timestamp;
 import java.util.Arrays;
 
+import javax.crypto.Cipher;
+import javax.crypto.spec.IvParameterSpec;
+import javax.crypto.spec.SecretKeySpec;
+
 import junit.framework.Assert;
 import junit.framework.TestCase;
 
@@ -39,4 +43,36 @@ public class TestSimpleEncryptor extends TestCase {
         Assert.assertEquals(t, t1);
         
     }
+
+    public void testReuse() throws Exception {
+
+        SimpleAesEncryptor e = new SimpleAesEncryptor();
+        EncryptKey key = new BasicEncryptKey("hello");
+
+        // same result as a newly created Cipher each time
+        Cipher c = Cipher.getInstance("AES/CBC/PKCS5Padding");
+        byte[] keyBytes = "helloasldkalsdka".getBytes("UTF-8");
+        c.init(Cipher.ENCRYPT_MODE, new SecretKeySpec(keyBytes, "AES"), new IvParameterSpec(keyBytes));
+        byte[] expected = c.doFinal("test123".getBytes("UTF-8"));
+
+        for (int i = 0; i < 3; i++) {
+            Assert.assertTrue(Arrays.equals(expected, e.encryptString("test123", key)));
+            Assert.assertEquals("test123", e.decryptString(expected, key));
+        }
+
+        // a different key
+        EncryptKey other = new BasicEncryptKey("other");
+        byte[] otherData = e.encryptString("test123", other);
+        Assert.assertFalse(Arrays.equals(expected, otherData));
+        Assert.assertEquals("test123", e.decryptString(otherData, other));
+
+        try {
+            e.decrypt(new byte[]{1, 2, 3}, key);
+            Assert.fail();
+        } catch (RuntimeException ex) {
+            // expected
+        }
+        // still works after a failure
+        Assert.assertEquals("test123", e.decryptString(expected, key));
+    }
 }